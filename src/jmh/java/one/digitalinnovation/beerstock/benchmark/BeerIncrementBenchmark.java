@@ -0,0 +1,78 @@
+package one.digitalinnovation.beerstock.benchmark;
+
+import one.digitalinnovation.beerstock.dto.BeerDTO;
+import one.digitalinnovation.beerstock.exception.BeerAlreadyRegisteredException;
+import one.digitalinnovation.beerstock.exception.BeerNotFoundException;
+import one.digitalinnovation.beerstock.exception.BeerStockExceededException;
+import one.digitalinnovation.beerstock.service.BeerService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.concurrent.TimeUnit;
+
+//Todas as threads incrementam a mesma cerveja: mede a disputa pela linha no H2
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BeerIncrementBenchmark {
+
+    @Param({"synchronous", "write-behind"})
+    public String writeMode;
+
+    private ConfigurableApplicationContext context;
+    private BeerService beerService;
+    private Long beerId;
+
+    @Setup
+    public void setUp() throws BeerAlreadyRegisteredException {
+        context = BenchmarkApplication.start("beerstock.stock.write-mode=" + writeMode);
+        beerService = context.getBean(BeerService.class);
+        //Capacidade folgada para que nenhuma iteração esbarre no máximo
+        BeerDTO beerDTO = beerService.createBeer(BenchmarkApplication.beer("Contended Lager", Integer.MAX_VALUE / 2, 0));
+        beerId = beerDTO.getId();
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public BeerDTO increment1Thread() throws BeerNotFoundException, BeerStockExceededException {
+        return beerService.increment(beerId, 1);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public BeerDTO increment4Threads() throws BeerNotFoundException, BeerStockExceededException {
+        return beerService.increment(beerId, 1);
+    }
+
+    @Benchmark
+    @Threads(16)
+    public BeerDTO increment16Threads() throws BeerNotFoundException, BeerStockExceededException {
+        return beerService.increment(beerId, 1);
+    }
+
+    @Benchmark
+    @Threads(64)
+    public BeerDTO increment64Threads() throws BeerNotFoundException, BeerStockExceededException {
+        return beerService.increment(beerId, 1);
+    }
+}
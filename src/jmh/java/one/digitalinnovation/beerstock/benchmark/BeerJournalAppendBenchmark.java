@@ -0,0 +1,84 @@
+package one.digitalinnovation.beerstock.benchmark;
+
+import one.digitalinnovation.beerstock.dto.BeerDTO;
+import one.digitalinnovation.beerstock.service.BeerJournal;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+//Vazão sustentada de appends duráveis: cada chamada só retorna depois do group commit que a inclui.
+//Com 64 threads e fsync desligado as medições passam de 10M de eventos por trial
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 10)
+@Fork(1)
+public class BeerJournalAppendBenchmark {
+
+    @Param({"true", "false"})
+    public boolean fsync;
+
+    private final AtomicLong version = new AtomicLong();
+    private Path directory;
+    private ConfigurableApplicationContext context;
+    private BeerJournal beerJournal;
+    private BeerDTO beerDTO;
+
+    @Setup
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("beer-journal-append");
+        context = BenchmarkApplication.start("beerstock.journal.enabled=true",
+                "beerstock.journal.directory=" + directory,
+                "beerstock.journal.fsync=" + fsync);
+        beerJournal = context.getBean(BeerJournal.class);
+        beerDTO = BenchmarkApplication.beer("Journaled Lager", 500, 0).toBuilder().id(1L).version(0L).build();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        context.close();
+        FileSystemUtils.deleteRecursively(directory);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public void append1Thread() {
+        append();
+    }
+
+    @Benchmark
+    @Threads(16)
+    public void append16Threads() {
+        append();
+    }
+
+    @Benchmark
+    @Threads(64)
+    public void append64Threads() {
+        append();
+    }
+
+    private void append() {
+        long nextVersion = version.incrementAndGet();
+        beerJournal.stockChanged(beerDTO.toBuilder().version(nextVersion).quantity((int) (nextVersion % 500)).build());
+    }
+}
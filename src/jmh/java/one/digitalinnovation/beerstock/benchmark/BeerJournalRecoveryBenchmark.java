@@ -0,0 +1,103 @@
+package one.digitalinnovation.beerstock.benchmark;
+
+import one.digitalinnovation.beerstock.enums.BeerType;
+import one.digitalinnovation.beerstock.service.JournalFile;
+import one.digitalinnovation.beerstock.service.JournalRecord;
+import one.digitalinnovation.beerstock.service.JournalSnapshot;
+import one.digitalinnovation.beerstock.service.JournalState;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+//Tempo de replay de 10M de eventos no startup: só o journal inteiro contra snapshot mais a cauda.
+//A carga das cervejas no H2 depende do tamanho do catálogo, não do número de eventos, e fica de fora
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class BeerJournalRecoveryBenchmark {
+
+    private static final int SEGMENT_SIZE = 64 * 1024 * 1024;
+    private static final int BRANDS = 1000;
+
+    @Param({"10000000"})
+    public int events;
+
+    @Param({"100000"})
+    public int catalogSize;
+
+    //0 replaya o journal inteiro; senão há um snapshot a cada snapshotEvery eventos e só a cauda é reaplicada
+    @Param({"0", "1000000"})
+    public int snapshotEvery;
+
+    private Path directory;
+
+    @Setup
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("beer-journal-recovery");
+        JournalState state = new JournalState();
+        try (JournalFile journalFile = JournalFile.open(directory, SEGMENT_SIZE, 1L, record -> { })) {
+            BeerType[] types = BeerType.values();
+            long[] versions = new long[catalogSize + 1];
+            for (int i = 1; i <= events; i++) {
+                JournalRecord record;
+                if (i <= catalogSize) {
+                    record = JournalRecord.created(i, 0L, "Beer " + i, "Brand " + (i % BRANDS), 500, i % 500, types[i % types.length]);
+                } else {
+                    int beerId = 1 + i % catalogSize;
+                    record = JournalRecord.stockChanged(beerId, ++versions[beerId], i % 500);
+                }
+                journalFile.append(record);
+                if (snapshotEvery > 0) {
+                    state.apply(record);
+                    //O último snapshot fica snapshotEvery eventos antes do fim: a cauda reaplicada é a maior possível
+                    if (i % snapshotEvery == 0 && i < events) {
+                        snapshot(journalFile, state);
+                    }
+                }
+            }
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        FileSystemUtils.deleteRecursively(directory);
+    }
+
+    @Benchmark
+    public int recover() throws IOException {
+        JournalState state = new JournalState();
+        long fromSequence = JournalSnapshot.read(directory, state::apply).orElse(1L);
+        try (JournalFile journalFile = JournalFile.open(directory, SEGMENT_SIZE, fromSequence, state::apply)) {
+            return state.size();
+        }
+    }
+
+    private void snapshot(JournalFile journalFile, JournalState state) throws IOException {
+        long nextSequence = journalFile.nextSequence();
+        try (JournalSnapshot.Writer snapshotWriter = JournalSnapshot.Writer.create(directory, nextSequence)) {
+            for (JournalRecord beer : state.beers()) {
+                snapshotWriter.write(beer);
+            }
+            snapshotWriter.commit();
+        }
+        journalFile.deleteSegmentsBefore(nextSequence);
+    }
+}
@@ -0,0 +1,94 @@
+package one.digitalinnovation.beerstock.benchmark;
+
+import one.digitalinnovation.beerstock.dto.BeerDTO;
+import one.digitalinnovation.beerstock.dto.BeerFilterDTO;
+import one.digitalinnovation.beerstock.enums.BeerType;
+import one.digitalinnovation.beerstock.service.BeerService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+//Tempo de uma página filtrada conforme o catálogo cresce; com os índices deve crescer bem menos que o catálogo
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class BeerSearchBenchmark {
+
+    private static final int BRANDS = 1000;
+    private static final int PAGE_LIMIT = 100;
+    private static final int INSERT_BATCH_SIZE = 10_000;
+    private static final String INSERT_SQL = "INSERT INTO beer (id, name, normalized_name, brand, max, quantity, type) VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+    @Param({"10000", "100000", "1000000"})
+    public int catalogSize;
+
+    private ConfigurableApplicationContext context;
+    private BeerService beerService;
+    private BeerFilterDTO byBrand;
+    private BeerFilterDTO byTypeAndLowStock;
+    private BeerFilterDTO byNamePrefix;
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkApplication.start("beerstock.name-filter.enabled=false");
+        beerService = context.getBean(BeerService.class);
+        seed(context.getBean(JdbcTemplate.class));
+        byBrand = BeerFilterDTO.builder().brand("Brand 42").build();
+        byTypeAndLowStock = BeerFilterDTO.builder().type(BeerType.STOUT).belowPercentOfMax(10).build();
+        byNamePrefix = BeerFilterDTO.builder().namePrefix("Beer 4242").build();
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<BeerDTO> filterByBrand() {
+        return beerService.search(byBrand, 0L, PAGE_LIMIT);
+    }
+
+    @Benchmark
+    public List<BeerDTO> filterByTypeAndLowStock() {
+        return beerService.search(byTypeAndLowStock, 0L, PAGE_LIMIT);
+    }
+
+    @Benchmark
+    public List<BeerDTO> filterByNamePrefix() {
+        return beerService.search(byNamePrefix, 0L, PAGE_LIMIT);
+    }
+
+    //Insert direto via JDBC: o benchmark mede a consulta, não a carga
+    private void seed(JdbcTemplate jdbcTemplate) {
+        BeerType[] types = BeerType.values();
+        List<Object[]> batch = new ArrayList<>(INSERT_BATCH_SIZE);
+        for (int i = 1; i <= catalogSize; i++) {
+            batch.add(new Object[]{(long) i, "Beer " + i, "beer " + i, "Brand " + (i % BRANDS), 500, i % 500, types[i % types.length].name()});
+            if (batch.size() == INSERT_BATCH_SIZE) {
+                jdbcTemplate.batchUpdate(INSERT_SQL, batch);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_SQL, batch);
+        }
+    }
+}
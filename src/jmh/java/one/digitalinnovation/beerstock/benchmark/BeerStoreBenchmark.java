@@ -0,0 +1,83 @@
+package one.digitalinnovation.beerstock.benchmark;
+
+import one.digitalinnovation.beerstock.dto.BeerDTO;
+import one.digitalinnovation.beerstock.exception.BeerAlreadyRegisteredException;
+import one.digitalinnovation.beerstock.exception.BeerNotFoundException;
+import one.digitalinnovation.beerstock.exception.BeerStockExceededException;
+import one.digitalinnovation.beerstock.repository.OffHeapBeerRepository;
+import one.digitalinnovation.beerstock.service.BeerService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+//JPA sobre o H2 contra o store fora do heap, ambos através do BeerService. Sem cache de nomes, para que a
+//consulta chegue ao repositório, e com incrementos espalhados pelo catálogo em vez de uma única linha disputada
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BeerStoreBenchmark {
+
+    private static final int CATALOG_SIZE = 10_000;
+
+    @Param({"jpa", OffHeapBeerRepository.PROFILE})
+    public String store;
+
+    private ConfigurableApplicationContext context;
+    private BeerService beerService;
+    private String[] names;
+    private Long[] ids;
+
+    @Setup
+    public void setUp() throws BeerAlreadyRegisteredException {
+        context = BenchmarkApplication.start(
+                "spring.profiles.active=" + (OffHeapBeerRepository.PROFILE.equals(store) ? store : "default"),
+                "beerstock.cache.enabled=false");
+        beerService = context.getBean(BeerService.class);
+        names = new String[CATALOG_SIZE];
+        ids = new Long[CATALOG_SIZE];
+        for (int i = 0; i < CATALOG_SIZE; i++) {
+            names[i] = "Store Lager " + i;
+            ids[i] = beerService.createBeer(BenchmarkApplication.beer(names[i], Integer.MAX_VALUE / 2, 0)).getId();
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public BeerDTO findByName() throws BeerNotFoundException {
+        return beerService.findByName(names[ThreadLocalRandom.current().nextInt(CATALOG_SIZE)]);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public BeerDTO increment1Thread() throws BeerNotFoundException, BeerStockExceededException {
+        return beerService.increment(ids[ThreadLocalRandom.current().nextInt(CATALOG_SIZE)], 1);
+    }
+
+    @Benchmark
+    @Threads(16)
+    public BeerDTO increment16Threads() throws BeerNotFoundException, BeerStockExceededException {
+        return beerService.increment(ids[ThreadLocalRandom.current().nextInt(CATALOG_SIZE)], 1);
+    }
+}
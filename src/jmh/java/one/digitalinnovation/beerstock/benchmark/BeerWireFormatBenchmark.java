@@ -0,0 +1,83 @@
+package one.digitalinnovation.beerstock.benchmark;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import one.digitalinnovation.beerstock.config.BinaryFormatsConfig;
+import one.digitalinnovation.beerstock.dto.BeerDTO;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+//Compara JSON, CBOR e Smile com os mesmos ObjectMappers dos conversores HTTP.
+//O tamanho do payload de cada formato é impresso no setup
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BeerWireFormatBenchmark {
+
+    @Param({"json", "cbor", "smile"})
+    public String format;
+
+    @Param({"1000", "10000"})
+    public int size;
+
+    private ObjectMapper objectMapper;
+    private JavaType beerListType;
+    private List<BeerDTO> beers;
+    private byte[] payload;
+
+    @Setup
+    public void setUp() throws IOException {
+        objectMapper = objectMapper(format);
+        beerListType = objectMapper.getTypeFactory().constructCollectionType(List.class, BeerDTO.class);
+        beers = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            BeerDTO beerDTO = BenchmarkApplication.beer("Beer " + i, 500, i % 100);
+            beerDTO.setId((long) i);
+            beerDTO.setVersion((long) i % 10);
+            beers.add(beerDTO);
+        }
+        payload = objectMapper.writeValueAsBytes(beers);
+        System.out.printf("%n%s payload for %d beers: %d bytes (%.1f bytes/beer)%n",
+                format, size, payload.length, (double) payload.length / size);
+    }
+
+    @Benchmark
+    public byte[] encode() throws IOException {
+        return objectMapper.writeValueAsBytes(beers);
+    }
+
+    @Benchmark
+    public List<BeerDTO> decode() throws IOException {
+        return objectMapper.readValue(payload, beerListType);
+    }
+
+    private static ObjectMapper objectMapper(String format) {
+        BinaryFormatsConfig binaryFormatsConfig = new BinaryFormatsConfig();
+        switch (format) {
+            case "cbor":
+                return binaryFormatsConfig.cborHttpMessageConverter(Jackson2ObjectMapperBuilder.json()).getObjectMapper();
+            case "smile":
+                return binaryFormatsConfig.smileHttpMessageConverter(Jackson2ObjectMapperBuilder.json()).getObjectMapper();
+            default:
+                return Jackson2ObjectMapperBuilder.json().build();
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package one.digitalinnovation.beerstock.benchmark;
+
+import one.digitalinnovation.beerstock.BeerstockApplication;
+import one.digitalinnovation.beerstock.dto.BeerDTO;
+import one.digitalinnovation.beerstock.enums.BeerType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+//Sobe a aplicação completa com o H2 embarcado, sem banner e em porta aleatória
+final class BenchmarkApplication {
+
+    private BenchmarkApplication() {
+    }
+
+    static ConfigurableApplicationContext start(String... properties) {
+        System.setProperty("spring.devtools.restart.enabled", "false");
+        return new SpringApplicationBuilder(BeerstockApplication.class)
+                .properties("spring.main.banner-mode=off", "server.port=0", "logging.level.root=warn")
+                .properties(properties)
+                .run();
+    }
+
+    static BeerDTO beer(String name, int max, int quantity) {
+        return BeerDTO.builder()
+                .name(name)
+                .brand("Benchmark")
+                .max(max)
+                .quantity(quantity)
+                .type(BeerType.LAGER)
+                .build();
+    }
+}
@@ -0,0 +1,94 @@
+package one.digitalinnovation.beerstock.benchmark;
+
+import one.digitalinnovation.beerstock.exception.BeerNotFoundException;
+import one.digitalinnovation.beerstock.exception.BeerStockExceededException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+//Caminho de erro antes (stack trace + String.format no construtor) e depois (DomainException);
+//rodar com -prof gc para comparar também a alocação por operação
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DomainExceptionBenchmark {
+
+    private static final String BEER_NAME = "Brahma";
+    private static final Long BEER_ID = 1L;
+
+    @Benchmark
+    public Exception notFoundBefore() {
+        return throwAndCatch(() -> {
+            throw new StackfulBeerNotFoundException(BEER_NAME);
+        });
+    }
+
+    @Benchmark
+    public Exception notFoundAfter() {
+        return throwAndCatch(() -> {
+            throw new BeerNotFoundException(BEER_NAME);
+        });
+    }
+
+    @Benchmark
+    public Exception stockExceededBefore() {
+        return throwAndCatch(() -> {
+            throw new StackfulBeerStockExceededException(BEER_ID, 10);
+        });
+    }
+
+    @Benchmark
+    public Exception stockExceededAfter() {
+        return throwAndCatch(() -> {
+            throw new BeerStockExceededException(BEER_ID, 10);
+        });
+    }
+
+    //Mensagem lida, como faz o handler ao montar o corpo de erro
+    @Benchmark
+    public String notFoundAfterWithMessage() {
+        return throwAndCatch(() -> {
+            throw new BeerNotFoundException(BEER_NAME);
+        }).getMessage();
+    }
+
+    private static Exception throwAndCatch(ThrowingAction action) {
+        try {
+            action.run();
+            return null;
+        } catch (Exception e) {
+            return e;
+        }
+    }
+
+    @FunctionalInterface
+    private interface ThrowingAction {
+        void run() throws Exception;
+    }
+
+    //Cópias das exceções como eram antes da DomainException
+    private static final class StackfulBeerNotFoundException extends Exception {
+
+        private StackfulBeerNotFoundException(String beerName) {
+            super(String.format("Beer with name %s not found in the system.", beerName));
+        }
+    }
+
+    private static final class StackfulBeerStockExceededException extends Exception {
+
+        private StackfulBeerStockExceededException(Long id, int quantityToIncrement) {
+            super(String.format("Beers with %s ID to increment informed exceeds the max stock capacity: %s", id, quantityToIncrement));
+        }
+    }
+}
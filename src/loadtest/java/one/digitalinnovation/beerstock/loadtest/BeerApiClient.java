@@ -0,0 +1,102 @@
+package one.digitalinnovation.beerstock.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import one.digitalinnovation.beerstock.dto.BeerDTO;
+import one.digitalinnovation.beerstock.dto.QuantityDTO;
+import one.digitalinnovation.beerstock.enums.BeerType;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.OptionalDouble;
+
+class BeerApiClient {
+
+    private static final String BEERS_PATH = "/api/v1/beers";
+    private static final String METRICS_PATH = "/actuator/metrics/";
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+
+    private final HttpClient httpClient;
+    private final ObjectMapper objectMapper;
+    private final String beersUrl;
+    private final String metricsUrl;
+
+    BeerApiClient(String baseUrl, ObjectMapper objectMapper) {
+        this.httpClient = HttpClient.newBuilder()
+                .connectTimeout(REQUEST_TIMEOUT)
+                .build();
+        this.objectMapper = objectMapper;
+        this.beersUrl = baseUrl + BEERS_PATH;
+        this.metricsUrl = baseUrl + METRICS_PATH;
+    }
+
+    //Retorna o id da cerveja criada, vazio se a API recusou a criação
+    Optional<Long> create(String name) throws IOException, InterruptedException {
+        BeerDTO beerDTO = BeerDTO.builder()
+                .name(name)
+                .brand("Load Test")
+                .max(500)
+                .quantity(0)
+                .type(BeerType.LAGER)
+                .build();
+        HttpResponse<byte[]> response = send(jsonRequest(beersUrl).POST(body(beerDTO)));
+        if (response.statusCode() != 201) {
+            return Optional.empty();
+        }
+        JsonNode createdBeer = objectMapper.readTree(response.body());
+        return Optional.of(createdBeer.get("id").asLong());
+    }
+
+    boolean findByName(String name) throws IOException, InterruptedException {
+        String url = beersUrl + "/" + URLEncoder.encode(name, StandardCharsets.UTF_8).replace("+", "%20");
+        return isSuccessful(send(HttpRequest.newBuilder(URI.create(url)).GET()));
+    }
+
+    boolean list(int limit) throws IOException, InterruptedException {
+        return isSuccessful(send(HttpRequest.newBuilder(URI.create(beersUrl + "?limit=" + limit)).GET()));
+    }
+
+    boolean increment(Long id, int quantity) throws IOException, InterruptedException {
+        HttpRequest.BodyPublisher body = body(QuantityDTO.builder().quantity(quantity).build());
+        return isSuccessful(send(jsonRequest(beersUrl + "/" + id + "/increment").method("PATCH", body)));
+    }
+
+    boolean delete(Long id) throws IOException, InterruptedException {
+        return isSuccessful(send(HttpRequest.newBuilder(URI.create(beersUrl + "/" + id)).DELETE()));
+    }
+
+    //Valor atual de uma métrica do actuator, opcionalmente filtrada por uma tag no formato chave:valor
+    OptionalDouble metric(String name, String tag) throws IOException, InterruptedException {
+        String url = metricsUrl + name + (tag == null ? "" : "?tag=" + URLEncoder.encode(tag, StandardCharsets.UTF_8));
+        HttpResponse<byte[]> response = send(HttpRequest.newBuilder(URI.create(url)).GET());
+        if (!isSuccessful(response)) {
+            return OptionalDouble.empty();
+        }
+        JsonNode measurements = objectMapper.readTree(response.body()).path("measurements");
+        return measurements.size() == 0 ? OptionalDouble.empty() : OptionalDouble.of(measurements.get(0).path("value").asDouble());
+    }
+
+    private HttpRequest.Builder jsonRequest(String url) {
+        return HttpRequest.newBuilder(URI.create(url))
+                .header("Content-Type", "application/json");
+    }
+
+    private HttpRequest.BodyPublisher body(Object value) throws IOException {
+        return HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(value));
+    }
+
+    private HttpResponse<byte[]> send(HttpRequest.Builder request) throws IOException, InterruptedException {
+        return httpClient.send(request.timeout(REQUEST_TIMEOUT).build(), HttpResponse.BodyHandlers.ofByteArray());
+    }
+
+    private boolean isSuccessful(HttpResponse<byte[]> response) {
+        return response.statusCode() / 100 == 2;
+    }
+}
@@ -0,0 +1,98 @@
+package one.digitalinnovation.beerstock.loadtest;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+//Relatório por operação em milissegundos; a comparação com o baseline usa apenas os percentis corrigidos
+class LatencyReport {
+
+    private static final String[] PERCENTILE_NAMES = {"p50", "p99", "p999"};
+    private static final double[] PERCENTILES = {50.0, 99.0, 99.9};
+    private static final double NANOS_PER_MILLI = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private static final String SERVER_KEY = "server";
+
+    private final Map<String, Map<String, Number>> operations = new LinkedHashMap<>();
+    private final Map<String, Number> server;
+
+    LatencyReport(Map<LoadTestOperation, OperationStats> stats, Map<String, Number> server) {
+        stats.forEach((operation, operationStats) -> operations.put(operation.getKey(), summary(operationStats)));
+        this.server = server;
+    }
+
+    void print() {
+        System.out.printf("%-10s %8s %7s %7s %10s %10s %10s %10s %12s%n",
+                "operation", "count", "errors", "skipped", "p50 ms", "p99 ms", "p999 ms", "max ms", "p99 svc ms");
+        operations.forEach((operation, summary) -> System.out.printf("%-10s %8d %7d %7d %10.2f %10.2f %10.2f %10.2f %12.2f%n",
+                operation, summary.get("count").longValue(), summary.get("errors").longValue(),
+                summary.get("skipped").longValue(), summary.get("p50").doubleValue(), summary.get("p99").doubleValue(),
+                summary.get("p999").doubleValue(), summary.get("max").doubleValue(), summary.get("serviceP99").doubleValue()));
+        if (!server.isEmpty()) {
+            System.out.printf("server: peak %d live threads, peak %.1f MB heap used%n",
+                    server.get("peakThreads").longValue(), server.get("peakHeapMb").doubleValue());
+        }
+    }
+
+    void write(Path path, ObjectMapper objectMapper) throws IOException {
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+        //O resumo do servidor só é informativo: compare() ignora a chave por não estar entre as operações
+        Map<String, Map<String, Number>> report = new LinkedHashMap<>(operations);
+        if (!server.isEmpty()) {
+            report.put(SERVER_KEY, server);
+        }
+        objectMapper.writerWithDefaultPrettyPrinter().writeValue(path.toFile(), report);
+    }
+
+    //Regressões em relação ao baseline, considerando a tolerância relativa informada
+    List<String> compare(Path baselinePath, double tolerance, ObjectMapper objectMapper) throws IOException {
+        Map<String, Map<String, Double>> baseline = objectMapper.readValue(baselinePath.toFile(),
+                new TypeReference<Map<String, Map<String, Double>>>() {
+                });
+        List<String> regressions = new ArrayList<>();
+        baseline.forEach((operation, baselineSummary) -> {
+            Map<String, Number> summary = operations.get(operation);
+            if (summary == null) {
+                return;
+            }
+            for (String percentile : PERCENTILE_NAMES) {
+                Double baselineValue = baselineSummary.get(percentile);
+                double value = summary.get(percentile).doubleValue();
+                if (baselineValue != null && value > baselineValue * (1 + tolerance)) {
+                    regressions.add(String.format("%s %s regressed: %.2f ms (baseline %.2f ms, tolerance %.0f%%)",
+                            operation, percentile, value, baselineValue, tolerance * 100));
+                }
+            }
+        });
+        return regressions;
+    }
+
+    private static Map<String, Number> summary(OperationStats stats) {
+        Histogram responseTime = stats.getResponseTime();
+        Map<String, Number> summary = new LinkedHashMap<>();
+        summary.put("count", responseTime.getTotalCount());
+        summary.put("errors", stats.getErrors().sum());
+        summary.put("skipped", stats.getSkipped().sum());
+        for (int i = 0; i < PERCENTILES.length; i++) {
+            summary.put(PERCENTILE_NAMES[i], millis(responseTime.getValueAtPercentile(PERCENTILES[i])));
+        }
+        summary.put("max", millis(responseTime.getMaxValue()));
+        summary.put("serviceP99", millis(stats.getServiceTime().getValueAtPercentile(99.0)));
+        return summary;
+    }
+
+    private static double millis(long nanos) {
+        return nanos / NANOS_PER_MILLI;
+    }
+}
@@ -0,0 +1,158 @@
+package one.digitalinnovation.beerstock.loadtest;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+//Gerador de carga em taxa constante (modelo aberto): cada requisição tem um instante planejado e a latência
+//conta a partir dele, então um servidor lento não reduz a carga nem esconde a fila que causou
+@Slf4j
+class LoadGenerator {
+
+    private static final int LIST_LIMIT = 50;
+    private static final long TERMINATION_TIMEOUT_SECONDS = 60;
+
+    private final LoadTestConfig config;
+    private final BeerApiClient client;
+    private final LoadTestOperation[] weightedOperations;
+    private final String runId = Long.toString(System.currentTimeMillis(), 36);
+    private final AtomicLong nameSequence = new AtomicLong();
+    private final List<SeedBeer> seedBeers = new ArrayList<>();
+    private final Queue<Long> createdIds = new ConcurrentLinkedQueue<>();
+
+    LoadGenerator(LoadTestConfig config, BeerApiClient client) {
+        this.config = config;
+        this.client = client;
+        this.weightedOperations = weightedOperations(config.getMix());
+    }
+
+    //Cervejas usadas por find e increment; delete só remove as criadas durante o teste
+    void seed() throws IOException, InterruptedException {
+        for (int i = 0; i < config.getSeedBeers(); i++) {
+            String name = nextName("Seed");
+            Long id = client.create(name)
+                    .orElseThrow(() -> new IllegalStateException(String.format("Could not seed beer %s", name)));
+            seedBeers.add(new SeedBeer(id, name));
+        }
+        boolean needsSeedBeers = config.getMix().containsKey(LoadTestOperation.FIND)
+                || config.getMix().containsKey(LoadTestOperation.INCREMENT);
+        if (needsSeedBeers && seedBeers.isEmpty()) {
+            throw new IllegalArgumentException("find and increment operations need loadtest.seed-beers greater than zero");
+        }
+    }
+
+    Map<LoadTestOperation, OperationStats> run(Duration phaseDuration) throws InterruptedException {
+        Map<LoadTestOperation, OperationStats> stats = new EnumMap<>(LoadTestOperation.class);
+        for (LoadTestOperation operation : config.getMix().keySet()) {
+            stats.put(operation, new OperationStats());
+        }
+
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("load-test-");
+        threadFactory.setDaemon(true);
+        ExecutorService executor = Executors.newFixedThreadPool(config.getConnections(), threadFactory);
+        long intervalNanos = TimeUnit.SECONDS.toNanos(1) / config.getRate();
+        long startNanos = System.nanoTime();
+        long endNanos = startNanos + phaseDuration.toNanos();
+        for (long i = 0; ; i++) {
+            long intendedStartNanos = startNanos + i * intervalNanos;
+            if (intendedStartNanos >= endNanos) {
+                break;
+            }
+            parkUntil(intendedStartNanos);
+            LoadTestOperation operation = weightedOperations[ThreadLocalRandom.current().nextInt(weightedOperations.length)];
+            executor.execute(() -> execute(operation, intendedStartNanos, stats.get(operation)));
+        }
+        executor.shutdown();
+        if (!executor.awaitTermination(TERMINATION_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+            log.warn("Load test requests still running after {}s, abandoning them", TERMINATION_TIMEOUT_SECONDS);
+            executor.shutdownNow();
+        }
+        return stats;
+    }
+
+    private void execute(LoadTestOperation operation, long intendedStartNanos, OperationStats stats) {
+        long actualStartNanos = System.nanoTime();
+        boolean success;
+        try {
+            switch (operation) {
+                case CREATE:
+                    success = client.create(nextName("Load")).map(createdIds::add).isPresent();
+                    break;
+                case FIND:
+                    success = client.findByName(randomSeedBeer().getName());
+                    break;
+                case LIST:
+                    success = client.list(LIST_LIMIT);
+                    break;
+                case INCREMENT:
+                    success = client.increment(randomSeedBeer().getId(), 1);
+                    break;
+                case DELETE:
+                    Long id = createdIds.poll();
+                    if (id == null) {
+                        stats.skip();
+                        return;
+                    }
+                    success = client.delete(id);
+                    break;
+                default:
+                    throw new IllegalStateException(String.format("Unknown load test operation %s", operation));
+            }
+        } catch (IOException e) {
+            success = false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        stats.record(intendedStartNanos, actualStartNanos, System.nanoTime(), success);
+    }
+
+    private SeedBeer randomSeedBeer() {
+        return seedBeers.get(ThreadLocalRandom.current().nextInt(seedBeers.size()));
+    }
+
+    private String nextName(String prefix) {
+        return String.format("%s %s-%d", prefix, runId, nameSequence.incrementAndGet());
+    }
+
+    private static void parkUntil(long deadlineNanos) {
+        long remainingNanos;
+        while ((remainingNanos = deadlineNanos - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(remainingNanos);
+        }
+    }
+
+    private static LoadTestOperation[] weightedOperations(Map<LoadTestOperation, Integer> mix) {
+        List<LoadTestOperation> operations = new ArrayList<>();
+        mix.forEach((operation, weight) -> {
+            for (int i = 0; i < weight; i++) {
+                operations.add(operation);
+            }
+        });
+        return operations.toArray(new LoadTestOperation[0]);
+    }
+
+    @Getter
+    @AllArgsConstructor
+    private static final class SeedBeer {
+
+        private final Long id;
+        private final String name;
+    }
+}
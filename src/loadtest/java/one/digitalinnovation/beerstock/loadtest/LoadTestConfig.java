@@ -0,0 +1,73 @@
+package one.digitalinnovation.beerstock.loadtest;
+
+import lombok.Builder;
+import lombok.Getter;
+import org.springframework.boot.convert.DurationStyle;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+
+//Configuração lida das propriedades de sistema -Dloadtest.*, com os mesmos padrões do perfil loadtest do pom
+@Getter
+@Builder
+class LoadTestConfig {
+
+    private static final String PREFIX = "loadtest.";
+
+    private final String baseUrl;
+    //Só valem quando a aplicação sobe localmente: vazio mantém o modo do application.properties
+    private final String executionMode;
+    private final Duration storeLatency;
+    private final int rate;
+    private final Duration warmup;
+    private final Duration duration;
+    private final int connections;
+    private final int seedBeers;
+    private final Map<LoadTestOperation, Integer> mix;
+    private final Path baseline;
+    private final Path report;
+    private final double tolerance;
+    private final boolean updateBaseline;
+
+    static LoadTestConfig fromSystemProperties() {
+        return LoadTestConfig.builder()
+                .baseUrl(property("base-url", ""))
+                .executionMode(property("execution-mode", ""))
+                .storeLatency(DurationStyle.detectAndParse(property("store-latency", "0ms")))
+                .rate(Integer.parseInt(property("rate", "200")))
+                .warmup(DurationStyle.detectAndParse(property("warmup", "10s")))
+                .duration(DurationStyle.detectAndParse(property("duration", "60s")))
+                .connections(Integer.parseInt(property("connections", "32")))
+                .seedBeers(Integer.parseInt(property("seed-beers", "200")))
+                .mix(parseMix(property("mix", "create=10,find=50,list=20,increment=15,delete=5")))
+                .baseline(Paths.get(property("baseline", "src/loadtest/baseline.json")))
+                .report(Paths.get(property("report", "target/loadtest-report.json")))
+                .tolerance(Double.parseDouble(property("tolerance", "0.2")))
+                .updateBaseline(Boolean.parseBoolean(property("update-baseline", "false")))
+                .build();
+    }
+
+    private static String property(String name, String defaultValue) {
+        String value = System.getProperty(PREFIX + name);
+        return value == null || value.isBlank() ? defaultValue : value.trim();
+    }
+
+    private static Map<LoadTestOperation, Integer> parseMix(String mix) {
+        Map<LoadTestOperation, Integer> weights = new EnumMap<>(LoadTestOperation.class);
+        for (String entry : mix.split(",")) {
+            String[] keyAndWeight = entry.split("=");
+            LoadTestOperation operation = LoadTestOperation.valueOf(keyAndWeight[0].trim().toUpperCase());
+            int weight = Integer.parseInt(keyAndWeight[1].trim());
+            if (weight > 0) {
+                weights.put(operation, weight);
+            }
+        }
+        if (weights.isEmpty()) {
+            throw new IllegalArgumentException(String.format("Load test mix %s has no operation with positive weight", mix));
+        }
+        return weights;
+    }
+}
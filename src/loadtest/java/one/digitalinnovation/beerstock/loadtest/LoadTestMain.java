@@ -0,0 +1,83 @@
+package one.digitalinnovation.beerstock.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import one.digitalinnovation.beerstock.BeerstockApplication;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+//Sem loadtest.base-url sobe a BeerstockApplication localmente em porta aleatória e testa contra ela
+@Slf4j
+public class LoadTestMain {
+
+    public static void main(String[] args) throws Exception {
+        LoadTestConfig config = LoadTestConfig.fromSystemProperties();
+        ObjectMapper objectMapper = new ObjectMapper();
+        ConfigurableApplicationContext context = null;
+        String baseUrl = config.getBaseUrl();
+        if (baseUrl.isEmpty()) {
+            System.setProperty("spring.devtools.restart.enabled", "false");
+            context = new SpringApplicationBuilder(BeerstockApplication.class)
+                    .properties(localProperties(config).toArray(new String[0]))
+                    .run();
+            baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+        }
+
+        LatencyReport report;
+        try {
+            BeerApiClient client = new BeerApiClient(baseUrl, objectMapper);
+            LoadGenerator loadGenerator = new LoadGenerator(config, client);
+            loadGenerator.seed();
+            log.info("Warming up {} for {} at {} req/s", baseUrl, config.getWarmup(), config.getRate());
+            loadGenerator.run(config.getWarmup());
+            log.info("Measuring {} for {} at {} req/s", baseUrl, config.getDuration(), config.getRate());
+            ServerSampler serverSampler = new ServerSampler(client);
+            serverSampler.start();
+            Map<LoadTestOperation, OperationStats> stats = loadGenerator.run(config.getDuration());
+            report = new LatencyReport(stats, serverSampler.stop());
+        } finally {
+            if (context != null) {
+                context.close();
+            }
+        }
+
+        report.print();
+        report.write(config.getReport(), objectMapper);
+        if (config.isUpdateBaseline()) {
+            Files.copy(config.getReport(), config.getBaseline(), StandardCopyOption.REPLACE_EXISTING);
+            log.info("Baseline updated at {}", config.getBaseline());
+            return;
+        }
+        if (!Files.exists(config.getBaseline())) {
+            log.warn("No baseline at {}, run with -Dloadtest.update-baseline=true to record one", config.getBaseline());
+            return;
+        }
+        List<String> regressions = report.compare(config.getBaseline(), config.getTolerance(), objectMapper);
+        if (!regressions.isEmpty()) {
+            regressions.forEach(log::error);
+            System.exit(1);
+        }
+        log.info("No latency regression against {}", config.getBaseline());
+    }
+
+    //Modo de execução e banco lento só podem ser escolhidos quando a aplicação sobe aqui
+    private static List<String> localProperties(LoadTestConfig config) {
+        List<String> properties = new ArrayList<>(List.of("spring.main.banner-mode=off", "server.port=0",
+                "logging.level.root=warn", "logging.level.one.digitalinnovation.beerstock.loadtest=info"));
+        if (!config.getExecutionMode().isEmpty()) {
+            properties.add("beerstock.execution.mode=" + config.getExecutionMode());
+        }
+        if (!config.getStoreLatency().isZero()) {
+            System.setProperty(SlowStoreStatementInspector.LATENCY_PROPERTY, config.getStoreLatency().toMillis() + "ms");
+            properties.add("spring.jpa.properties.hibernate.session_factory.statement_inspector="
+                    + SlowStoreStatementInspector.class.getName());
+        }
+        return properties;
+    }
+}
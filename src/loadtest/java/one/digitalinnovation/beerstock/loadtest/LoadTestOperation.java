@@ -0,0 +1,17 @@
+package one.digitalinnovation.beerstock.loadtest;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+enum LoadTestOperation {
+
+    CREATE("create"),
+    FIND("find"),
+    LIST("list"),
+    INCREMENT("increment"),
+    DELETE("delete");
+
+    private final String key;
+}
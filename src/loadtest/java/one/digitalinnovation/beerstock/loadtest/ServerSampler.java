@@ -0,0 +1,65 @@
+package one.digitalinnovation.beerstock.loadtest;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.DoubleAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+//Picos de threads vivas e heap usado do servidor, lidos pelo actuator durante a medição. Com a aplicação local
+//o valor inclui as threads do próprio gerador, que são as mesmas em qualquer modo de execução
+@Slf4j
+class ServerSampler {
+
+    private static final long SAMPLE_INTERVAL_MILLIS = 500;
+    private static final double BYTES_PER_MEGABYTE = 1024 * 1024;
+
+    private final BeerApiClient client;
+    private final DoubleAccumulator peakThreads = new DoubleAccumulator(Math::max, 0);
+    private final DoubleAccumulator peakHeapBytes = new DoubleAccumulator(Math::max, 0);
+    private final LongAdder samples = new LongAdder();
+    private ScheduledExecutorService sampler;
+
+    ServerSampler(BeerApiClient client) {
+        this.client = client;
+    }
+
+    void start() {
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("load-test-sampler-");
+        threadFactory.setDaemon(true);
+        sampler = Executors.newSingleThreadScheduledExecutor(threadFactory);
+        sampler.scheduleAtFixedRate(this::sample, 0, SAMPLE_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    //Vazio se o servidor não expõe as métricas do actuator
+    Map<String, Number> stop() throws InterruptedException {
+        sampler.shutdown();
+        sampler.awaitTermination(SAMPLE_INTERVAL_MILLIS * 2, TimeUnit.MILLISECONDS);
+        Map<String, Number> summary = new LinkedHashMap<>();
+        if (samples.sum() > 0) {
+            summary.put("peakThreads", (long) peakThreads.get());
+            summary.put("peakHeapMb", peakHeapBytes.get() / BYTES_PER_MEGABYTE);
+        }
+        return summary;
+    }
+
+    private void sample() {
+        try {
+            client.metric("jvm.threads.live", null).ifPresent(threads -> {
+                peakThreads.accumulate(threads);
+                samples.increment();
+            });
+            client.metric("jvm.memory.used", "area:heap").ifPresent(peakHeapBytes::accumulate);
+        } catch (IOException e) {
+            log.debug("Could not sample server metrics", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package one.digitalinnovation.beerstock.loadtest;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.springframework.boot.convert.DurationStyle;
+
+import java.util.concurrent.TimeUnit;
+
+//Simula um banco lento: cada comando SQL preparado pelo Hibernate espera loadtest.store-latency segurando a conexão.
+//Registrado pela LoadTestMain só quando a aplicação sobe localmente com latência maior que zero
+public class SlowStoreStatementInspector implements StatementInspector {
+
+    static final String LATENCY_PROPERTY = "loadtest.store-latency";
+
+    private final long latencyNanos = DurationStyle.detectAndParse(System.getProperty(LATENCY_PROPERTY, "0ms")).toNanos();
+
+    @Override
+    public String inspect(String sql) {
+        try {
+            TimeUnit.NANOSECONDS.sleep(latencyNanos);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return sql;
+    }
+}
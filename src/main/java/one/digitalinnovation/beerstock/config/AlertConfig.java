@@ -0,0 +1,17 @@
+package one.digitalinnovation.beerstock.config;
+
+import one.digitalinnovation.beerstock.service.AlertNotifier;
+import one.digitalinnovation.beerstock.service.LoggingAlertNotifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class AlertConfig {
+
+    @Bean
+    @ConditionalOnMissingBean(AlertNotifier.class)
+    public AlertNotifier alertNotifier() {
+        return new LoggingAlertNotifier();
+    }
+}
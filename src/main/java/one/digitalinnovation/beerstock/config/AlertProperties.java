@@ -0,0 +1,43 @@
+package one.digitalinnovation.beerstock.config;
+
+import lombok.Data;
+import one.digitalinnovation.beerstock.enums.AlertCondition;
+import one.digitalinnovation.beerstock.enums.BeerType;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@ConfigurationProperties(prefix = "beerstock.alerts")
+public class AlertProperties {
+
+    private boolean enabled = true;
+
+    //Distância, em fração do max, que a quantidade precisa voltar além do threshold para o alerta ser encerrado
+    private double hysteresis = 0.05;
+
+    //Alertas aguardando o notifier; com a fila cheia os novos são descartados e contados
+    private int queueCapacity = 1000;
+
+    private List<Rule> rules = new ArrayList<>();
+
+    @Data
+    public static class Rule {
+
+        private String name;
+
+        private AlertCondition condition;
+
+        //Fração do max: 0.1 com BELOW é "quantity < 10% do max", 1.0 com AT_OR_ABOVE é "quantity == max"
+        private double threshold;
+
+        //Sem beerId nem type a regra vale para todas as cervejas
+        private Long beerId;
+
+        private BeerType type;
+
+        //Vazio usa o hysteresis global
+        private Double hysteresis;
+    }
+}
@@ -0,0 +1,21 @@
+package one.digitalinnovation.beerstock.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "beerstock.cache")
+public class BeerCacheProperties {
+
+    private boolean enabled = true;
+
+    private long maximumSize = 10_000;
+
+    //Janela máxima em que uma entrada pode ficar desatualizada em relação ao banco
+    private Duration ttl = Duration.ofSeconds(30);
+
+    //Quando ligado, a quantidade em estoque sempre vem do banco; só os campos estáticos vêm do cache
+    private boolean strictQuantity = false;
+}
@@ -0,0 +1,40 @@
+package one.digitalinnovation.beerstock.config;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import one.digitalinnovation.beerstock.enums.BeerType;
+
+import java.io.IOException;
+
+//BeerType como inteiro pequeno (BeerType.code) nos formatos binários; o JSON continua com o nome
+public class BeerTypeCodeModule extends SimpleModule {
+
+    public BeerTypeCodeModule() {
+        super("BeerTypeCodeModule");
+        addSerializer(BeerType.class, new StdSerializer<>(BeerType.class) {
+            @Override
+            public void serialize(BeerType type, JsonGenerator generator, SerializerProvider provider) throws IOException {
+                generator.writeNumber(type.getCode());
+            }
+        });
+        addDeserializer(BeerType.class, new StdDeserializer<>(BeerType.class) {
+            @Override
+            public BeerType deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+                if (parser.currentToken() != JsonToken.VALUE_NUMBER_INT) {
+                    return (BeerType) context.handleUnexpectedToken(BeerType.class, parser);
+                }
+                try {
+                    return BeerType.fromCode(parser.getIntValue());
+                } catch (IllegalArgumentException e) {
+                    return (BeerType) context.handleWeirdNumberValue(BeerType.class, parser.getIntValue(), e.getMessage());
+                }
+            }
+        });
+    }
+}
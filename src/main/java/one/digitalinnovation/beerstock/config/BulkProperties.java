@@ -0,0 +1,12 @@
+package one.digitalinnovation.beerstock.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties(prefix = "beerstock.bulk")
+public class BulkProperties {
+
+    //Mantido igual ao hibernate.jdbc.batch_size para que cada chunk vire um único batch de inserts
+    private int chunkSize = 50;
+}
@@ -0,0 +1,19 @@
+package one.digitalinnovation.beerstock.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "beerstock.coalescing")
+public class CoalescingProperties {
+
+    private boolean enabled = true;
+
+    //Acima disso, quem chega faz a própria consulta em vez de entrar na fila da consulta em andamento
+    private int maxWaiters = 1000;
+
+    //Tempo máximo esperando a consulta em andamento antes de consultar por conta própria
+    private Duration timeout = Duration.ofMillis(500);
+}
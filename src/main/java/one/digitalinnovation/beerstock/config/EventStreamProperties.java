@@ -0,0 +1,31 @@
+package one.digitalinnovation.beerstock.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "beerstock.events")
+public class EventStreamProperties {
+
+    //Eventos mantidos para assinantes atrasados e para retomar pelo Last-Event-ID; arredondado para potência de 2
+    private int bufferSize = 8192;
+
+    //Eventos lidos por assinante a cada envio, antes de agrupar por cerveja
+    private int batchSize = 512;
+
+    private Duration dispatchInterval = Duration.ofMillis(100);
+
+    //Eventos aguardando envio por assinante; quem enche a fila é desconectado
+    private int subscriberQueueSize = 1024;
+
+    //Tempo máximo com um envio pendente antes de desconectar o assinante
+    private Duration sendTimeout = Duration.ofSeconds(10);
+
+    //Comentário SSE enviado a quem ficou sem eventos, para proxies não derrubarem a conexão ociosa
+    private Duration heartbeatInterval = Duration.ofSeconds(15);
+
+    //Ao expirar o EventSource reconecta sozinho, enviando o Last-Event-ID
+    private Duration emitterTimeout = Duration.ofMinutes(30);
+}
@@ -0,0 +1,23 @@
+package one.digitalinnovation.beerstock.config;
+
+import lombok.Data;
+import one.digitalinnovation.beerstock.enums.ExecutionMode;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "beerstock.execution")
+public class ExecutionProperties {
+
+    private ExecutionMode mode = ExecutionMode.BLOCKING;
+
+    //No modo async, threads que fazem as chamadas ao banco; acima do pool de conexões elas só esperariam conexão
+    private int storePoolSize = 10;
+
+    //Requisições aguardando uma thread livre; com a fila cheia a API responde 503 em vez de acumular latência
+    private int storeQueueCapacity = 500;
+
+    //Tempo para as chamadas já aceitas terminarem quando a aplicação para
+    private Duration shutdownTimeout = Duration.ofSeconds(10);
+}
@@ -0,0 +1,30 @@
+package one.digitalinnovation.beerstock.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+@Data
+@ConfigurationProperties(prefix = "beerstock.journal")
+public class JournalProperties {
+
+    //Desligado, o H2 em memória continua sendo a única cópia do estoque e tudo se perde no restart
+    private boolean enabled = false;
+
+    private String directory = "data/journal";
+
+    //Cada segmento é mapeado inteiro em memória; segmentos anteriores ao último snapshot são apagados
+    private DataSize segmentSize = DataSize.ofMegabytes(64);
+
+    //Um force no disco por lote de gravações (group commit); false confia no page cache, que sobrevive
+    //à queda do processo mas não à do sistema operacional
+    private boolean fsync = true;
+
+    private int maxBatchSize = 1024;
+
+    //Gravações aguardando o writer; com a fila cheia quem grava espera
+    private int queueCapacity = 65536;
+
+    //Limita o replay do startup à cauda gravada desde o último snapshot
+    private long snapshotIntervalMs = 60000;
+}
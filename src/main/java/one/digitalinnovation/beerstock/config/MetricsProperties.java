@@ -0,0 +1,12 @@
+package one.digitalinnovation.beerstock.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties(prefix = "beerstock.metrics")
+public class MetricsProperties {
+
+    //Cerveja conta como "perto do máximo" quando quantity >= max * nearMaxRatio
+    private double nearMaxRatio = 0.9;
+}
@@ -0,0 +1,16 @@
+package one.digitalinnovation.beerstock.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties(prefix = "beerstock.name-filter")
+public class NameFilterProperties {
+
+    private boolean enabled = true;
+
+    //Dimensionamento do filtro: memória = contadores de 4 bits para expectedNames nomes na taxa de falso positivo pedida
+    private long expectedNames = 100_000;
+
+    private double falsePositiveRate = 0.01;
+}
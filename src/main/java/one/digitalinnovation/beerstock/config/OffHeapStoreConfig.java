@@ -0,0 +1,18 @@
+package one.digitalinnovation.beerstock.config;
+
+import one.digitalinnovation.beerstock.repository.BeerRepository;
+import one.digitalinnovation.beerstock.repository.OffHeapBeerRepository;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.FilterType;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+
+//Com o profile offheap o BeerRepository do Spring Data sai do scan e o OffHeapBeerRepository ocupa o lugar;
+//as reservas continuam no JPA
+@Configuration
+@Profile(OffHeapBeerRepository.PROFILE)
+@EnableJpaRepositories(basePackageClasses = BeerRepository.class,
+        excludeFilters = @ComponentScan.Filter(type = FilterType.ASSIGNABLE_TYPE, classes = BeerRepository.class))
+public class OffHeapStoreConfig {
+}
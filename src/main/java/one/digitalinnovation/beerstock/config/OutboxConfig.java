@@ -0,0 +1,33 @@
+package one.digitalinnovation.beerstock.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import one.digitalinnovation.beerstock.service.FileOutboxSink;
+import one.digitalinnovation.beerstock.service.HttpOutboxSink;
+import one.digitalinnovation.beerstock.service.OutboxSink;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.net.URI;
+import java.nio.file.Paths;
+
+//Sinks embutidos, escolhidos por beerstock.outbox.sink; uma integração real declara o próprio bean OutboxSink
+@Configuration
+public class OutboxConfig {
+
+    @Bean
+    @ConditionalOnMissingBean(OutboxSink.class)
+    public OutboxSink outboxSink(OutboxProperties properties, ObjectMapper objectMapper, RestTemplateBuilder restTemplateBuilder) {
+        switch (properties.getSink()) {
+            case HTTP:
+                return new HttpOutboxSink(restTemplateBuilder
+                        .setConnectTimeout(properties.getHttpTimeout())
+                        .setReadTimeout(properties.getHttpTimeout())
+                        .build(), URI.create(properties.getHttpUrl()));
+            case FILE:
+            default:
+                return new FileOutboxSink(Paths.get(properties.getFile()), objectMapper);
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package one.digitalinnovation.beerstock.config;
+
+import lombok.Data;
+import one.digitalinnovation.beerstock.enums.OutboxSinkType;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "beerstock.outbox")
+public class OutboxProperties {
+
+    //Desligado, as mutações não gravam eventos no outbox e o relay não roda
+    private boolean enabled = false;
+
+    //Usado quando nenhum bean OutboxSink é declarado pela aplicação
+    private OutboxSinkType sink = OutboxSinkType.FILE;
+
+    //Sink FILE: um evento JSON por linha, anexado a cada lote
+    private String file = "data/outbox/stock-events.jsonl";
+
+    //Sink HTTP: cada lote vai num POST com um array JSON; qualquer status fora de 2xx repete o lote
+    private String httpUrl = "http://localhost:8081/stock-events";
+
+    private Duration httpTimeout = Duration.ofSeconds(5);
+
+    //Eventos entregues ao sink por chamada e apagados do outbox na mesma transação
+    private int batchSize = 500;
+
+    private long pollIntervalMs = 200;
+
+    //Partições por beerId drenadas em paralelo; dentro de uma partição a ordem de gravação é mantida
+    private int partitions = 4;
+}
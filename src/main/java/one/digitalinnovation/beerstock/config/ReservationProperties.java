@@ -0,0 +1,17 @@
+package one.digitalinnovation.beerstock.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "beerstock.reservation")
+public class ReservationProperties {
+
+    private Duration ttl = Duration.ofMinutes(15);
+
+    private long sweepIntervalMs = 5000;
+
+    private int sweepBatchSize = 500;
+}
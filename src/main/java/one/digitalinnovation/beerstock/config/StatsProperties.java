@@ -0,0 +1,11 @@
+package one.digitalinnovation.beerstock.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties(prefix = "beerstock.stats")
+public class StatsProperties {
+
+    private long reconcileIntervalMs = 30000;
+}
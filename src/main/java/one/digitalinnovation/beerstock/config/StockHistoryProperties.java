@@ -0,0 +1,41 @@
+package one.digitalinnovation.beerstock.config;
+
+import lombok.Data;
+import one.digitalinnovation.beerstock.enums.HistoryResolution;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "beerstock.history")
+public class StockHistoryProperties {
+
+    private boolean enabled = true;
+
+    //Blocos inteiros mais antigos que a retenção da sua resolução são descartados pela compactação
+    private Duration minuteRetention = Duration.ofDays(2);
+
+    private Duration hourRetention = Duration.ofDays(90);
+
+    private Duration dayRetention = Duration.ofDays(5 * 365);
+
+    //Limite de baldes por consulta, o que mantém a memória da resposta fixa qualquer que seja o intervalo
+    private int maxPoints = 2000;
+
+    //Intervalo usado quando a consulta não informa from
+    private Duration defaultRange = Duration.ofDays(1);
+
+    private long compactionIntervalMs = 60000;
+
+    public Duration retention(HistoryResolution resolution) {
+        switch (resolution) {
+            case MINUTE:
+                return minuteRetention;
+            case HOUR:
+                return hourRetention;
+            case DAY:
+            default:
+                return dayRetention;
+        }
+    }
+}
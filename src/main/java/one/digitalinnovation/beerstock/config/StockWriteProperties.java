@@ -0,0 +1,23 @@
+package one.digitalinnovation.beerstock.config;
+
+import lombok.Data;
+import one.digitalinnovation.beerstock.enums.StockWriteMode;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "beerstock.stock")
+public class StockWriteProperties {
+
+    private StockWriteMode writeMode = StockWriteMode.SYNCHRONOUS;
+
+    private Duration flushInterval = Duration.ofMillis(200);
+
+    private int flushThreshold = 500;
+
+    //Tentativas para updates de estoque que falham por contenção de lock no banco
+    private int maxAttempts = 3;
+
+    private Duration retryBackoff = Duration.ofMillis(10);
+}
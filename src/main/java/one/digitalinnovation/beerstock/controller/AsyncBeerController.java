@@ -0,0 +1,151 @@
+package one.digitalinnovation.beerstock.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import one.digitalinnovation.beerstock.dto.BeerDTO;
+import one.digitalinnovation.beerstock.dto.BeerFilterDTO;
+import one.digitalinnovation.beerstock.dto.BulkCreateResultDTO;
+import one.digitalinnovation.beerstock.dto.QuantityDTO;
+import one.digitalinnovation.beerstock.dto.StockAdjustmentRequestDTO;
+import one.digitalinnovation.beerstock.dto.StockAdjustmentResultDTO;
+import one.digitalinnovation.beerstock.dto.StockHistoryDTO;
+import one.digitalinnovation.beerstock.enums.HistoryResolution;
+import one.digitalinnovation.beerstock.service.BeerBulkService;
+import one.digitalinnovation.beerstock.service.BeerService;
+import one.digitalinnovation.beerstock.service.StoreExecutor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.validation.Valid;
+import java.io.IOException;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static one.digitalinnovation.beerstock.config.BinaryFormatsConfig.SMILE_MEDIA_TYPE;
+import static one.digitalinnovation.beerstock.controller.BeerController.LAST_EVENT_ID_HEADER;
+import static one.digitalinnovation.beerstock.controller.BeerController.NDJSON_MEDIA_TYPE;
+
+//Rotas do BeerController no modo async: as que consultam o banco devolvem CompletableFuture e rodam no pool do
+//StoreExecutor, liberando a thread do Tomcat. Os streams NDJSON e o SSE continuam síncronos
+@RestController
+@RequestMapping("/api/v1/beers")
+@ConditionalOnProperty(prefix = "beerstock.execution", name = "mode", havingValue = "async")
+public class AsyncBeerController {
+
+    private final BeerController beerController;
+    private final StoreExecutor storeExecutor;
+
+    @Autowired
+    public AsyncBeerController(BeerService beerService, BeerBulkService beerBulkService, ObjectMapper objectMapper,
+                               BeerEventSubscriptions beerEventSubscriptions, StoreExecutor storeExecutor) {
+        this.beerController = new BeerController(beerService, beerBulkService, objectMapper, beerEventSubscriptions);
+        this.storeExecutor = storeExecutor;
+    }
+
+    @PostMapping
+    @ResponseStatus(HttpStatus.CREATED)
+    public CompletableFuture<BeerDTO> createBeer(@RequestBody @Valid BeerDTO beerDTO) {
+        return storeExecutor.submit(() -> beerController.createBeer(beerDTO));
+    }
+
+    @PostMapping(value = "/bulk", consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE, SMILE_MEDIA_TYPE})
+    public CompletableFuture<List<BulkCreateResultDTO>> createBeers(@RequestBody List<BeerDTO> beerDTOs) {
+        return storeExecutor.submit(() -> beerController.createBeers(beerDTOs));
+    }
+
+    @PostMapping(value = "/bulk", consumes = NDJSON_MEDIA_TYPE)
+    public List<BulkCreateResultDTO> createBeersFromStream(HttpServletRequest request) throws IOException {
+        return beerController.createBeersFromStream(request);
+    }
+
+    @GetMapping("/{name}")
+    public CompletableFuture<ResponseEntity<BeerDTO>> findByName(@PathVariable String name,
+                                                                 @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+                                                                 @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        return storeExecutor.submit(() -> beerController.findByName(name, ifNoneMatch, accept));
+    }
+
+    @GetMapping
+    public CompletableFuture<ResponseEntity<List<BeerDTO>>> listBeers(@Valid BeerFilterDTO filter,
+                                                                      @RequestParam(defaultValue = "0") Long after,
+                                                                      @RequestParam(defaultValue = "100") int limit,
+                                                                      @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+                                                                      @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        //O 304 só compara a versão em memória, não vale ocupar uma thread do store com ele
+        MediaType format = BeerETags.negotiate(accept);
+        String etag = beerController.catalogETag(format);
+        if (BeerETags.matchesNoneMatch(ifNoneMatch, etag)) {
+            return CompletableFuture.completedFuture(BeerController.notModified(etag));
+        }
+        //Lido ainda na thread da requisição: a thread do store não tem o RequestContextHolder
+        UriComponentsBuilder listUri = ServletUriComponentsBuilder.fromCurrentRequestUri();
+        return storeExecutor.submit(() -> beerController.listBeers(filter, after, limit, etag, format, listUri));
+    }
+
+    @GetMapping(produces = NDJSON_MEDIA_TYPE)
+    public void streamBeers(HttpServletResponse response) throws IOException {
+        beerController.streamBeers(response);
+    }
+
+    @GetMapping(produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter events(@RequestHeader(value = LAST_EVENT_ID_HEADER, required = false) String lastEventId) {
+        return beerController.events(lastEventId);
+    }
+
+    @GetMapping("/{id}/history")
+    public CompletableFuture<StockHistoryDTO> history(@PathVariable Long id,
+                                                      @RequestParam(required = false) Instant from,
+                                                      @RequestParam(required = false) Instant to,
+                                                      @RequestParam(required = false) HistoryResolution resolution) {
+        return storeExecutor.submit(() -> beerController.history(id, from, to, resolution));
+    }
+
+    @DeleteMapping("/{id}")
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    public CompletableFuture<Void> deleteById(@PathVariable Long id,
+                                              @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        return storeExecutor.submit(() -> {
+            beerController.deleteById(id, ifMatch);
+            return null;
+        });
+    }
+
+    @PatchMapping("/stock")
+    public CompletableFuture<List<StockAdjustmentResultDTO>> adjustStock(@RequestBody @Valid StockAdjustmentRequestDTO stockAdjustmentRequestDTO) {
+        return storeExecutor.submit(() -> beerController.adjustStock(stockAdjustmentRequestDTO));
+    }
+
+    @PatchMapping("/{id}/increment")
+    public CompletableFuture<ResponseEntity<BeerDTO>> increment(@PathVariable Long id, @RequestBody @Valid QuantityDTO quantityDTO,
+                                                                @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+                                                                @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        return storeExecutor.submit(() -> beerController.increment(id, quantityDTO, ifMatch, accept));
+    }
+
+    @PatchMapping("/{id}/decrement")
+    public CompletableFuture<ResponseEntity<BeerDTO>> decrement(@PathVariable Long id, @RequestBody @Valid QuantityDTO quantityDTO,
+                                                                @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+                                                                @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        return storeExecutor.submit(() -> beerController.decrement(id, quantityDTO, ifMatch, accept));
+    }
+}
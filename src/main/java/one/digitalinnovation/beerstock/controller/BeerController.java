@@ -1,33 +1,76 @@
 package one.digitalinnovation.beerstock.controller;
 
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.RuntimeJsonMappingException;
 import lombok.AllArgsConstructor;
 import one.digitalinnovation.beerstock.dto.BeerDTO;
+import one.digitalinnovation.beerstock.dto.BeerFilterDTO;
+import one.digitalinnovation.beerstock.dto.BeerVersionDTO;
+import one.digitalinnovation.beerstock.dto.BulkCreateResultDTO;
 import one.digitalinnovation.beerstock.dto.QuantityDTO;
+import one.digitalinnovation.beerstock.dto.StockAdjustmentRequestDTO;
+import one.digitalinnovation.beerstock.dto.StockAdjustmentResultDTO;
+import one.digitalinnovation.beerstock.dto.StockHistoryDTO;
+import one.digitalinnovation.beerstock.enums.HistoryResolution;
 import one.digitalinnovation.beerstock.exception.BeerAlreadyRegisteredException;
 import one.digitalinnovation.beerstock.exception.BeerNotFoundException;
 import one.digitalinnovation.beerstock.exception.BeerStockExceededException;
+import one.digitalinnovation.beerstock.exception.BeerVersionMismatchException;
+import one.digitalinnovation.beerstock.exception.InvalidHistoryRangeException;
+import one.digitalinnovation.beerstock.service.BeerBulkService;
 import one.digitalinnovation.beerstock.service.BeerService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+import org.springframework.web.util.UriComponentsBuilder;
 
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
 import javax.validation.Valid;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Instant;
 import java.util.List;
 
+import static one.digitalinnovation.beerstock.config.BinaryFormatsConfig.SMILE_MEDIA_TYPE;
+
+//Controller do modo blocking (padrão): as chamadas ao banco rodam na thread do Tomcat e a resposta é escrita no
+//mesmo dispatch. No modo async o AsyncBeerController assume as mesmas rotas e delega para uma instância deste
 @RestController
 @RequestMapping("/api/v1/beers")
+@ConditionalOnProperty(prefix = "beerstock.execution", name = "mode", havingValue = "blocking", matchIfMissing = true)
 @AllArgsConstructor(onConstructor = @__(@Autowired))
 public class BeerController implements BeerControllerDocs {
 
+    static final String NDJSON_MEDIA_TYPE = "application/x-ndjson";
+    static final String LAST_EVENT_ID_HEADER = "Last-Event-ID";
+    private static final String LINK_HEADER = "Link";
+    private static final int MAX_PAGE_LIMIT = 1000;
+
     private final BeerService beerService;
+    private final BeerBulkService beerBulkService;
+    private final ObjectMapper objectMapper;
+    private final BeerEventSubscriptions beerEventSubscriptions;
 
     @PostMapping
     @ResponseStatus(HttpStatus.CREATED)
@@ -35,24 +78,180 @@ public class BeerController implements BeerControllerDocs {
         return beerService.createBeer(beerDTO);
     }
 
+    @PostMapping(value = "/bulk", consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE, SMILE_MEDIA_TYPE})
+    public List<BulkCreateResultDTO> createBeers(@RequestBody List<BeerDTO> beerDTOs) {
+        return beerBulkService.createBeers(beerDTOs.iterator());
+    }
+
+    @PostMapping(value = "/bulk", consumes = NDJSON_MEDIA_TYPE)
+    public List<BulkCreateResultDTO> createBeersFromStream(HttpServletRequest request) throws IOException {
+        try (MappingIterator<BeerDTO> beerDTOs = objectMapper.readerFor(BeerDTO.class).readValues(request.getInputStream())) {
+            return beerBulkService.createBeers(beerDTOs);
+        } catch (RuntimeJsonMappingException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Malformed beer line in bulk stream", e);
+        }
+    }
+
+    //Com If-None-Match a versão é conferida antes de carregar, mapear e serializar a cerveja
     @GetMapping("/{name}")
-    public BeerDTO findByName(@PathVariable String name) throws BeerNotFoundException {
-        return beerService.findByName(name);
+    public ResponseEntity<BeerDTO> findByName(@PathVariable String name,
+                                              @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+                                              @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept)
+            throws BeerNotFoundException {
+        MediaType format = BeerETags.negotiate(accept);
+        if (ifNoneMatch != null) {
+            BeerVersionDTO beerVersion = beerService.findVersionByName(name);
+            String etag = BeerETags.of(beerVersion.getId(), beerVersion.getVersion(), format);
+            if (BeerETags.matchesNoneMatch(ifNoneMatch, etag)) {
+                return notModified(etag);
+            }
+        }
+        return withETag(beerService.findByName(name), format);
     }
 
+    //A versão do catálogo é lida antes da consulta: se mudar no meio, o ETag fica mais antigo que o corpo e o cliente só refaz a busca
     @GetMapping
-    public List<BeerDTO> listBeers() {
-        return beerService.listAll();
+    public ResponseEntity<List<BeerDTO>> listBeers(@Valid BeerFilterDTO filter,
+                                                   @RequestParam(defaultValue = "0") Long after,
+                                                   @RequestParam(defaultValue = "100") int limit,
+                                                   @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+                                                   @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        MediaType format = BeerETags.negotiate(accept);
+        String etag = catalogETag(format);
+        if (BeerETags.matchesNoneMatch(ifNoneMatch, etag)) {
+            return notModified(etag);
+        }
+        return listBeers(filter, after, limit, etag, format, ServletUriComponentsBuilder.fromCurrentRequestUri());
+    }
+
+    String catalogETag(MediaType format) {
+        return BeerETags.quote(beerService.catalogVersion(), format);
+    }
+
+    //Recebe a URL já lida: no modo async esta parte roda numa thread do store, que não tem o RequestContextHolder
+    ResponseEntity<List<BeerDTO>> listBeers(BeerFilterDTO filter, Long after, int limit, String etag, MediaType format,
+                                            UriComponentsBuilder listUri) {
+        int pageLimit = Math.max(1, Math.min(limit, MAX_PAGE_LIMIT));
+        List<BeerDTO> beers = filter.hasCriteria()
+                ? beerService.search(filter, after, pageLimit)
+                : beerService.listAll(after, pageLimit);
+
+        ResponseEntity.BodyBuilder response = negotiated(ResponseEntity.ok().eTag(etag), format);
+        if (beers.size() == pageLimit) {
+            Long nextCursor = beers.get(beers.size() - 1).getId();
+            String nextPage = nextPage(listUri, filter)
+                    .queryParam("after", nextCursor)
+                    .queryParam("limit", pageLimit)
+                    .toUriString();
+            response.header(LINK_HEADER, "<" + nextPage + ">; rel=\"next\"");
+        }
+        return response.body(beers);
+    }
+
+    //Monta a query a partir do filtro já validado, não da query string: parâmetros desconhecidos não voltam no Link
+    private static UriComponentsBuilder nextPage(UriComponentsBuilder listUri, BeerFilterDTO filter) {
+        UriComponentsBuilder nextPage = listUri.cloneBuilder().replaceQuery(null);
+        addIfPresent(nextPage, "type", filter.getType());
+        addIfPresent(nextPage, "brand", filter.getBrand());
+        addIfPresent(nextPage, "namePrefix", filter.getNamePrefix());
+        addIfPresent(nextPage, "minQuantity", filter.getMinQuantity());
+        addIfPresent(nextPage, "maxQuantity", filter.getMaxQuantity());
+        addIfPresent(nextPage, "belowPercentOfMax", filter.getBelowPercentOfMax());
+        return nextPage;
+    }
+
+    private static void addIfPresent(UriComponentsBuilder uri, String name, Object value) {
+        if (value != null) {
+            uri.queryParam(name, value);
+        }
+    }
+
+    static <T> ResponseEntity<T> notModified(String etag) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+    }
+
+    //Mesma URL da listagem, escolhida pelo Accept: um caminho próprio colidiria com GET /{name}
+    @GetMapping(produces = NDJSON_MEDIA_TYPE)
+    public void streamBeers(HttpServletResponse response) throws IOException {
+        response.setContentType(NDJSON_MEDIA_TYPE);
+        response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+        ServletOutputStream outputStream = response.getOutputStream();
+        ObjectWriter beerWriter = objectMapper.writerFor(BeerDTO.class);
+        beerService.streamAll(beerDTO -> {
+            try {
+                outputStream.write(beerWriter.writeValueAsBytes(beerDTO));
+                outputStream.write('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        outputStream.flush();
+    }
+
+    //Como o NDJSON, fica na URL da listagem e é escolhido pelo Accept, que o EventSource já envia como text/event-stream.
+    //Ao reconectar ele reenvia o Last-Event-ID e o stream continua de onde parou
+    @GetMapping(produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter events(@RequestHeader(value = LAST_EVENT_ID_HEADER, required = false) String lastEventId) {
+        return beerEventSubscriptions.subscribe(lastEventId);
+    }
+
+    //from e to em ISO-8601; sem resolution o service escolhe a mais fina que cabe no limite de pontos
+    @GetMapping("/{id}/history")
+    public StockHistoryDTO history(@PathVariable Long id,
+                                   @RequestParam(required = false) Instant from,
+                                   @RequestParam(required = false) Instant to,
+                                   @RequestParam(required = false) HistoryResolution resolution)
+            throws BeerNotFoundException, InvalidHistoryRangeException {
+        return beerService.history(id, from, to, resolution);
     }
 
     @DeleteMapping("/{id}")
     @ResponseStatus(HttpStatus.NO_CONTENT)
-    public void deleteById(@PathVariable Long id) throws BeerNotFoundException {
-        beerService.deleteById(id);
+    public void deleteById(@PathVariable Long id,
+                           @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch)
+            throws BeerNotFoundException, BeerVersionMismatchException {
+        Long expectedVersion = BeerETags.expectedVersion(id, ifMatch);
+        if (expectedVersion == null) {
+            beerService.deleteById(id);
+        } else {
+            beerService.deleteById(id, expectedVersion);
+        }
+    }
+
+    @PatchMapping("/stock")
+    public List<StockAdjustmentResultDTO> adjustStock(@RequestBody @Valid StockAdjustmentRequestDTO stockAdjustmentRequestDTO) {
+        return beerBulkService.adjustStock(stockAdjustmentRequestDTO.getAdjustments(), stockAdjustmentRequestDTO.getMode());
     }
 
     @PatchMapping("/{id}/increment")
-    public BeerDTO increment(@PathVariable Long id, @RequestBody @Valid QuantityDTO quantityDTO) throws BeerNotFoundException, BeerStockExceededException {
-        return beerService.increment(id, quantityDTO.getQuantity());
+    public ResponseEntity<BeerDTO> increment(@PathVariable Long id, @RequestBody @Valid QuantityDTO quantityDTO,
+                                             @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+                                             @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept)
+            throws BeerNotFoundException, BeerStockExceededException, BeerVersionMismatchException {
+        Long expectedVersion = BeerETags.expectedVersion(id, ifMatch);
+        return withETag(expectedVersion == null
+                ? beerService.increment(id, quantityDTO.getQuantity())
+                : beerService.increment(id, quantityDTO.getQuantity(), expectedVersion), BeerETags.negotiate(accept));
+    }
+
+    @PatchMapping("/{id}/decrement")
+    public ResponseEntity<BeerDTO> decrement(@PathVariable Long id, @RequestBody @Valid QuantityDTO quantityDTO,
+                                             @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+                                             @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept)
+            throws BeerNotFoundException, BeerStockExceededException, BeerVersionMismatchException {
+        Long expectedVersion = BeerETags.expectedVersion(id, ifMatch);
+        return withETag(expectedVersion == null
+                ? beerService.decrement(id, quantityDTO.getQuantity())
+                : beerService.decrement(id, quantityDTO.getQuantity(), expectedVersion), BeerETags.negotiate(accept));
+    }
+
+    private ResponseEntity<BeerDTO> withETag(BeerDTO beerDTO, MediaType format) {
+        return negotiated(ResponseEntity.ok().eTag(BeerETags.of(beerDTO.getId(), beerDTO.getVersion(), format)), format)
+                .body(beerDTO);
+    }
+
+    //Sem formato aceito o Content-Type fica livre e o Spring MVC responde 406 na negociação
+    private static ResponseEntity.BodyBuilder negotiated(ResponseEntity.BodyBuilder response, MediaType format) {
+        return format == null ? response : response.contentType(format);
     }
 }
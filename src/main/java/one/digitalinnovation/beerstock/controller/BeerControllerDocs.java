@@ -5,14 +5,27 @@ import io.swagger.annotations.ApiOperation;
 import io.swagger.annotations.ApiResponse;
 import io.swagger.annotations.ApiResponses;
 import one.digitalinnovation.beerstock.dto.BeerDTO;
+import one.digitalinnovation.beerstock.dto.BeerFilterDTO;
+import one.digitalinnovation.beerstock.dto.BulkCreateResultDTO;
 import one.digitalinnovation.beerstock.dto.QuantityDTO;
+import one.digitalinnovation.beerstock.dto.StockAdjustmentRequestDTO;
+import one.digitalinnovation.beerstock.dto.StockAdjustmentResultDTO;
+import one.digitalinnovation.beerstock.dto.StockHistoryDTO;
+import one.digitalinnovation.beerstock.enums.HistoryResolution;
 import one.digitalinnovation.beerstock.exception.BeerAlreadyRegisteredException;
 import one.digitalinnovation.beerstock.exception.BeerNotFoundException;
 import one.digitalinnovation.beerstock.exception.BeerStockExceededException;
+import one.digitalinnovation.beerstock.exception.BeerVersionMismatchException;
+import one.digitalinnovation.beerstock.exception.InvalidHistoryRangeException;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import javax.servlet.http.HttpServletResponse;
 import javax.validation.Valid;
+import java.io.IOException;
+import java.time.Instant;
 import java.util.List;
 
 @Api("Manages beer stock")
@@ -21,27 +34,98 @@ public interface BeerControllerDocs {
     @ApiOperation(value = "Beer creation operation")
     @ApiResponses(value = {
             @ApiResponse(code = 201, message = "Success beer creation"),
-            @ApiResponse(code = 400, message = "Missing required fields or wrong field range value.")
+            @ApiResponse(code = 400, message = "Missing required fields or wrong field range value."),
+            @ApiResponse(code = 503, message = "Store saturated in async execution mode, retry later.")
     })
     BeerDTO createBeer(BeerDTO beerDTO) throws BeerAlreadyRegisteredException;
 
+    @ApiOperation(value = "Bulk beer creation operation, from a JSON array or an NDJSON stream")
+    @ApiResponses(value = {
+            @ApiResponse(code = 200, message = "Per-item results: created, already registered or invalid"),
+            @ApiResponse(code = 400, message = "Malformed request body."),
+            @ApiResponse(code = 503, message = "Store saturated in async execution mode, retry later.")
+    })
+    List<BulkCreateResultDTO> createBeers(List<BeerDTO> beerDTOs);
+
     @ApiOperation(value = "Returns beer found by a given name")
     @ApiResponses(value = {
-            @ApiResponse(code = 200, message = "Success beer found in the system"),
-            @ApiResponse(code = 404, message = "Beer with given name not found.")
+            @ApiResponse(code = 200, message = "Success beer found in the system, with its ETag"),
+            @ApiResponse(code = 304, message = "Beer unchanged since the ETag given in If-None-Match"),
+            @ApiResponse(code = 404, message = "Beer with given name not found."),
+            @ApiResponse(code = 503, message = "Store saturated in async execution mode, retry later.")
+    })
+    ResponseEntity<BeerDTO> findByName(@PathVariable String name, String ifNoneMatch, String accept) throws BeerNotFoundException;
+
+    @ApiOperation(value = "Returns a page of beers ordered by id, starting after the given cursor, " +
+            "optionally filtered by type, brand, name prefix and stock level")
+    @ApiResponses(value = {
+            @ApiResponse(code = 200, message = "Page of beers, with a Link header pointing to the next page when there may be more"),
+            @ApiResponse(code = 304, message = "Catalog unchanged since the ETag given in If-None-Match"),
+            @ApiResponse(code = 400, message = "Invalid filter value."),
+            @ApiResponse(code = 503, message = "Store saturated in async execution mode, retry later.")
     })
-    BeerDTO findByName(@PathVariable String name) throws BeerNotFoundException;
+    ResponseEntity<List<BeerDTO>> listBeers(BeerFilterDTO filter, Long after, int limit, String ifNoneMatch, String accept);
 
-    @ApiOperation(value = "Returns a list of all beers registered in the system")
+    @ApiOperation(value = "Streams every beer registered in the system as newline-delimited JSON, when Accept is application/x-ndjson")
     @ApiResponses(value = {
-            @ApiResponse(code = 200, message = "List of all beers registered in the system"),
+            @ApiResponse(code = 200, message = "One beer per line, ordered by id"),
     })
-    List<BeerDTO> listBeers();
+    void streamBeers(HttpServletResponse response) throws IOException;
+
+    @ApiOperation(value = "Server-Sent Events stream of beer creations, stock changes and deletions, when Accept is text/event-stream")
+    @ApiResponses(value = {
+            @ApiResponse(code = 200, message = "Events coalesced per beer for slow subscribers; a RESET event means events were " +
+                    "lost and the beer list should be reloaded"),
+    })
+    SseEmitter events(String lastEventId);
+
+    @ApiOperation(value = "Returns the stock of a beer over time, as open, min, max and close quantities per minute, " +
+            "hour or day bucket")
+    @ApiResponses(value = {
+            @ApiResponse(code = 200, message = "Buckets with samples in the range, plus the quantity before it when still retained"),
+            @ApiResponse(code = 400, message = "Range is empty or spans more buckets than allowed at the resolution."),
+            @ApiResponse(code = 404, message = "Beer with given id not found."),
+            @ApiResponse(code = 503, message = "Store saturated in async execution mode, retry later.")
+    })
+    StockHistoryDTO history(@PathVariable Long id, Instant from, Instant to, HistoryResolution resolution)
+            throws BeerNotFoundException, InvalidHistoryRangeException;
 
     @ApiOperation(value = "Delete a beer found by a given valid Id")
     @ApiResponses(value = {
             @ApiResponse(code = 204, message = "Success beer deleted in the system"),
-            @ApiResponse(code = 404, message = "Beer with given id not found.")
+            @ApiResponse(code = 404, message = "Beer with given id not found."),
+            @ApiResponse(code = 412, message = "Beer changed since the ETag given in If-Match."),
+            @ApiResponse(code = 503, message = "Store saturated in async execution mode, retry later.")
+    })
+    void deleteById(@PathVariable Long id, String ifMatch) throws BeerNotFoundException, BeerVersionMismatchException;
+
+    @ApiOperation(value = "Increments the stock of a beer found by a given valid Id")
+    @ApiResponses(value = {
+            @ApiResponse(code = 200, message = "Success beer stock incremented"),
+            @ApiResponse(code = 400, message = "Increment exceeds the max stock capacity."),
+            @ApiResponse(code = 404, message = "Beer with given id not found."),
+            @ApiResponse(code = 412, message = "Beer changed since the ETag given in If-Match."),
+            @ApiResponse(code = 503, message = "Store saturated in async execution mode, retry later.")
+    })
+    ResponseEntity<BeerDTO> increment(@PathVariable Long id, QuantityDTO quantityDTO, String ifMatch, String accept)
+            throws BeerNotFoundException, BeerStockExceededException, BeerVersionMismatchException;
+
+    @ApiOperation(value = "Decrements the stock of a beer found by a given valid Id, never below zero")
+    @ApiResponses(value = {
+            @ApiResponse(code = 200, message = "Success beer stock decremented"),
+            @ApiResponse(code = 400, message = "Decrement is greater than the available stock."),
+            @ApiResponse(code = 404, message = "Beer with given id not found."),
+            @ApiResponse(code = 412, message = "Beer changed since the ETag given in If-Match."),
+            @ApiResponse(code = 503, message = "Store saturated in async execution mode, retry later.")
+    })
+    ResponseEntity<BeerDTO> decrement(@PathVariable Long id, QuantityDTO quantityDTO, String ifMatch, String accept)
+            throws BeerNotFoundException, BeerStockExceededException, BeerVersionMismatchException;
+
+    @ApiOperation(value = "Applies a batch of stock adjustments, all-or-nothing or best-effort")
+    @ApiResponses(value = {
+            @ApiResponse(code = 200, message = "Per-line results ordered by beer id: applied, not found, stock exceeded or rolled back"),
+            @ApiResponse(code = 400, message = "Missing required fields or wrong field range value."),
+            @ApiResponse(code = 503, message = "Store saturated in async execution mode, retry later.")
     })
-    void deleteById(@PathVariable Long id) throws BeerNotFoundException;
+    List<StockAdjustmentResultDTO> adjustStock(StockAdjustmentRequestDTO stockAdjustmentRequestDTO);
 }
@@ -0,0 +1,112 @@
+package one.digitalinnovation.beerstock.controller;
+
+import one.digitalinnovation.beerstock.exception.BeerVersionMismatchException;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+
+import java.util.List;
+import java.util.Map;
+
+import static one.digitalinnovation.beerstock.config.BinaryFormatsConfig.SMILE_MEDIA_TYPE;
+
+//ETags fortes: "<id>-<versão>" para uma cerveja e "<início>-<contador>" (CatalogVersion) para listagens.
+//JSON, CBOR e Smile são representações diferentes do mesmo estado, então as binárias levam o formato no fim da tag
+final class BeerETags {
+
+    private static final String ANY = "*";
+    private static final String WEAK_PREFIX = "W/";
+    private static final MediaType SMILE = MediaType.parseMediaType(SMILE_MEDIA_TYPE);
+    //Ordem de preferência quando o Accept aceita mais de um formato com o mesmo peso
+    private static final List<MediaType> FORMATS = List.of(MediaType.APPLICATION_JSON, MediaType.APPLICATION_CBOR, SMILE);
+    private static final Map<MediaType, String> FORMAT_SUFFIXES = Map.of(
+            MediaType.APPLICATION_JSON, "",
+            MediaType.APPLICATION_CBOR, "-cbor",
+            SMILE, "-smile");
+
+    private BeerETags() {
+    }
+
+    //Formato da resposta escolhido pelo Accept, ou null se nenhum é aceito e o Spring MVC deve responder 406.
+    //O controller fixa esse Content-Type na resposta, então o corpo e o ETag nunca divergem
+    static MediaType negotiate(String accept) {
+        if (accept == null || accept.isBlank()) {
+            return MediaType.APPLICATION_JSON;
+        }
+        List<MediaType> acceptedTypes;
+        try {
+            acceptedTypes = MediaType.parseMediaTypes(accept);
+        } catch (InvalidMediaTypeException e) {
+            return null;
+        }
+        MediaType.sortBySpecificityAndQuality(acceptedTypes);
+        for (MediaType acceptedType : acceptedTypes) {
+            if (acceptedType.getQualityValue() == 0) {
+                continue;
+            }
+            for (MediaType format : FORMATS) {
+                if (acceptedType.includes(format)) {
+                    return format;
+                }
+            }
+        }
+        return null;
+    }
+
+    static String of(Long id, long version, MediaType format) {
+        return quote(id + "-" + version, format);
+    }
+
+    static String quote(String tag, MediaType format) {
+        return quote(tag + FORMAT_SUFFIXES.getOrDefault(format, ""));
+    }
+
+    static String quote(String tag) {
+        return "\"" + tag + "\"";
+    }
+
+    //If-None-Match usa comparação fraca: o prefixo W/ é ignorado
+    static boolean matchesNoneMatch(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.startsWith(WEAK_PREFIX)) {
+                tag = tag.substring(WEAK_PREFIX.length());
+            }
+            if (tag.equals(ANY) || tag.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    //Versão esperada pelo If-Match, ou null sem o header ou com "*". Tag fraca, malformada ou de outra cerveja nunca confere.
+    //O formato da tag não importa: a pré-condição é sobre a versão gravada, qualquer que seja a representação lida
+    static Long expectedVersion(Long id, String ifMatch) throws BeerVersionMismatchException {
+        if (ifMatch == null || ifMatch.trim().equals(ANY)) {
+            return null;
+        }
+        String prefix = "\"" + id + "-";
+        for (String candidate : ifMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.startsWith(prefix) && tag.endsWith("\"") && tag.length() > prefix.length() + 1) {
+                try {
+                    return Long.parseLong(withoutFormat(tag.substring(prefix.length(), tag.length() - 1)));
+                } catch (NumberFormatException e) {
+                    break;
+                }
+            }
+        }
+        throw new BeerVersionMismatchException(id, ifMatch);
+    }
+
+    private static String withoutFormat(String version) {
+        for (String suffix : FORMAT_SUFFIXES.values()) {
+            if (!suffix.isEmpty() && version.endsWith(suffix)) {
+                return version.substring(0, version.length() - suffix.length());
+            }
+        }
+        return version;
+    }
+}
@@ -0,0 +1,212 @@
+package one.digitalinnovation.beerstock.controller;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import one.digitalinnovation.beerstock.config.EventStreamProperties;
+import one.digitalinnovation.beerstock.dto.BeerEventDTO;
+import one.digitalinnovation.beerstock.enums.BeerEventType;
+import one.digitalinnovation.beerstock.service.BeerEvents;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.util.OptionalLong;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+//Entrega os eventos do BeerEvents aos assinantes SSE. O dispatcher só lê o ring buffer e enfileira na fila limitada
+//de cada assinante, sem nunca chamar o emitter; o envio, que bloqueia enquanto o cliente não lê, roda fora dele.
+//Quem enche a fila ou fica mais que o send-timeout com um envio pendente é desconectado e retoma pelo Last-Event-ID
+@Slf4j
+@Component
+public class BeerEventSubscriptions {
+
+    private static final String EVENTS_METRIC = "beerstock.events";
+    private static final String HEARTBEAT_COMMENT = "heartbeat";
+
+    private final BeerEvents beerEvents;
+    private final EventStreamProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final Executor senders;
+    private final Set<Subscription> subscriptions = ConcurrentHashMap.newKeySet();
+    private final Counter coalescedEvents;
+    private final Counter resets;
+    private ScheduledExecutorService dispatcher;
+
+    @Autowired
+    public BeerEventSubscriptions(BeerEvents beerEvents, EventStreamProperties properties, MeterRegistry meterRegistry) {
+        this(beerEvents, properties, meterRegistry, senders());
+    }
+
+    BeerEventSubscriptions(BeerEvents beerEvents, EventStreamProperties properties, MeterRegistry meterRegistry,
+                           Executor senders) {
+        this.beerEvents = beerEvents;
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+        this.senders = senders;
+        this.coalescedEvents = meterRegistry.counter(EVENTS_METRIC + ".coalesced");
+        this.resets = meterRegistry.counter(EVENTS_METRIC + ".resets");
+        Gauge.builder(EVENTS_METRIC + ".subscribers", subscriptions, Set::size)
+                .description("Open SSE subscriptions to stock events")
+                .register(meterRegistry);
+    }
+
+    //Uma thread basta: o dispatcher só lê memória e nunca espera um cliente
+    @PostConstruct
+    public void start() {
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("beer-events-");
+        threadFactory.setDaemon(true);
+        dispatcher = Executors.newSingleThreadScheduledExecutor(threadFactory);
+        long intervalMillis = properties.getDispatchInterval().toMillis();
+        dispatcher.scheduleWithFixedDelay(this::dispatch, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (dispatcher != null) {
+            dispatcher.shutdownNow();
+        }
+        if (senders instanceof ExecutorService) {
+            ((ExecutorService) senders).shutdownNow();
+        }
+        subscriptions.forEach(subscription -> subscription.emitter.complete());
+        subscriptions.clear();
+    }
+
+    //Last-Event-ID desconhecido ou já fora do buffer: o primeiro evento é um reset
+    public SseEmitter subscribe(String lastEventId) {
+        SseEmitter emitter = new SseEmitter(properties.getEmitterTimeout().toMillis());
+        OptionalLong resumeCursor = lastEventId == null ? OptionalLong.of(beerEvents.head()) : beerEvents.resumeCursor(lastEventId);
+        Subscription subscription = new Subscription(emitter, properties.getSubscriberQueueSize(),
+                resumeCursor.orElse(beerEvents.head()), resumeCursor.isEmpty());
+        emitter.onCompletion(() -> subscriptions.remove(subscription));
+        emitter.onError(error -> subscriptions.remove(subscription));
+        emitter.onTimeout(emitter::complete);
+        subscriptions.add(subscription);
+        return emitter;
+    }
+
+    void dispatch() {
+        long sendTimeoutNanos = properties.getSendTimeout().toNanos();
+        for (Subscription subscription : subscriptions) {
+            if (subscription.sending.get() && System.nanoTime() - subscription.sendingSinceNanos > sendTimeoutNanos) {
+                evict(subscription, "timeout");
+            } else if (!enqueue(subscription)) {
+                evict(subscription, "overflow");
+            } else if (!subscription.queue.isEmpty() && subscription.sending.compareAndSet(false, true)) {
+                subscription.sendingSinceNanos = System.nanoTime();
+                try {
+                    senders.execute(() -> send(subscription));
+                } catch (RejectedExecutionException e) {
+                    subscription.sending.set(false);
+                }
+            }
+        }
+    }
+
+    //Falso se o que o assinante tem a receber não cabe na fila dele
+    private boolean enqueue(Subscription subscription) {
+        if (subscription.pendingReset && !enqueueReset(subscription)) {
+            return false;
+        }
+        BeerEvents.Batch batch = beerEvents.poll(subscription.cursor, properties.getBatchSize());
+        if (batch.isReset()) {
+            subscription.cursor = batch.getNextCursor();
+            return enqueueReset(subscription);
+        }
+        for (BeerEvents.Entry entry : batch.getEvents()) {
+            boolean queued = subscription.queue.offer(SseEmitter.event()
+                    .id(beerEvents.eventId(entry.getSequence()))
+                    .data(entry.getEvent(), MediaType.APPLICATION_JSON));
+            if (!queued) {
+                return false;
+            }
+        }
+        subscription.cursor = batch.getNextCursor();
+        coalescedEvents.increment(batch.getCoalesced());
+        if (subscription.queue.isEmpty() && !subscription.sending.get()
+                && System.nanoTime() - subscription.lastSentNanos >= properties.getHeartbeatInterval().toNanos()) {
+            return subscription.queue.offer(SseEmitter.event().comment(HEARTBEAT_COMMENT));
+        }
+        return true;
+    }
+
+    //O id do reset permite reconectar a partir dele depois de recarregar a listagem
+    private boolean enqueueReset(Subscription subscription) {
+        resets.increment();
+        subscription.pendingReset = false;
+        return subscription.queue.offer(SseEmitter.event()
+                .id(beerEvents.eventId(subscription.cursor - 1))
+                .data(BeerEventDTO.builder().type(BeerEventType.RESET).build(), MediaType.APPLICATION_JSON));
+    }
+
+    //Só uma thread de envio por assinante: um cliente lento prende a própria thread, não o dispatcher nem os outros
+    private void send(Subscription subscription) {
+        try {
+            SseEmitter.SseEventBuilder event;
+            while ((event = subscription.queue.poll()) != null) {
+                subscription.emitter.send(event);
+                subscription.lastSentNanos = System.nanoTime();
+            }
+        } catch (IOException | IllegalStateException e) {
+            //Cliente desconectou ou o emitter já terminou
+            log.debug("Dropping SSE subscription after failed send", e);
+            subscriptions.remove(subscription);
+            subscription.emitter.completeWithError(e);
+        } finally {
+            subscription.sending.set(false);
+        }
+    }
+
+    //Encerrar sem erro faz o EventSource reconectar com o último id que recebeu: se ainda estiver no buffer ele
+    //retoma dali, senão recebe um reset. Um envio preso só termina quando o container desistir da escrita
+    private void evict(Subscription subscription, String reason) {
+        if (subscriptions.remove(subscription)) {
+            meterRegistry.counter(EVENTS_METRIC + ".evicted", "reason", reason).increment();
+            log.debug("Evicting slow SSE subscription ({})", reason);
+            subscription.queue.clear();
+            subscription.emitter.complete();
+        }
+    }
+
+    private static ExecutorService senders() {
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("beer-events-send-");
+        threadFactory.setDaemon(true);
+        return Executors.newCachedThreadPool(threadFactory);
+    }
+
+    //cursor e pendingReset só são acessados pelo dispatcher; a fila e lastSentNanos são compartilhados com o envio
+    private static final class Subscription {
+
+        private final SseEmitter emitter;
+        private final Queue<SseEmitter.SseEventBuilder> queue;
+        private final AtomicBoolean sending = new AtomicBoolean();
+        private volatile long sendingSinceNanos;
+        private volatile long lastSentNanos = System.nanoTime();
+        private long cursor;
+        private boolean pendingReset;
+
+        private Subscription(SseEmitter emitter, int queueSize, long cursor, boolean pendingReset) {
+            this.emitter = emitter;
+            this.queue = new ArrayBlockingQueue<>(queueSize);
+            this.cursor = cursor;
+            this.pendingReset = pendingReset;
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package one.digitalinnovation.beerstock.controller;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import one.digitalinnovation.beerstock.dto.ErrorDTO;
+import one.digitalinnovation.beerstock.exception.DomainException;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+//Responde as falhas de domínio direto, sem o forward para /error e o corpo padrão do Spring Boot;
+//o status continua vindo do @ResponseStatus de cada exceção
+@RestControllerAdvice
+public class DomainExceptionHandler {
+
+    private static final String EXCEPTION_SUFFIX = "Exception";
+
+    //Status e código são resolvidos uma vez por tipo de exceção
+    private final Map<Class<?>, ErrorType> errorTypes = new ConcurrentHashMap<>();
+
+    @ExceptionHandler(DomainException.class)
+    public ResponseEntity<ErrorDTO> handleDomainException(DomainException exception) {
+        ErrorType errorType = errorTypes.computeIfAbsent(exception.getClass(), DomainExceptionHandler::errorType);
+        ErrorDTO errorDTO = ErrorDTO.builder()
+                .status(errorType.getStatus().value())
+                .error(errorType.getCode())
+                .message(exception.getMessage())
+                .build();
+        return ResponseEntity.status(errorType.getStatus()).body(errorDTO);
+    }
+
+    private static ErrorType errorType(Class<?> exceptionType) {
+        ResponseStatus responseStatus = AnnotatedElementUtils.findMergedAnnotation(exceptionType, ResponseStatus.class);
+        HttpStatus status = responseStatus == null ? HttpStatus.BAD_REQUEST : responseStatus.code();
+        return new ErrorType(status, errorCode(exceptionType));
+    }
+
+    //BeerNotFoundException -> BeerNotFound
+    private static String errorCode(Class<?> exceptionType) {
+        String name = exceptionType.getSimpleName();
+        return name.endsWith(EXCEPTION_SUFFIX) ? name.substring(0, name.length() - EXCEPTION_SUFFIX.length()) : name;
+    }
+
+    @Getter
+    @AllArgsConstructor
+    private static final class ErrorType {
+
+        private final HttpStatus status;
+        private final String code;
+    }
+}
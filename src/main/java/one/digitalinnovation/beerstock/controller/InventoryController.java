@@ -0,0 +1,24 @@
+package one.digitalinnovation.beerstock.controller;
+
+import lombok.AllArgsConstructor;
+import one.digitalinnovation.beerstock.dto.InventoryStatsDTO;
+import one.digitalinnovation.beerstock.service.BeerService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+//Fora de /api/v1/beers para não colidir com GET /{name}. Os totais vêm da memória, então a rota é a mesma nos
+//modos blocking e async
+@RestController
+@RequestMapping("/api/v1/inventory")
+@AllArgsConstructor(onConstructor = @__(@Autowired))
+public class InventoryController implements InventoryControllerDocs {
+
+    private final BeerService beerService;
+
+    @GetMapping("/stats")
+    public InventoryStatsDTO stats() {
+        return beerService.stats();
+    }
+}
@@ -0,0 +1,17 @@
+package one.digitalinnovation.beerstock.controller;
+
+import io.swagger.annotations.Api;
+import io.swagger.annotations.ApiOperation;
+import io.swagger.annotations.ApiResponse;
+import io.swagger.annotations.ApiResponses;
+import one.digitalinnovation.beerstock.dto.InventoryStatsDTO;
+
+@Api("Reports stock totals")
+public interface InventoryControllerDocs {
+
+    @ApiOperation(value = "Returns stock totals per beer type and brand, and how many beers are at capacity")
+    @ApiResponses(value = {
+            @ApiResponse(code = 200, message = "Totals kept in memory and periodically reconciled with the database"),
+    })
+    InventoryStatsDTO stats();
+}
@@ -0,0 +1,50 @@
+package one.digitalinnovation.beerstock.controller;
+
+import lombok.AllArgsConstructor;
+import one.digitalinnovation.beerstock.dto.ReservationDTO;
+import one.digitalinnovation.beerstock.dto.ReservationRequestDTO;
+import one.digitalinnovation.beerstock.exception.BeerNotFoundException;
+import one.digitalinnovation.beerstock.exception.BeerStockExceededException;
+import one.digitalinnovation.beerstock.exception.ReservationNotFoundException;
+import one.digitalinnovation.beerstock.exception.ReservationNotHeldException;
+import one.digitalinnovation.beerstock.service.StockReservationService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestController;
+
+import javax.validation.Valid;
+
+@RestController
+@RequestMapping("/api/v1/reservations")
+@AllArgsConstructor(onConstructor = @__(@Autowired))
+public class StockReservationController implements StockReservationControllerDocs {
+
+    private final StockReservationService stockReservationService;
+
+    @PostMapping
+    @ResponseStatus(HttpStatus.CREATED)
+    public ReservationDTO reserve(@RequestBody @Valid ReservationRequestDTO reservationRequestDTO) throws BeerNotFoundException, BeerStockExceededException {
+        return stockReservationService.reserve(reservationRequestDTO.getBeerId(), reservationRequestDTO.getQuantity());
+    }
+
+    @GetMapping("/{id}")
+    public ReservationDTO findById(@PathVariable Long id) throws ReservationNotFoundException {
+        return stockReservationService.findById(id);
+    }
+
+    @PostMapping("/{id}/commit")
+    public ReservationDTO commit(@PathVariable Long id) throws ReservationNotFoundException, ReservationNotHeldException {
+        return stockReservationService.commit(id);
+    }
+
+    @PostMapping("/{id}/release")
+    public ReservationDTO release(@PathVariable Long id) throws ReservationNotFoundException, ReservationNotHeldException {
+        return stockReservationService.release(id);
+    }
+}
@@ -0,0 +1,48 @@
+package one.digitalinnovation.beerstock.controller;
+
+import io.swagger.annotations.Api;
+import io.swagger.annotations.ApiOperation;
+import io.swagger.annotations.ApiResponse;
+import io.swagger.annotations.ApiResponses;
+import one.digitalinnovation.beerstock.dto.ReservationDTO;
+import one.digitalinnovation.beerstock.dto.ReservationRequestDTO;
+import one.digitalinnovation.beerstock.exception.BeerNotFoundException;
+import one.digitalinnovation.beerstock.exception.BeerStockExceededException;
+import one.digitalinnovation.beerstock.exception.ReservationNotFoundException;
+import one.digitalinnovation.beerstock.exception.ReservationNotHeldException;
+import org.springframework.web.bind.annotation.PathVariable;
+
+@Api("Manages stock reservations")
+public interface StockReservationControllerDocs {
+
+    @ApiOperation(value = "Reserves beer units, taking them out of the available stock until commit, release or expiry")
+    @ApiResponses(value = {
+            @ApiResponse(code = 201, message = "Success reservation held"),
+            @ApiResponse(code = 400, message = "Not enough stock, missing required fields or wrong field range value."),
+            @ApiResponse(code = 404, message = "Beer with given id not found.")
+    })
+    ReservationDTO reserve(ReservationRequestDTO reservationRequestDTO) throws BeerNotFoundException, BeerStockExceededException;
+
+    @ApiOperation(value = "Returns reservation found by a given id")
+    @ApiResponses(value = {
+            @ApiResponse(code = 200, message = "Success reservation found in the system"),
+            @ApiResponse(code = 404, message = "Reservation with given id not found.")
+    })
+    ReservationDTO findById(@PathVariable Long id) throws ReservationNotFoundException;
+
+    @ApiOperation(value = "Commits a held reservation, confirming the units left the stock")
+    @ApiResponses(value = {
+            @ApiResponse(code = 200, message = "Success reservation committed"),
+            @ApiResponse(code = 404, message = "Reservation with given id not found."),
+            @ApiResponse(code = 409, message = "Reservation already committed, released or expired.")
+    })
+    ReservationDTO commit(@PathVariable Long id) throws ReservationNotFoundException, ReservationNotHeldException;
+
+    @ApiOperation(value = "Releases a held reservation, returning the units to the stock")
+    @ApiResponses(value = {
+            @ApiResponse(code = 200, message = "Success reservation released"),
+            @ApiResponse(code = 404, message = "Reservation with given id not found."),
+            @ApiResponse(code = 409, message = "Reservation already committed, released or expired.")
+    })
+    ReservationDTO release(@PathVariable Long id) throws ReservationNotFoundException, ReservationNotHeldException;
+}
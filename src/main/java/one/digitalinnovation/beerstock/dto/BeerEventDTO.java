@@ -0,0 +1,29 @@
+package one.digitalinnovation.beerstock.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import one.digitalinnovation.beerstock.enums.BeerEventType;
+
+//Evento compacto do stream: quem precisa do restante da cerveja consulta pelo id.
+//A versão permite descartar um evento mais antigo que chegue depois de um mais novo da mesma cerveja
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BeerEventDTO {
+
+    private BeerEventType type;
+
+    private Long beerId;
+
+    private Integer quantity;
+
+    private Long version;
+
+    //Só no STOCK_DROPPED: soma dos deltas descartados
+    private Integer delta;
+}
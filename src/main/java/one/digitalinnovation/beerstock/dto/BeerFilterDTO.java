@@ -0,0 +1,42 @@
+package one.digitalinnovation.beerstock.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import one.digitalinnovation.beerstock.enums.BeerType;
+
+import javax.validation.constraints.Max;
+import javax.validation.constraints.Min;
+import javax.validation.constraints.Size;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BeerFilterDTO {
+
+    private BeerType type;
+
+    @Size(min = 1, max = 200)
+    private String brand;
+
+    @Size(min = 1, max = 200)
+    private String namePrefix;
+
+    @Min(0)
+    private Integer minQuantity;
+
+    @Min(0)
+    private Integer maxQuantity;
+
+    //Cervejas com quantity abaixo desta porcentagem do max
+    @Min(1)
+    @Max(100)
+    private Integer belowPercentOfMax;
+
+    public boolean hasCriteria() {
+        return type != null || brand != null || namePrefix != null
+                || minQuantity != null || maxQuantity != null || belowPercentOfMax != null;
+    }
+}
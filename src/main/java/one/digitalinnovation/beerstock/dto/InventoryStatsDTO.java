@@ -0,0 +1,27 @@
+package one.digitalinnovation.beerstock.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import one.digitalinnovation.beerstock.enums.BeerType;
+
+import java.time.Instant;
+import java.util.Map;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class InventoryStatsDTO {
+
+    private long totalUnits;
+
+    private Map<BeerType, Long> unitsByType;
+
+    private Map<String, Long> unitsByBrand;
+
+    private long beersAtCapacity;
+
+    private Instant reconciledAt;
+}
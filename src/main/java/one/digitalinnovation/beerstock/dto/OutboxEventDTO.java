@@ -0,0 +1,33 @@
+package one.digitalinnovation.beerstock.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import one.digitalinnovation.beerstock.enums.BeerEventType;
+
+import java.time.Instant;
+
+//Entrega é at-least-once: o id do evento e a versão da cerveja permitem ao consumidor descartar repetições
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class OutboxEventDTO {
+
+    private Long id;
+
+    private BeerEventType type;
+
+    private Long beerId;
+
+    private Integer quantity;
+
+    private Integer delta;
+
+    private Long version;
+
+    private Instant occurredAt;
+}
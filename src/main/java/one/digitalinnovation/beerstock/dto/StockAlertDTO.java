@@ -0,0 +1,33 @@
+package one.digitalinnovation.beerstock.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import one.digitalinnovation.beerstock.enums.AlertState;
+import one.digitalinnovation.beerstock.enums.BeerType;
+
+import java.time.Instant;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockAlertDTO {
+
+    private String rule;
+
+    private AlertState state;
+
+    private Long beerId;
+
+    private BeerType type;
+
+    private int quantity;
+
+    private int max;
+
+    private Long version;
+
+    private Instant occurredAt;
+}
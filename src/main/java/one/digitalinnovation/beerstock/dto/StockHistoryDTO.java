@@ -0,0 +1,33 @@
+package one.digitalinnovation.beerstock.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import one.digitalinnovation.beerstock.enums.HistoryResolution;
+
+import java.time.Instant;
+import java.util.List;
+
+//Só baldes com amostras aparecem; entre dois pontos a quantidade é a do fechamento anterior.
+//openingQuantity é o fechamento do último balde antes de from, quando ainda está na retenção
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class StockHistoryDTO {
+
+    private Long beerId;
+
+    private HistoryResolution resolution;
+
+    private Instant from;
+
+    private Instant to;
+
+    private Integer openingQuantity;
+
+    private List<StockHistoryPointDTO> points;
+}
@@ -0,0 +1,28 @@
+package one.digitalinnovation.beerstock.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+//Quantidade de abertura, mínima, máxima e de fechamento dentro de um balde, e quantas amostras caíram nele
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockHistoryPointDTO {
+
+    private Instant start;
+
+    private int open;
+
+    private int min;
+
+    private int max;
+
+    private int close;
+
+    private int samples;
+}
@@ -12,20 +12,37 @@ import javax.persistence.Enumerated;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.PrePersist;
+import javax.persistence.PreUpdate;
+import javax.persistence.SequenceGenerator;
+import javax.persistence.Table;
+import javax.persistence.Version;
 
 @Data
 @Entity
+@Table(indexes = {
+        @Index(name = "idx_beer_brand_id", columnList = "brand, id"),
+        @Index(name = "idx_beer_type_id", columnList = "type, id"),
+        @Index(name = "idx_beer_quantity", columnList = "quantity"),
+        @Index(name = "uk_beer_normalized_name", columnList = "normalized_name", unique = true)
+})
 @NoArgsConstructor
 @AllArgsConstructor
 public class Beer {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "beer_sequence")
+    @SequenceGenerator(name = "beer_sequence", sequenceName = "beer_sequence", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false, unique = true)
     private String name;
 
+    //Preenchido em toda escrita; nulo só em linhas antigas ainda não migradas pelo NormalizedNameBackfill
+    @Column(name = "normalized_name")
+    private String normalizedName;
+
     @Column(nullable = false)
     private String brand;
 
@@ -39,5 +56,14 @@ public class Beer {
     @Column(nullable = false)
     private BeerType type;
 
+    //Incrementada também pelos updates de estoque em JPQL/JDBC, que não passam pelo controle do Hibernate
+    @Version
+    @Column(nullable = false)
+    private long version;
 
+    @PrePersist
+    @PreUpdate
+    void normalizeName() {
+        normalizedName = BeerNames.normalize(name);
+    }
 }
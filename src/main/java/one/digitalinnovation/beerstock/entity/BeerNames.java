@@ -0,0 +1,32 @@
+package one.digitalinnovation.beerstock.entity;
+
+import java.text.Normalizer;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+//Forma canônica do nome para busca e unicidade: "  Brahma   Chópp " e "brahma chopp" são o mesmo nome
+public final class BeerNames {
+
+    private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private BeerNames() {
+    }
+
+    public static String normalize(String name) {
+        if (name == null) {
+            return null;
+        }
+        String withoutAccents = COMBINING_MARKS.matcher(Normalizer.normalize(name.trim(), Normalizer.Form.NFD)).replaceAll("");
+        return WHITESPACE.matcher(withoutAccents).replaceAll(" ").toLowerCase(Locale.ROOT);
+    }
+
+    //Prefixo de busca na mesma forma do normalize; um espaço no fim é mantido, para "brahma " não casar com "brahmas"
+    public static String normalizePrefix(String prefix) {
+        String normalized = normalize(prefix);
+        if (normalized == null || normalized.isEmpty() || !Character.isWhitespace(prefix.charAt(prefix.length() - 1))) {
+            return normalized;
+        }
+        return normalized + " ";
+    }
+}
@@ -0,0 +1,8 @@
+package one.digitalinnovation.beerstock.enums;
+
+//Comparação de quantity / max com o threshold da regra
+public enum AlertCondition {
+
+    BELOW,
+    AT_OR_ABOVE
+}
@@ -0,0 +1,7 @@
+package one.digitalinnovation.beerstock.enums;
+
+public enum AlertState {
+
+    RAISED,
+    CLEARED
+}
@@ -0,0 +1,12 @@
+package one.digitalinnovation.beerstock.enums;
+
+public enum BeerEventType {
+
+    CREATED,
+    STOCK_CHANGED,
+    DELETED,
+    //Deltas aceitos pelo write-behind e descartados no flush: a quantidade devolvida ao cliente nunca chegou ao banco
+    STOCK_DROPPED,
+    //Eventos perdidos: o assinante deve recarregar a listagem antes de continuar aplicando eventos
+    RESET
+}
@@ -3,17 +3,35 @@ package one.digitalinnovation.beerstock.enums;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 
+import java.util.Arrays;
+
 @Getter
 @AllArgsConstructor
 public enum BeerType {
 
-    LAGER("Lager"),
-    MALZBIER("Malzbier"),
-    WITBIER("Witbier"),
-    WEISS("Weiss"),
-    ALE("Ale"),
-    IPA("IPA"),
-    STOUT("Stout");
+    LAGER(1, "Lager"),
+    MALZBIER(2, "Malzbier"),
+    WITBIER(3, "Witbier"),
+    WEISS(4, "Weiss"),
+    ALE(5, "Ale"),
+    IPA(6, "IPA"),
+    STOUT(7, "Stout");
+
+    //Código fixo usado nos formatos binários; não depende da ordem das constantes
+    private final int code;
 
     private final String description;
+
+    private static final BeerType[] BY_CODE = new BeerType[values().length + 1];
+
+    static {
+        Arrays.stream(values()).forEach(type -> BY_CODE[type.code] = type);
+    }
+
+    public static BeerType fromCode(int code) {
+        if (code <= 0 || code >= BY_CODE.length || BY_CODE[code] == null) {
+            throw new IllegalArgumentException("Unknown beer type code: " + code);
+        }
+        return BY_CODE[code];
+    }
 }
@@ -0,0 +1,9 @@
+package one.digitalinnovation.beerstock.enums;
+
+public enum ReservationStatus {
+
+    HELD,
+    COMMITTED,
+    RELEASED,
+    EXPIRED
+}
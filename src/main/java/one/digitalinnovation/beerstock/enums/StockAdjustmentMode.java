@@ -0,0 +1,7 @@
+package one.digitalinnovation.beerstock.enums;
+
+public enum StockAdjustmentMode {
+
+    ALL_OR_NOTHING,
+    BEST_EFFORT
+}
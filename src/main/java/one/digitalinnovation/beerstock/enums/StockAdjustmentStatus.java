@@ -0,0 +1,9 @@
+package one.digitalinnovation.beerstock.enums;
+
+public enum StockAdjustmentStatus {
+
+    APPLIED,
+    NOT_FOUND,
+    STOCK_EXCEEDED,
+    ROLLED_BACK
+}
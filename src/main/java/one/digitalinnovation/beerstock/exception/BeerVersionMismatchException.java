@@ -0,0 +1,12 @@
+package one.digitalinnovation.beerstock.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.PRECONDITION_FAILED)
+public class BeerVersionMismatchException extends DomainException {
+
+    public BeerVersionMismatchException(Long id, Object expectedVersion) {
+        super("Beer with ID %s was modified and no longer matches version %s.", id, expectedVersion);
+    }
+}
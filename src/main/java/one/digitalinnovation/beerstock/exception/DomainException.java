@@ -0,0 +1,25 @@
+package one.digitalinnovation.beerstock.exception;
+
+//Base das falhas de domínio: sem stack trace e com a mensagem montada só quando alguém a lê,
+//já que "não encontrada" e "estoque excedido" são fluxo normal e não erros de programação
+public abstract class DomainException extends Exception {
+
+    private final String messageFormat;
+    private final Object[] messageArgs;
+    private String message;
+
+    protected DomainException(String messageFormat, Object... messageArgs) {
+        super(null, null, false, false);
+        this.messageFormat = messageFormat;
+        this.messageArgs = messageArgs;
+    }
+
+    @Override
+    public String getMessage() {
+        //messageFormat só é nulo em instâncias criadas sem construtor (ex.: mocks via Objenesis)
+        if (message == null && messageFormat != null) {
+            message = String.format(messageFormat, messageArgs);
+        }
+        return message;
+    }
+}
@@ -0,0 +1,20 @@
+package one.digitalinnovation.beerstock.exception;
+
+import one.digitalinnovation.beerstock.enums.HistoryResolution;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+import java.time.Instant;
+
+@ResponseStatus(HttpStatus.BAD_REQUEST)
+public class InvalidHistoryRangeException extends DomainException {
+
+    public InvalidHistoryRangeException(Instant from, Instant to) {
+        super("History range start %s must be before its end %s", from, to);
+    }
+
+    public InvalidHistoryRangeException(Instant from, Instant to, HistoryResolution resolution, long buckets, int maxPoints) {
+        super("History from %s to %s spans %s %s buckets, above the limit of %s; use a coarser resolution or a shorter range",
+                from, to, buckets, resolution, maxPoints);
+    }
+}
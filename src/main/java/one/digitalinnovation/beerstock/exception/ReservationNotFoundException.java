@@ -0,0 +1,12 @@
+package one.digitalinnovation.beerstock.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.NOT_FOUND)
+public class ReservationNotFoundException extends DomainException {
+
+    public ReservationNotFoundException(Long id) {
+        super("Reservation with id %s not found in the system.", id);
+    }
+}
@@ -0,0 +1,13 @@
+package one.digitalinnovation.beerstock.exception;
+
+import one.digitalinnovation.beerstock.enums.ReservationStatus;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.CONFLICT)
+public class ReservationNotHeldException extends DomainException {
+
+    public ReservationNotHeldException(Long id, ReservationStatus status) {
+        super("Reservation with id %s is no longer held: %s", id, status);
+    }
+}
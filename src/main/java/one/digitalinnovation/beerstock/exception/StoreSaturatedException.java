@@ -0,0 +1,12 @@
+package one.digitalinnovation.beerstock.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class StoreSaturatedException extends DomainException {
+
+    public StoreSaturatedException(int queueCapacity) {
+        super("Store is saturated: %s requests already waiting, try again later.", queueCapacity);
+    }
+}
@@ -0,0 +1,58 @@
+package one.digitalinnovation.beerstock.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.AllArgsConstructor;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.AfterThrowing;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.repository.Repository;
+import org.springframework.stereotype.Component;
+
+//Tempo de banco por método de repositório e contagem das exceções que saem dos services
+@Aspect
+@Component
+@AllArgsConstructor(onConstructor = @__(@Autowired))
+public class BeerstockMetricsAspect {
+
+    private static final String REPOSITORY_METRIC = "beerstock.repository";
+    private static final String EXCEPTIONS_METRIC = "beerstock.exceptions";
+
+    private final MeterRegistry meterRegistry;
+
+    @Around("execution(* org.springframework.data.repository.Repository+.*(..))")
+    public Object timeRepository(ProceedingJoinPoint joinPoint) throws Throwable {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String exception = "none";
+        try {
+            return joinPoint.proceed();
+        } catch (Throwable e) {
+            exception = e.getClass().getSimpleName();
+            throw e;
+        } finally {
+            sample.stop(Timer.builder(REPOSITORY_METRIC)
+                    .tag("repository", repositoryName(joinPoint.getTarget()))
+                    .tag("method", joinPoint.getSignature().getName())
+                    .tag("exception", exception)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry));
+        }
+    }
+
+    //Só beans @Service: componentes internos (buffer, cache) lançam exceções que o service repassa e seriam contadas duas vezes
+    @AfterThrowing(pointcut = "@within(org.springframework.stereotype.Service)", throwing = "exception")
+    public void countException(Exception exception) {
+        meterRegistry.counter(EXCEPTIONS_METRIC, "exception", exception.getClass().getSimpleName()).increment();
+    }
+
+    private static String repositoryName(Object repository) {
+        for (Class<?> type : repository.getClass().getInterfaces()) {
+            if (Repository.class.isAssignableFrom(type)) {
+                return type.getSimpleName();
+            }
+        }
+        return repository.getClass().getSimpleName();
+    }
+}
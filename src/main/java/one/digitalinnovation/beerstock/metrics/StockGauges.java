@@ -0,0 +1,26 @@
+package one.digitalinnovation.beerstock.metrics;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import one.digitalinnovation.beerstock.config.MetricsProperties;
+import one.digitalinnovation.beerstock.service.InventoryStats;
+import org.springframework.stereotype.Component;
+
+//Os valores vêm dos totais em memória do InventoryStats, sem consulta ao banco por coleta; no modo write-behind
+//não incluem deltas ainda não gravados
+@Component
+public class StockGauges {
+
+    static final String UNITS_METRIC = "beerstock.stock.units";
+    static final String NEAR_MAX_METRIC = "beerstock.stock.near.max";
+
+    public StockGauges(InventoryStats inventoryStats, MetricsProperties properties, MeterRegistry meterRegistry) {
+        Gauge.builder(UNITS_METRIC, inventoryStats, InventoryStats::totalUnits)
+                .description("Total units in stock across all beers")
+                .register(meterRegistry);
+        Gauge.builder(NEAR_MAX_METRIC, inventoryStats, InventoryStats::beersNearMax)
+                .description("Beers whose quantity is at or near their max")
+                .tag("ratio", Double.toString(properties.getNearMaxRatio()))
+                .register(meterRegistry);
+    }
+}
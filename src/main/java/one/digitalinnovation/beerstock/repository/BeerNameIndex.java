@@ -0,0 +1,150 @@
+package one.digitalinnovation.beerstock.repository;
+
+import java.util.concurrent.locks.StampedLock;
+
+//Índice nome normalizado -> id com endereçamento aberto (linear probing) em arrays paralelos, sem um objeto por entrada.
+//Escritas sob o write lock; leituras otimistas, refeitas sob read lock quando uma escrita interfere
+final class BeerNameIndex {
+
+    static final long ABSENT = 0L;
+
+    //Comparado por identidade: marca posições removidas sem interromper a sondagem de outras chaves
+    private static final String REMOVED = new String("");
+    private static final float MAX_LOAD = 0.5f;
+
+    private final StampedLock lock = new StampedLock();
+    private Table table;
+    private int size;
+    private int occupied;
+
+    BeerNameIndex(int expectedNames) {
+        this.table = new Table(capacityFor(expectedNames));
+    }
+
+    long get(String normalizedName) {
+        long stamp = lock.tryOptimisticRead();
+        long id = table.find(normalizedName);
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                id = table.find(normalizedName);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        return id;
+    }
+
+    //Insere só se o nome não existe, rodando onInsert antes de publicar a entrada: quem achar o id já encontra a cerveja
+    boolean putIfAbsent(String normalizedName, long id, Runnable onInsert) {
+        long stamp = lock.writeLock();
+        try {
+            if (table.find(normalizedName) != ABSENT) {
+                return false;
+            }
+            if (occupied + 1 > table.keys.length * MAX_LOAD) {
+                rehash();
+            }
+            onInsert.run();
+            if (table.insert(normalizedName, id)) {
+                occupied++;
+            }
+            size++;
+            return true;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    void remove(String normalizedName, long id) {
+        long stamp = lock.writeLock();
+        try {
+            if (table.remove(normalizedName, id)) {
+                size--;
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    //Dobra a tabela só se as entradas vivas pedirem; senão apenas descarta as posições removidas
+    private void rehash() {
+        Table rehashed = new Table(capacityFor(size + 1));
+        for (int i = 0; i < table.keys.length; i++) {
+            String key = table.keys[i];
+            if (key != null && key != REMOVED) {
+                rehashed.insert(key, table.ids[i]);
+            }
+        }
+        table = rehashed;
+        occupied = size;
+    }
+
+    private static int capacityFor(int entries) {
+        int capacity = Integer.highestOneBit(Math.max(16, (int) (entries / MAX_LOAD)));
+        return capacity < entries / MAX_LOAD ? capacity << 1 : capacity;
+    }
+
+    private static int slot(String key, int mask) {
+        int hash = key.hashCode();
+        return (hash ^ (hash >>> 16)) & mask;
+    }
+
+    private static final class Table {
+
+        private final String[] keys;
+        private final long[] ids;
+
+        private Table(int capacity) {
+            this.keys = new String[capacity];
+            this.ids = new long[capacity];
+        }
+
+        //Sondagem limitada ao tamanho da tabela: uma leitura otimista concorrente com escrita nunca fica presa
+        private long find(String key) {
+            int mask = keys.length - 1;
+            int slot = slot(key, mask);
+            for (int probes = 0; probes < keys.length; probes++) {
+                String candidate = keys[slot];
+                if (candidate == null) {
+                    return ABSENT;
+                }
+                if (candidate != REMOVED && candidate.equals(key)) {
+                    return ids[slot];
+                }
+                slot = (slot + 1) & mask;
+            }
+            return ABSENT;
+        }
+
+        //Devolve true quando ocupa uma posição nunca usada, false quando reaproveita uma removida
+        private boolean insert(String key, long id) {
+            int mask = keys.length - 1;
+            int slot = slot(key, mask);
+            while (keys[slot] != null && keys[slot] != REMOVED) {
+                slot = (slot + 1) & mask;
+            }
+            boolean fresh = keys[slot] == null;
+            ids[slot] = id;
+            keys[slot] = key;
+            return fresh;
+        }
+
+        private boolean remove(String key, long id) {
+            int mask = keys.length - 1;
+            int slot = slot(key, mask);
+            for (int probes = 0; probes < keys.length; probes++) {
+                String candidate = keys[slot];
+                if (candidate == null) {
+                    return false;
+                }
+                if (candidate != REMOVED && candidate.equals(key) && ids[slot] == id) {
+                    keys[slot] = REMOVED;
+                    return true;
+                }
+                slot = (slot + 1) & mask;
+            }
+            return false;
+        }
+    }
+}
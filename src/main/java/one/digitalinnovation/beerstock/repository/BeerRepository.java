@@ -1,11 +1,119 @@
 package one.digitalinnovation.beerstock.repository;
 
+import one.digitalinnovation.beerstock.dto.BeerVersionDTO;
 import one.digitalinnovation.beerstock.entity.Beer;
+import one.digitalinnovation.beerstock.entity.BeerNames;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import javax.persistence.QueryHint;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
 
-public interface BeerRepository extends JpaRepository<Beer, Long> {
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
 
-    Optional<Beer> findByName(String name);
+public interface BeerRepository extends JpaRepository<Beer, Long>, BeerStockBatchRepository, BeerSearchRepository {
+
+    String STREAM_FETCH_SIZE = "500";
+
+    //Busca pelo nome normalizado: espaços, maiúsculas e acentos não fazem diferença
+    default Optional<Beer> findByName(String name) {
+        return findByNormalizedName(BeerNames.normalize(name));
+    }
+
+    Optional<Beer> findByNormalizedName(String normalizedName);
+
+    default Optional<BeerVersionDTO> findVersionByName(String name) {
+        return findVersionByNormalizedName(BeerNames.normalize(name));
+    }
+
+    //Só id e versão, para responder a requisições condicionais sem carregar a entidade
+    @Query("SELECT new one.digitalinnovation.beerstock.dto.BeerVersionDTO(b.id, b.version) FROM Beer b " +
+            "WHERE b.normalizedName = :normalizedName")
+    Optional<BeerVersionDTO> findVersionByNormalizedName(@Param("normalizedName") String normalizedName);
+
+    @Query("SELECT b.normalizedName FROM Beer b WHERE b.normalizedName IN :normalizedNames")
+    Set<String> findNormalizedNamesIn(@Param("normalizedNames") Collection<String> normalizedNames);
+
+    List<Beer> findByNormalizedNameIsNullAndIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
+
+    @Query("SELECT b.id FROM Beer b WHERE b.id IN :ids")
+    Set<Long> findIdsIn(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT b.quantity FROM Beer b WHERE b.id = :id")
+    Optional<Integer> findQuantityById(@Param("id") Long id);
+
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = STREAM_FETCH_SIZE))
+    @Query("SELECT b.normalizedName FROM Beer b WHERE b.normalizedName IS NOT NULL")
+    Stream<String> streamAllNormalizedNames();
+
+    @Query("SELECT COALESCE(SUM(b.quantity), 0) FROM Beer b")
+    long sumQuantities();
+
+    @Query("SELECT b.type, SUM(b.quantity) FROM Beer b GROUP BY b.type")
+    List<Object[]> sumQuantitiesByType();
+
+    @Query("SELECT b.brand, SUM(b.quantity) FROM Beer b GROUP BY b.brand")
+    List<Object[]> sumQuantitiesByBrand();
+
+    @Query("SELECT COUNT(b) FROM Beer b WHERE b.quantity >= b.max")
+    long countAtCapacity();
+
+    //O Hibernate tipa o parâmetro pelo outro operando: multiplicado direto por b.max viraria Integer e 0.9 seria
+    //rejeitado, então b.max passa antes por 1.0
+    @Query("SELECT COUNT(b) FROM Beer b WHERE b.quantity >= (b.max * 1.0) * :ratio")
+    long countNearMax(@Param("ratio") double ratio);
+
+    List<Beer> findByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
+
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = STREAM_FETCH_SIZE))
+    @Query("SELECT b FROM Beer b ORDER BY b.id")
+    Stream<Beer> streamAllOrderedById();
+
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE Beer b SET b.quantity = b.quantity + :quantity, b.version = b.version + 1 " +
+            "WHERE b.id = :id AND b.quantity + :quantity <= b.max")
+    int incrementQuantity(@Param("id") Long id, @Param("quantity") int quantityToIncrement);
+
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE Beer b SET b.quantity = b.quantity + :quantity, b.version = b.version + 1 " +
+            "WHERE b.id = :id AND b.version = :version AND b.quantity + :quantity <= b.max")
+    int incrementQuantityIfVersion(@Param("id") Long id, @Param("quantity") int quantityToIncrement,
+                                   @Param("version") long expectedVersion);
+
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE Beer b SET b.quantity = b.quantity - :quantity, b.version = b.version + 1 " +
+            "WHERE b.id = :id AND b.quantity >= :quantity")
+    int decrementQuantity(@Param("id") Long id, @Param("quantity") int quantityToDecrement);
+
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE Beer b SET b.quantity = b.quantity - :quantity, b.version = b.version + 1 " +
+            "WHERE b.id = :id AND b.version = :version AND b.quantity >= :quantity")
+    int decrementQuantityIfVersion(@Param("id") Long id, @Param("quantity") int quantityToDecrement,
+                                   @Param("version") long expectedVersion);
+
+    //Devolve unidades reservadas. Outro escritor pode ter enchido o estoque enquanto a reserva estava aberta,
+    //então a devolução também respeita o max; quem chama decide o que fazer com o que não coube
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE Beer b SET b.quantity = b.quantity + :quantity, b.version = b.version + 1 " +
+            "WHERE b.id = :id AND b.quantity + :quantity <= b.max")
+    int restoreQuantity(@Param("id") Long id, @Param("quantity") int quantityToRestore);
+
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("DELETE FROM Beer b WHERE b.id = :id AND b.version = :version")
+    int deleteByIdIfVersion(@Param("id") Long id, @Param("version") long expectedVersion);
 }
@@ -0,0 +1,12 @@
+package one.digitalinnovation.beerstock.repository;
+
+import one.digitalinnovation.beerstock.dto.BeerFilterDTO;
+import one.digitalinnovation.beerstock.entity.Beer;
+
+import java.util.List;
+
+//Recebe o filtro e não uma Specification para que o contrato não dependa da Criteria API do JPA
+public interface BeerSearchRepository {
+
+    List<Beer> search(BeerFilterDTO filter, Long after, int limit);
+}
@@ -0,0 +1,31 @@
+package one.digitalinnovation.beerstock.repository;
+
+import lombok.AllArgsConstructor;
+import one.digitalinnovation.beerstock.dto.BeerFilterDTO;
+import one.digitalinnovation.beerstock.entity.Beer;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import javax.persistence.EntityManager;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Root;
+import java.util.List;
+
+//Mesma paginação por cursor do listAll; o findAll(Specification, Pageable) faria também um COUNT do filtro a cada página
+@AllArgsConstructor(onConstructor = @__(@Autowired))
+public class BeerSearchRepositoryImpl implements BeerSearchRepository {
+
+    private final EntityManager entityManager;
+
+    @Override
+    public List<Beer> search(BeerFilterDTO filter, Long after, int limit) {
+        CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Beer> query = builder.createQuery(Beer.class);
+        Root<Beer> root = query.from(Beer.class);
+        query.where(BeerSpecifications.idGreaterThan(after).and(BeerSpecifications.matching(filter)).toPredicate(root, query, builder))
+                .orderBy(builder.asc(root.get("id")));
+        return entityManager.createQuery(query)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+}
@@ -0,0 +1,79 @@
+package one.digitalinnovation.beerstock.repository;
+
+import one.digitalinnovation.beerstock.dto.BeerFilterDTO;
+import one.digitalinnovation.beerstock.entity.Beer;
+import one.digitalinnovation.beerstock.entity.BeerNames;
+import one.digitalinnovation.beerstock.enums.BeerType;
+import org.springframework.data.jpa.domain.Specification;
+
+//Cada critério só entra na consulta quando foi informado; brand e type usam os índices (brand, id) e (type, id)
+public final class BeerSpecifications {
+
+    private static final char LIKE_ESCAPE = '\\';
+
+    private BeerSpecifications() {
+    }
+
+    public static Specification<Beer> matching(BeerFilterDTO filter) {
+        Specification<Beer> specification = Specification.where(null);
+        if (filter.getType() != null) {
+            specification = specification.and(hasType(filter.getType()));
+        }
+        if (filter.getBrand() != null) {
+            specification = specification.and(hasBrand(filter.getBrand()));
+        }
+        if (filter.getNamePrefix() != null) {
+            specification = specification.and(nameStartsWith(filter.getNamePrefix()));
+        }
+        if (filter.getMinQuantity() != null) {
+            specification = specification.and(quantityAtLeast(filter.getMinQuantity()));
+        }
+        if (filter.getMaxQuantity() != null) {
+            specification = specification.and(quantityAtMost(filter.getMaxQuantity()));
+        }
+        if (filter.getBelowPercentOfMax() != null) {
+            specification = specification.and(quantityBelowPercentOfMax(filter.getBelowPercentOfMax()));
+        }
+        return specification;
+    }
+
+    public static Specification<Beer> idGreaterThan(Long id) {
+        return (root, query, builder) -> builder.greaterThan(root.get("id"), id);
+    }
+
+    public static Specification<Beer> hasType(BeerType type) {
+        return (root, query, builder) -> builder.equal(root.get("type"), type);
+    }
+
+    public static Specification<Beer> hasBrand(String brand) {
+        return (root, query, builder) -> builder.equal(root.get("brand"), brand);
+    }
+
+    //Compara na forma normalizada, como a busca por nome: caixa, acentos e espaços não importam.
+    //LIKE 'prefixo%' ainda usa o índice único de normalized_name
+    public static Specification<Beer> nameStartsWith(String prefix) {
+        String pattern = escapeLike(BeerNames.normalizePrefix(prefix)) + "%";
+        return (root, query, builder) -> builder.like(root.get("normalizedName"), pattern, LIKE_ESCAPE);
+    }
+
+    public static Specification<Beer> quantityAtLeast(int quantity) {
+        return (root, query, builder) -> builder.greaterThanOrEqualTo(root.get("quantity"), quantity);
+    }
+
+    public static Specification<Beer> quantityAtMost(int quantity) {
+        return (root, query, builder) -> builder.lessThanOrEqualTo(root.get("quantity"), quantity);
+    }
+
+    //quantity * 100 < max * percent, em inteiros para não depender de divisão no banco
+    public static Specification<Beer> quantityBelowPercentOfMax(int percent) {
+        return (root, query, builder) -> builder.lessThan(
+                builder.prod(root.<Integer>get("quantity"), 100),
+                builder.prod(root.<Integer>get("max"), percent));
+    }
+
+    private static String escapeLike(String value) {
+        return value.replace("\\", "\\\\")
+                .replace("%", "\\%")
+                .replace("_", "\\_");
+    }
+}
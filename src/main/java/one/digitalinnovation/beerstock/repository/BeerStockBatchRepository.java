@@ -0,0 +1,10 @@
+package one.digitalinnovation.beerstock.repository;
+
+import one.digitalinnovation.beerstock.dto.StockAdjustmentDTO;
+
+import java.util.List;
+
+public interface BeerStockBatchRepository {
+
+    int[] adjustQuantities(List<StockAdjustmentDTO> adjustments);
+}
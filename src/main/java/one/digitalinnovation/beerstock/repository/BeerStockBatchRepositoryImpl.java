@@ -0,0 +1,27 @@
+package one.digitalinnovation.beerstock.repository;
+
+import lombok.AllArgsConstructor;
+import one.digitalinnovation.beerstock.dto.StockAdjustmentDTO;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+//Updates condicionais em um único batch JDBC; o Hibernate não agrupa UPDATEs em JPQL
+@AllArgsConstructor(onConstructor = @__(@Autowired))
+public class BeerStockBatchRepositoryImpl implements BeerStockBatchRepository {
+
+    private static final String ADJUST_QUANTITY_SQL = "UPDATE beer SET quantity = quantity + ?, version = version + 1 " +
+            "WHERE id = ? AND quantity + ? BETWEEN 0 AND max";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public int[] adjustQuantities(List<StockAdjustmentDTO> adjustments) {
+        List<Object[]> batchArgs = adjustments.stream()
+                .map(adjustment -> new Object[]{adjustment.getDelta(), adjustment.getId(), adjustment.getDelta()})
+                .collect(Collectors.toList());
+        return jdbcTemplate.batchUpdate(ADJUST_QUANTITY_SQL, batchArgs);
+    }
+}
@@ -0,0 +1,520 @@
+package one.digitalinnovation.beerstock.repository;
+
+import one.digitalinnovation.beerstock.config.JournalProperties;
+import one.digitalinnovation.beerstock.dto.BeerFilterDTO;
+import one.digitalinnovation.beerstock.dto.BeerVersionDTO;
+import one.digitalinnovation.beerstock.dto.StockAdjustmentDTO;
+import one.digitalinnovation.beerstock.entity.Beer;
+import one.digitalinnovation.beerstock.entity.BeerNames;
+import one.digitalinnovation.beerstock.enums.BeerType;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.data.domain.Example;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.Assert;
+
+import javax.persistence.EntityNotFoundException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+//Backend alternativo do BeerRepository, ativado pelo profile "offheap": estoque em memória fora do heap com
+//incrementos por CAS e índice de nomes em endereçamento aberto, sem SQL nem contexto de persistência.
+//SUPPORTS na classe prevalece sobre o @Transactional da interface, então um incremento avulso não abre transação
+//no JPA; dentro de uma transação real as alterações são compensadas se ela sofrer rollback
+@Repository
+@Profile(OffHeapBeerRepository.PROFILE)
+@Transactional(propagation = Propagation.SUPPORTS)
+public class OffHeapBeerRepository implements BeerRepository {
+
+    public static final String PROFILE = "offheap";
+
+    private static final long ANY_VERSION = -1L;
+    private static final int EXPECTED_NAMES = 1024;
+
+    private static final QuantityCheck INCREMENT = (quantity, max, delta) -> (long) quantity + delta <= max;
+    private static final QuantityCheck DECREMENT = (quantity, max, delta) -> (long) quantity + delta >= 0;
+    private static final QuantityCheck ADJUSTMENT = (quantity, max, delta) -> (long) quantity + delta >= 0
+            && (long) quantity + delta <= max;
+    private static final QuantityCheck UNCHECKED = (quantity, max, delta) -> true;
+
+    private final StockSlots slots = new StockSlots();
+    private final BeerNameIndex nameIndex = new BeerNameIndex(EXPECTED_NAMES);
+    private final AtomicLong lastId = new AtomicLong();
+
+    //O journal reconstrói a tabela do H2, que este backend não usa
+    public OffHeapBeerRepository(JournalProperties journalProperties) {
+        if (journalProperties.isEnabled()) {
+            throw new IllegalStateException("beerstock.journal.enabled is not supported with the " + PROFILE + " profile");
+        }
+    }
+
+    @Override
+    public Optional<Beer> findByNormalizedName(String normalizedName) {
+        return load(nameIndex.get(normalizedName));
+    }
+
+    @Override
+    public Optional<BeerVersionDTO> findVersionByNormalizedName(String normalizedName) {
+        long id = nameIndex.get(normalizedName);
+        long state = slots.state(id);
+        return StockSlots.isPresent(state) ? Optional.of(new BeerVersionDTO(id, StockSlots.version(state))) : Optional.empty();
+    }
+
+    @Override
+    public Set<String> findNormalizedNamesIn(Collection<String> normalizedNames) {
+        return normalizedNames.stream()
+                .filter(normalizedName -> StockSlots.isPresent(slots.state(nameIndex.get(normalizedName))))
+                .collect(Collectors.toSet());
+    }
+
+    //Todo insert já grava o nome normalizado, então não há linhas para o backfill
+    @Override
+    public List<Beer> findByNormalizedNameIsNullAndIdGreaterThanOrderByIdAsc(Long id, Pageable pageable) {
+        return List.of();
+    }
+
+    @Override
+    public Set<Long> findIdsIn(Collection<Long> ids) {
+        return ids.stream()
+                .filter(id -> StockSlots.isPresent(slots.state(slotId(id))))
+                .collect(Collectors.toSet());
+    }
+
+    @Override
+    public Optional<Integer> findQuantityById(Long id) {
+        long state = slots.state(slotId(id));
+        return StockSlots.isPresent(state) ? Optional.of(StockSlots.quantity(state)) : Optional.empty();
+    }
+
+    @Override
+    public Stream<String> streamAllNormalizedNames() {
+        return presentIds(0L).mapToObj(id -> slots.descriptor(id).getNormalizedName());
+    }
+
+    @Override
+    public long sumQuantities() {
+        return presentIds(0L).map(id -> StockSlots.quantity(slots.state(id))).sum();
+    }
+
+    @Override
+    public List<Object[]> sumQuantitiesByType() {
+        Map<BeerType, Long> unitsByType = new EnumMap<>(BeerType.class);
+        presentIds(0L).forEach(id -> unitsByType.merge(slots.descriptor(id).getType(),
+                (long) StockSlots.quantity(slots.state(id)), Long::sum));
+        return rows(unitsByType);
+    }
+
+    @Override
+    public List<Object[]> sumQuantitiesByBrand() {
+        Map<String, Long> unitsByBrand = new HashMap<>();
+        presentIds(0L).forEach(id -> unitsByBrand.merge(slots.descriptor(id).getBrand(),
+                (long) StockSlots.quantity(slots.state(id)), Long::sum));
+        return rows(unitsByBrand);
+    }
+
+    @Override
+    public long countAtCapacity() {
+        return presentIds(0L).filter(id -> StockSlots.quantity(slots.state(id)) >= slots.max(id)).count();
+    }
+
+    @Override
+    public long countNearMax(double ratio) {
+        return presentIds(0L).filter(id -> StockSlots.quantity(slots.state(id)) >= slots.max(id) * ratio).count();
+    }
+
+    @Override
+    public List<Beer> findByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable) {
+        return page(beers(slotId(id)), pageable).collect(Collectors.toList());
+    }
+
+    @Override
+    public Stream<Beer> streamAllOrderedById() {
+        return beers(0L);
+    }
+
+    @Override
+    public List<Beer> search(BeerFilterDTO filter, Long after, int limit) {
+        String normalizedPrefix = BeerNames.normalizePrefix(filter.getNamePrefix());
+        return beers(slotId(after))
+                .filter(beer -> matches(filter, normalizedPrefix, beer))
+                .limit(limit)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public int incrementQuantity(Long id, int quantityToIncrement) {
+        return changeQuantity(slotId(id), quantityToIncrement, ANY_VERSION, INCREMENT);
+    }
+
+    @Override
+    public int incrementQuantityIfVersion(Long id, int quantityToIncrement, long expectedVersion) {
+        return changeQuantity(slotId(id), quantityToIncrement, expectedVersion, INCREMENT);
+    }
+
+    @Override
+    public int decrementQuantity(Long id, int quantityToDecrement) {
+        return changeQuantity(slotId(id), -quantityToDecrement, ANY_VERSION, DECREMENT);
+    }
+
+    @Override
+    public int decrementQuantityIfVersion(Long id, int quantityToDecrement, long expectedVersion) {
+        return changeQuantity(slotId(id), -quantityToDecrement, expectedVersion, DECREMENT);
+    }
+
+    @Override
+    public int restoreQuantity(Long id, int quantityToRestore) {
+        return changeQuantity(slotId(id), quantityToRestore, ANY_VERSION, INCREMENT);
+    }
+
+    @Override
+    public int deleteByIdIfVersion(Long id, long expectedVersion) {
+        return delete(slotId(id), expectedVersion) ? 1 : 0;
+    }
+
+    //Mesmo contrato do batch JDBC: uma contagem por ajuste, na ordem recebida
+    @Override
+    public int[] adjustQuantities(List<StockAdjustmentDTO> adjustments) {
+        int[] updatedRows = new int[adjustments.size()];
+        for (int i = 0; i < updatedRows.length; i++) {
+            StockAdjustmentDTO adjustment = adjustments.get(i);
+            updatedRows[i] = changeQuantity(slotId(adjustment.getId()), adjustment.getDelta(), ANY_VERSION, ADJUSTMENT);
+        }
+        return updatedRows;
+    }
+
+    @Override
+    public <S extends Beer> S save(S beer) {
+        Assert.notNull(beer, "Entity must not be null!");
+        long id = slotId(beer.getId());
+        //Como no merge do JPA, um id desconhecido vira um insert com id novo
+        return StockSlots.isPresent(slots.state(id)) ? update(id, beer) : insert(beer);
+    }
+
+    @Override
+    public <S extends Beer> List<S> saveAll(Iterable<S> beers) {
+        Assert.notNull(beers, "Entities must not be null!");
+        List<S> savedBeers = new ArrayList<>();
+        beers.forEach(beer -> savedBeers.add(save(beer)));
+        return savedBeers;
+    }
+
+    @Override
+    public <S extends Beer> S saveAndFlush(S beer) {
+        return save(beer);
+    }
+
+    //Nada fica pendente: toda escrita é aplicada na hora
+    @Override
+    public void flush() {
+    }
+
+    @Override
+    public Optional<Beer> findById(Long id) {
+        Assert.notNull(id, "The given id must not be null!");
+        return load(id);
+    }
+
+    @Override
+    public boolean existsById(Long id) {
+        Assert.notNull(id, "The given id must not be null!");
+        return StockSlots.isPresent(slots.state(id));
+    }
+
+    @Override
+    public Beer getOne(Long id) {
+        return findById(id).orElseThrow(() -> new EntityNotFoundException("Unable to find " + Beer.class.getName() + " with id " + id));
+    }
+
+    @Override
+    public List<Beer> findAll() {
+        return beers(0L).collect(Collectors.toList());
+    }
+
+    @Override
+    public List<Beer> findAll(Sort sort) {
+        requireUnsorted(sort);
+        return findAll();
+    }
+
+    @Override
+    public Page<Beer> findAll(Pageable pageable) {
+        List<Beer> content = page(beers(0L), pageable).collect(Collectors.toList());
+        return new PageImpl<>(content, pageable, count());
+    }
+
+    @Override
+    public List<Beer> findAllById(Iterable<Long> ids) {
+        Assert.notNull(ids, "Ids must not be null!");
+        List<Beer> beers = new ArrayList<>();
+        ids.forEach(id -> load(slotId(id)).ifPresent(beers::add));
+        return beers;
+    }
+
+    @Override
+    public long count() {
+        return presentIds(0L).count();
+    }
+
+    @Override
+    public void deleteById(Long id) {
+        Assert.notNull(id, "The given id must not be null!");
+        if (!delete(id, ANY_VERSION)) {
+            throw new EmptyResultDataAccessException(String.format("No %s entity with id %s exists!", Beer.class, id), 1);
+        }
+    }
+
+    @Override
+    public void delete(Beer beer) {
+        Assert.notNull(beer, "Entity must not be null!");
+        delete(slotId(beer.getId()), ANY_VERSION);
+    }
+
+    @Override
+    public void deleteAll(Iterable<? extends Beer> beers) {
+        Assert.notNull(beers, "Entities must not be null!");
+        beers.forEach(this::delete);
+    }
+
+    @Override
+    public void deleteAll() {
+        presentIds(0L).forEach(id -> delete(id, ANY_VERSION));
+    }
+
+    @Override
+    public void deleteInBatch(Iterable<Beer> beers) {
+        deleteAll(beers);
+    }
+
+    @Override
+    public void deleteAllInBatch() {
+        deleteAll();
+    }
+
+    @Override
+    public <S extends Beer> Optional<S> findOne(Example<S> example) {
+        throw queryByExampleNotSupported();
+    }
+
+    @Override
+    public <S extends Beer> List<S> findAll(Example<S> example) {
+        throw queryByExampleNotSupported();
+    }
+
+    @Override
+    public <S extends Beer> List<S> findAll(Example<S> example, Sort sort) {
+        throw queryByExampleNotSupported();
+    }
+
+    @Override
+    public <S extends Beer> Page<S> findAll(Example<S> example, Pageable pageable) {
+        throw queryByExampleNotSupported();
+    }
+
+    @Override
+    public <S extends Beer> long count(Example<S> example) {
+        throw queryByExampleNotSupported();
+    }
+
+    @Override
+    public <S extends Beer> boolean exists(Example<S> example) {
+        throw queryByExampleNotSupported();
+    }
+
+    //Laço de CAS: a checagem e a escrita valem para o mesmo estado, como a cláusula WHERE do UPDATE condicional
+    private int changeQuantity(long id, int delta, long expectedVersion, QuantityCheck check) {
+        while (true) {
+            long state = slots.state(id);
+            if (!StockSlots.isPresent(state) || (expectedVersion != ANY_VERSION && StockSlots.version(state) != expectedVersion)) {
+                return 0;
+            }
+            int quantity = StockSlots.quantity(state);
+            if (!check.allows(quantity, slots.max(id), delta)) {
+                return 0;
+            }
+            if (slots.compareAndSet(id, state, StockSlots.nextState(state, quantity + delta))) {
+                onRollback(() -> changeQuantity(id, -delta, ANY_VERSION, UNCHECKED));
+                return 1;
+            }
+        }
+    }
+
+    //O slot é preenchido sob o lock do índice, antes de o nome ficar visível
+    private <S extends Beer> S insert(S beer) {
+        StockSlots.Descriptor descriptor = descriptorOf(beer);
+        long id = lastId.incrementAndGet();
+        long state = StockSlots.state(0L, beer.getQuantity());
+        if (!nameIndex.putIfAbsent(descriptor.getNormalizedName(), id, () -> slots.publish(id, descriptor, beer.getMax(), state))) {
+            throw new DataIntegrityViolationException("Beer name already registered: " + descriptor.getNormalizedName());
+        }
+        onRollback(() -> delete(id, ANY_VERSION));
+        beer.setId(id);
+        beer.setNormalizedName(descriptor.getNormalizedName());
+        beer.setVersion(0L);
+        return beer;
+    }
+
+    //Saves de cervejas existentes são raros (backfill, bulk) e serializados entre si; não são desfeitos no rollback
+    private synchronized <S extends Beer> S update(long id, S beer) {
+        long state = slots.state(id);
+        if (!StockSlots.isPresent(state) || StockSlots.version(state) != beer.getVersion()) {
+            throw new ObjectOptimisticLockingFailureException(Beer.class, id);
+        }
+        StockSlots.Descriptor current = slots.descriptor(id);
+        StockSlots.Descriptor descriptor = descriptorOf(beer);
+        if (sameDescriptor(current, descriptor) && slots.max(id) == beer.getMax() && StockSlots.quantity(state) == beer.getQuantity()) {
+            return beer;
+        }
+        boolean renamed = !descriptor.getNormalizedName().equals(current.getNormalizedName());
+        if (renamed && !nameIndex.putIfAbsent(descriptor.getNormalizedName(), id, () -> { })) {
+            throw new DataIntegrityViolationException("Beer name already registered: " + descriptor.getNormalizedName());
+        }
+        long newState = StockSlots.nextState(state, beer.getQuantity());
+        if (!slots.update(id, descriptor, beer.getMax(), state, newState)) {
+            if (renamed) {
+                nameIndex.remove(descriptor.getNormalizedName(), id);
+            }
+            throw new ObjectOptimisticLockingFailureException(Beer.class, id);
+        }
+        if (renamed) {
+            nameIndex.remove(current.getNormalizedName(), id);
+        }
+        beer.setNormalizedName(descriptor.getNormalizedName());
+        beer.setVersion(StockSlots.version(newState));
+        return beer;
+    }
+
+    //Ids nunca são reaproveitados, então o rollback de um delete pode devolver a cerveja à mesma posição
+    private boolean delete(long id, long expectedVersion) {
+        while (true) {
+            long state = slots.state(id);
+            if (!StockSlots.isPresent(state) || (expectedVersion != ANY_VERSION && StockSlots.version(state) != expectedVersion)) {
+                return false;
+            }
+            StockSlots.Descriptor descriptor = slots.descriptor(id);
+            int max = slots.max(id);
+            if (slots.compareAndSet(id, state, 0L)) {
+                nameIndex.remove(descriptor.getNormalizedName(), id);
+                //Se outro create tomou o nome nesse meio tempo a cerveja removida não volta
+                onRollback(() -> nameIndex.putIfAbsent(descriptor.getNormalizedName(), id,
+                        () -> slots.publish(id, descriptor, max, state)));
+                return true;
+            }
+        }
+    }
+
+    private void onRollback(Runnable compensation) {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()
+                || !TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_ROLLED_BACK) {
+                    compensation.run();
+                }
+            }
+        });
+    }
+
+    private Optional<Beer> load(long id) {
+        long state = slots.state(id);
+        if (!StockSlots.isPresent(state)) {
+            return Optional.empty();
+        }
+        StockSlots.Descriptor descriptor = slots.descriptor(id);
+        return Optional.of(new Beer(id, descriptor.getName(), descriptor.getNormalizedName(), descriptor.getBrand(),
+                slots.max(id), StockSlots.quantity(state), descriptor.getType(), StockSlots.version(state)));
+    }
+
+    private LongStream presentIds(long afterId) {
+        return LongStream.rangeClosed(afterId + 1, lastId.get())
+                .filter(id -> StockSlots.isPresent(slots.state(id)));
+    }
+
+    //Cervejas removidas entre o filtro e a leitura simplesmente ficam de fora
+    private Stream<Beer> beers(long afterId) {
+        return presentIds(afterId)
+                .mapToObj(this::load)
+                .flatMap(Optional::stream);
+    }
+
+    private static Stream<Beer> page(Stream<Beer> beers, Pageable pageable) {
+        if (pageable.isUnpaged()) {
+            return beers;
+        }
+        requireUnsorted(pageable.getSort());
+        return beers.skip(pageable.getOffset()).limit(pageable.getPageSize());
+    }
+
+    private static boolean matches(BeerFilterDTO filter, String normalizedPrefix, Beer beer) {
+        return (filter.getType() == null || filter.getType() == beer.getType())
+                && (filter.getBrand() == null || filter.getBrand().equals(beer.getBrand()))
+                && (normalizedPrefix == null || beer.getNormalizedName().startsWith(normalizedPrefix))
+                && (filter.getMinQuantity() == null || beer.getQuantity() >= filter.getMinQuantity())
+                && (filter.getMaxQuantity() == null || beer.getQuantity() <= filter.getMaxQuantity())
+                && (filter.getBelowPercentOfMax() == null
+                || (long) beer.getQuantity() * 100 < (long) beer.getMax() * filter.getBelowPercentOfMax());
+    }
+
+    //As colunas obrigatórias da tabela viram a mesma DataIntegrityViolationException que o banco lançaria
+    private static StockSlots.Descriptor descriptorOf(Beer beer) {
+        if (beer.getName() == null || beer.getBrand() == null || beer.getType() == null) {
+            throw new DataIntegrityViolationException("Beer name, brand and type are required");
+        }
+        return new StockSlots.Descriptor(beer.getName(), BeerNames.normalize(beer.getName()), beer.getBrand(), beer.getType());
+    }
+
+    private static boolean sameDescriptor(StockSlots.Descriptor current, StockSlots.Descriptor descriptor) {
+        return current.getName().equals(descriptor.getName())
+                && current.getBrand().equals(descriptor.getBrand())
+                && current.getType() == descriptor.getType();
+    }
+
+    private static <K> List<Object[]> rows(Map<K, Long> sums) {
+        return sums.entrySet().stream()
+                .map(entry -> new Object[]{entry.getKey(), entry.getValue()})
+                .collect(Collectors.toList());
+    }
+
+    private static long slotId(Long id) {
+        return Objects.requireNonNullElse(id, 0L);
+    }
+
+    private static void requireUnsorted(Sort sort) {
+        if (sort.isSorted()) {
+            throw new UnsupportedOperationException("The " + PROFILE + " store only returns beers ordered by id");
+        }
+    }
+
+    private static UnsupportedOperationException queryByExampleNotSupported() {
+        return new UnsupportedOperationException("Query by example is not supported by the " + PROFILE + " store");
+    }
+
+    @FunctionalInterface
+    private interface QuantityCheck {
+
+        boolean allows(int quantity, int max, int delta);
+    }
+}
@@ -0,0 +1,23 @@
+package one.digitalinnovation.beerstock.repository;
+
+import one.digitalinnovation.beerstock.entity.OutboxEvent;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+
+    //Eventos de uma mesma cerveja sempre caem na mesma partição, em ordem de id. O MOD do Hibernate é inteiro,
+    //então os parâmetros também precisam ser
+    @Query("SELECT e FROM OutboxEvent e WHERE MOD(e.beerId, :partitions) = :partition ORDER BY e.id")
+    List<OutboxEvent> findPartition(@Param("partitions") int partitions, @Param("partition") int partition, Pageable pageable);
+
+    @Modifying
+    @Query("DELETE FROM OutboxEvent e WHERE e.id IN :ids")
+    int deleteByIdIn(@Param("ids") Collection<Long> ids);
+}
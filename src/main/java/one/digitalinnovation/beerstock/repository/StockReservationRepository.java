@@ -0,0 +1,35 @@
+package one.digitalinnovation.beerstock.repository;
+
+import one.digitalinnovation.beerstock.entity.StockReservation;
+import one.digitalinnovation.beerstock.enums.ReservationStatus;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+import java.util.List;
+
+public interface StockReservationRepository extends JpaRepository<StockReservation, Long> {
+
+    List<StockReservation> findByStatusAndExpiresAtBefore(ReservationStatus status, Instant now, Pageable pageable);
+
+    //Só uma transição sai de HELD: commit, release e expiração concorrentes decidem pelo número de linhas alteradas
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE StockReservation r SET r.status = one.digitalinnovation.beerstock.enums.ReservationStatus.COMMITTED " +
+            "WHERE r.id = :id AND r.status = one.digitalinnovation.beerstock.enums.ReservationStatus.HELD " +
+            "AND r.expiresAt > :now")
+    int commitHeld(@Param("id") Long id, @Param("now") Instant now);
+
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE StockReservation r SET r.status = one.digitalinnovation.beerstock.enums.ReservationStatus.RELEASED " +
+            "WHERE r.id = :id AND r.status = one.digitalinnovation.beerstock.enums.ReservationStatus.HELD")
+    int releaseHeld(@Param("id") Long id);
+
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE StockReservation r SET r.status = one.digitalinnovation.beerstock.enums.ReservationStatus.EXPIRED " +
+            "WHERE r.id = :id AND r.status = one.digitalinnovation.beerstock.enums.ReservationStatus.HELD " +
+            "AND r.expiresAt <= :now")
+    int expireHeld(@Param("id") Long id, @Param("now") Instant now);
+}
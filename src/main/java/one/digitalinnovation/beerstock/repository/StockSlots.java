@@ -0,0 +1,143 @@
+package one.digitalinnovation.beerstock.repository;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import one.digitalinnovation.beerstock.enums.BeerType;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+//Estoque fora do heap indexado pelo id: cada posição guarda quantidade e versão num único long, atualizado por CAS,
+//e o max num int. Os campos que só mudam num save (nome, marca, tipo) ficam num descritor imutável no heap
+final class StockSlots {
+
+    private static final int CHUNK_BITS = 16;
+    private static final int CHUNK_SLOTS = 1 << CHUNK_BITS;
+    private static final int CHUNK_MASK = CHUNK_SLOTS - 1;
+    private static final int SLOT_BYTES = 16;
+    private static final int MAX_OFFSET = 8;
+    private static final long QUANTITY_MASK = 0xFFFFFFFFL;
+
+    private static final VarHandle LONGS = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.nativeOrder());
+    private static final VarHandle INTS = MethodHandles.byteBufferViewVarHandle(int[].class, ByteOrder.nativeOrder());
+
+    private volatile Chunk[] chunks = new Chunk[0];
+
+    //Estado 0 marca posição vazia ou removida; a versão é gravada somada de 1 para que a versão 0 seja distinguível
+    static boolean isPresent(long state) {
+        return state >>> 32 != 0;
+    }
+
+    static int quantity(long state) {
+        return (int) state;
+    }
+
+    static long version(long state) {
+        return (state >>> 32) - 1;
+    }
+
+    static long state(long version, int quantity) {
+        return stamp(version + 1) << 32 | (quantity & QUANTITY_MASK);
+    }
+
+    //Mesma regra dos updates em JPQL: toda alteração de quantidade incrementa a versão
+    static long nextState(long state, int quantity) {
+        return state(version(state) + 1, quantity);
+    }
+
+    //A versão ocupa 32 bits: depois de 2^32 - 1 alterações volta a 0 em vez de chegar ao estado vazio
+    private static long stamp(long value) {
+        long stamp = value & QUANTITY_MASK;
+        return stamp == 0 ? 1 : stamp;
+    }
+
+    long state(long id) {
+        Chunk chunk = chunk(id);
+        return chunk == null ? 0L : (long) LONGS.getVolatile(chunk.buffer, offset(id));
+    }
+
+    boolean compareAndSet(long id, long expectedState, long newState) {
+        Chunk chunk = chunk(id);
+        return chunk != null && LONGS.compareAndSet(chunk.buffer, offset(id), expectedState, newState);
+    }
+
+    int max(long id) {
+        return (int) INTS.getVolatile(chunk(id).buffer, offset(id) + MAX_OFFSET);
+    }
+
+    Descriptor descriptor(long id) {
+        return chunk(id).descriptors.get((int) (id & CHUNK_MASK));
+    }
+
+    //Descritor e max são gravados antes do estado, cuja escrita volátil torna a cerveja visível
+    void publish(long id, Descriptor descriptor, int max, long state) {
+        Chunk chunk = ensureChunk(id);
+        chunk.descriptors.set((int) (id & CHUNK_MASK), descriptor);
+        INTS.setVolatile(chunk.buffer, offset(id) + MAX_OFFSET, max);
+        LONGS.setVolatile(chunk.buffer, offset(id), state);
+    }
+
+    //Save de cerveja existente: troca descritor e max e só então tenta o CAS do estado, desfazendo a troca se
+    //um update de estoque ganhou a corrida. Quem chama serializa os saves entre si
+    boolean update(long id, Descriptor descriptor, int max, long expectedState, long newState) {
+        Chunk chunk = chunk(id);
+        if (chunk == null || (long) LONGS.getVolatile(chunk.buffer, offset(id)) != expectedState) {
+            return false;
+        }
+        int slot = (int) (id & CHUNK_MASK);
+        Descriptor previousDescriptor = chunk.descriptors.getAndSet(slot, descriptor);
+        int previousMax = (int) INTS.getAndSet(chunk.buffer, offset(id) + MAX_OFFSET, max);
+        if (LONGS.compareAndSet(chunk.buffer, offset(id), expectedState, newState)) {
+            return true;
+        }
+        chunk.descriptors.set(slot, previousDescriptor);
+        INTS.setVolatile(chunk.buffer, offset(id) + MAX_OFFSET, previousMax);
+        return false;
+    }
+
+    private Chunk chunk(long id) {
+        Chunk[] current = chunks;
+        long index = id >>> CHUNK_BITS;
+        return id <= 0 || index >= current.length ? null : current[(int) index];
+    }
+
+    private synchronized Chunk ensureChunk(long id) {
+        int index = (int) (id >>> CHUNK_BITS);
+        Chunk[] current = chunks;
+        if (index < current.length) {
+            return current[index];
+        }
+        Chunk[] grown = Arrays.copyOf(current, index + 1);
+        for (int i = current.length; i < grown.length; i++) {
+            grown[i] = new Chunk();
+        }
+        chunks = grown;
+        return grown[index];
+    }
+
+    private static int offset(long id) {
+        return (int) (id & CHUNK_MASK) * SLOT_BYTES;
+    }
+
+    private static final class Chunk {
+
+        //alignedSlice garante o alinhamento de 8 bytes exigido pelo CAS em buffers diretos
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(CHUNK_SLOTS * SLOT_BYTES + Long.BYTES)
+                .alignedSlice(Long.BYTES);
+        private final AtomicReferenceArray<Descriptor> descriptors = new AtomicReferenceArray<>(CHUNK_SLOTS);
+    }
+
+    @Getter
+    @AllArgsConstructor
+    static final class Descriptor {
+
+        private final String name;
+        private final String normalizedName;
+        private final String brand;
+        private final BeerType type;
+    }
+}
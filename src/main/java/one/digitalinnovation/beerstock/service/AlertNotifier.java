@@ -0,0 +1,9 @@
+package one.digitalinnovation.beerstock.service;
+
+import one.digitalinnovation.beerstock.dto.StockAlertDTO;
+
+//Destino dos alertas de estoque; chamado sempre pela mesma thread, na ordem em que os alertas mudaram de estado
+public interface AlertNotifier {
+
+    void notify(StockAlertDTO alert);
+}
@@ -0,0 +1,279 @@
+package one.digitalinnovation.beerstock.service;
+
+import io.micrometer.core.annotation.Timed;
+import one.digitalinnovation.beerstock.config.BulkProperties;
+import one.digitalinnovation.beerstock.dto.BeerDTO;
+import one.digitalinnovation.beerstock.dto.BulkCreateResultDTO;
+import one.digitalinnovation.beerstock.dto.StockAdjustmentDTO;
+import one.digitalinnovation.beerstock.dto.StockAdjustmentResultDTO;
+import one.digitalinnovation.beerstock.entity.Beer;
+import one.digitalinnovation.beerstock.entity.BeerNames;
+import one.digitalinnovation.beerstock.enums.BulkCreateStatus;
+import one.digitalinnovation.beerstock.enums.StockAdjustmentMode;
+import one.digitalinnovation.beerstock.enums.StockAdjustmentStatus;
+import one.digitalinnovation.beerstock.exception.BeerAlreadyRegisteredException;
+import one.digitalinnovation.beerstock.exception.BeerNotFoundException;
+import one.digitalinnovation.beerstock.exception.BeerStockExceededException;
+import one.digitalinnovation.beerstock.mapper.BeerMapper;
+import one.digitalinnovation.beerstock.repository.BeerRepository;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static one.digitalinnovation.beerstock.config.MetricsConfig.SERVICE_METRIC;
+
+@Service
+public class BeerBulkService {
+
+    private final BeerRepository beerRepository;
+    private final StockDeltaBuffer stockDeltaBuffer;
+    private final BeerOutbox beerOutbox;
+    private final BeerMutationListener beerMutationListener;
+    private final Validator validator;
+    private final TransactionTemplate transactionTemplate;
+    private final BulkProperties properties;
+    private final BeerMapper beerMapper = BeerMapper.INSTANCE;
+
+    public BeerBulkService(BeerRepository beerRepository,
+                           StockDeltaBuffer stockDeltaBuffer,
+                           BeerOutbox beerOutbox,
+                           BeerMutationListener beerMutationListener,
+                           Validator validator,
+                           PlatformTransactionManager transactionManager,
+                           BulkProperties properties) {
+        this.beerRepository = beerRepository;
+        this.stockDeltaBuffer = stockDeltaBuffer;
+        this.beerOutbox = beerOutbox;
+        this.beerMutationListener = beerMutationListener;
+        this.validator = validator;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.properties = properties;
+    }
+
+    @Timed(value = SERVICE_METRIC, extraTags = {"operation", "createBeers"}, histogram = true)
+    public List<BulkCreateResultDTO> createBeers(Iterator<BeerDTO> beerDTOs) {
+        List<BulkCreateResultDTO> results = new ArrayList<>();
+        List<BeerDTO> chunk = new ArrayList<>(properties.getChunkSize());
+        while (beerDTOs.hasNext()) {
+            chunk.add(beerDTOs.next());
+            if (chunk.size() == properties.getChunkSize()) {
+                results.addAll(createChunk(results.size(), chunk));
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            results.addAll(createChunk(results.size(), chunk));
+        }
+        return results;
+    }
+
+    @Timed(value = SERVICE_METRIC, extraTags = {"operation", "adjustStock"}, histogram = true)
+    public List<StockAdjustmentResultDTO> adjustStock(List<StockAdjustmentDTO> adjustments, StockAdjustmentMode mode) {
+        if (stockDeltaBuffer.isEnabled()) {
+            stockDeltaBuffer.flush();
+        }
+        //Ordenado por id para que lotes concorrentes travem as linhas sempre na mesma ordem, sem deadlock
+        List<StockAdjustmentDTO> sortedAdjustments = adjustments.stream()
+                .sorted(Comparator.comparing(StockAdjustmentDTO::getId))
+                .collect(Collectors.toList());
+        Map<Long, Beer> adjustedBeers = new HashMap<>();
+
+        List<StockAdjustmentResultDTO> results = transactionTemplate.execute(status -> {
+            int[] updatedRows = beerRepository.adjustQuantities(sortedAdjustments);
+            List<StockAdjustmentResultDTO> lineResults = adjustmentResults(sortedAdjustments, updatedRows, adjustedBeers);
+            boolean anyRejected = lineResults.stream().anyMatch(result -> result.getStatus() != StockAdjustmentStatus.APPLIED);
+            if (anyRejected && mode == StockAdjustmentMode.ALL_OR_NOTHING) {
+                status.setRollbackOnly();
+                adjustedBeers.clear();
+                lineResults.stream()
+                        .filter(result -> result.getStatus() == StockAdjustmentStatus.APPLIED)
+                        .forEach(result -> {
+                            result.setStatus(StockAdjustmentStatus.ROLLED_BACK);
+                            result.setQuantity(null);
+                        });
+            } else {
+                //Um evento por cerveja, com a quantidade final e a soma dos deltas aplicados a ela
+                beerOutbox.stockChanged(adjustedBeers.values(), appliedDeltas(lineResults));
+            }
+            return lineResults;
+        });
+
+        results.stream()
+                .filter(result -> result.getStatus() == StockAdjustmentStatus.APPLIED)
+                .forEach(result -> stockDeltaBuffer.applied(result.getId(), result.getDelta()));
+        beerMutationListener.stockChanged(adjustedBeers.values().stream().map(beerMapper::toDTO).collect(Collectors.toList()),
+                appliedDeltas(results));
+        return results;
+    }
+
+    private static Map<Long, Integer> appliedDeltas(List<StockAdjustmentResultDTO> results) {
+        return results.stream()
+                .filter(result -> result.getStatus() == StockAdjustmentStatus.APPLIED)
+                .collect(Collectors.groupingBy(StockAdjustmentResultDTO::getId,
+                        Collectors.summingInt(StockAdjustmentResultDTO::getDelta)));
+    }
+
+    private List<StockAdjustmentResultDTO> adjustmentResults(List<StockAdjustmentDTO> adjustments, int[] updatedRows,
+                                                             Map<Long, Beer> adjustedBeers) {
+        Set<Long> appliedIds = new HashSet<>();
+        Set<Long> rejectedIds = new HashSet<>();
+        for (int i = 0; i < adjustments.size(); i++) {
+            if (updatedRows[i] == 0) {
+                rejectedIds.add(adjustments.get(i).getId());
+            } else {
+                appliedIds.add(adjustments.get(i).getId());
+            }
+        }
+        //Uma consulta para as quantidades finais e outra para separar "não encontrada" de "capacidade excedida"
+        Map<Long, Beer> appliedBeers = beerRepository.findAllById(appliedIds).stream()
+                .collect(Collectors.toMap(Beer::getId, Function.identity()));
+        Set<Long> existingRejectedIds = rejectedIds.isEmpty() ? Set.of() : beerRepository.findIdsIn(rejectedIds);
+        adjustedBeers.putAll(appliedBeers);
+
+        List<StockAdjustmentResultDTO> results = new ArrayList<>(adjustments.size());
+        for (int i = 0; i < adjustments.size(); i++) {
+            StockAdjustmentDTO adjustment = adjustments.get(i);
+            StockAdjustmentResultDTO result = StockAdjustmentResultDTO.builder()
+                    .id(adjustment.getId())
+                    .delta(adjustment.getDelta())
+                    .build();
+            if (updatedRows[i] != 0) {
+                result.setStatus(StockAdjustmentStatus.APPLIED);
+                result.setQuantity(appliedBeers.get(adjustment.getId()).getQuantity());
+            } else if (existingRejectedIds.contains(adjustment.getId())) {
+                result.setStatus(StockAdjustmentStatus.STOCK_EXCEEDED);
+                result.setMessage(new BeerStockExceededException(adjustment.getId(), adjustment.getDelta()).getMessage());
+            } else {
+                result.setStatus(StockAdjustmentStatus.NOT_FOUND);
+                result.setMessage(new BeerNotFoundException(adjustment.getId()).getMessage());
+            }
+            results.add(result);
+        }
+        return results;
+    }
+
+    private List<BulkCreateResultDTO> createChunk(int firstIndex, List<BeerDTO> chunk) {
+        BulkCreateResultDTO[] results = new BulkCreateResultDTO[chunk.size()];
+        Set<String> validNames = new HashSet<>();
+        for (int i = 0; i < chunk.size(); i++) {
+            BeerDTO beerDTO = chunk.get(i);
+            Set<ConstraintViolation<BeerDTO>> violations = validator.validate(beerDTO);
+            if (!violations.isEmpty()) {
+                results[i] = result(firstIndex + i, beerDTO, BulkCreateStatus.INVALID, violationsMessage(violations));
+            } else {
+                validNames.add(BeerNames.normalize(beerDTO.getName()));
+            }
+        }
+
+        //Uma única consulta por chunk no lugar de um findByName por cerveja
+        Set<String> registeredNames = validNames.isEmpty() ? Set.of() : beerRepository.findNormalizedNamesIn(validNames);
+        List<Integer> positionsToInsert = new ArrayList<>();
+        Set<String> namesInChunk = new HashSet<>();
+        for (int i = 0; i < chunk.size(); i++) {
+            if (results[i] != null) {
+                continue;
+            }
+            BeerDTO beerDTO = chunk.get(i);
+            String normalizedName = BeerNames.normalize(beerDTO.getName());
+            if (registeredNames.contains(normalizedName) || !namesInChunk.add(normalizedName)) {
+                results[i] = alreadyRegistered(firstIndex + i, beerDTO);
+            } else {
+                positionsToInsert.add(i);
+            }
+        }
+
+        if (!positionsToInsert.isEmpty()) {
+            try {
+                insertBatch(firstIndex, chunk, positionsToInsert, results);
+            } catch (DataIntegrityViolationException e) {
+                //Outra requisição registrou um dos nomes entre a consulta e o insert: refaz item a item
+                insertOneByOne(firstIndex, chunk, positionsToInsert, results);
+            }
+        }
+        return Arrays.asList(results);
+    }
+
+    private void insertBatch(int firstIndex, List<BeerDTO> chunk, List<Integer> positions, BulkCreateResultDTO[] results) {
+        List<Beer> savedBeers = transactionTemplate.execute(status -> {
+            List<Beer> insertedBeers = beerRepository.saveAll(positions.stream()
+                    .map(position -> newBeer(chunk.get(position)))
+                    .collect(Collectors.toList()));
+            beerOutbox.created(insertedBeers);
+            return insertedBeers;
+        });
+        for (int i = 0; i < positions.size(); i++) {
+            int position = positions.get(i);
+            results[position] = created(firstIndex + position, savedBeers.get(i));
+        }
+        beerMutationListener.created(savedBeers.stream().map(beerMapper::toDTO).collect(Collectors.toList()));
+    }
+
+    private void insertOneByOne(int firstIndex, List<BeerDTO> chunk, List<Integer> positions, BulkCreateResultDTO[] results) {
+        for (int position : positions) {
+            BeerDTO beerDTO = chunk.get(position);
+            try {
+                Beer savedBeer = transactionTemplate.execute(status -> {
+                    Beer insertedBeer = beerRepository.save(newBeer(beerDTO));
+                    beerOutbox.created(insertedBeer);
+                    return insertedBeer;
+                });
+                results[position] = created(firstIndex + position, savedBeer);
+                beerMutationListener.created(beerMapper.toDTO(savedBeer));
+            } catch (DataIntegrityViolationException e) {
+                results[position] = alreadyRegistered(firstIndex + position, beerDTO);
+            }
+        }
+    }
+
+    //O id informado pelo cliente é ignorado: com id preenchido o save faria merge em vez de insert
+    private Beer newBeer(BeerDTO beerDTO) {
+        Beer beer = beerMapper.toModel(beerDTO);
+        beer.setId(null);
+        return beer;
+    }
+
+    private BulkCreateResultDTO created(int index, Beer savedBeer) {
+        return BulkCreateResultDTO.builder()
+                .index(index)
+                .name(savedBeer.getName())
+                .id(savedBeer.getId())
+                .status(BulkCreateStatus.CREATED)
+                .build();
+    }
+
+    private BulkCreateResultDTO alreadyRegistered(int index, BeerDTO beerDTO) {
+        String message = new BeerAlreadyRegisteredException(beerDTO.getName()).getMessage();
+        return result(index, beerDTO, BulkCreateStatus.ALREADY_REGISTERED, message);
+    }
+
+    private BulkCreateResultDTO result(int index, BeerDTO beerDTO, BulkCreateStatus status, String message) {
+        return BulkCreateResultDTO.builder()
+                .index(index)
+                .name(beerDTO.getName())
+                .status(status)
+                .message(message)
+                .build();
+    }
+
+    private String violationsMessage(Set<ConstraintViolation<BeerDTO>> violations) {
+        return violations.stream()
+                .map(violation -> violation.getPropertyPath() + " " + violation.getMessage())
+                .sorted()
+                .collect(Collectors.joining(", "));
+    }
+}
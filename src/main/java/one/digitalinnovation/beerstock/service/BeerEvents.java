@@ -0,0 +1,152 @@
+package one.digitalinnovation.beerstock.service;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import one.digitalinnovation.beerstock.config.EventStreamProperties;
+import one.digitalinnovation.beerstock.dto.BeerDTO;
+import one.digitalinnovation.beerstock.dto.BeerEventDTO;
+import one.digitalinnovation.beerstock.enums.BeerEventType;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+//Ring buffer sem lock dos eventos de estoque: quem publica só reserva a próxima sequência e grava o slot,
+//sem esperar nenhum assinante. Cada assinante guarda o próprio cursor; quem fica uma volta inteira para trás
+//recebe um reset e recarrega a listagem
+@Component
+public class BeerEvents {
+
+    //Como no CatalogVersion, ids de antes de um restart não são confundidos com os novos
+    private final String epoch = Long.toString(System.currentTimeMillis(), Character.MAX_RADIX);
+    private final AtomicReferenceArray<Entry> slots;
+    private final int mask;
+    private final AtomicLong nextSequence = new AtomicLong(1);
+
+    public BeerEvents(EventStreamProperties properties) {
+        int capacity = 1 << (Integer.SIZE - Integer.numberOfLeadingZeros(Math.max(2, properties.getBufferSize()) - 1));
+        this.slots = new AtomicReferenceArray<>(capacity);
+        this.mask = capacity - 1;
+    }
+
+    public void created(BeerDTO beerDTO) {
+        publish(BeerEventType.CREATED, beerDTO.getId(), beerDTO.getQuantity(), beerDTO.getVersion());
+    }
+
+    public void stockChanged(BeerDTO beerDTO) {
+        publish(BeerEventType.STOCK_CHANGED, beerDTO.getId(), beerDTO.getQuantity(), beerDTO.getVersion());
+    }
+
+    public void stockChanged(Long beerId, int quantity) {
+        publish(BeerEventType.STOCK_CHANGED, beerId, quantity, null);
+    }
+
+    public void deleted(BeerDTO beerDTO) {
+        publish(BeerEventType.DELETED, beerDTO.getId(), null, beerDTO.getVersion());
+    }
+
+    public void stockDropped(Long beerId, int delta) {
+        publish(BeerEventDTO.builder()
+                .type(BeerEventType.STOCK_DROPPED)
+                .beerId(beerId)
+                .delta(delta)
+                .build());
+    }
+
+    //Cursor de quem assina agora: só eventos publicados a partir daqui
+    public long head() {
+        return nextSequence.get();
+    }
+
+    public String eventId(long sequence) {
+        return epoch + "-" + sequence;
+    }
+
+    //Cursor logo após o Last-Event-ID; vazio se o id é de outra execução, malformado ou ainda não publicado
+    public OptionalLong resumeCursor(String lastEventId) {
+        if (lastEventId == null || !lastEventId.startsWith(epoch + "-")) {
+            return OptionalLong.empty();
+        }
+        try {
+            long cursor = Long.parseLong(lastEventId.substring(epoch.length() + 1)) + 1;
+            return cursor > 0 && cursor <= head() ? OptionalLong.of(cursor) : OptionalLong.empty();
+        } catch (NumberFormatException e) {
+            return OptionalLong.empty();
+        }
+    }
+
+    //Lê até maxEvents a partir do cursor e mantém só o último evento de cada cerveja, na ordem de sequência.
+    //Os eventos carregam o estado atual, então o agrupado equivale à sequência completa para quem está atrasado.
+    //O STOCK_DROPPED não é estado e nunca é agrupado: o cliente precisa dele para desfazer o que assumiu
+    public Batch poll(long cursor, int maxEvents) {
+        if (head() - cursor > slots.length()) {
+            return Batch.reset(head());
+        }
+        Map<Object, Entry> latestByBeer = new LinkedHashMap<>();
+        long sequence = cursor;
+        int read = 0;
+        while (read < maxEvents) {
+            Entry entry = slots.get(index(sequence));
+            //Sequência reservada mas ainda não gravada: para aqui e continua no próximo poll
+            if (entry == null || entry.getSequence() < sequence) {
+                break;
+            }
+            //Sobrescrito por quem publicou uma volta inteira depois, durante esta leitura
+            if (entry.getSequence() > sequence) {
+                return Batch.reset(head());
+            }
+            Object key = entry.getEvent().getType() == BeerEventType.STOCK_DROPPED ? entry : entry.getEvent().getBeerId();
+            latestByBeer.remove(key);
+            latestByBeer.put(key, entry);
+            sequence++;
+            read++;
+        }
+        return new Batch(new ArrayList<>(latestByBeer.values()), sequence, false, read - latestByBeer.size());
+    }
+
+    private void publish(BeerEventType type, Long beerId, Integer quantity, Long version) {
+        publish(BeerEventDTO.builder()
+                .type(type)
+                .beerId(beerId)
+                .quantity(quantity)
+                .version(version)
+                .build());
+    }
+
+    private void publish(BeerEventDTO event) {
+        long sequence = nextSequence.getAndIncrement();
+        slots.set(index(sequence), new Entry(sequence, event));
+    }
+
+    private int index(long sequence) {
+        return (int) (sequence & mask);
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static final class Entry {
+
+        private final long sequence;
+        private final BeerEventDTO event;
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static final class Batch {
+
+        private final List<Entry> events;
+        private final long nextCursor;
+        private final boolean reset;
+        private final int coalesced;
+
+        private static Batch reset(long nextCursor) {
+            return new Batch(Collections.emptyList(), nextCursor, true, 0);
+        }
+    }
+}
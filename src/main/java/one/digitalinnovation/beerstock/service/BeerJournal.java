@@ -0,0 +1,280 @@
+package one.digitalinnovation.beerstock.service;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import one.digitalinnovation.beerstock.config.JournalProperties;
+import one.digitalinnovation.beerstock.config.StockWriteProperties;
+import one.digitalinnovation.beerstock.dto.BeerDTO;
+import one.digitalinnovation.beerstock.entity.BeerNames;
+import one.digitalinnovation.beerstock.enums.BeerType;
+import one.digitalinnovation.beerstock.enums.StockWriteMode;
+import one.digitalinnovation.beerstock.repository.BeerRepository;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+//Persistência do catálogo para o H2 em memória: cada mutação é anexada a um journal mapeado em memória antes
+//da resposta, e o startup reconstrói o banco a partir do último snapshot mais a cauda do journal
+@Slf4j
+@Component
+public class BeerJournal {
+
+    private static final String INSERT_SQL = "INSERT INTO beer (id, name, normalized_name, brand, max, quantity, type, version) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String SELECT_SQL = "SELECT id, name, brand, max, quantity, type, version FROM beer";
+    //Mesmo allocationSize do @SequenceGenerator de Beer: o otimizador pooled entrega ids até 49 abaixo do valor lido
+    private static final int SEQUENCE_ALLOCATION_SIZE = 50;
+    private static final int INSERT_BATCH_SIZE = 1000;
+    private static final long WRITER_POLL_MILLIS = 100;
+
+    private final JournalProperties properties;
+    private final StockWriteProperties stockWriteProperties;
+    private final BeerRepository beerRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final DistributionSummary batchSizes;
+
+    private final AtomicLong appendsSinceSnapshot = new AtomicLong();
+    private BlockingQueue<PendingAppend> pendingAppends;
+    private JournalFile journalFile;
+    private ExecutorService writer;
+    private volatile boolean running;
+
+    public BeerJournal(JournalProperties properties,
+                       StockWriteProperties stockWriteProperties,
+                       BeerRepository beerRepository,
+                       JdbcTemplate jdbcTemplate,
+                       PlatformTransactionManager transactionManager,
+                       MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.stockWriteProperties = stockWriteProperties;
+        this.beerRepository = beerRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSizes = DistributionSummary.builder("beerstock.journal.batch.size")
+                .description("Records made durable by a single journal write")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return properties.isEnabled();
+    }
+
+    @PostConstruct
+    public void recover() throws IOException {
+        if (!isEnabled()) {
+            return;
+        }
+        //No write-behind a resposta sai antes do banco gravar e sem a versão nova, que o replay usa para ordenar
+        if (stockWriteProperties.getWriteMode() == StockWriteMode.WRITE_BEHIND) {
+            throw new IllegalStateException("beerstock.journal.enabled requires beerstock.stock.write-mode=synchronous");
+        }
+        long startNanos = System.nanoTime();
+        Path directory = Paths.get(properties.getDirectory());
+        JournalState state = new JournalState();
+        long fromSequence = JournalSnapshot.read(directory, state::apply).orElse(1L);
+        int snapshotBeers = state.size();
+        AtomicLong replayedRecords = new AtomicLong();
+        journalFile = JournalFile.open(directory, (int) properties.getSegmentSize().toBytes(), fromSequence, record -> {
+            state.apply(record);
+            replayedRecords.incrementAndGet();
+        });
+        restore(state);
+        appendsSinceSnapshot.set(replayedRecords.get());
+        log.info("Recovered {} beers from {} ({} from snapshot, {} journal records replayed) in {} ms", state.size(), directory,
+                snapshotBeers, replayedRecords.get(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+
+        pendingAppends = new ArrayBlockingQueue<>(properties.getQueueCapacity());
+        running = true;
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("beer-journal-writer-");
+        threadFactory.setDaemon(true);
+        writer = Executors.newSingleThreadExecutor(threadFactory);
+        writer.execute(this::writeLoop);
+    }
+
+    @PreDestroy
+    public void close() throws IOException, InterruptedException {
+        if (writer == null) {
+            return;
+        }
+        running = false;
+        writer.shutdown();
+        writer.awaitTermination(WRITER_POLL_MILLIS * 10, TimeUnit.MILLISECONDS);
+        //Um shutdown limpo deixa o próximo startup sem cauda para reaplicar
+        snapshot();
+        journalFile.close();
+    }
+
+    public void created(BeerDTO beerDTO) {
+        append(List.of(JournalRecord.created(beerDTO)));
+    }
+
+    public void created(List<BeerDTO> beerDTOs) {
+        append(beerDTOs.stream().map(JournalRecord::created).collect(Collectors.toList()));
+    }
+
+    public void stockChanged(BeerDTO beerDTO) {
+        append(List.of(stockChangedRecord(beerDTO)));
+    }
+
+    public void stockChanged(List<BeerDTO> beerDTOs) {
+        append(beerDTOs.stream().map(BeerJournal::stockChangedRecord).collect(Collectors.toList()));
+    }
+
+    public void deleted(BeerDTO beerDTO) {
+        append(List.of(JournalRecord.deleted(beerDTO.getId(), beerDTO.getVersion())));
+    }
+
+    //Compacta o journal: grava o catálogo lido do banco e apaga os segmentos que o snapshot dispensa. A sequência
+    //é marcada antes da leitura, então mutações concorrentes a ela são reaplicadas no replay e descartadas pela versão
+    @Scheduled(fixedDelayString = "${beerstock.journal.snapshot-interval-ms:60000}",
+            initialDelayString = "${beerstock.journal.snapshot-interval-ms:60000}")
+    public synchronized void snapshot() {
+        if (journalFile == null || appendsSinceSnapshot.get() == 0) {
+            return;
+        }
+        long appendsCovered = appendsSinceSnapshot.get();
+        long nextSequence = journalFile.nextSequence();
+        try (JournalSnapshot.Writer snapshotWriter = JournalSnapshot.Writer.create(Paths.get(properties.getDirectory()), nextSequence)) {
+            jdbcTemplate.query(SELECT_SQL, resultSet -> {
+                try {
+                    snapshotWriter.write(JournalRecord.created(resultSet.getLong("id"), resultSet.getLong("version"),
+                            resultSet.getString("name"), resultSet.getString("brand"), resultSet.getInt("max"),
+                            resultSet.getInt("quantity"), BeerType.valueOf(resultSet.getString("type"))));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            snapshotWriter.commit();
+            journalFile.deleteSegmentsBefore(nextSequence);
+            appendsSinceSnapshot.addAndGet(-appendsCovered);
+        } catch (IOException | RuntimeException e) {
+            log.error("Failed to write journal snapshot, retrying on next interval", e);
+        }
+    }
+
+    private static JournalRecord stockChangedRecord(BeerDTO beerDTO) {
+        return JournalRecord.stockChanged(beerDTO.getId(), beerDTO.getVersion(), beerDTO.getQuantity());
+    }
+
+    //Só retorna depois que o lote com os registros foi gravado, e forçado no disco com fsync ligado
+    private void append(List<JournalRecord> records) {
+        if (!isEnabled() || records.isEmpty()) {
+            return;
+        }
+        if (!running) {
+            throw new IllegalStateException("Journal is not accepting writes");
+        }
+        List<PendingAppend> appends = new ArrayList<>(records.size());
+        try {
+            for (JournalRecord record : records) {
+                PendingAppend pendingAppend = new PendingAppend(record);
+                pendingAppends.put(pendingAppend);
+                appends.add(pendingAppend);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while appending to the journal", e);
+        }
+        appends.forEach(pendingAppend -> pendingAppend.written.join());
+    }
+
+    private void writeLoop() {
+        List<PendingAppend> batch = new ArrayList<>(properties.getMaxBatchSize());
+        while (running || !pendingAppends.isEmpty()) {
+            try {
+                PendingAppend first = pendingAppends.poll(WRITER_POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                pendingAppends.drainTo(batch, properties.getMaxBatchSize() - 1);
+                writeBatch(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    //Group commit: um único force cobre o lote inteiro, e quem chega durante o force entra no lote seguinte
+    private void writeBatch(List<PendingAppend> batch) {
+        try {
+            for (PendingAppend pendingAppend : batch) {
+                journalFile.append(pendingAppend.record);
+            }
+            if (properties.isFsync()) {
+                journalFile.force();
+            }
+        } catch (IOException | RuntimeException e) {
+            //A mutação já está no banco; o próximo snapshot, lido do banco, volta a cobri-la
+            log.error("Failed to append {} records to the journal", batch.size(), e);
+            batch.forEach(pendingAppend -> pendingAppend.written.completeExceptionally(e));
+            return;
+        }
+        appendsSinceSnapshot.addAndGet(batch.size());
+        batchSizes.record(batch.size());
+        batch.forEach(pendingAppend -> pendingAppend.written.complete(null));
+    }
+
+    //Carga direta via JDBC: as linhas voltam com o id e a versão que tinham, o que o save do JPA não permite
+    private void restore(JournalState state) {
+        if (state.highestId() == 0) {
+            return;
+        }
+        if (beerRepository.count() > 0) {
+            log.warn("Store already has beers, skipping journal restore of {} beers", state.size());
+            return;
+        }
+        //A sequência passa de todo id já usado, inclusive de cervejas removidas
+        transactionTemplate.executeWithoutResult(status -> {
+            List<Object[]> batch = new ArrayList<>(INSERT_BATCH_SIZE);
+            for (JournalRecord beer : state.beers()) {
+                batch.add(new Object[]{beer.getBeerId(), beer.getName(), BeerNames.normalize(beer.getName()), beer.getBrand(),
+                        beer.getMax(), beer.getQuantity(), beer.getBeerType().name(), beer.getVersion()});
+                if (batch.size() == INSERT_BATCH_SIZE) {
+                    jdbcTemplate.batchUpdate(INSERT_SQL, batch);
+                    batch.clear();
+                }
+            }
+            if (!batch.isEmpty()) {
+                jdbcTemplate.batchUpdate(INSERT_SQL, batch);
+            }
+        });
+        jdbcTemplate.execute("ALTER SEQUENCE beer_sequence RESTART WITH " + (state.highestId() + SEQUENCE_ALLOCATION_SIZE));
+    }
+
+    private static final class PendingAppend {
+
+        private final JournalRecord record;
+        private final CompletableFuture<Void> written = new CompletableFuture<>();
+
+        private PendingAppend(JournalRecord record) {
+            this.record = record;
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package one.digitalinnovation.beerstock.service;
+
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import one.digitalinnovation.beerstock.dto.BeerDTO;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+
+//Ponto único que todo escritor chama depois que a mutação chega ao banco: cache, filtro de nomes, totais,
+//versão do catálogo, journal, eventos, histórico e alertas. A cerveja recebida é a gravada, com quantidade e versão novas
+@Slf4j
+@Component
+@AllArgsConstructor(onConstructor = @__(@Autowired))
+public class BeerMutationListener {
+
+    private final BeerNameCache beerNameCache;
+    private final BeerNameFilter beerNameFilter;
+    private final InventoryStats inventoryStats;
+    private final CatalogVersion catalogVersion;
+    private final BeerJournal beerJournal;
+    private final BeerEvents beerEvents;
+    private final StockHistory stockHistory;
+    private final StockAlerts stockAlerts;
+
+    public void created(BeerDTO beerDTO) {
+        created(List.of(beerDTO));
+    }
+
+    //Um append por lote: o group commit do journal grava o lote inteiro com um único force
+    public void created(List<BeerDTO> beerDTOs) {
+        if (beerDTOs.isEmpty()) {
+            return;
+        }
+        for (BeerDTO beerDTO : beerDTOs) {
+            beerNameFilter.registered(beerDTO.getName());
+            beerNameCache.invalidate(beerDTO.getName());
+            inventoryStats.created(beerDTO.getType(), beerDTO.getBrand(), beerDTO.getQuantity(), beerDTO.getMax());
+        }
+        catalogVersion.bump();
+        beerJournal.created(beerDTOs);
+        for (BeerDTO beerDTO : beerDTOs) {
+            beerEvents.created(beerDTO);
+            stockHistory.record(beerDTO.getId(), beerDTO.getQuantity());
+            stockAlerts.evaluate(beerDTO);
+        }
+    }
+
+    public void stockChanged(BeerDTO beerDTO, int delta) {
+        stockChanged(List.of(beerDTO), Map.of(beerDTO.getId(), delta));
+    }
+
+    //deltasByBeerId traz, por cerveja, a soma dos deltas que levaram à quantidade recebida
+    public void stockChanged(List<BeerDTO> beerDTOs, Map<Long, Integer> deltasByBeerId) {
+        if (beerDTOs.isEmpty()) {
+            return;
+        }
+        for (BeerDTO beerDTO : beerDTOs) {
+            beerNameCache.invalidate(beerDTO.getName());
+            inventoryStats.stockChanged(beerDTO.getType(), beerDTO.getBrand(), beerDTO.getQuantity(),
+                    deltasByBeerId.get(beerDTO.getId()), beerDTO.getMax());
+        }
+        catalogVersion.bump();
+        beerJournal.stockChanged(beerDTOs);
+        for (BeerDTO beerDTO : beerDTOs) {
+            beerEvents.stockChanged(beerDTO);
+            stockHistory.record(beerDTO.getId(), beerDTO.getQuantity());
+            stockAlerts.evaluate(beerDTO);
+        }
+    }
+
+    //Deltas que o write-behind aceitou e não conseguiu gravar: nada mudou no banco, mas o cliente recebeu a
+    //quantidade projetada e precisa do evento para reconciliar
+    public void stockDropped(Long beerId, List<Integer> droppedDeltas) {
+        if (droppedDeltas.isEmpty()) {
+            return;
+        }
+        log.warn("Dropped pending stock deltas {} for beer {}: beer removed or stock limits exceeded in the store",
+                droppedDeltas, beerId);
+        beerEvents.stockDropped(beerId, droppedDeltas.stream().mapToInt(Integer::intValue).sum());
+    }
+
+    public void deleted(BeerDTO beerDTO) {
+        beerNameFilter.removed(beerDTO.getName());
+        beerNameCache.invalidate(beerDTO.getName());
+        inventoryStats.deleted(beerDTO.getType(), beerDTO.getBrand(), beerDTO.getQuantity(), beerDTO.getMax());
+        catalogVersion.bump();
+        beerJournal.deleted(beerDTO);
+        beerEvents.deleted(beerDTO);
+        stockHistory.deleted(beerDTO.getId());
+        stockAlerts.deleted(beerDTO.getId());
+    }
+}
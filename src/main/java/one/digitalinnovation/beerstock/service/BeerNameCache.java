@@ -0,0 +1,55 @@
+package one.digitalinnovation.beerstock.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import one.digitalinnovation.beerstock.config.BeerCacheProperties;
+import one.digitalinnovation.beerstock.dto.BeerDTO;
+import one.digitalinnovation.beerstock.entity.BeerNames;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+//Cache de leitura nome normalizado -> BeerDTO. As entradas são cópias, então quem chama nunca altera o que está armazenado
+@Component
+public class BeerNameCache {
+
+    private static final String CACHE_NAME = "beerNames";
+
+    private final BeerCacheProperties properties;
+    private final Cache<String, BeerDTO> cache;
+
+    public BeerNameCache(BeerCacheProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(properties.getMaximumSize())
+                .expireAfterWrite(properties.getTtl().toNanos(), TimeUnit.NANOSECONDS)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+    }
+
+    public Optional<BeerDTO> get(String name) {
+        if (!properties.isEnabled()) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(cache.getIfPresent(BeerNames.normalize(name)))
+                .map(cachedBeer -> cachedBeer.toBuilder().build());
+    }
+
+    public void put(BeerDTO beerDTO) {
+        if (properties.isEnabled()) {
+            cache.put(BeerNames.normalize(beerDTO.getName()), beerDTO.toBuilder().build());
+        }
+    }
+
+    public void invalidate(String name) {
+        cache.invalidate(BeerNames.normalize(name));
+    }
+
+    public boolean isStrictQuantity() {
+        return properties.isStrictQuantity();
+    }
+}
@@ -0,0 +1,92 @@
+package one.digitalinnovation.beerstock.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import one.digitalinnovation.beerstock.config.NameFilterProperties;
+import one.digitalinnovation.beerstock.entity.BeerNames;
+import one.digitalinnovation.beerstock.repository.BeerRepository;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import java.util.stream.Stream;
+
+//Filtro dos nomes normalizados já cadastrados: "não contém" é definitivo e dispensa a consulta antes do insert;
+//"talvez contenha" cai na consulta normal. Enquanto não foi carregado, responde sempre "talvez"
+@Slf4j
+@Component
+@DependsOn("normalizedNameBackfill")
+public class BeerNameFilter {
+
+    private static final String CHECKS_METRIC = "beerstock.name.filter.checks";
+
+    private final BeerRepository beerRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final NameFilterProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final CountingBloomFilter filter;
+    private volatile boolean ready;
+
+    public BeerNameFilter(BeerRepository beerRepository,
+                          PlatformTransactionManager transactionManager,
+                          NameFilterProperties properties,
+                          MeterRegistry meterRegistry) {
+        this.beerRepository = beerRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+        this.filter = properties.isEnabled()
+                ? new CountingBloomFilter(properties.getExpectedNames(), properties.getFalsePositiveRate())
+                : null;
+        if (properties.isEnabled()) {
+            Gauge.builder("beerstock.name.filter.memory", filter, CountingBloomFilter::memoryBytes)
+                    .baseUnit("bytes")
+                    .register(meterRegistry);
+            Gauge.builder("beerstock.name.filter.entries", filter, CountingBloomFilter::entries)
+                    .register(meterRegistry);
+            Gauge.builder("beerstock.name.filter.false.positive.rate", filter, CountingBloomFilter::expectedFalsePositiveRate)
+                    .description("Expected false positive rate for the names currently registered")
+                    .register(meterRegistry);
+        }
+    }
+
+    @PostConstruct
+    public void load() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        transactionTemplate.executeWithoutResult(status -> {
+            try (Stream<String> names = beerRepository.streamAllNormalizedNames()) {
+                names.forEach(filter::add);
+            }
+        });
+        ready = true;
+        log.info("Beer name filter loaded with {} names ({} bytes)", filter.entries(), filter.memoryBytes());
+    }
+
+    public boolean mightBeRegistered(String name) {
+        if (!properties.isEnabled() || !ready) {
+            return true;
+        }
+        boolean mightBeRegistered = filter.mightContain(BeerNames.normalize(name));
+        meterRegistry.counter(CHECKS_METRIC, "result", mightBeRegistered ? "maybe" : "miss").increment();
+        return mightBeRegistered;
+    }
+
+    public void registered(String name) {
+        if (properties.isEnabled()) {
+            filter.add(BeerNames.normalize(name));
+        }
+    }
+
+    //Antes da carga a remoção é ignorada: o nome ainda pode não ter sido adicionado
+    public void removed(String name) {
+        if (properties.isEnabled() && ready) {
+            filter.remove(BeerNames.normalize(name));
+        }
+    }
+}
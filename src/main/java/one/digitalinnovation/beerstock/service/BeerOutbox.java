@@ -0,0 +1,117 @@
+package one.digitalinnovation.beerstock.service;
+
+import one.digitalinnovation.beerstock.config.OutboxProperties;
+import one.digitalinnovation.beerstock.dto.BeerDTO;
+import one.digitalinnovation.beerstock.entity.Beer;
+import one.digitalinnovation.beerstock.entity.OutboxEvent;
+import one.digitalinnovation.beerstock.enums.BeerEventType;
+import one.digitalinnovation.beerstock.repository.OutboxEventRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.Assert;
+
+import java.time.Clock;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+//Lado de escrita do outbox: os eventos entram na transação da mutação da cerveja, então ou os dois são gravados
+//ou nenhum. A entrega fica com o OutboxRelay, fora do caminho da requisição
+@Component
+public class BeerOutbox {
+
+    private final OutboxProperties properties;
+    private final OutboxEventRepository outboxEventRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final Clock clock;
+
+    @Autowired
+    public BeerOutbox(OutboxProperties properties,
+                      OutboxEventRepository outboxEventRepository,
+                      PlatformTransactionManager transactionManager) {
+        this(properties, outboxEventRepository, transactionManager, Clock.systemUTC());
+    }
+
+    BeerOutbox(OutboxProperties properties,
+               OutboxEventRepository outboxEventRepository,
+               PlatformTransactionManager transactionManager,
+               Clock clock) {
+        this.properties = properties;
+        this.outboxEventRepository = outboxEventRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.clock = clock;
+    }
+
+    public boolean isEnabled() {
+        return properties.isEnabled();
+    }
+
+    //Com o outbox ligado a mutação e a leitura que a segue rodam numa transação; desligado, nada muda no caminho atual
+    public <T> T execute(Supplier<T> mutation) {
+        return isEnabled() ? transactionTemplate.execute(status -> mutation.get()) : mutation.get();
+    }
+
+    public void created(Beer beer) {
+        created(List.of(beer));
+    }
+
+    public void created(Collection<Beer> beers) {
+        if (!isEnabled()) {
+            return;
+        }
+        write(beers.stream()
+                .map(beer -> event(BeerEventType.CREATED, beer.getId(), beer.getQuantity(), null, beer.getVersion()))
+                .collect(Collectors.toList()));
+    }
+
+    public void stockChanged(Beer beer, int delta) {
+        if (!isEnabled()) {
+            return;
+        }
+        write(List.of(event(BeerEventType.STOCK_CHANGED, beer.getId(), beer.getQuantity(), delta, beer.getVersion())));
+    }
+
+    public void stockChanged(Collection<Beer> beers, Map<Long, Integer> deltasByBeerId) {
+        if (!isEnabled()) {
+            return;
+        }
+        write(beers.stream()
+                .map(beer -> event(BeerEventType.STOCK_CHANGED, beer.getId(), beer.getQuantity(), deltasByBeerId.get(beer.getId()),
+                        beer.getVersion()))
+                .collect(Collectors.toList()));
+    }
+
+    public void deleted(BeerDTO beerDTO) {
+        if (!isEnabled()) {
+            return;
+        }
+        write(List.of(event(BeerEventType.DELETED, beerDTO.getId(), null, null, beerDTO.getVersion())));
+    }
+
+    //O flush antecipa as violações de constraint da mutação para dentro do callback, onde já são traduzidas
+    private void write(List<OutboxEvent> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+        Assert.state(TransactionSynchronizationManager.isActualTransactionActive(),
+                "Outbox events must be written in the transaction of the beer mutation");
+        outboxEventRepository.saveAll(events);
+        outboxEventRepository.flush();
+    }
+
+    private OutboxEvent event(BeerEventType type, Long beerId, Integer quantity, Integer delta, long version) {
+        return OutboxEvent.builder()
+                .type(type)
+                .beerId(beerId)
+                .quantity(quantity)
+                .delta(delta)
+                .version(version)
+                .occurredAt(clock.instant())
+                .build();
+    }
+}
@@ -1,50 +1,200 @@
 package one.digitalinnovation.beerstock.service;
 
+import io.micrometer.core.annotation.Timed;
 import lombok.AllArgsConstructor;
 import one.digitalinnovation.beerstock.dto.BeerDTO;
+import one.digitalinnovation.beerstock.dto.BeerFilterDTO;
+import one.digitalinnovation.beerstock.dto.BeerVersionDTO;
+import one.digitalinnovation.beerstock.dto.InventoryStatsDTO;
+import one.digitalinnovation.beerstock.dto.StockHistoryDTO;
 import one.digitalinnovation.beerstock.entity.Beer;
+import one.digitalinnovation.beerstock.entity.BeerNames;
+import one.digitalinnovation.beerstock.enums.HistoryResolution;
 import one.digitalinnovation.beerstock.exception.BeerAlreadyRegisteredException;
 import one.digitalinnovation.beerstock.exception.BeerNotFoundException;
 import one.digitalinnovation.beerstock.exception.BeerStockExceededException;
+import one.digitalinnovation.beerstock.exception.BeerVersionMismatchException;
+import one.digitalinnovation.beerstock.exception.InvalidHistoryRangeException;
 import one.digitalinnovation.beerstock.mapper.BeerMapper;
 import one.digitalinnovation.beerstock.repository.BeerRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import javax.persistence.EntityManager;
+import java.time.Instant;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static one.digitalinnovation.beerstock.config.MetricsConfig.SERVICE_METRIC;
 
 @Service
 @AllArgsConstructor(onConstructor = @__(@Autowired))
 public class BeerService {
 
+    private static final String INCREMENT_OPERATION = "increment";
+    private static final String DECREMENT_OPERATION = "decrement";
+    private static final String FIND_BY_NAME_FLIGHT = "findByName";
+    private static final String FIND_BY_ID_FLIGHT = "findById";
+
     private final BeerRepository beerRepository;
+    private final StockDeltaBuffer stockDeltaBuffer;
+    private final BeerNameCache beerNameCache;
+    private final BeerNameFilter beerNameFilter;
+    private final StockRetryPolicy stockRetryPolicy;
+    private final RequestCoalescer requestCoalescer;
+    private final InventoryStats inventoryStats;
+    private final CatalogVersion catalogVersion;
+    private final BeerOutbox beerOutbox;
+    private final StockHistory stockHistory;
+    private final BeerMutationListener beerMutationListener;
+    private final EntityManager entityManager;
     private final BeerMapper beerMapper = BeerMapper.INSTANCE;
 
+    @Timed(value = SERVICE_METRIC, extraTags = {"operation", "createBeer"}, histogram = true)
     public BeerDTO createBeer(BeerDTO beerDTO) throws BeerAlreadyRegisteredException {
-        verifyIfIsAlreadyRegistered(beerDTO.getName());
+        //Nome que o filtro garante não existir dispensa a consulta; a unique constraint cobre a corrida com outro create
+        if (beerNameFilter.mightBeRegistered(beerDTO.getName())) {
+            verifyIfIsAlreadyRegistered(beerDTO.getName());
+        }
         Beer beer = beerMapper.toModel(beerDTO);
-        Beer savedBeer = beerRepository.save(beer);
-        return beerMapper.toDTO(savedBeer);
+        //Como no BeerBulkService: um id vindo do cliente faria o save atualizar a cerveja existente com esse id
+        beer.setId(null);
+        Beer savedBeer = saveNewBeer(beer);
+        BeerDTO savedBeerDTO = beerMapper.toDTO(savedBeer);
+        beerMutationListener.created(savedBeerDTO);
+        return savedBeerDTO;
     }
 
+    @Timed(value = SERVICE_METRIC, extraTags = {"operation", "findByName"}, histogram = true)
     public BeerDTO findByName(String name) throws BeerNotFoundException {
-        Beer foundBeer = beerRepository.findByName(name)
+        Optional<BeerDTO> cachedBeer = beerNameCache.get(name);
+        if (cachedBeer.isPresent()) {
+            return beerNameCache.isStrictQuantity() ? withStoredQuantity(cachedBeer.get()) : cachedBeer.get();
+        }
+        BeerDTO foundBeerDTO = requestCoalescer.execute(FIND_BY_NAME_FLIGHT, BeerNames.normalize(name), () -> loadByName(name))
+                .orElseThrow(() -> new BeerNotFoundException(name));
+        //Cópia: o mesmo resultado é entregue a todas as chamadas que aguardaram a consulta
+        return foundBeerDTO.toBuilder().build();
+    }
+
+    //Id e versão para requisições condicionais: sem mapper e, com o cache, sem consulta ao banco.
+    //Com strict-quantity o cache não é usado, pois a versão guardada pode não refletir a quantidade atual
+    @Timed(value = SERVICE_METRIC, extraTags = {"operation", "findVersionByName"}, histogram = true)
+    public BeerVersionDTO findVersionByName(String name) throws BeerNotFoundException {
+        if (!beerNameCache.isStrictQuantity()) {
+            Optional<BeerDTO> cachedBeer = beerNameCache.get(name);
+            if (cachedBeer.isPresent()) {
+                return new BeerVersionDTO(cachedBeer.get().getId(), cachedBeer.get().getVersion());
+            }
+        }
+        return beerRepository.findVersionByName(name)
                 .orElseThrow(() -> new BeerNotFoundException(name));
-        return beerMapper.toDTO(foundBeer);
     }
 
-    public List<BeerDTO> listAll() {
-        return beerRepository.findAll()
+    public String catalogVersion() {
+        return catalogVersion.current();
+    }
+
+    private Optional<BeerDTO> loadByName(String name) {
+        Optional<BeerDTO> foundBeerDTO = beerRepository.findByName(name).map(beerMapper::toDTO);
+        foundBeerDTO.ifPresent(beerNameCache::put);
+        return foundBeerDTO;
+    }
+
+    @Timed(value = SERVICE_METRIC, extraTags = {"operation", "listAll"}, histogram = true)
+    public List<BeerDTO> listAll(Long after, int limit) {
+        return beerRepository.findByIdGreaterThanOrderByIdAsc(after, PageRequest.of(0, limit))
                 .stream()
                 .map(beerMapper::toDTO)
                 .collect(Collectors.toList());
     }
 
-    public void deleteById(Long id) throws BeerNotFoundException {
+    @Timed(value = SERVICE_METRIC, extraTags = {"operation", "search"}, histogram = true)
+    public List<BeerDTO> search(BeerFilterDTO filter, Long after, int limit) {
+        return beerRepository.search(filter, after, limit)
+                .stream()
+                .map(beerMapper::toDTO)
+                .collect(Collectors.toList());
+    }
+
+    @Transactional(readOnly = true)
+    @Timed(value = SERVICE_METRIC, extraTags = {"operation", "streamAll"}, histogram = true)
+    public void streamAll(Consumer<BeerDTO> consumer) {
+        try (Stream<Beer> beers = beerRepository.streamAllOrderedById()) {
+            beers.forEach(beer -> {
+                consumer.accept(beerMapper.toDTO(beer));
+                //Sem detach o contexto de persistência cresceria com o catálogo inteiro
+                entityManager.detach(beer);
+            });
+        }
+    }
+
+    @Timed(value = SERVICE_METRIC, extraTags = {"operation", "stats"}, histogram = true)
+    public InventoryStatsDTO stats() {
+        return inventoryStats.snapshot();
+    }
+
+    //A série fica em memória; o banco só é consultado para responder 404 a ids inexistentes
+    @Timed(value = SERVICE_METRIC, extraTags = {"operation", "history"}, histogram = true)
+    public StockHistoryDTO history(Long id, Instant from, Instant to, HistoryResolution resolution)
+            throws BeerNotFoundException, InvalidHistoryRangeException {
         verifyIfExists(id);
-        beerRepository.deleteById(id);
+        return stockHistory.query(id, from, to, resolution);
+    }
+
+    @Timed(value = SERVICE_METRIC, extraTags = {"operation", "deleteById"}, histogram = true)
+    public void deleteById(Long id) throws BeerNotFoundException {
+        BeerDTO beerToDelete = verifyIfExists(id);
+        beerOutbox.execute(() -> {
+            beerRepository.deleteById(id);
+            beerOutbox.deleted(beerToDelete);
+            return null;
+        });
+        deleted(beerToDelete);
+    }
+
+    //Delete condicional (If-Match): só remove se ninguém alterou a cerveja desde a versão informada
+    @Timed(value = SERVICE_METRIC, extraTags = {"operation", "deleteById"}, histogram = true)
+    public void deleteById(Long id, long expectedVersion) throws BeerNotFoundException, BeerVersionMismatchException {
+        BeerDTO beerToDelete = verifyIfExists(id);
+        boolean removed = beerOutbox.execute(() -> {
+            if (beerRepository.deleteByIdIfVersion(id, expectedVersion) == 0) {
+                return false;
+            }
+            beerOutbox.deleted(beerToDelete);
+            return true;
+        });
+        if (!removed) {
+            throw new BeerVersionMismatchException(id, expectedVersion);
+        }
+        deleted(beerToDelete);
+    }
+
+    private void deleted(BeerDTO beerToDelete) {
+        stockDeltaBuffer.discard(beerToDelete.getId());
+        beerMutationListener.deleted(beerToDelete);
+    }
+
+    private Beer saveNewBeer(Beer beer) throws BeerAlreadyRegisteredException {
+        try {
+            return beerOutbox.execute(() -> {
+                Beer savedBeer = beerRepository.save(beer);
+                beerOutbox.created(savedBeer);
+                return savedBeer;
+            });
+        } catch (DataIntegrityViolationException e) {
+            if (beerRepository.findByName(beer.getName()).isPresent()) {
+                throw new BeerAlreadyRegisteredException(beer.getName());
+            }
+            throw e;
+        }
     }
 
     private void verifyIfIsAlreadyRegistered(String name) throws BeerAlreadyRegisteredException {
@@ -54,19 +204,107 @@ public class BeerService {
         }
     }
 
-    private Beer verifyIfExists(Long id) throws BeerNotFoundException {
-        return beerRepository.findById(id)
+    private BeerDTO verifyIfExists(Long id) throws BeerNotFoundException {
+        return requestCoalescer.execute(FIND_BY_ID_FLIGHT, id, () -> beerRepository.findById(id).map(beerMapper::toDTO))
                 .orElseThrow(() -> new BeerNotFoundException(id));
     }
 
+    private BeerDTO withStoredQuantity(BeerDTO cachedBeer) throws BeerNotFoundException {
+        Optional<Integer> storedQuantity = beerRepository.findQuantityById(cachedBeer.getId());
+        if (storedQuantity.isEmpty()) {
+            beerNameCache.invalidate(cachedBeer.getName());
+            throw new BeerNotFoundException(cachedBeer.getName());
+        }
+        cachedBeer.setQuantity(storedQuantity.get());
+        return cachedBeer;
+    }
+
+    @Timed(value = SERVICE_METRIC, extraTags = {"operation", "increment"}, histogram = true)
     public BeerDTO increment(Long id, int quantityToIncrement) throws BeerNotFoundException, BeerStockExceededException {
-        Beer beerToIncrementStock = verifyIfExists(id);
-        int quantityAfterIncrement = quantityToIncrement + beerToIncrementStock.getQuantity();
-        if (quantityAfterIncrement <= beerToIncrementStock.getMax()) {
-            beerToIncrementStock.setQuantity(beerToIncrementStock.getQuantity() + quantityToIncrement);
-            Beer incrementedBeerStock = beerRepository.save(beerToIncrementStock);
-            return beerMapper.toDTO(incrementedBeerStock);
+        return updateStock(INCREMENT_OPERATION, id, quantityToIncrement, quantityToIncrement,
+                () -> beerRepository.incrementQuantity(id, quantityToIncrement));
+    }
+
+    @Timed(value = SERVICE_METRIC, extraTags = {"operation", "increment"}, histogram = true)
+    public BeerDTO increment(Long id, int quantityToIncrement, long expectedVersion)
+            throws BeerNotFoundException, BeerStockExceededException, BeerVersionMismatchException {
+        return updateVersionedStock(INCREMENT_OPERATION, id, quantityToIncrement, quantityToIncrement, expectedVersion,
+                () -> beerRepository.incrementQuantityIfVersion(id, quantityToIncrement, expectedVersion));
+    }
+
+    @Timed(value = SERVICE_METRIC, extraTags = {"operation", "decrement"}, histogram = true)
+    public BeerDTO decrement(Long id, int quantityToDecrement) throws BeerNotFoundException, BeerStockExceededException {
+        return updateStock(DECREMENT_OPERATION, id, quantityToDecrement, -quantityToDecrement,
+                () -> beerRepository.decrementQuantity(id, quantityToDecrement));
+    }
+
+    @Timed(value = SERVICE_METRIC, extraTags = {"operation", "decrement"}, histogram = true)
+    public BeerDTO decrement(Long id, int quantityToDecrement, long expectedVersion)
+            throws BeerNotFoundException, BeerStockExceededException, BeerVersionMismatchException {
+        return updateVersionedStock(DECREMENT_OPERATION, id, quantityToDecrement, -quantityToDecrement, expectedVersion,
+                () -> beerRepository.decrementQuantityIfVersion(id, quantityToDecrement, expectedVersion));
+    }
+
+    private BeerDTO updateStock(String operation, Long id, int quantity, int delta, Supplier<Integer> conditionalUpdate)
+            throws BeerNotFoundException, BeerStockExceededException {
+        if (stockDeltaBuffer.isEnabled()) {
+            //Totais, eventos, histórico e alertas são avisados pelo flush, quando o delta chega ao banco
+            BeerDTO bufferedBeerDTO = stockDeltaBuffer.accept(id, delta);
+            beerNameCache.invalidate(bufferedBeerDTO.getName());
+            return bufferedBeerDTO;
+        }
+        StockUpdate stockUpdate = stockRetryPolicy.execute(operation, () -> writeStock(id, delta, conditionalUpdate));
+        //Leitura após a escrita fica fora do single-flight: uma consulta já em andamento poderia ser anterior ao update
+        Beer updatedBeerStock = stockUpdate.updatedBeer
+                .orElseThrow(() -> new BeerNotFoundException(id));
+        if (stockUpdate.updatedRows == 0) {
+            stockRetryPolicy.conflict(operation);
+            throw new BeerStockExceededException(id, quantity);
+        }
+        return stockUpdated(updatedBeerStock, delta);
+    }
+
+    //A checagem de versão precisa ser atômica com o update, então o modo write-behind é contornado
+    //e o buffer só é avisado do delta gravado direto no banco
+    private BeerDTO updateVersionedStock(String operation, Long id, int quantity, int delta, long expectedVersion,
+                                         Supplier<Integer> conditionalUpdate)
+            throws BeerNotFoundException, BeerStockExceededException, BeerVersionMismatchException {
+        StockUpdate stockUpdate = stockRetryPolicy.execute(operation, () -> writeStock(id, delta, conditionalUpdate));
+        Beer updatedBeerStock = stockUpdate.updatedBeer
+                .orElseThrow(() -> new BeerNotFoundException(id));
+        if (stockUpdate.updatedRows == 0) {
+            stockRetryPolicy.conflict(operation);
+            if (updatedBeerStock.getVersion() != expectedVersion) {
+                throw new BeerVersionMismatchException(id, expectedVersion);
+            }
+            throw new BeerStockExceededException(id, quantity);
         }
-        throw new BeerStockExceededException(id, quantityToIncrement);
+        stockDeltaBuffer.applied(id, delta);
+        return stockUpdated(updatedBeerStock, delta);
+    }
+
+    //Com o outbox ligado, update, releitura e evento dividem a mesma transação
+    private StockUpdate writeStock(Long id, int delta, Supplier<Integer> conditionalUpdate) {
+        return beerOutbox.execute(() -> {
+            int updatedRows = conditionalUpdate.get();
+            Optional<Beer> updatedBeer = beerRepository.findById(id);
+            if (updatedRows > 0) {
+                updatedBeer.ifPresent(beer -> beerOutbox.stockChanged(beer, delta));
+            }
+            return new StockUpdate(updatedRows, updatedBeer);
+        });
+    }
+
+    private BeerDTO stockUpdated(Beer updatedBeerStock, int delta) {
+        BeerDTO updatedBeerDTO = beerMapper.toDTO(updatedBeerStock);
+        beerMutationListener.stockChanged(updatedBeerDTO, delta);
+        return updatedBeerDTO;
+    }
+
+    @AllArgsConstructor
+    private static final class StockUpdate {
+
+        private final int updatedRows;
+        private final Optional<Beer> updatedBeer;
     }
 }
@@ -0,0 +1,22 @@
+package one.digitalinnovation.beerstock.service;
+
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+//Versão do catálogo inteiro, base do ETag das listagens. O prefixo com o instante de início
+//impede que um contador zerado por restart repita ETags já entregues
+@Component
+public class CatalogVersion {
+
+    private final String epoch = Long.toString(System.currentTimeMillis(), Character.MAX_RADIX);
+    private final AtomicLong counter = new AtomicLong();
+
+    public void bump() {
+        counter.incrementAndGet();
+    }
+
+    public String current() {
+        return epoch + "-" + counter.get();
+    }
+}
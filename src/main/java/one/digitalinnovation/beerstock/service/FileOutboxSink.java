@@ -0,0 +1,49 @@
+package one.digitalinnovation.beerstock.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import one.digitalinnovation.beerstock.dto.OutboxEventDTO;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+//Sink local, para desenvolvimento e testes: anexa cada lote como linhas JSON e força o arquivo no disco antes
+//de confirmar. Um lote repetido depois de uma falha aparece de novo no arquivo
+public class FileOutboxSink implements OutboxSink {
+
+    private static final byte NEW_LINE = '\n';
+
+    private final Path file;
+    private final ObjectMapper objectMapper;
+
+    public FileOutboxSink(Path file, ObjectMapper objectMapper) {
+        this.file = file;
+        this.objectMapper = objectMapper;
+    }
+
+    //Partições escrevem em paralelo; o lock mantém as linhas de um lote juntas
+    @Override
+    public synchronized void publish(List<OutboxEventDTO> events) throws IOException {
+        ByteArrayOutputStream lines = new ByteArrayOutputStream();
+        for (OutboxEventDTO event : events) {
+            lines.write(objectMapper.writeValueAsBytes(event));
+            lines.write(NEW_LINE);
+        }
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND)) {
+            ByteBuffer buffer = ByteBuffer.wrap(lines.toByteArray());
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(false);
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package one.digitalinnovation.beerstock.service;
+
+import one.digitalinnovation.beerstock.dto.OutboxEventDTO;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.List;
+
+//Cada lote vai num POST com um array JSON; o RestTemplate lança para qualquer status fora de 2xx
+public class HttpOutboxSink implements OutboxSink {
+
+    private final RestTemplate restTemplate;
+    private final URI url;
+
+    public HttpOutboxSink(RestTemplate restTemplate, URI url) {
+        this.restTemplate = restTemplate;
+        this.url = url;
+    }
+
+    @Override
+    public void publish(List<OutboxEventDTO> events) throws IOException {
+        try {
+            restTemplate.postForEntity(url, events, Void.class);
+        } catch (RestClientException e) {
+            throw new IOException("Outbox sink " + url + " rejected " + events.size() + " events", e);
+        }
+    }
+}
@@ -0,0 +1,228 @@
+package one.digitalinnovation.beerstock.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import one.digitalinnovation.beerstock.config.MetricsProperties;
+import one.digitalinnovation.beerstock.dto.InventoryStatsDTO;
+import one.digitalinnovation.beerstock.enums.BeerType;
+import one.digitalinnovation.beerstock.repository.BeerRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.time.Clock;
+import java.time.Instant;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+//Totais de estoque mantidos em memória a cada escrita, para o /stats não varrer o catálogo.
+//Todas as escritas chegam pelo BeerMutationListener; a reconciliação com o GROUP BY só corrige desvios.
+//Também alimenta os gauges do StockGauges, que assim não varrem a tabela a cada coleta
+@Slf4j
+@Component
+@DependsOn("beerJournal")
+public class InventoryStats {
+
+    private static final String RECONCILIATIONS_METRIC = "beerstock.stats.reconciliations";
+
+    private final BeerRepository beerRepository;
+    private final MeterRegistry meterRegistry;
+    private final Clock clock;
+    private final double nearMaxRatio;
+    private volatile Aggregates aggregates;
+
+    //Os deltas aplicam sob a trava de leitura, sem disputa entre si; a de escrita só é tomada para a troca dos totais
+    private final ReadWriteLock swapLock = new ReentrantReadWriteLock();
+    private Queue<Delta> deltasDuringReconcile;
+
+    @Autowired
+    public InventoryStats(BeerRepository beerRepository, MeterRegistry meterRegistry, MetricsProperties metricsProperties) {
+        this(beerRepository, meterRegistry, metricsProperties, Clock.systemUTC());
+    }
+
+    InventoryStats(BeerRepository beerRepository, MeterRegistry meterRegistry, MetricsProperties metricsProperties, Clock clock) {
+        this.beerRepository = beerRepository;
+        this.meterRegistry = meterRegistry;
+        this.clock = clock;
+        this.nearMaxRatio = metricsProperties.getNearMaxRatio();
+        this.aggregates = new Aggregates(clock.instant());
+    }
+
+    public void created(BeerType type, String brand, int quantity, int max) {
+        apply(new Delta(type, brand, quantity, quantity >= max ? 1 : 0, isNearMax(quantity, max) ? 1 : 0));
+    }
+
+    public void deleted(BeerType type, String brand, int quantity, int max) {
+        apply(new Delta(type, brand, -quantity, quantity >= max ? -1 : 0, isNearMax(quantity, max) ? -1 : 0));
+    }
+
+    public void stockChanged(BeerType type, String brand, int newQuantity, int delta, int max) {
+        int oldQuantity = newQuantity - delta;
+        apply(new Delta(type, brand, delta, transition(oldQuantity >= max, newQuantity >= max),
+                transition(isNearMax(oldQuantity, max), isNearMax(newQuantity, max))));
+    }
+
+    public long totalUnits() {
+        return aggregates.totalUnits();
+    }
+
+    public long beersNearMax() {
+        return aggregates.beersNearMax.sum();
+    }
+
+    //Mesma comparação do BeerRepository.countNearMax, usada na reconciliação
+    private boolean isNearMax(int quantity, int max) {
+        return quantity >= max * nearMaxRatio;
+    }
+
+    private static int transition(boolean was, boolean is) {
+        return was == is ? 0 : (is ? 1 : -1);
+    }
+
+    private void apply(Delta delta) {
+        swapLock.readLock().lock();
+        try {
+            aggregates.apply(delta);
+            //Durante uma reconciliação o delta também é guardado, para ser reaplicado sobre os totais vindos do banco
+            if (deltasDuringReconcile != null) {
+                deltasDuringReconcile.add(delta);
+            }
+        } finally {
+            swapLock.readLock().unlock();
+        }
+    }
+
+    //Custo proporcional ao número de tipos e marcas, não ao tamanho do catálogo
+    public InventoryStatsDTO snapshot() {
+        return aggregates.toDTO();
+    }
+
+    //Troca os totais pelos do banco. Os deltas aplicados enquanto o GROUP BY roda são reaplicados sobre o resultado
+    //antes da troca, que acontece sob a trava de escrita: nenhum delta cai entre os totais antigos e os novos
+    @PostConstruct
+    @Scheduled(fixedDelayString = "${beerstock.stats.reconcile-interval-ms:30000}",
+            initialDelayString = "${beerstock.stats.reconcile-interval-ms:30000}")
+    public synchronized void reconcile() {
+        swapLock.writeLock().lock();
+        try {
+            deltasDuringReconcile = new ConcurrentLinkedQueue<>();
+        } finally {
+            swapLock.writeLock().unlock();
+        }
+
+        Aggregates reconciled = new Aggregates(clock.instant());
+        try {
+            for (Object[] row : beerRepository.sumQuantitiesByType()) {
+                reconciled.unitsByType.get((BeerType) row[0]).add(((Number) row[1]).longValue());
+            }
+            for (Object[] row : beerRepository.sumQuantitiesByBrand()) {
+                reconciled.unitsByBrand.computeIfAbsent((String) row[0], brand -> new LongAdder()).add(((Number) row[1]).longValue());
+            }
+            reconciled.beersAtCapacity.add(beerRepository.countAtCapacity());
+            reconciled.beersNearMax.add(beerRepository.countNearMax(nearMaxRatio));
+        } catch (RuntimeException e) {
+            stopRecording();
+            throw e;
+        }
+
+        boolean drifted;
+        swapLock.writeLock().lock();
+        try {
+            deltasDuringReconcile.forEach(reconciled::apply);
+            deltasDuringReconcile = null;
+            InventoryStatsDTO incremental = aggregates.toDTO();
+            InventoryStatsDTO fromDatabase = reconciled.toDTO();
+            fromDatabase.setReconciledAt(incremental.getReconciledAt());
+            drifted = !incremental.equals(fromDatabase) || aggregates.beersNearMax.sum() != reconciled.beersNearMax.sum();
+            aggregates = reconciled;
+        } finally {
+            swapLock.writeLock().unlock();
+        }
+        meterRegistry.counter(RECONCILIATIONS_METRIC, "result", drifted ? "drift" : "consistent").increment();
+        if (drifted) {
+            log.debug("Inventory stats drifted from the database and were reconciled");
+        }
+    }
+
+    private void stopRecording() {
+        swapLock.writeLock().lock();
+        try {
+            deltasDuringReconcile = null;
+        } finally {
+            swapLock.writeLock().unlock();
+        }
+    }
+
+    @Value
+    private static class Delta {
+
+        BeerType type;
+        String brand;
+        long units;
+        int capacityChange;
+        int nearMaxChange;
+    }
+
+    private static final class Aggregates {
+
+        private final Map<BeerType, LongAdder> unitsByType = new EnumMap<>(BeerType.class);
+        private final ConcurrentMap<String, LongAdder> unitsByBrand = new ConcurrentHashMap<>();
+        private final LongAdder beersAtCapacity = new LongAdder();
+        private final LongAdder beersNearMax = new LongAdder();
+        private final Instant reconciledAt;
+
+        private Aggregates(Instant reconciledAt) {
+            //Todos os tipos criados de antemão: o EnumMap não é alterado depois e pode ser lido sem trava
+            for (BeerType type : BeerType.values()) {
+                unitsByType.put(type, new LongAdder());
+            }
+            this.reconciledAt = reconciledAt;
+        }
+
+        private void apply(Delta delta) {
+            unitsByType.get(delta.getType()).add(delta.getUnits());
+            unitsByBrand.computeIfAbsent(delta.getBrand(), key -> new LongAdder()).add(delta.getUnits());
+            beersAtCapacity.add(delta.getCapacityChange());
+            beersNearMax.add(delta.getNearMaxChange());
+        }
+
+        private long totalUnits() {
+            long totalUnits = 0;
+            for (LongAdder units : unitsByType.values()) {
+                totalUnits += units.sum();
+            }
+            return totalUnits;
+        }
+
+        private InventoryStatsDTO toDTO() {
+            Map<BeerType, Long> unitsByTypeSnapshot = new EnumMap<>(BeerType.class);
+            long totalUnits = 0;
+            for (Map.Entry<BeerType, LongAdder> entry : unitsByType.entrySet()) {
+                long units = entry.getValue().sum();
+                unitsByTypeSnapshot.put(entry.getKey(), units);
+                totalUnits += units;
+            }
+            Map<String, Long> unitsByBrandSnapshot = new TreeMap<>();
+            unitsByBrand.forEach((brand, units) -> unitsByBrandSnapshot.put(brand, units.sum()));
+
+            return InventoryStatsDTO.builder()
+                    .totalUnits(totalUnits)
+                    .unitsByType(unitsByTypeSnapshot)
+                    .unitsByBrand(unitsByBrandSnapshot)
+                    .beersAtCapacity(beersAtCapacity.sum())
+                    .reconciledAt(reconciledAt)
+                    .build();
+        }
+    }
+}
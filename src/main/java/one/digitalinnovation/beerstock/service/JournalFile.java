@@ -0,0 +1,234 @@
+package one.digitalinnovation.beerstock.service;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+//Log append-only em segmentos de tamanho fixo mapeados em memória, nomeados pela primeira sequência.
+//Cada registro é [tamanho][crc32c][sequência + payload]; tamanho zero marca o fim do que foi escrito
+@Slf4j
+public class JournalFile implements Closeable {
+
+    private static final String SEGMENT_PREFIX = "journal-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final int HEADER_SIZE = Integer.BYTES * 2;
+    private static final int MIN_PAYLOAD_SIZE = Long.BYTES + 1;
+    //Nome e marca têm no máximo 65535 bytes cada no formato
+    private static final int MAX_PAYLOAD_SIZE = Long.BYTES + 64 + 2 * 65535;
+
+    private final Path directory;
+    private final int segmentSize;
+    private final NavigableMap<Long, Path> segments;
+    private final ByteBuffer scratch = ByteBuffer.allocate(MAX_PAYLOAD_SIZE);
+    private final CRC32C crc = new CRC32C();
+
+    private FileChannel channel;
+    private MappedByteBuffer segment;
+    private long nextSequence;
+
+    private JournalFile(Path directory, int segmentSize, NavigableMap<Long, Path> segments) {
+        if (segmentSize < HEADER_SIZE + MAX_PAYLOAD_SIZE) {
+            throw new IllegalArgumentException("Journal segment size must be at least " + (HEADER_SIZE + MAX_PAYLOAD_SIZE) + " bytes");
+        }
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.segments = segments;
+    }
+
+    //Reaplica os registros a partir de fromSequence e deixa o arquivo pronto para continuar a gravação.
+    //Um registro inválido no último segmento é a escrita interrompida por uma queda e é descartado;
+    //em qualquer outro segmento é corrupção e o startup falha
+    public static JournalFile open(Path directory, int segmentSize, long fromSequence, Consumer<JournalRecord> replay)
+            throws IOException {
+        Files.createDirectories(directory);
+        JournalFile journalFile = new JournalFile(directory, segmentSize, listSegments(directory));
+        journalFile.recover(fromSequence, replay);
+        return journalFile;
+    }
+
+    public synchronized long nextSequence() {
+        return nextSequence;
+    }
+
+    public synchronized long append(JournalRecord record) throws IOException {
+        scratch.clear();
+        scratch.putLong(nextSequence);
+        record.encode(scratch);
+        scratch.flip();
+        int length = scratch.remaining();
+        if (segment == null || segment.remaining() < HEADER_SIZE + length) {
+            roll();
+        }
+        crc.reset();
+        crc.update(scratch.duplicate());
+        segment.putInt(length);
+        segment.putInt((int) crc.getValue());
+        segment.put(scratch);
+        return nextSequence++;
+    }
+
+    public synchronized void force() {
+        if (segment != null) {
+            segment.force();
+        }
+    }
+
+    //Chamado depois de um snapshot: apaga os segmentos cujos registros são todos anteriores à sequência
+    public synchronized void deleteSegmentsBefore(long sequence) throws IOException {
+        List<Long> obsolete = new ArrayList<>();
+        for (Map.Entry<Long, Path> entry : segments.entrySet()) {
+            Long followingSequence = segments.higherKey(entry.getKey());
+            if (followingSequence == null || followingSequence > sequence) {
+                break;
+            }
+            obsolete.add(entry.getKey());
+        }
+        for (Long firstSequence : obsolete) {
+            Files.deleteIfExists(segments.remove(firstSequence));
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (channel != null) {
+            segment.force();
+            channel.close();
+            channel = null;
+            segment = null;
+        }
+    }
+
+    private void recover(long fromSequence, Consumer<JournalRecord> replay) throws IOException {
+        if (!segments.isEmpty() && segments.firstKey() > fromSequence) {
+            throw new IllegalStateException(String.format("Journal is missing records from sequence %d to %d",
+                    fromSequence, segments.firstKey() - 1));
+        }
+        long expectedSequence = segments.isEmpty() ? fromSequence : segments.firstKey();
+        for (Map.Entry<Long, Path> entry : segments.entrySet()) {
+            if (entry.getKey() != expectedSequence) {
+                throw new IllegalStateException(String.format("Journal segment %s does not follow sequence %d",
+                        entry.getValue(), expectedSequence - 1));
+            }
+            boolean last = entry.getKey().equals(segments.lastKey());
+            FileChannel segmentChannel = FileChannel.open(entry.getValue(), StandardOpenOption.READ, StandardOpenOption.WRITE);
+            try {
+                //Mapeia o tamanho real do arquivo: segment-size pode ter mudado desde que o segmento foi criado
+                MappedByteBuffer buffer = segmentChannel.map(last ? FileChannel.MapMode.READ_WRITE : FileChannel.MapMode.READ_ONLY,
+                        0, segmentChannel.size());
+                expectedSequence = replaySegment(entry.getValue(), buffer, expectedSequence, fromSequence, last, replay);
+                if (last && expectedSequence >= fromSequence) {
+                    //Continua gravando no fim do último segmento, que fica aberto
+                    channel = segmentChannel;
+                    segment = buffer;
+                }
+            } finally {
+                if (channel != segmentChannel) {
+                    segmentChannel.close();
+                }
+            }
+        }
+        if (expectedSequence < fromSequence) {
+            //O snapshot cobre tudo o que sobrou no journal: os segmentos são descartados e a gravação começa depois dele
+            for (Path segmentPath : segments.values()) {
+                Files.deleteIfExists(segmentPath);
+            }
+            segments.clear();
+            expectedSequence = fromSequence;
+        }
+        nextSequence = expectedSequence;
+    }
+
+    private long replaySegment(Path segmentPath, MappedByteBuffer buffer, long firstSequence, long fromSequence,
+                               boolean last, Consumer<JournalRecord> replay) {
+        long expectedSequence = firstSequence;
+        while (buffer.remaining() >= HEADER_SIZE) {
+            int start = buffer.position();
+            int length = buffer.getInt();
+            if (length == 0) {
+                buffer.position(start);
+                break;
+            }
+            int checksum = buffer.getInt();
+            if (!isValid(buffer, length, checksum, expectedSequence)) {
+                if (!last) {
+                    throw new IllegalStateException(String.format("Journal segment %s is corrupted at offset %d", segmentPath, start));
+                }
+                log.warn("Discarding torn journal tail of {} at offset {}", segmentPath, start);
+                truncate(buffer, start);
+                break;
+            }
+            ByteBuffer payload = buffer.slice();
+            payload.limit(length);
+            payload.getLong();
+            if (expectedSequence >= fromSequence) {
+                replay.accept(JournalRecord.decode(payload));
+            }
+            buffer.position(start + HEADER_SIZE + length);
+            expectedSequence++;
+        }
+        return expectedSequence;
+    }
+
+    private boolean isValid(ByteBuffer buffer, int length, int checksum, long expectedSequence) {
+        if (length < MIN_PAYLOAD_SIZE || length > buffer.remaining()) {
+            return false;
+        }
+        ByteBuffer payload = buffer.slice();
+        payload.limit(length);
+        crc.reset();
+        crc.update(payload.duplicate());
+        return (int) crc.getValue() == checksum && payload.getLong() == expectedSequence;
+    }
+
+    //Zera a cauda para que uma nova queda antes de sobrescrevê-la não a confunda com registros
+    private void truncate(MappedByteBuffer buffer, int offset) {
+        buffer.position(offset);
+        while (buffer.hasRemaining()) {
+            buffer.put((byte) 0);
+        }
+        buffer.force();
+        buffer.position(offset);
+    }
+
+    private void roll() throws IOException {
+        close();
+        Path segmentPath = directory.resolve(segmentName(nextSequence));
+        //Um segmento com esse nome só pode existir vazio (o último, reaberto sem registros)
+        channel = FileChannel.open(segmentPath, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+        segments.put(nextSequence, segmentPath);
+    }
+
+    private static NavigableMap<Long, Path> listSegments(Path directory) throws IOException {
+        NavigableMap<Long, Path> segments = new TreeMap<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            files.forEach(file -> {
+                String fileName = file.getFileName().toString();
+                if (fileName.startsWith(SEGMENT_PREFIX) && fileName.endsWith(SEGMENT_SUFFIX)) {
+                    segments.put(Long.parseLong(fileName.substring(SEGMENT_PREFIX.length(),
+                            fileName.length() - SEGMENT_SUFFIX.length())), file);
+                }
+            });
+        }
+        return segments;
+    }
+
+    private static String segmentName(long firstSequence) {
+        return String.format("%s%020d%s", SEGMENT_PREFIX, firstSequence, SEGMENT_SUFFIX);
+    }
+}
@@ -0,0 +1,116 @@
+package one.digitalinnovation.beerstock.service;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import one.digitalinnovation.beerstock.dto.BeerDTO;
+import one.digitalinnovation.beerstock.enums.BeerType;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+//Registro do journal de estoque. Guarda o estado resultante (quantidade e versão) e não o delta,
+//para que o replay seja idempotente e descarte pela versão o que chegou ao journal fora de ordem
+@Getter
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+public final class JournalRecord {
+
+    private final Type type;
+    private final long beerId;
+    private final long version;
+    private final int quantity;
+    private final int max;
+    private final String name;
+    private final String brand;
+    private final BeerType beerType;
+
+    public static JournalRecord created(long beerId, long version, String name, String brand, int max, int quantity,
+                                        BeerType beerType) {
+        return new JournalRecord(Type.CREATED, beerId, version, quantity, max, name, brand, beerType);
+    }
+
+    public static JournalRecord created(BeerDTO beerDTO) {
+        return created(beerDTO.getId(), beerDTO.getVersion(), beerDTO.getName(), beerDTO.getBrand(), beerDTO.getMax(),
+                beerDTO.getQuantity(), beerDTO.getType());
+    }
+
+    public static JournalRecord stockChanged(long beerId, long version, int quantity) {
+        return new JournalRecord(Type.STOCK_CHANGED, beerId, version, quantity, 0, null, null, null);
+    }
+
+    public static JournalRecord deleted(long beerId, long version) {
+        return new JournalRecord(Type.DELETED, beerId, version, 0, 0, null, null, null);
+    }
+
+    JournalRecord withStock(int newQuantity, long newVersion) {
+        return new JournalRecord(type, beerId, newVersion, newQuantity, max, name, brand, beerType);
+    }
+
+    void encode(ByteBuffer buffer) {
+        buffer.put(type.code);
+        buffer.putLong(beerId);
+        buffer.putLong(version);
+        if (type == Type.DELETED) {
+            return;
+        }
+        buffer.putInt(quantity);
+        if (type == Type.CREATED) {
+            buffer.putInt(max);
+            buffer.put((byte) beerType.getCode());
+            putString(buffer, name);
+            putString(buffer, brand);
+        }
+    }
+
+    static JournalRecord decode(ByteBuffer buffer) {
+        Type type = Type.fromCode(buffer.get());
+        long beerId = buffer.getLong();
+        long version = buffer.getLong();
+        switch (type) {
+            case DELETED:
+                return deleted(beerId, version);
+            case STOCK_CHANGED:
+                return stockChanged(beerId, version, buffer.getInt());
+            default:
+                int quantity = buffer.getInt();
+                int max = buffer.getInt();
+                BeerType beerType = BeerType.fromCode(buffer.get());
+                return created(beerId, version, getString(buffer), getString(buffer), max, quantity, beerType);
+        }
+    }
+
+    private static void putString(ByteBuffer buffer, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        buffer.putShort((short) bytes.length);
+        buffer.put(bytes);
+    }
+
+    private static String getString(ByteBuffer buffer) {
+        byte[] bytes = new byte[Short.toUnsignedInt(buffer.getShort())];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    public enum Type {
+
+        CREATED(1),
+        STOCK_CHANGED(2),
+        DELETED(3);
+
+        //Código gravado no arquivo; não depende da ordem das constantes
+        private final byte code;
+
+        Type(int code) {
+            this.code = (byte) code;
+        }
+
+        static Type fromCode(byte code) {
+            for (Type type : values()) {
+                if (type.code == code) {
+                    return type;
+                }
+            }
+            throw new IllegalArgumentException("Unknown journal record type: " + code);
+        }
+    }
+}
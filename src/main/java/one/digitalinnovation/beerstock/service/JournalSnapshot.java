@@ -0,0 +1,151 @@
+package one.digitalinnovation.beerstock.service;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+//Snapshot compacto do catálogo: uma linha por cerveja e a sequência do journal a partir da qual o replay continua.
+//Gravado em arquivo temporário e renomeado, então o snapshot anterior só some depois que o novo está completo
+public final class JournalSnapshot {
+
+    private static final String SNAPSHOT_PREFIX = "snapshot-";
+    private static final String SNAPSHOT_SUFFIX = ".snap";
+    private static final String TEMPORARY_SUFFIX = ".tmp";
+    private static final int MAGIC = 0x42534e50;
+    private static final int FORMAT_VERSION = 1;
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private JournalSnapshot() {
+    }
+
+    //Entrega as cervejas do snapshot mais recente e devolve a sequência em que o replay do journal começa
+    public static OptionalLong read(Path directory, Consumer<JournalRecord> beers) throws IOException {
+        Optional<Path> latest = snapshots(directory).stream().reduce((first, second) -> second);
+        if (latest.isEmpty()) {
+            return OptionalLong.empty();
+        }
+        CRC32C checksum = new CRC32C();
+        try (DataInputStream raw = new DataInputStream(new BufferedInputStream(Files.newInputStream(latest.get()), BUFFER_SIZE))) {
+            DataInputStream in = new DataInputStream(new CheckedInputStream(raw, checksum));
+            if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION) {
+                throw new IllegalStateException("Unsupported journal snapshot " + latest.get());
+            }
+            long nextSequence = in.readLong();
+            byte[] record = new byte[0];
+            long count = 0;
+            int length;
+            while ((length = in.readInt()) != 0) {
+                if (record.length < length) {
+                    record = new byte[length];
+                }
+                in.readFully(record, 0, length);
+                beers.accept(JournalRecord.decode(ByteBuffer.wrap(record, 0, length)));
+                count++;
+            }
+            long expectedCount = in.readLong();
+            long expectedChecksum = checksum.getValue();
+            if (count != expectedCount || raw.readLong() != expectedChecksum) {
+                throw new IllegalStateException("Journal snapshot " + latest.get() + " is corrupted");
+            }
+            return OptionalLong.of(nextSequence);
+        }
+    }
+
+    private static List<Path> snapshots(Path directory) throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> {
+                String fileName = file.getFileName().toString();
+                return fileName.startsWith(SNAPSHOT_PREFIX) && fileName.endsWith(SNAPSHOT_SUFFIX);
+            }).sorted().collect(Collectors.toList());
+        }
+    }
+
+    public static final class Writer implements Closeable {
+
+        private final Path directory;
+        private final Path snapshotPath;
+        private final Path temporaryPath;
+        private final FileChannel channel;
+        private final DataOutputStream raw;
+        private final DataOutputStream out;
+        private final CRC32C checksum = new CRC32C();
+        private final ByteBuffer scratch = ByteBuffer.allocate(1 << 18);
+        private long count;
+        private boolean committed;
+
+        private Writer(Path directory, long nextSequence) throws IOException {
+            this.directory = directory;
+            String fileName = String.format("%s%020d%s", SNAPSHOT_PREFIX, nextSequence, SNAPSHOT_SUFFIX);
+            this.snapshotPath = directory.resolve(fileName);
+            this.temporaryPath = directory.resolve(fileName + TEMPORARY_SUFFIX);
+            this.channel = FileChannel.open(temporaryPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING);
+            this.raw = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel), BUFFER_SIZE));
+            this.out = new DataOutputStream(new CheckedOutputStream(raw, checksum));
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            out.writeLong(nextSequence);
+        }
+
+        public static Writer create(Path directory, long nextSequence) throws IOException {
+            Files.createDirectories(directory);
+            return new Writer(directory, nextSequence);
+        }
+
+        public void write(JournalRecord beer) throws IOException {
+            scratch.clear();
+            beer.encode(scratch);
+            out.writeInt(scratch.position());
+            out.write(scratch.array(), 0, scratch.position());
+            count++;
+        }
+
+        //Fecha o arquivo no disco, publica pelo rename e só então apaga os snapshots anteriores
+        public void commit() throws IOException {
+            out.writeInt(0);
+            out.writeLong(count);
+            out.flush();
+            raw.writeLong(checksum.getValue());
+            raw.flush();
+            channel.force(true);
+            channel.close();
+            Files.move(temporaryPath, snapshotPath, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            committed = true;
+            for (Path previous : snapshots(directory)) {
+                if (!previous.equals(snapshotPath)) {
+                    Files.deleteIfExists(previous);
+                }
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (!committed) {
+                channel.close();
+                Files.deleteIfExists(temporaryPath);
+            }
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package one.digitalinnovation.beerstock.service;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+//Catálogo reconstruído pelo replay do snapshot e da cauda do journal: cada cerveja fica com o registro de maior versão
+public final class JournalState {
+
+    private final Map<Long, JournalRecord> beers = new HashMap<>();
+    private long highestId;
+
+    public void apply(JournalRecord record) {
+        long beerId = record.getBeerId();
+        highestId = Math.max(highestId, beerId);
+        JournalRecord current = beers.get(beerId);
+        switch (record.getType()) {
+            case CREATED:
+                //O snapshot é lido do banco depois de marcar a sequência, então o create pode reaparecer na cauda
+                if (current == null || record.getVersion() > current.getVersion()) {
+                    beers.put(beerId, record);
+                }
+                break;
+            case STOCK_CHANGED:
+                //Updates concorrentes chegam ao journal em qualquer ordem; sem a cerveja, o delete já foi aplicado
+                if (current != null && record.getVersion() > current.getVersion()) {
+                    beers.put(beerId, current.withStock(record.getQuantity(), record.getVersion()));
+                }
+                break;
+            case DELETED:
+                beers.remove(beerId);
+                break;
+        }
+    }
+
+    public Collection<JournalRecord> beers() {
+        return beers.values();
+    }
+
+    public int size() {
+        return beers.size();
+    }
+
+    public long highestId() {
+        return highestId;
+    }
+}
@@ -0,0 +1,15 @@
+package one.digitalinnovation.beerstock.service;
+
+import lombok.extern.slf4j.Slf4j;
+import one.digitalinnovation.beerstock.dto.StockAlertDTO;
+
+//Notifier padrão: só registra no log. Uma integração real (e-mail, chat, pager) declara o próprio bean AlertNotifier
+@Slf4j
+public class LoggingAlertNotifier implements AlertNotifier {
+
+    @Override
+    public void notify(StockAlertDTO alert) {
+        log.warn("Stock alert {} {} for beer {}: quantity {} of max {}", alert.getRule(), alert.getState(), alert.getBeerId(),
+                alert.getQuantity(), alert.getMax());
+    }
+}
@@ -0,0 +1,83 @@
+package one.digitalinnovation.beerstock.service;
+
+import lombok.extern.slf4j.Slf4j;
+import one.digitalinnovation.beerstock.entity.Beer;
+import one.digitalinnovation.beerstock.entity.BeerNames;
+import one.digitalinnovation.beerstock.repository.BeerRepository;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import java.util.List;
+
+//Preenche normalized_name das linhas gravadas antes da coluna existir, em lotes por id (keyset)
+//e uma transação por lote, sem carregar a tabela inteira na memória
+@Slf4j
+@Component
+@DependsOn("beerJournal")
+public class NormalizedNameBackfill {
+
+    private static final int BATCH_SIZE = 500;
+
+    private final BeerRepository beerRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    public NormalizedNameBackfill(BeerRepository beerRepository, PlatformTransactionManager transactionManager) {
+        this.beerRepository = beerRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @PostConstruct
+    public void backfill() {
+        long lastId = 0L;
+        long updatedRows = 0L;
+        List<Beer> batch;
+        do {
+            batch = beerRepository.findByNormalizedNameIsNullAndIdGreaterThanOrderByIdAsc(lastId, PageRequest.of(0, BATCH_SIZE));
+            if (batch.isEmpty()) {
+                break;
+            }
+            lastId = batch.get(batch.size() - 1).getId();
+            updatedRows += normalizeBatch(batch);
+        } while (batch.size() == BATCH_SIZE);
+
+        if (updatedRows > 0) {
+            log.info("Backfilled normalized name of {} beers", updatedRows);
+        }
+    }
+
+    private int normalizeBatch(List<Beer> batch) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                batch.forEach(beer -> beer.setNormalizedName(BeerNames.normalize(beer.getName())));
+                beerRepository.saveAll(batch);
+                beerRepository.flush();
+            });
+            return batch.size();
+        } catch (DataIntegrityViolationException e) {
+            //Nomes antigos que só diferem em caixa ou acento: grava um a um e deixa os conflitantes para correção manual
+            int updatedRows = 0;
+            for (Beer beer : batch) {
+                updatedRows += normalizeOne(beer.getId());
+            }
+            return updatedRows;
+        }
+    }
+
+    private int normalizeOne(Long id) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> beerRepository.findById(id).ifPresent(beer -> {
+                beer.setNormalizedName(BeerNames.normalize(beer.getName()));
+                beerRepository.saveAndFlush(beer);
+            }));
+            return 1;
+        } catch (DataIntegrityViolationException e) {
+            log.warn("Beer {} was not backfilled: its normalized name is already used by another beer", id);
+            return 0;
+        }
+    }
+}
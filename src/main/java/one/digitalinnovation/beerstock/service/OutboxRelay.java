@@ -0,0 +1,187 @@
+package one.digitalinnovation.beerstock.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import one.digitalinnovation.beerstock.config.OutboxProperties;
+import one.digitalinnovation.beerstock.dto.OutboxEventDTO;
+import one.digitalinnovation.beerstock.entity.OutboxEvent;
+import one.digitalinnovation.beerstock.mapper.OutboxEventMapper;
+import one.digitalinnovation.beerstock.repository.OutboxEventRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.stream.Collectors;
+
+//Drena o outbox para o OutboxSink. Cada partição de beerId tem a própria thread e entrega lotes em ordem de id,
+//apagando um lote só depois de confirmado: a entrega é at-least-once e uma partição com falha não atrasa as outras.
+//Roda em threads próprias para não ocupar o scheduler compartilhado com drenagens longas
+@Slf4j
+@Component
+public class OutboxRelay {
+
+    private static final long NO_PENDING_EVENTS = 0L;
+    private static final long SHUTDOWN_TIMEOUT_SECONDS = 10;
+
+    private final OutboxProperties properties;
+    private final OutboxEventRepository outboxEventRepository;
+    private final OutboxSink outboxSink;
+    private final TransactionTemplate transactionTemplate;
+    private final Clock clock;
+    private final OutboxEventMapper outboxEventMapper = OutboxEventMapper.INSTANCE;
+
+    private final Counter relayedEvents;
+    private final Counter failedBatches;
+    private final DistributionSummary batchSizes;
+    private final Timer lag;
+    //Instante, em epoch millis, do evento mais antigo visto pendente em cada partição
+    private final AtomicLongArray oldestPending;
+
+    private ScheduledExecutorService partitionWorkers;
+
+    @Autowired
+    public OutboxRelay(OutboxProperties properties,
+                       OutboxEventRepository outboxEventRepository,
+                       OutboxSink outboxSink,
+                       PlatformTransactionManager transactionManager,
+                       MeterRegistry meterRegistry) {
+        this(properties, outboxEventRepository, outboxSink, transactionManager, meterRegistry, Clock.systemUTC());
+    }
+
+    OutboxRelay(OutboxProperties properties,
+                OutboxEventRepository outboxEventRepository,
+                OutboxSink outboxSink,
+                PlatformTransactionManager transactionManager,
+                MeterRegistry meterRegistry,
+                Clock clock) {
+        this.properties = properties;
+        this.outboxEventRepository = outboxEventRepository;
+        this.outboxSink = outboxSink;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.clock = clock;
+        this.oldestPending = new AtomicLongArray(Math.max(1, properties.getPartitions()));
+        this.relayedEvents = Counter.builder("beerstock.outbox.relayed")
+                .description("Outbox events confirmed by the sink")
+                .register(meterRegistry);
+        this.failedBatches = Counter.builder("beerstock.outbox.failures")
+                .description("Outbox batches rejected by the sink and left for the next poll")
+                .register(meterRegistry);
+        this.batchSizes = DistributionSummary.builder("beerstock.outbox.batch.size")
+                .description("Events delivered to the sink per call")
+                .register(meterRegistry);
+        this.lag = Timer.builder("beerstock.outbox.lag")
+                .description("Time from the beer mutation to the sink confirming its event")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        Gauge.builder("beerstock.outbox.oldest.pending.age", this, OutboxRelay::oldestPendingAgeSeconds)
+                .description("Age of the oldest event still waiting in the outbox")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        if (properties.getPartitions() < 1 || properties.getBatchSize() < 1) {
+            throw new IllegalStateException("beerstock.outbox.partitions and beerstock.outbox.batch-size must be positive");
+        }
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("outbox-relay-");
+        threadFactory.setDaemon(true);
+        partitionWorkers = Executors.newScheduledThreadPool(properties.getPartitions(), threadFactory);
+        for (int partition = 0; partition < properties.getPartitions(); partition++) {
+            int drainedPartition = partition;
+            partitionWorkers.scheduleWithFixedDelay(() -> drain(drainedPartition), properties.getPollIntervalMs(),
+                    properties.getPollIntervalMs(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if (partitionWorkers == null) {
+            return;
+        }
+        partitionWorkers.shutdown();
+        partitionWorkers.awaitTermination(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+    }
+
+    //Entrega lotes cheios em sequência até a partição esvaziar ou o sink falhar; devolve os eventos confirmados
+    int drain(int partition) {
+        int relayed = 0;
+        try {
+            while (true) {
+                List<OutboxEvent> batch = outboxEventRepository.findPartition(properties.getPartitions(), partition,
+                        PageRequest.of(0, properties.getBatchSize()));
+                if (batch.isEmpty()) {
+                    oldestPending.set(partition, NO_PENDING_EVENTS);
+                    return relayed;
+                }
+                oldestPending.set(partition, batch.get(0).getOccurredAt().toEpochMilli());
+                if (!deliver(partition, batch)) {
+                    return relayed;
+                }
+                relayed += batch.size();
+                if (batch.size() < properties.getBatchSize()) {
+                    oldestPending.set(partition, NO_PENDING_EVENTS);
+                    return relayed;
+                }
+            }
+        } catch (RuntimeException e) {
+            //Exceção não tratada cancelaria o agendamento da partição
+            log.error("Failed to drain outbox partition {}", partition, e);
+            return relayed;
+        }
+    }
+
+    private boolean deliver(int partition, List<OutboxEvent> batch) {
+        List<OutboxEventDTO> events = batch.stream()
+                .map(outboxEventMapper::toDTO)
+                .collect(Collectors.toList());
+        try {
+            outboxSink.publish(events);
+        } catch (IOException | RuntimeException e) {
+            failedBatches.increment();
+            log.warn("Outbox sink rejected {} events of partition {}, retrying on next poll", batch.size(), partition, e);
+            return false;
+        }
+        List<Long> ids = batch.stream().map(OutboxEvent::getId).collect(Collectors.toList());
+        transactionTemplate.executeWithoutResult(status -> outboxEventRepository.deleteByIdIn(ids));
+
+        Instant now = clock.instant();
+        batch.forEach(event -> lag.record(Duration.between(event.getOccurredAt(), now)));
+        relayedEvents.increment(batch.size());
+        batchSizes.record(batch.size());
+        return true;
+    }
+
+    private double oldestPendingAgeSeconds() {
+        long now = clock.millis();
+        long oldestAge = 0;
+        for (int partition = 0; partition < oldestPending.length(); partition++) {
+            long occurredAt = oldestPending.get(partition);
+            if (occurredAt != NO_PENDING_EVENTS) {
+                oldestAge = Math.max(oldestAge, now - occurredAt);
+            }
+        }
+        return oldestAge / 1000.0;
+    }
+}
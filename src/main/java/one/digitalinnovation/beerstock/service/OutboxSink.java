@@ -0,0 +1,13 @@
+package one.digitalinnovation.beerstock.service;
+
+import one.digitalinnovation.beerstock.dto.OutboxEventDTO;
+
+import java.io.IOException;
+import java.util.List;
+
+//Destino dos eventos do outbox. Retornar sem exceção confirma o lote inteiro, que então é apagado;
+//qualquer exceção faz o relay repetir o mesmo lote, na mesma ordem, no próximo ciclo
+public interface OutboxSink {
+
+    void publish(List<OutboxEventDTO> events) throws IOException;
+}
@@ -0,0 +1,111 @@
+package one.digitalinnovation.beerstock.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.AllArgsConstructor;
+import lombok.Value;
+import one.digitalinnovation.beerstock.config.CoalescingProperties;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+//Single-flight: chamadas simultâneas com a mesma chave compartilham uma única execução do loader.
+//O resultado é o mesmo objeto para todos, então o loader deve devolver algo imutável ou quem chama deve copiar
+@Component
+@AllArgsConstructor(onConstructor = @__(@Autowired))
+public class RequestCoalescer {
+
+    private static final String COALESCING_METRIC = "beerstock.coalescing";
+    private static final String LEADER = "leader";
+    private static final String JOINED = "joined";
+    private static final String OVERFLOW = "overflow";
+    private static final String TIMEOUT = "timeout";
+
+    private final CoalescingProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final ConcurrentMap<FlightKey, Flight> flights = new ConcurrentHashMap<>();
+
+    public <V> V execute(String flightName, Object key, Supplier<V> loader) {
+        if (!properties.isEnabled()) {
+            return loader.get();
+        }
+        FlightKey flightKey = new FlightKey(flightName, key);
+        Flight newFlight = new Flight();
+        Flight inFlight = flights.putIfAbsent(flightKey, newFlight);
+        if (inFlight == null) {
+            count(flightName, LEADER);
+            return lead(flightKey, newFlight, loader);
+        }
+        if (inFlight.waiters.incrementAndGet() > properties.getMaxWaiters()) {
+            inFlight.waiters.decrementAndGet();
+            count(flightName, OVERFLOW);
+            return loader.get();
+        }
+        try {
+            V result = inFlight.await(properties.getTimeout().toNanos());
+            count(flightName, JOINED);
+            return result;
+        } catch (TimeoutException e) {
+            count(flightName, TIMEOUT);
+            return loader.get();
+        } finally {
+            inFlight.waiters.decrementAndGet();
+        }
+    }
+
+    private <V> V lead(FlightKey flightKey, Flight flight, Supplier<V> loader) {
+        V result;
+        try {
+            result = loader.get();
+        } catch (RuntimeException | Error e) {
+            flights.remove(flightKey, flight);
+            flight.result.completeExceptionally(e);
+            throw e;
+        }
+        //Removido antes de completar: quem chegar agora inicia uma consulta nova em vez de receber um resultado já pronto
+        flights.remove(flightKey, flight);
+        flight.result.complete(result);
+        return result;
+    }
+
+    private void count(String flightName, String outcome) {
+        meterRegistry.counter(COALESCING_METRIC, "flight", flightName, "outcome", outcome).increment();
+    }
+
+    @Value
+    private static class FlightKey {
+
+        String flightName;
+        Object key;
+    }
+
+    private static final class Flight {
+
+        private final CompletableFuture<Object> result = new CompletableFuture<>();
+        private final AtomicInteger waiters = new AtomicInteger();
+
+        @SuppressWarnings("unchecked")
+        private <V> V await(long timeoutNanos) throws TimeoutException {
+            try {
+                return (V) result.get(timeoutNanos, TimeUnit.NANOSECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new TimeoutException("Interrupted while waiting for coalesced request");
+            } catch (ExecutionException e) {
+                //A falha do líder é repassada a quem esperava por ele
+                Throwable cause = e.getCause();
+                if (cause instanceof RuntimeException) {
+                    throw (RuntimeException) cause;
+                }
+                throw (Error) cause;
+            }
+        }
+    }
+}
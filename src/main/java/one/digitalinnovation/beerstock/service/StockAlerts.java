@@ -0,0 +1,226 @@
+package one.digitalinnovation.beerstock.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import one.digitalinnovation.beerstock.config.AlertProperties;
+import one.digitalinnovation.beerstock.dto.BeerDTO;
+import one.digitalinnovation.beerstock.dto.StockAlertDTO;
+import one.digitalinnovation.beerstock.enums.AlertCondition;
+import one.digitalinnovation.beerstock.enums.AlertState;
+import one.digitalinnovation.beerstock.enums.BeerType;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+//Regras de estoque avaliadas a cada mutação, só contra as que alcançam a cerveja: as do id dela, as do tipo
+//dela e as globais, indexadas na subida. Cada par regra/cerveja guarda se está disparado e só volta a disparar
+//depois de sair da faixa de histerese, então uma quantidade oscilando no limite não gera alertas repetidos.
+//Cervejas sem mutação desde o startup não são avaliadas: não há varredura do catálogo
+@Slf4j
+@Component
+public class StockAlerts {
+
+    private static final long SHUTDOWN_TIMEOUT_SECONDS = 5;
+
+    private final AlertNotifier alertNotifier;
+    private final Executor dispatcher;
+    private final MeterRegistry meterRegistry;
+    private final Clock clock;
+    private final boolean enabled;
+
+    private final List<CompiledRule> globalRules = new ArrayList<>();
+    private final Map<BeerType, List<CompiledRule>> rulesByType = new EnumMap<>(BeerType.class);
+    private final Map<Long, List<CompiledRule>> rulesByBeer = new HashMap<>();
+    private final ConcurrentMap<Long, BeerAlerts> beerAlerts = new ConcurrentHashMap<>();
+    private final Counter droppedAlerts;
+
+    @Autowired
+    public StockAlerts(AlertProperties properties, AlertNotifier alertNotifier, MeterRegistry meterRegistry) {
+        this(properties, alertNotifier, meterRegistry, dispatcher(properties), Clock.systemUTC());
+    }
+
+    StockAlerts(AlertProperties properties, AlertNotifier alertNotifier, MeterRegistry meterRegistry, Executor dispatcher,
+                Clock clock) {
+        this.alertNotifier = alertNotifier;
+        this.dispatcher = dispatcher;
+        this.meterRegistry = meterRegistry;
+        this.clock = clock;
+        this.droppedAlerts = Counter.builder("beerstock.alerts.dropped")
+                .description("Alerts discarded because the notifier queue was full")
+                .register(meterRegistry);
+        List<AlertProperties.Rule> rules = properties.getRules();
+        for (int index = 0; index < rules.size(); index++) {
+            CompiledRule rule = compile(index, rules.get(index), properties.getHysteresis());
+            if (rule.beerId != null) {
+                rulesByBeer.computeIfAbsent(rule.beerId, id -> new ArrayList<>()).add(rule);
+            } else if (rule.type != null) {
+                rulesByType.computeIfAbsent(rule.type, type -> new ArrayList<>()).add(rule);
+            } else {
+                globalRules.add(rule);
+            }
+        }
+        this.enabled = properties.isEnabled() && !rules.isEmpty();
+    }
+
+    public void evaluate(BeerDTO beerDTO) {
+        if (!enabled) {
+            return;
+        }
+        List<CompiledRule> beerRules = rulesByBeer.getOrDefault(beerDTO.getId(), Collections.emptyList());
+        List<CompiledRule> typeRules = rulesByType.getOrDefault(beerDTO.getType(), Collections.emptyList());
+        if (beerRules.isEmpty() && typeRules.isEmpty() && globalRules.isEmpty()) {
+            return;
+        }
+        //O compute serializa as avaliações de uma mesma cerveja, e o despacho dentro dele mantém a ordem das
+        //transições na fila do notifier; mutações concorrentes de outras cervejas não esperam
+        beerAlerts.compute(beerDTO.getId(), (id, current) -> {
+            BeerAlerts alerts = current == null ? new BeerAlerts() : current;
+            //Resultado de uma escrita anterior chegando depois da seguinte: a quantidade já foi superada
+            if (beerDTO.getVersion() != null && beerDTO.getVersion() < alerts.version) {
+                return alerts;
+            }
+            if (beerDTO.getVersion() != null) {
+                alerts.version = beerDTO.getVersion();
+            }
+            List<StockAlertDTO> transitions = new ArrayList<>(0);
+            alerts.apply(beerRules, beerDTO, transitions);
+            alerts.apply(typeRules, beerDTO, transitions);
+            alerts.apply(globalRules, beerDTO, transitions);
+            transitions.forEach(this::dispatch);
+            return alerts;
+        });
+    }
+
+    //Alertas abertos de uma cerveja removida são descartados sem notificação de encerramento
+    public void deleted(Long beerId) {
+        beerAlerts.remove(beerId);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if (dispatcher instanceof ExecutorService) {
+            ExecutorService executorService = (ExecutorService) dispatcher;
+            executorService.shutdown();
+            executorService.awaitTermination(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        }
+    }
+
+    //O notifier roda fora da thread da mutação, para que um destino lento não atrase a requisição
+    private void dispatch(StockAlertDTO alert) {
+        alert.setOccurredAt(clock.instant());
+        meterRegistry.counter("beerstock.alerts", "rule", alert.getRule(), "state", alert.getState().name()).increment();
+        try {
+            dispatcher.execute(() -> {
+                try {
+                    alertNotifier.notify(alert);
+                } catch (RuntimeException e) {
+                    log.error("Alert notifier failed for rule {} and beer {}", alert.getRule(), alert.getBeerId(), e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            droppedAlerts.increment();
+        }
+    }
+
+    private static CompiledRule compile(int index, AlertProperties.Rule rule, double defaultHysteresis) {
+        if (rule.getName() == null || rule.getCondition() == null || rule.getThreshold() < 0) {
+            throw new IllegalStateException("beerstock.alerts.rules[" + index + "] needs a name, a condition and a non-negative threshold");
+        }
+        if (rule.getBeerId() != null && rule.getType() != null) {
+            throw new IllegalStateException("beerstock.alerts.rules[" + index + "] must target a beer id or a beer type, not both");
+        }
+        BigDecimal threshold = BigDecimal.valueOf(rule.getThreshold());
+        BigDecimal hysteresis = BigDecimal.valueOf(rule.getHysteresis() == null ? defaultHysteresis : rule.getHysteresis());
+        //Em decimal, para 0.1 + 0.05 dar exatamente a razão 15/100 e não 0.15000000000000002
+        double clearThreshold = rule.getCondition() == AlertCondition.BELOW
+                ? threshold.add(hysteresis).doubleValue()
+                : threshold.subtract(hysteresis).doubleValue();
+        return new CompiledRule(index, rule.getName(), rule.getCondition(), rule.getThreshold(), clearThreshold,
+                rule.getBeerId(), rule.getType());
+    }
+
+    private static ExecutorService dispatcher(AlertProperties properties) {
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("stock-alerts-");
+        threadFactory.setDaemon(true);
+        return new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(properties.getQueueCapacity()), threadFactory);
+    }
+
+    private static final class CompiledRule {
+
+        private final int index;
+        private final String name;
+        private final AlertCondition condition;
+        private final double threshold;
+        private final double clearThreshold;
+        private final Long beerId;
+        private final BeerType type;
+
+        CompiledRule(int index, String name, AlertCondition condition, double threshold, double clearThreshold,
+                     Long beerId, BeerType type) {
+            this.index = index;
+            this.name = name;
+            this.condition = condition;
+            this.threshold = threshold;
+            this.clearThreshold = clearThreshold;
+            this.beerId = beerId;
+            this.type = type;
+        }
+
+        //Disparado, o alerta só encerra ao cruzar o clearThreshold; encerrado, só dispara ao cruzar o threshold
+        boolean isActive(boolean active, int quantity, int max) {
+            //Cerveja sem capacidade conta como cheia
+            double ratio = max > 0 ? (double) quantity / max : 1.0;
+            if (condition == AlertCondition.BELOW) {
+                return active ? ratio < clearThreshold : ratio < threshold;
+            }
+            return active ? ratio >= clearThreshold : ratio >= threshold;
+        }
+    }
+
+    //Regras disparadas de uma cerveja, pelo índice da regra, e a versão da última mutação avaliada
+    private static final class BeerAlerts {
+
+        private final BitSet active = new BitSet();
+        private long version = Long.MIN_VALUE;
+
+        void apply(List<CompiledRule> rules, BeerDTO beerDTO, List<StockAlertDTO> transitions) {
+            for (CompiledRule rule : rules) {
+                boolean wasActive = active.get(rule.index);
+                boolean isActive = rule.isActive(wasActive, beerDTO.getQuantity(), beerDTO.getMax());
+                if (isActive != wasActive) {
+                    active.set(rule.index, isActive);
+                    transitions.add(StockAlertDTO.builder()
+                            .rule(rule.name)
+                            .state(isActive ? AlertState.RAISED : AlertState.CLEARED)
+                            .beerId(beerDTO.getId())
+                            .type(beerDTO.getType())
+                            .quantity(beerDTO.getQuantity())
+                            .max(beerDTO.getMax())
+                            .version(beerDTO.getVersion())
+                            .build());
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,278 @@
+package one.digitalinnovation.beerstock.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import one.digitalinnovation.beerstock.config.StockWriteProperties;
+import one.digitalinnovation.beerstock.dto.BeerDTO;
+import one.digitalinnovation.beerstock.entity.Beer;
+import one.digitalinnovation.beerstock.enums.StockWriteMode;
+import one.digitalinnovation.beerstock.exception.BeerNotFoundException;
+import one.digitalinnovation.beerstock.exception.BeerStockExceededException;
+import one.digitalinnovation.beerstock.mapper.BeerMapper;
+import one.digitalinnovation.beerstock.repository.BeerRepository;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+//Buffer write-behind: deltas aceitos são agregados por id e gravados em uma única transação
+//a cada flush-interval ou a cada flush-threshold deltas, o que ocorrer primeiro
+@Slf4j
+@Component
+public class StockDeltaBuffer {
+
+    private static final String DROPPED_METRIC = "beerstock.stock.write-behind.dropped";
+
+    private final BeerRepository beerRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final StockWriteProperties properties;
+    private final BeerOutbox beerOutbox;
+    private final BeerMutationListener beerMutationListener;
+    private final MeterRegistry meterRegistry;
+    private final BeerMapper beerMapper = BeerMapper.INSTANCE;
+
+    private final ConcurrentMap<Long, PendingStock> pendingStocks = new ConcurrentHashMap<>();
+    private final AtomicInteger deltasSinceFlush = new AtomicInteger();
+    private ScheduledExecutorService flusher;
+
+    public StockDeltaBuffer(BeerRepository beerRepository,
+                            PlatformTransactionManager transactionManager,
+                            StockWriteProperties properties,
+                            BeerOutbox beerOutbox,
+                            BeerMutationListener beerMutationListener,
+                            MeterRegistry meterRegistry) {
+        this.beerRepository = beerRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.properties = properties;
+        this.beerOutbox = beerOutbox;
+        this.beerMutationListener = beerMutationListener;
+        this.meterRegistry = meterRegistry;
+    }
+
+    public boolean isEnabled() {
+        return properties.getWriteMode() == StockWriteMode.WRITE_BEHIND;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!isEnabled()) {
+            return;
+        }
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("stock-delta-flusher-");
+        threadFactory.setDaemon(true);
+        flusher = Executors.newSingleThreadScheduledExecutor(threadFactory);
+        long intervalMillis = properties.getFlushInterval().toMillis();
+        flusher.scheduleWithFixedDelay(this::flushQuietly, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void drain() throws InterruptedException {
+        if (flusher != null) {
+            flusher.shutdown();
+            flusher.awaitTermination(properties.getFlushInterval().toMillis() * 2, TimeUnit.MILLISECONDS);
+        }
+        flush();
+    }
+
+    public BeerDTO accept(Long id, int delta) throws BeerNotFoundException, BeerStockExceededException {
+        PendingStock pendingStock = pendingStocks.get(id);
+        if (pendingStock == null) {
+            Beer beer = beerRepository.findById(id)
+                    .orElseThrow(() -> new BeerNotFoundException(id));
+            pendingStock = pendingStocks.computeIfAbsent(id, key -> new PendingStock(beer));
+        }
+        int projectedQuantity = pendingStock.reserve(delta);
+        if (deltasSinceFlush.incrementAndGet() == properties.getFlushThreshold()) {
+            flusher.execute(this::flushQuietly);
+        }
+
+        BeerDTO beerDTO = beerMapper.toDTO(pendingStock.snapshot);
+        beerDTO.setQuantity(projectedQuantity);
+        return beerDTO;
+    }
+
+    public void discard(Long id) {
+        pendingStocks.remove(id);
+    }
+
+    //Mantém a capacidade reservada coerente com alterações gravadas direto no banco, fora do buffer
+    public void applied(Long id, int delta) {
+        PendingStock pendingStock = pendingStocks.get(id);
+        if (pendingStock != null) {
+            pendingStock.applied(delta);
+        }
+    }
+
+    public synchronized void flush() {
+        deltasSinceFlush.set(0);
+        //Ordenado por id para que flushes concorrentes com outros escritores travem as linhas na mesma ordem.
+        //Os deltas são retirados um a um, não somados: se a soma for recusada cada um ainda pode ser regravado
+        Map<Long, List<Integer>> batch = new TreeMap<>();
+        pendingStocks.forEach((id, pendingStock) -> {
+            List<Integer> deltas = pendingStock.drain();
+            if (!deltas.isEmpty()) {
+                batch.put(id, deltas);
+            }
+        });
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        Map<Long, FlushedStock> flushedStocks = new TreeMap<>();
+        try {
+            transactionTemplate.executeWithoutResult(status -> batch.forEach((id, deltas) ->
+                    flushedStocks.put(id, write(id, deltas))));
+        } catch (RuntimeException e) {
+            //Nada chegou ao banco: os deltas voltam para o próximo flush, antes dos aceitos depois da retirada
+            batch.forEach((id, deltas) -> {
+                PendingStock pendingStock = pendingStocks.get(id);
+                if (pendingStock != null) {
+                    pendingStock.restore(deltas);
+                }
+            });
+            throw e;
+        }
+
+        List<BeerDTO> flushedBeers = new ArrayList<>(flushedStocks.size());
+        Map<Long, Integer> flushedDeltas = new HashMap<>();
+        flushedStocks.forEach((id, flushedStock) -> {
+            if (!flushedStock.droppedDeltas.isEmpty()) {
+                meterRegistry.counter(DROPPED_METRIC, "reason", flushedStock.beer == null ? "removed" : "rejected")
+                        .increment(flushedStock.droppedDeltas.size());
+                beerMutationListener.stockDropped(id, flushedStock.droppedDeltas);
+            }
+            if (flushedStock.beer == null) {
+                pendingStocks.remove(id);
+                return;
+            }
+            PendingStock pendingStock = pendingStocks.get(id);
+            if (pendingStock != null) {
+                pendingStock.refresh(flushedStock.beer, !flushedStock.droppedDeltas.isEmpty());
+            }
+            if (flushedStock.appliedDelta != 0) {
+                flushedBeers.add(beerMapper.toDTO(flushedStock.beer));
+                flushedDeltas.put(id, flushedStock.appliedDelta);
+            }
+        });
+        //Quantidade e versão relidas do banco: é o estado gravado que chega aos totais, ao histórico e aos alertas
+        beerMutationListener.stockChanged(flushedBeers, flushedDeltas);
+    }
+
+    //Grava a soma dos deltas; se o banco recusar, relê a linha e regrava um a um, na ordem em que foram aceitos,
+    //ficando com os que ainda cabem. Só o que foi gravado gera evento no outbox
+    private FlushedStock write(Long id, List<Integer> deltas) {
+        int delta = deltas.stream().mapToInt(Integer::intValue).sum();
+        FlushedStock flushedStock = new FlushedStock();
+        if (delta == 0 || changeQuantity(id, delta)) {
+            flushedStock.appliedDelta = delta;
+        } else if (beerRepository.findById(id).isPresent()) {
+            for (Integer pendingDelta : deltas) {
+                if (changeQuantity(id, pendingDelta)) {
+                    flushedStock.appliedDelta += pendingDelta;
+                } else {
+                    flushedStock.droppedDeltas.add(pendingDelta);
+                }
+            }
+        } else {
+            flushedStock.droppedDeltas.addAll(deltas);
+            return flushedStock;
+        }
+        flushedStock.beer = beerRepository.findById(id).orElse(null);
+        //No write-behind o evento do outbox nasce no flush, que é quando o estoque chega ao banco
+        if (flushedStock.beer != null && flushedStock.appliedDelta != 0) {
+            beerOutbox.stockChanged(flushedStock.beer, flushedStock.appliedDelta);
+        }
+        return flushedStock;
+    }
+
+    //Saldo negativo vai pelo decremento, que não deixa a quantidade gravada abaixo de zero
+    private boolean changeQuantity(Long id, int delta) {
+        int updatedRows = delta >= 0
+                ? beerRepository.incrementQuantity(id, delta)
+                : beerRepository.decrementQuantity(id, -delta);
+        return updatedRows > 0;
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            log.error("Failed to flush pending stock deltas, retrying on next interval", e);
+        }
+    }
+
+    //Resultado do flush de uma cerveja: beer fica nulo quando ela foi removida do banco
+    private static final class FlushedStock {
+
+        private Beer beer;
+        private int appliedDelta;
+        private final List<Integer> droppedDeltas = new ArrayList<>(0);
+    }
+
+    //Estado de uma cerveja com deltas pendentes. Os métodos são sincronizados na própria instância: a reserva
+    //de capacidade e a retirada dos deltas pelo flush não se cruzam, e cervejas diferentes não disputam o lock
+    private static final class PendingStock {
+
+        //Última leitura do banco: id, nome, max e versão devolvidos pelo accept
+        private volatile Beer snapshot;
+        //Capacidade reservada: quantidade armazenada + deltas aceitos e ainda não gravados
+        private int projectedQuantity;
+        private List<Integer> acceptedDeltas = new ArrayList<>();
+
+        private PendingStock(Beer snapshot) {
+            this.snapshot = snapshot;
+            this.projectedQuantity = snapshot.getQuantity();
+        }
+
+        private synchronized int reserve(int delta) throws BeerStockExceededException {
+            int next = projectedQuantity + delta;
+            if (next > snapshot.getMax() || next < 0) {
+                throw new BeerStockExceededException(snapshot.getId(), delta);
+            }
+            projectedQuantity = next;
+            acceptedDeltas.add(delta);
+            return next;
+        }
+
+        private synchronized void applied(int delta) {
+            projectedQuantity += delta;
+        }
+
+        private synchronized List<Integer> drain() {
+            if (acceptedDeltas.isEmpty()) {
+                return Collections.emptyList();
+            }
+            List<Integer> deltas = acceptedDeltas;
+            acceptedDeltas = new ArrayList<>();
+            return deltas;
+        }
+
+        private synchronized void restore(List<Integer> deltas) {
+            deltas.addAll(acceptedDeltas);
+            acceptedDeltas = deltas;
+        }
+
+        //Com deltas descartados a projeção não bate mais com o banco e é refeita a partir da linha relida
+        private synchronized void refresh(Beer storedBeer, boolean rebase) {
+            snapshot = storedBeer;
+            if (rebase) {
+                projectedQuantity = storedBeer.getQuantity() + acceptedDeltas.stream().mapToInt(Integer::intValue).sum();
+            }
+        }
+    }
+}
@@ -0,0 +1,367 @@
+package one.digitalinnovation.beerstock.service;
+
+import one.digitalinnovation.beerstock.config.StockHistoryProperties;
+import one.digitalinnovation.beerstock.dto.StockHistoryDTO;
+import one.digitalinnovation.beerstock.dto.StockHistoryPointDTO;
+import one.digitalinnovation.beerstock.enums.HistoryResolution;
+import one.digitalinnovation.beerstock.exception.InvalidHistoryRangeException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+//Série temporal de estoque em memória, uma por cerveja e resolução. Cada amostra atualiza o balde aberto de
+//minuto, hora e dia; ao virar, o balde é codificado em varints com deltas em relação ao anterior e anexado ao
+//bloco corrente. Blocos cheios são selados e a compactação descarta os que saíram da retenção da resolução
+@Component
+public class StockHistory {
+
+    static final int BUCKETS_PER_CHUNK = 128;
+
+    private static final HistoryResolution[] RESOLUTIONS = HistoryResolution.values();
+
+    private final StockHistoryProperties properties;
+    private final Clock clock;
+    private final ConcurrentMap<Long, BeerHistory> histories = new ConcurrentHashMap<>();
+
+    @Autowired
+    public StockHistory(StockHistoryProperties properties) {
+        this(properties, Clock.systemUTC());
+    }
+
+    StockHistory(StockHistoryProperties properties, Clock clock) {
+        this.properties = properties;
+        this.clock = clock;
+    }
+
+    public void record(Long beerId, int quantity) {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        long now = clock.millis();
+        //O compute segura o bin do mapa: a compactação não remove a série entre a busca e a gravação
+        histories.compute(beerId, (id, history) -> {
+            BeerHistory beerHistory = history == null ? new BeerHistory() : history;
+            beerHistory.record(now, quantity);
+            return beerHistory;
+        });
+    }
+
+    public void deleted(Long beerId) {
+        histories.remove(beerId);
+    }
+
+    //Sem resolução, usa a mais fina que cabe em maxPoints baldes. A resposta nunca passa desse limite,
+    //e só os blocos que cruzam o intervalo são decodificados
+    public StockHistoryDTO query(Long beerId, Instant from, Instant to, HistoryResolution resolution)
+            throws InvalidHistoryRangeException {
+        Instant rangeEnd = to == null ? clock.instant() : to;
+        Instant rangeStart = from == null ? rangeEnd.minus(properties.getDefaultRange()) : from;
+        if (!rangeStart.isBefore(rangeEnd)) {
+            throw new InvalidHistoryRangeException(rangeStart, rangeEnd);
+        }
+        HistoryResolution queryResolution = resolution == null ? finestResolution(rangeStart, rangeEnd) : resolution;
+        long bucketMillis = queryResolution.getBucket().toMillis();
+        long fromBucket = Math.floorDiv(rangeStart.toEpochMilli(), bucketMillis);
+        long toBucket = Math.floorDiv(rangeEnd.toEpochMilli() - 1, bucketMillis);
+        long buckets = toBucket - fromBucket + 1;
+        if (buckets > properties.getMaxPoints()) {
+            throw new InvalidHistoryRangeException(rangeStart, rangeEnd, queryResolution, buckets, properties.getMaxPoints());
+        }
+
+        List<StockHistoryPointDTO> points = new ArrayList<>();
+        Integer openingQuantity = null;
+        BeerHistory history = histories.get(beerId);
+        if (history != null) {
+            openingQuantity = history.read(queryResolution, fromBucket, toBucket, points);
+        }
+        return StockHistoryDTO.builder()
+                .beerId(beerId)
+                .resolution(queryResolution)
+                .from(rangeStart)
+                .to(rangeEnd)
+                .openingQuantity(openingQuantity)
+                .points(points)
+                .build();
+    }
+
+    @Scheduled(fixedDelayString = "${beerstock.history.compaction-interval-ms:60000}")
+    public void compact() {
+        long now = clock.millis();
+        long[] cutoffBuckets = new long[RESOLUTIONS.length];
+        for (HistoryResolution resolution : RESOLUTIONS) {
+            long bucketMillis = resolution.getBucket().toMillis();
+            cutoffBuckets[resolution.ordinal()] = Math.floorDiv(now - properties.retention(resolution).toMillis(), bucketMillis);
+        }
+        for (Long beerId : histories.keySet()) {
+            histories.computeIfPresent(beerId, (id, history) -> history.compact(cutoffBuckets) ? null : history);
+        }
+    }
+
+    private HistoryResolution finestResolution(Instant from, Instant to) {
+        for (HistoryResolution resolution : RESOLUTIONS) {
+            long bucketMillis = resolution.getBucket().toMillis();
+            long buckets = Math.floorDiv(to.toEpochMilli() - 1, bucketMillis) - Math.floorDiv(from.toEpochMilli(), bucketMillis) + 1;
+            if (buckets <= properties.getMaxPoints()) {
+                return resolution;
+            }
+        }
+        return RESOLUTIONS[RESOLUTIONS.length - 1];
+    }
+
+    //As três resoluções recebem a mesma amostra: abertura, mínimo, máximo e fechamento de uma hora são os mesmos
+    //que sairiam agregando os minutos dela, sem precisar reler os blocos de minuto
+    private static final class BeerHistory {
+
+        private final Series[] series = new Series[RESOLUTIONS.length];
+
+        BeerHistory() {
+            for (HistoryResolution resolution : RESOLUTIONS) {
+                series[resolution.ordinal()] = new Series(resolution.getBucket().toMillis());
+            }
+        }
+
+        synchronized void record(long millis, int quantity) {
+            for (Series resolutionSeries : series) {
+                resolutionSeries.record(millis, quantity);
+            }
+        }
+
+        synchronized Integer read(HistoryResolution resolution, long fromBucket, long toBucket, List<StockHistoryPointDTO> points) {
+            return series[resolution.ordinal()].read(fromBucket, toBucket, points);
+        }
+
+        //Devolve true quando nenhuma resolução guarda mais nada e a cerveja pode sair do mapa
+        synchronized boolean compact(long[] cutoffBuckets) {
+            boolean empty = true;
+            for (int i = 0; i < series.length; i++) {
+                series[i].compact(cutoffBuckets[i]);
+                empty &= series[i].isEmpty();
+            }
+            return empty;
+        }
+    }
+
+    //Baldes codificados como: índice menos o do balde anterior, abertura menos o fechamento anterior (zigzag),
+    //abertura menos mínimo, máximo menos abertura, fechamento menos mínimo e número de amostras. Estoque que muda
+    //pouco a cada balde ocupa poucos bytes por ponto
+    private static final class Series {
+
+        private final long bucketMillis;
+        private final Deque<Chunk> sealedChunks = new ArrayDeque<>();
+
+        private byte[] pending = new byte[64];
+        private int pendingLength;
+        private int pendingBuckets;
+        private long pendingFirstBucket;
+        private long previousBucket;
+        private long previousClose;
+
+        private boolean hasCurrent;
+        private long currentBucket;
+        private int open;
+        private int min;
+        private int max;
+        private int close;
+        private int samples;
+
+        Series(long bucketMillis) {
+            this.bucketMillis = bucketMillis;
+        }
+
+        void record(long millis, int quantity) {
+            long bucket = Math.floorDiv(millis, bucketMillis);
+            if (hasCurrent && bucket > currentBucket) {
+                append();
+                hasCurrent = false;
+            }
+            if (!hasCurrent) {
+                hasCurrent = true;
+                currentBucket = bucket;
+                open = quantity;
+                min = quantity;
+                max = quantity;
+                close = quantity;
+                samples = 1;
+                return;
+            }
+            //Amostra de um balde anterior, lida do relógio por outra thread antes desta: entra no balde aberto
+            min = Math.min(min, quantity);
+            max = Math.max(max, quantity);
+            close = quantity;
+            samples++;
+        }
+
+        Integer read(long fromBucket, long toBucket, List<StockHistoryPointDTO> points) {
+            Integer openingQuantity = null;
+            for (Chunk chunk : sealedChunks) {
+                if (chunk.lastBucket < fromBucket) {
+                    openingQuantity = chunk.lastClose;
+                    continue;
+                }
+                if (chunk.firstBucket > toBucket) {
+                    return openingQuantity;
+                }
+                openingQuantity = decode(chunk.data, chunk.data.length, chunk.firstBucket, fromBucket, toBucket,
+                        openingQuantity, points);
+            }
+            if (pendingBuckets > 0) {
+                openingQuantity = decode(pending, pendingLength, pendingFirstBucket, fromBucket, toBucket,
+                        openingQuantity, points);
+            }
+            if (hasCurrent) {
+                if (currentBucket < fromBucket) {
+                    openingQuantity = close;
+                } else if (currentBucket <= toBucket) {
+                    points.add(point(currentBucket, open, min, max, close, samples));
+                }
+            }
+            return openingQuantity;
+        }
+
+        void compact(long cutoffBucket) {
+            while (!sealedChunks.isEmpty() && sealedChunks.peekFirst().lastBucket < cutoffBucket) {
+                sealedChunks.removeFirst();
+            }
+            //O bloco corrente só sai junto com o balde aberto, quando a cerveja ficou parada por toda a retenção
+            if (hasCurrent && currentBucket < cutoffBucket) {
+                hasCurrent = false;
+                pendingLength = 0;
+                pendingBuckets = 0;
+                pending = new byte[64];
+            }
+        }
+
+        boolean isEmpty() {
+            return !hasCurrent && pendingBuckets == 0 && sealedChunks.isEmpty();
+        }
+
+        private void append() {
+            if (pendingBuckets == 0) {
+                pendingFirstBucket = currentBucket;
+                previousBucket = currentBucket;
+                previousClose = 0;
+            }
+            writeVarLong(currentBucket - previousBucket);
+            writeVarLong(zigzag(open - previousClose));
+            writeVarLong((long) open - min);
+            writeVarLong((long) max - open);
+            writeVarLong((long) close - min);
+            writeVarLong(samples);
+            previousBucket = currentBucket;
+            previousClose = close;
+            if (++pendingBuckets == BUCKETS_PER_CHUNK) {
+                sealedChunks.addLast(new Chunk(pendingFirstBucket, previousBucket, close, Arrays.copyOf(pending, pendingLength)));
+                pendingLength = 0;
+                pendingBuckets = 0;
+            }
+        }
+
+        private Integer decode(byte[] data, int length, long firstBucket, long fromBucket, long toBucket,
+                               Integer openingQuantity, List<StockHistoryPointDTO> points) {
+            Decoder decoder = new Decoder(data, length);
+            long bucket = firstBucket;
+            long lastClose = 0;
+            while (decoder.hasRemaining()) {
+                bucket += decoder.readVarLong();
+                int bucketOpen = (int) (lastClose + unzigzag(decoder.readVarLong()));
+                int bucketMin = (int) (bucketOpen - decoder.readVarLong());
+                int bucketMax = (int) (bucketOpen + decoder.readVarLong());
+                int bucketClose = (int) (bucketMin + decoder.readVarLong());
+                int bucketSamples = (int) decoder.readVarLong();
+                lastClose = bucketClose;
+                if (bucket > toBucket) {
+                    break;
+                }
+                if (bucket < fromBucket) {
+                    openingQuantity = bucketClose;
+                } else {
+                    points.add(point(bucket, bucketOpen, bucketMin, bucketMax, bucketClose, bucketSamples));
+                }
+            }
+            return openingQuantity;
+        }
+
+        private StockHistoryPointDTO point(long bucket, int open, int min, int max, int close, int samples) {
+            return StockHistoryPointDTO.builder()
+                    .start(Instant.ofEpochMilli(bucket * bucketMillis))
+                    .open(open)
+                    .min(min)
+                    .max(max)
+                    .close(close)
+                    .samples(samples)
+                    .build();
+        }
+
+        private void writeVarLong(long value) {
+            if (pendingLength + Long.BYTES + 2 > pending.length) {
+                pending = Arrays.copyOf(pending, pending.length * 2);
+            }
+            while ((value & ~0x7FL) != 0) {
+                pending[pendingLength++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            pending[pendingLength++] = (byte) value;
+        }
+
+        private static long zigzag(long value) {
+            return (value << 1) ^ (value >> 63);
+        }
+
+        private static long unzigzag(long value) {
+            return (value >>> 1) ^ -(value & 1);
+        }
+    }
+
+    private static final class Chunk {
+
+        private final long firstBucket;
+        private final long lastBucket;
+        private final int lastClose;
+        private final byte[] data;
+
+        Chunk(long firstBucket, long lastBucket, int lastClose, byte[] data) {
+            this.firstBucket = firstBucket;
+            this.lastBucket = lastBucket;
+            this.lastClose = lastClose;
+            this.data = data;
+        }
+    }
+
+    private static final class Decoder {
+
+        private final byte[] data;
+        private final int length;
+        private int position;
+
+        Decoder(byte[] data, int length) {
+            this.data = data;
+            this.length = length;
+        }
+
+        boolean hasRemaining() {
+            return position < length;
+        }
+
+        long readVarLong() {
+            long value = 0;
+            int shift = 0;
+            byte current;
+            do {
+                current = data[position++];
+                value |= (long) (current & 0x7F) << shift;
+                shift += 7;
+            } while ((current & 0x80) != 0);
+            return value;
+        }
+    }
+}
@@ -0,0 +1,235 @@
+package one.digitalinnovation.beerstock.service;
+
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import one.digitalinnovation.beerstock.config.ReservationProperties;
+import one.digitalinnovation.beerstock.dto.ReservationDTO;
+import one.digitalinnovation.beerstock.entity.Beer;
+import one.digitalinnovation.beerstock.entity.StockReservation;
+import one.digitalinnovation.beerstock.enums.ReservationStatus;
+import one.digitalinnovation.beerstock.exception.BeerNotFoundException;
+import one.digitalinnovation.beerstock.exception.BeerStockExceededException;
+import one.digitalinnovation.beerstock.exception.ReservationNotFoundException;
+import one.digitalinnovation.beerstock.exception.ReservationNotHeldException;
+import one.digitalinnovation.beerstock.mapper.BeerMapper;
+import one.digitalinnovation.beerstock.mapper.ReservationMapper;
+import one.digitalinnovation.beerstock.repository.BeerRepository;
+import one.digitalinnovation.beerstock.repository.StockReservationRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+import static one.digitalinnovation.beerstock.config.MetricsConfig.SERVICE_METRIC;
+
+//Reserva retira as unidades do estoque na hora (update condicional, nunca abaixo de zero);
+//commit confirma a saída e release/expiração devolvem as unidades, sem passar do max
+@Slf4j
+@Service
+public class StockReservationService {
+
+    private static final String RESERVE_OPERATION = "reserve";
+    private static final String COMMIT_OPERATION = "commit";
+    private static final String RELEASE_OPERATION = "release";
+
+    private final StockReservationRepository reservationRepository;
+    private final BeerRepository beerRepository;
+    private final StockDeltaBuffer stockDeltaBuffer;
+    private final StockRetryPolicy stockRetryPolicy;
+    private final TransactionTemplate transactionTemplate;
+    private final ReservationProperties properties;
+    private final BeerOutbox beerOutbox;
+    private final BeerMutationListener beerMutationListener;
+    private final Counter restoreExcess;
+    private final Clock clock;
+    private final ReservationMapper reservationMapper = ReservationMapper.INSTANCE;
+    private final BeerMapper beerMapper = BeerMapper.INSTANCE;
+
+    @Autowired
+    public StockReservationService(StockReservationRepository reservationRepository,
+                                   BeerRepository beerRepository,
+                                   StockDeltaBuffer stockDeltaBuffer,
+                                   StockRetryPolicy stockRetryPolicy,
+                                   PlatformTransactionManager transactionManager,
+                                   ReservationProperties properties,
+                                   BeerOutbox beerOutbox,
+                                   BeerMutationListener beerMutationListener,
+                                   MeterRegistry meterRegistry) {
+        this(reservationRepository, beerRepository, stockDeltaBuffer, stockRetryPolicy, transactionManager, properties,
+                beerOutbox, beerMutationListener, meterRegistry, Clock.systemUTC());
+    }
+
+    StockReservationService(StockReservationRepository reservationRepository,
+                            BeerRepository beerRepository,
+                            StockDeltaBuffer stockDeltaBuffer,
+                            StockRetryPolicy stockRetryPolicy,
+                            PlatformTransactionManager transactionManager,
+                            ReservationProperties properties,
+                            BeerOutbox beerOutbox,
+                            BeerMutationListener beerMutationListener,
+                            MeterRegistry meterRegistry,
+                            Clock clock) {
+        this.reservationRepository = reservationRepository;
+        this.beerRepository = beerRepository;
+        this.stockDeltaBuffer = stockDeltaBuffer;
+        this.stockRetryPolicy = stockRetryPolicy;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.properties = properties;
+        this.beerOutbox = beerOutbox;
+        this.beerMutationListener = beerMutationListener;
+        this.restoreExcess = Counter.builder("beerstock.reservation.restore.excess")
+                .description("Reserved units not returned to stock because the beer was already at max")
+                .baseUnit("units")
+                .register(meterRegistry);
+        this.clock = clock;
+    }
+
+    @Timed(value = SERVICE_METRIC, extraTags = {"operation", "reserve"}, histogram = true)
+    public ReservationDTO reserve(Long beerId, int quantity) throws BeerNotFoundException, BeerStockExceededException {
+        //Com write-behind a quantidade gravada ainda não tem os deltas aceitos: sem o flush a reserva contaria
+        //unidades que já saíram e venderia além do estoque projetado
+        if (stockDeltaBuffer.isEnabled()) {
+            stockDeltaBuffer.flush();
+        }
+        Instant expiresAt = clock.instant().plus(properties.getTtl());
+        ReservationChange reserved = stockRetryPolicy.execute(RESERVE_OPERATION, () -> transactionTemplate.execute(status -> {
+            if (beerRepository.decrementQuantity(beerId, quantity) == 0) {
+                return null;
+            }
+            Optional<Beer> reservedBeer = reloadChanged(beerId, -quantity);
+            return new ReservationChange(reservationRepository.save(StockReservation.builder()
+                    .beerId(beerId)
+                    .quantity(quantity)
+                    .status(ReservationStatus.HELD)
+                    .expiresAt(expiresAt)
+                    .build()), reservedBeer, -quantity);
+        }));
+
+        if (reserved == null) {
+            if (!beerRepository.existsById(beerId)) {
+                throw new BeerNotFoundException(beerId);
+            }
+            stockRetryPolicy.conflict(RESERVE_OPERATION);
+            throw new BeerStockExceededException(beerId, quantity);
+        }
+        stockChanged(reserved);
+        return reservationMapper.toDTO(reserved.reservation);
+    }
+
+    @Timed(value = SERVICE_METRIC, extraTags = {"operation", "commit"}, histogram = true)
+    public ReservationDTO commit(Long id) throws ReservationNotFoundException, ReservationNotHeldException {
+        int updatedRows = stockRetryPolicy.execute(COMMIT_OPERATION,
+                () -> transactionTemplate.execute(status -> reservationRepository.commitHeld(id, clock.instant())));
+        StockReservation reservation = verifyIfExists(id);
+        if (updatedRows == 0) {
+            throw notHeld(COMMIT_OPERATION, reservation);
+        }
+        return reservationMapper.toDTO(reservation);
+    }
+
+    @Timed(value = SERVICE_METRIC, extraTags = {"operation", "release"}, histogram = true)
+    public ReservationDTO release(Long id) throws ReservationNotFoundException, ReservationNotHeldException {
+        StockReservation reservation = verifyIfExists(id);
+        ReservationChange released = stockRetryPolicy.execute(RELEASE_OPERATION, () -> transactionTemplate.execute(status ->
+                reservationRepository.releaseHeld(id) == 1 ? restoreStock(reservation) : null));
+        if (released == null) {
+            throw notHeld(RELEASE_OPERATION, verifyIfExists(id));
+        }
+        stockChanged(released);
+        reservation.setStatus(ReservationStatus.RELEASED);
+        return reservationMapper.toDTO(reservation);
+    }
+
+    @Timed(value = SERVICE_METRIC, extraTags = {"operation", "findById"}, histogram = true)
+    public ReservationDTO findById(Long id) throws ReservationNotFoundException {
+        return reservationMapper.toDTO(verifyIfExists(id));
+    }
+
+    @Scheduled(fixedDelayString = "${beerstock.reservation.sweep-interval-ms:5000}")
+    public void expireOverdueReservations() {
+        Instant now = clock.instant();
+        List<StockReservation> overdueReservations = reservationRepository.findByStatusAndExpiresAtBefore(
+                ReservationStatus.HELD, now, PageRequest.of(0, properties.getSweepBatchSize()));
+        for (StockReservation reservation : overdueReservations) {
+            //Se um commit ou release chegou antes, a expiração não altera nenhuma linha e nada é devolvido
+            ReservationChange expired = transactionTemplate.execute(status ->
+                    reservationRepository.expireHeld(reservation.getId(), now) == 1 ? restoreStock(reservation) : null);
+            if (expired != null) {
+                stockChanged(expired);
+            }
+        }
+        if (!overdueReservations.isEmpty()) {
+            log.info("Expired {} overdue stock reservations", overdueReservations.size());
+        }
+    }
+
+    //Se outro escritor encheu o estoque enquanto a reserva estava aberta, devolve só o que ainda cabe no max;
+    //o excedente fica registrado, já que essas unidades não voltam ao estoque
+    private ReservationChange restoreStock(StockReservation reservation) {
+        Long beerId = reservation.getBeerId();
+        int restored = reservation.getQuantity();
+        if (beerRepository.restoreQuantity(beerId, restored) == 0) {
+            Optional<Beer> beer = beerRepository.findById(beerId);
+            if (beer.isEmpty()) {
+                //Cerveja removida com a reserva em aberto: não há estoque para devolver
+                return new ReservationChange(reservation, Optional.empty(), 0);
+            }
+            int room = Math.min(restored, beer.get().getMax() - beer.get().getQuantity());
+            restored = room > 0 && beerRepository.restoreQuantity(beerId, room) == 1 ? room : 0;
+            if (restored < reservation.getQuantity()) {
+                restoreExcess.increment(reservation.getQuantity() - restored);
+                log.warn("Reservation {} returned {} of {} units to beer {}: stock already near max",
+                        reservation.getId(), restored, reservation.getQuantity(), beerId);
+            }
+            if (restored == 0) {
+                return new ReservationChange(reservation, Optional.empty(), 0);
+            }
+        }
+        return new ReservationChange(reservation, reloadChanged(beerId, restored), restored);
+    }
+
+    //Relê a cerveja dentro da transação, para que o outbox e o listener recebam a quantidade e a versão gravadas
+    private Optional<Beer> reloadChanged(Long beerId, int delta) {
+        Optional<Beer> changedBeer = beerRepository.findById(beerId);
+        changedBeer.ifPresent(beer -> beerOutbox.stockChanged(beer, delta));
+        return changedBeer;
+    }
+
+    private void stockChanged(ReservationChange change) {
+        if (change.delta == 0) {
+            return;
+        }
+        stockDeltaBuffer.applied(change.reservation.getBeerId(), change.delta);
+        change.beer.ifPresent(beer -> beerMutationListener.stockChanged(beerMapper.toDTO(beer), change.delta));
+    }
+
+    private StockReservation verifyIfExists(Long id) throws ReservationNotFoundException {
+        return reservationRepository.findById(id)
+                .orElseThrow(() -> new ReservationNotFoundException(id));
+    }
+
+    private ReservationNotHeldException notHeld(String operation, StockReservation reservation) {
+        stockRetryPolicy.conflict(operation);
+        boolean overdue = reservation.getStatus() == ReservationStatus.HELD && !reservation.getExpiresAt().isAfter(clock.instant());
+        return new ReservationNotHeldException(reservation.getId(), overdue ? ReservationStatus.EXPIRED : reservation.getStatus());
+    }
+
+    //Reserva alterada, a cerveja relida depois do update de estoque (vazia se nada mudou no estoque) e o delta gravado
+    @AllArgsConstructor
+    private static final class ReservationChange {
+
+        private final StockReservation reservation;
+        private final Optional<Beer> beer;
+        private final int delta;
+    }
+}
@@ -0,0 +1,50 @@
+package one.digitalinnovation.beerstock.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.AllArgsConstructor;
+import one.digitalinnovation.beerstock.config.StockWriteProperties;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.stereotype.Component;
+
+import java.util.function.Supplier;
+
+//Updates condicionais não precisam de lock pessimista; só falhas transitórias de lock no banco são repetidas
+@Component
+@AllArgsConstructor(onConstructor = @__(@Autowired))
+public class StockRetryPolicy {
+
+    private static final String RETRIES_METRIC = "beerstock.stock.retries";
+    private static final String CONFLICTS_METRIC = "beerstock.stock.conflicts";
+    private static final String OPERATION_TAG = "operation";
+
+    private final StockWriteProperties properties;
+    private final MeterRegistry meterRegistry;
+
+    public <T> T execute(String operation, Supplier<T> action) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return action.get();
+            } catch (ConcurrencyFailureException e) {
+                if (attempt >= properties.getMaxAttempts()) {
+                    throw e;
+                }
+                meterRegistry.counter(RETRIES_METRIC, OPERATION_TAG, operation).increment();
+                backOff(attempt, e);
+            }
+        }
+    }
+
+    public void conflict(String operation) {
+        meterRegistry.counter(CONFLICTS_METRIC, OPERATION_TAG, operation).increment();
+    }
+
+    private void backOff(int attempt, ConcurrencyFailureException cause) {
+        try {
+            Thread.sleep(properties.getRetryBackoff().toMillis() * attempt);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw cause;
+        }
+    }
+}
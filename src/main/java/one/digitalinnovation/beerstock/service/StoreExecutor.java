@@ -0,0 +1,74 @@
+package one.digitalinnovation.beerstock.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import one.digitalinnovation.beerstock.config.ExecutionProperties;
+import one.digitalinnovation.beerstock.enums.ExecutionMode;
+import one.digitalinnovation.beerstock.exception.StoreSaturatedException;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+//Pool limitado onde o AsyncBeerController roda as chamadas bloqueantes ao banco: a thread do Tomcat volta ao pool
+//enquanto o banco responde. Fora do modo async não há pool e a chamada roda na thread de quem submeteu
+@Component
+public class StoreExecutor {
+
+    public static final String STORE_EXECUTOR_METRIC = "beerstock.store.executor";
+
+    private final ExecutionProperties properties;
+    private final ExecutorService executor;
+
+    public StoreExecutor(ExecutionProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.executor = properties.getMode() == ExecutionMode.ASYNC ? storeExecutor(properties, meterRegistry) : null;
+    }
+
+    //Com a fila cheia a requisição falha na hora com 503 em vez de esperar atrás de centenas de outras
+    public <T> CompletableFuture<T> submit(Callable<T> storeCall) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        if (executor == null) {
+            complete(result, storeCall);
+            return result;
+        }
+        try {
+            executor.execute(() -> complete(result, storeCall));
+        } catch (RejectedExecutionException e) {
+            result.completeExceptionally(new StoreSaturatedException(properties.getStoreQueueCapacity()));
+        }
+        return result;
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        if (executor != null) {
+            executor.shutdown();
+            executor.awaitTermination(properties.getShutdownTimeout().toMillis(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    //Qualquer falha precisa completar o future, senão a requisição só termina no timeout async do Spring MVC
+    private static <T> void complete(CompletableFuture<T> result, Callable<T> storeCall) {
+        try {
+            result.complete(storeCall.call());
+        } catch (Throwable e) {
+            result.completeExceptionally(e);
+        }
+    }
+
+    private static ExecutorService storeExecutor(ExecutionProperties properties, MeterRegistry meterRegistry) {
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("beer-store-");
+        threadFactory.setDaemon(true);
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(properties.getStorePoolSize(), properties.getStorePoolSize(),
+                0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(properties.getStoreQueueCapacity()), threadFactory);
+        return ExecutorServiceMetrics.monitor(meterRegistry, executor, STORE_EXECUTOR_METRIC);
+    }
+}
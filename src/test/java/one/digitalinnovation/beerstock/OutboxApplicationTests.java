@@ -0,0 +1,56 @@
+package one.digitalinnovation.beerstock;
+
+import one.digitalinnovation.beerstock.builder.BeerDTOBuilder;
+import one.digitalinnovation.beerstock.dto.BeerDTO;
+import one.digitalinnovation.beerstock.service.BeerService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.hasItem;
+
+//Contexto completo com o outbox ligado: BeerOutbox e OutboxRelay precisam ser criados pelo Spring e a mutação
+//precisa chegar ao sink de arquivo
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:beerstock-outbox;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+        "beerstock.outbox.enabled=true",
+        "beerstock.outbox.file=target/outbox-context/stock-events.jsonl",
+        "beerstock.outbox.poll-interval-ms=50"
+})
+class OutboxApplicationTests {
+
+    private static final Path SINK_FILE = Paths.get("target/outbox-context/stock-events.jsonl");
+    private static final long TIMEOUT_MILLIS = 10_000;
+
+    @Autowired
+    private BeerService beerService;
+
+    @Test
+    void whenABeerIsCreatedThenItsEventIsRelayedToTheSink() throws Exception {
+        Files.deleteIfExists(SINK_FILE);
+        BeerDTO beerDTO = BeerDTOBuilder.builder().id(null).name("Outbox Lager").version(null).build().toBeerDTO();
+
+        BeerDTO createdBeer = beerService.createBeer(beerDTO);
+
+        assertThat(awaitSinkLines(), hasItem(containsString("\"beerId\":" + createdBeer.getId())));
+    }
+
+    private List<String> awaitSinkLines() throws Exception {
+        long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        while (System.currentTimeMillis() < deadline) {
+            if (Files.exists(SINK_FILE) && !Files.readAllLines(SINK_FILE).isEmpty()) {
+                return Files.readAllLines(SINK_FILE);
+            }
+            Thread.sleep(50);
+        }
+        return Collections.emptyList();
+    }
+}
@@ -0,0 +1,133 @@
+package one.digitalinnovation.beerstock.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import one.digitalinnovation.beerstock.builder.BeerDTOBuilder;
+import one.digitalinnovation.beerstock.config.ExecutionProperties;
+import one.digitalinnovation.beerstock.dto.BeerDTO;
+import one.digitalinnovation.beerstock.enums.ExecutionMode;
+import one.digitalinnovation.beerstock.exception.BeerNotFoundException;
+import one.digitalinnovation.beerstock.service.BeerBulkService;
+import one.digitalinnovation.beerstock.service.BeerService;
+import one.digitalinnovation.beerstock.service.StoreExecutor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import static one.digitalinnovation.beerstock.utils.JsonConvertionUtils.asJsonString;
+import static org.hamcrest.Matchers.startsWith;
+import static org.hamcrest.core.Is.is;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@ExtendWith(MockitoExtension.class)
+class AsyncBeerControllerTest {
+
+    private static final String BEER_API_URL_PATH = "/api/v1/beers";
+
+    @Mock
+    private BeerService beerService;
+
+    @Mock
+    private BeerBulkService beerBulkService;
+
+    @Mock
+    private BeerEventSubscriptions beerEventSubscriptions;
+
+    private StoreExecutor storeExecutor;
+
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        ExecutionProperties properties = new ExecutionProperties();
+        properties.setMode(ExecutionMode.ASYNC);
+        storeExecutor = new StoreExecutor(properties, new SimpleMeterRegistry());
+        AsyncBeerController asyncBeerController = new AsyncBeerController(beerService, beerBulkService, new ObjectMapper(),
+                beerEventSubscriptions, storeExecutor);
+        mockMvc = MockMvcBuilders.standaloneSetup(asyncBeerController)
+                .setControllerAdvice(new DomainExceptionHandler())
+                .build();
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        storeExecutor.shutdown();
+    }
+
+    //A consulta roda no pool do store e o corpo só é escrito no dispatch async
+    @Test
+    void whenGETIsCalledThenTheBeerIsLoadedOnTheStorePool() throws Exception {
+        BeerDTO beerDTO = BeerDTOBuilder.builder().build().toBeerDTO();
+        Mockito.when(beerService.findByName(beerDTO.getName())).thenAnswer(invocation -> {
+            beerDTO.setBrand(Thread.currentThread().getName());
+            return beerDTO;
+        });
+
+        MvcResult mvcResult = mockMvc.perform(get(BEER_API_URL_PATH + "/" + beerDTO.getName()))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(mvcResult))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.brand", startsWith("beer-store-")));
+    }
+
+    //O @ResponseStatus do controller vale também para o resultado do dispatch async
+    @Test
+    void whenPOSTIsCalledThenTheBeerIsCreatedWithStatusCreated() throws Exception {
+        BeerDTO beerDTO = BeerDTOBuilder.builder().version(null).build().toBeerDTO();
+        Mockito.when(beerService.createBeer(beerDTO)).thenReturn(beerDTO);
+
+        MvcResult mvcResult = mockMvc.perform(post(BEER_API_URL_PATH)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(asJsonString(beerDTO)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(mvcResult))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.name", is(beerDTO.getName())));
+    }
+
+    @Test
+    void whenTheStoreCallFailsThenTheDomainExceptionIsResolvedOnTheAsyncDispatch() throws Exception {
+        Mockito.when(beerService.findByName("Skol")).thenThrow(new BeerNotFoundException("Skol"));
+
+        MvcResult mvcResult = mockMvc.perform(get(BEER_API_URL_PATH + "/Skol"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(mvcResult))
+                .andExpect(status().isNotFound());
+    }
+
+    //O 304 da listagem só compara a versão do catálogo em memória e não chega ao banco
+    @Test
+    void whenGETListIsCalledWithTheCurrentCatalogETagThenTheStoreIsNotQueried() throws Exception {
+        Mockito.when(beerService.catalogVersion()).thenReturn("k2x-7");
+
+        MvcResult mvcResult = mockMvc.perform(get(BEER_API_URL_PATH)
+                .header(HttpHeaders.IF_NONE_MATCH, "\"k2x-7\""))
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(mvcResult))
+                .andExpect(status().isNotModified());
+        Mockito.verify(beerService, Mockito.never()).listAll(anyLong(), anyInt());
+    }
+}
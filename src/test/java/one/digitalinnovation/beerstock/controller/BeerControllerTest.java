@@ -1,12 +1,31 @@
 package one.digitalinnovation.beerstock.controller;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
 import one.digitalinnovation.beerstock.builder.BeerDTOBuilder;
+import one.digitalinnovation.beerstock.config.BinaryFormatsConfig;
 import one.digitalinnovation.beerstock.dto.BeerDTO;
+import one.digitalinnovation.beerstock.dto.BeerFilterDTO;
+import one.digitalinnovation.beerstock.dto.BeerVersionDTO;
+import one.digitalinnovation.beerstock.dto.BulkCreateResultDTO;
 import one.digitalinnovation.beerstock.dto.QuantityDTO;
+import one.digitalinnovation.beerstock.dto.StockAdjustmentDTO;
+import one.digitalinnovation.beerstock.dto.StockAdjustmentRequestDTO;
+import one.digitalinnovation.beerstock.dto.StockAdjustmentResultDTO;
+import one.digitalinnovation.beerstock.dto.StockHistoryDTO;
+import one.digitalinnovation.beerstock.dto.StockHistoryPointDTO;
 import one.digitalinnovation.beerstock.entity.Beer;
+import one.digitalinnovation.beerstock.enums.BeerType;
+import one.digitalinnovation.beerstock.enums.BulkCreateStatus;
+import one.digitalinnovation.beerstock.enums.HistoryResolution;
+import one.digitalinnovation.beerstock.enums.StockAdjustmentMode;
+import one.digitalinnovation.beerstock.enums.StockAdjustmentStatus;
 import one.digitalinnovation.beerstock.exception.BeerAlreadyRegisteredException;
 import one.digitalinnovation.beerstock.exception.BeerNotFoundException;
 import one.digitalinnovation.beerstock.exception.BeerStockExceededException;
+import one.digitalinnovation.beerstock.exception.InvalidHistoryRangeException;
+import one.digitalinnovation.beerstock.service.BeerBulkService;
 import one.digitalinnovation.beerstock.service.BeerService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -14,24 +33,43 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.data.web.PageableHandlerMethodArgumentResolver;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 import org.springframework.web.servlet.view.json.MappingJackson2JsonView;
 
 
 import javax.print.attribute.standard.Media;
 import javax.swing.text.html.Option;
+import java.time.Instant;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 import static one.digitalinnovation.beerstock.utils.JsonConvertionUtils.asJsonString;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.not;
 import static org.hamcrest.core.Is.is;
+import static org.mockito.ArgumentMatchers.any;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @ExtendWith(MockitoExtension.class)
@@ -48,6 +86,15 @@ public class BeerControllerTest {
     @Mock
     private BeerService beerService;
 
+    @Mock
+    private BeerBulkService beerBulkService;
+
+    @Mock
+    private BeerEventSubscriptions beerEventSubscriptions;
+
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper();
+
     @InjectMocks
     private BeerController beerController;
 
@@ -58,14 +105,27 @@ public class BeerControllerTest {
         mockMvc = MockMvcBuilders.standaloneSetup(beerController)
                 //Adiciona suporte a objetos paginados
                 .setCustomArgumentResolvers(new PageableHandlerMethodArgumentResolver())
+                .setControllerAdvice(new DomainExceptionHandler(), new VaryAcceptAdvice())
                 .setViewResolvers((s, locale) -> new MappingJackson2JsonView()).build();
     }
 
     //Teste de inserção com POST
+    private MappingJackson2CborHttpMessageConverter cborConverter() {
+        return new BinaryFormatsConfig().cborHttpMessageConverter(Jackson2ObjectMapperBuilder.json());
+    }
+
+    private MockMvc binaryMockMvc(MappingJackson2CborHttpMessageConverter cborConverter) {
+        return MockMvcBuilders.standaloneSetup(beerController)
+                .setMessageConverters(cborConverter, new MappingJackson2HttpMessageConverter())
+                .setControllerAdvice(new DomainExceptionHandler(), new VaryAcceptAdvice())
+                .build();
+    }
+
     @Test
     void whenPOSTIsCalledThenABeerIsCreated() throws Exception {
         //given
-        BeerDTO beerDTO = BeerDTOBuilder.builder().build().toBeerDTO();
+        //version é só de leitura no JSON: o controller recebe a cerveja sem ela
+        BeerDTO beerDTO = BeerDTOBuilder.builder().version(null).build().toBeerDTO();
 
         //when
         Mockito.when(beerService.createBeer(beerDTO)).thenReturn(beerDTO);
@@ -97,6 +157,46 @@ public class BeerControllerTest {
     }
 
 
+    @Test
+    void whenPOSTBulkIsCalledThenPerItemResultsAreReturned() throws Exception {
+        BeerDTO beerDTO = BeerDTOBuilder.builder().build().toBeerDTO();
+        BulkCreateResultDTO result = BulkCreateResultDTO.builder()
+                .index(0)
+                .name(beerDTO.getName())
+                .id(beerDTO.getId())
+                .status(BulkCreateStatus.CREATED)
+                .build();
+
+        Mockito.when(beerBulkService.createBeers(any())).thenReturn(Collections.singletonList(result));
+
+        mockMvc.perform(post(BEER_API_URL_PATH + "/bulk")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(asJsonString(Collections.singletonList(beerDTO))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].name", is(beerDTO.getName())))
+                .andExpect(jsonPath("$[0].status", is(BulkCreateStatus.CREATED.toString())));
+    }
+
+    //Cada linha do corpo NDJSON é uma cerveja
+    @Test
+    void whenPOSTBulkIsCalledWithNdjsonThenEachLineIsCreated() throws Exception {
+        BeerDTO beerDTO = BeerDTOBuilder.builder().version(null).build().toBeerDTO();
+        List<BeerDTO> receivedBeers = new ArrayList<>();
+
+        Mockito.when(beerBulkService.createBeers(any())).thenAnswer(invocation -> {
+            Iterator<BeerDTO> beerDTOs = invocation.getArgument(0);
+            beerDTOs.forEachRemaining(receivedBeers::add);
+            return Collections.emptyList();
+        });
+
+        mockMvc.perform(post(BEER_API_URL_PATH + "/bulk")
+                .contentType(BeerController.NDJSON_MEDIA_TYPE)
+                .content(asJsonString(beerDTO) + "\n" + asJsonString(beerDTO) + "\n"))
+                .andExpect(status().isOk());
+
+        assertThat(receivedBeers, contains(beerDTO, beerDTO));
+    }
+
     @Test
     void whenGETIsCalledWithAValidBeerNameThenOkStatus() throws Exception {
         BeerDTO beerDTO = BeerDTOBuilder.builder().build().toBeerDTO();
@@ -113,6 +213,159 @@ public class BeerControllerTest {
                 .andExpect(jsonPath("$.brand", is(beerDTO.getBrand())));
     }
 
+    //O stream NDJSON não tem caminho próprio, então uma cerveja chamada "stream" é encontrada pelo nome
+    @Test
+    void whenGETIsCalledWithTheNameStreamThenTheBeerIsReturned() throws Exception {
+        BeerDTO beerDTO = BeerDTOBuilder.builder().name("stream").build().toBeerDTO();
+
+        Mockito.when(beerService.findByName("stream")).thenReturn(beerDTO);
+
+        mockMvc.perform(get(BEER_API_URL_PATH + "/stream"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.name", is("stream")));
+        Mockito.verify(beerService, Mockito.never()).streamAll(any());
+    }
+
+    //Os totais ficam em /api/v1/inventory/stats, então uma cerveja chamada "stats" também é encontrada pelo nome
+    @Test
+    void whenGETIsCalledWithTheNameStatsThenTheBeerIsReturned() throws Exception {
+        BeerDTO beerDTO = BeerDTOBuilder.builder().name("stats").build().toBeerDTO();
+
+        Mockito.when(beerService.findByName("stats")).thenReturn(beerDTO);
+
+        mockMvc.perform(get(BEER_API_URL_PATH + "/stats"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.name", is("stats")));
+        Mockito.verify(beerService, Mockito.never()).stats();
+    }
+
+    //O SSE é escolhido pelo Accept na URL da listagem: mesmo com Accept text/event-stream, /events é o nome de uma cerveja
+    @Test
+    void whenGETIsCalledWithTheNameEventsThenTheBeerIsReturned() throws Exception {
+        BeerDTO beerDTO = BeerDTOBuilder.builder().name("events").build().toBeerDTO();
+
+        Mockito.when(beerService.findByName("events")).thenReturn(beerDTO);
+
+        mockMvc.perform(get(BEER_API_URL_PATH + "/events")
+                .accept(MediaType.TEXT_EVENT_STREAM, MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.name", is("events")));
+        Mockito.verifyNoInteractions(beerEventSubscriptions);
+    }
+
+    @Test
+    void whenGETIsCalledWithAMatchingETagThenNotModifiedStatusIsReturned() throws Exception {
+        BeerDTO beerDTO = BeerDTOBuilder.builder().build().toBeerDTO();
+
+        Mockito.when(beerService.findVersionByName(beerDTO.getName())).thenReturn(new BeerVersionDTO(beerDTO.getId(), 4L));
+
+        mockMvc.perform(get(BEER_API_URL_PATH + "/" + beerDTO.getName())
+                .header(HttpHeaders.IF_NONE_MATCH, "\"1-4\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"1-4\""))
+                .andExpect(content().string(""));
+        Mockito.verify(beerService, Mockito.never()).findByName(any());
+    }
+
+    @Test
+    void whenGETIsCalledWithAStaleETagThenTheBeerIsReturnedWithItsCurrentETag() throws Exception {
+        BeerDTO beerDTO = BeerDTOBuilder.builder().version(5L).build().toBeerDTO();
+
+        Mockito.when(beerService.findVersionByName(beerDTO.getName())).thenReturn(new BeerVersionDTO(beerDTO.getId(), 5L));
+        Mockito.when(beerService.findByName(beerDTO.getName())).thenReturn(beerDTO);
+
+        mockMvc.perform(get(BEER_API_URL_PATH + "/" + beerDTO.getName())
+                .header(HttpHeaders.IF_NONE_MATCH, "\"1-4\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"1-5\""))
+                .andExpect(jsonPath("$.version", is(5)));
+    }
+
+    //No CBOR o BeerType vai como código numérico
+    @Test
+    void whenGETIsCalledAcceptingCborThenTheBeerIsEncodedInCbor() throws Exception {
+        BeerDTO beerDTO = BeerDTOBuilder.builder().build().toBeerDTO();
+        MappingJackson2CborHttpMessageConverter cborConverter = cborConverter();
+
+        Mockito.when(beerService.findByName(beerDTO.getName())).thenReturn(beerDTO);
+
+        byte[] body = binaryMockMvc(cborConverter).perform(get(BEER_API_URL_PATH + "/" + beerDTO.getName())
+                .accept(MediaType.APPLICATION_CBOR))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_CBOR))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        JsonNode beerNode = new ObjectMapper(new CBORFactory()).readTree(body);
+        assertThat(beerNode.get("type").intValue(), is(BeerType.LAGER.getCode()));
+        assertThat(beerNode.get("name").textValue(), is(beerDTO.getName()));
+    }
+
+    //JSON e CBOR são representações diferentes: cada uma tem o próprio ETag forte e o cache separa as duas pelo Accept
+    @Test
+    void whenTheSameBeerIsReadAsJsonAndCborThenEachRepresentationHasItsOwnETag() throws Exception {
+        BeerDTO beerDTO = BeerDTOBuilder.builder().version(4L).build().toBeerDTO();
+        MockMvc binaryMockMvc = binaryMockMvc(cborConverter());
+
+        Mockito.when(beerService.findByName(beerDTO.getName())).thenReturn(beerDTO);
+
+        binaryMockMvc.perform(get(BEER_API_URL_PATH + "/" + beerDTO.getName())
+                .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"1-4\""))
+                .andExpect(header().string(HttpHeaders.VARY, HttpHeaders.ACCEPT));
+        binaryMockMvc.perform(get(BEER_API_URL_PATH + "/" + beerDTO.getName())
+                .accept(MediaType.APPLICATION_CBOR))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_CBOR))
+                .andExpect(header().string(HttpHeaders.ETAG, "\"1-4-cbor\""))
+                .andExpect(header().string(HttpHeaders.VARY, HttpHeaders.ACCEPT));
+    }
+
+    //O ETag guardado da versão JSON não vale para pedir a mesma cerveja em CBOR
+    @Test
+    void whenTheIfNoneMatchIsTheETagOfAnotherFormatThenTheBeerIsReturned() throws Exception {
+        BeerDTO beerDTO = BeerDTOBuilder.builder().version(4L).build().toBeerDTO();
+
+        Mockito.when(beerService.findVersionByName(beerDTO.getName())).thenReturn(new BeerVersionDTO(beerDTO.getId(), 4L));
+        Mockito.when(beerService.findByName(beerDTO.getName())).thenReturn(beerDTO);
+
+        binaryMockMvc(cborConverter()).perform(get(BEER_API_URL_PATH + "/" + beerDTO.getName())
+                .accept(MediaType.APPLICATION_CBOR)
+                .header(HttpHeaders.IF_NONE_MATCH, "\"1-4\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"1-4-cbor\""));
+    }
+
+    @Test
+    void whenTheCatalogIsListedAsCborThenTheETagCarriesTheFormat() throws Exception {
+        Mockito.when(beerService.catalogVersion()).thenReturn("k2x-7");
+
+        binaryMockMvc(cborConverter()).perform(get(BEER_API_URL_PATH)
+                .accept(MediaType.APPLICATION_CBOR)
+                .header(HttpHeaders.IF_NONE_MATCH, "\"k2x-7-cbor\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"k2x-7-cbor\""))
+                .andExpect(header().string(HttpHeaders.VARY, HttpHeaders.ACCEPT));
+    }
+
+    @Test
+    void whenPOSTIsCalledWithACborBodyThenABeerIsCreated() throws Exception {
+        BeerDTO beerDTO = BeerDTOBuilder.builder().type(BeerType.IPA).build().toBeerDTO();
+        MappingJackson2CborHttpMessageConverter cborConverter = cborConverter();
+
+        Mockito.when(beerService.createBeer(any())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        byte[] body = binaryMockMvc(cborConverter).perform(post(BEER_API_URL_PATH)
+                .contentType(MediaType.APPLICATION_CBOR)
+                .accept(MediaType.APPLICATION_CBOR)
+                .content(cborConverter.getObjectMapper().writeValueAsBytes(beerDTO)))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsByteArray();
+
+        BeerDTO createdBeerDTO = cborConverter.getObjectMapper().readValue(body, BeerDTO.class);
+        assertThat(createdBeerDTO.getType(), is(BeerType.IPA));
+        assertThat(createdBeerDTO.getName(), is(beerDTO.getName()));
+    }
 
     @Test
     void whenGETIsCalledWithoutRegisteredBeerNameThenNotFoundStatusIsReturned() throws Exception {
@@ -127,11 +380,28 @@ public class BeerControllerTest {
                 .andExpect(status().isNotFound());
     }
 
+    //Corpo de erro compacto do DomainExceptionHandler, sem stack trace na exceção
+    @Test
+    void whenGETIsCalledWithoutRegisteredBeerNameThenCompactErrorBodyIsReturned() throws Exception {
+        BeerDTO beerDTO = BeerDTOBuilder.builder().build().toBeerDTO();
+        BeerNotFoundException exception = new BeerNotFoundException(beerDTO.getName());
+
+        Mockito.when(beerService.findByName(beerDTO.getName())).thenThrow(exception);
+
+        mockMvc.perform(get(BEER_API_URL_PATH + "/" + beerDTO.getName())
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.status", is(404)))
+                .andExpect(jsonPath("$.error", is("BeerNotFound")))
+                .andExpect(jsonPath("$.message", is("Beer with name Brahma not found in the system.")));
+        assertThat(exception.getStackTrace().length, is(0));
+    }
+
     @Test
     void whenGETListWithBeersIsCalledThenOkStatusIsReturned() throws Exception {
         BeerDTO beerDTO = BeerDTOBuilder.builder().build().toBeerDTO();
 
-        Mockito.when(beerService.listAll()).thenReturn(Collections.singletonList(beerDTO));
+        Mockito.when(beerService.listAll(0L, 100)).thenReturn(Collections.singletonList(beerDTO));
 
         //then
         mockMvc.perform(get(BEER_API_URL_PATH)
@@ -143,6 +413,146 @@ public class BeerControllerTest {
                 .andExpect(jsonPath("$[0].brand", is(beerDTO.getBrand())));
     }
 
+    //Página cheia: o cabeçalho Link aponta para a próxima página a partir do último id
+    @Test
+    void whenGETListReturnsAFullPageThenNextPageLinkIsReturned() throws Exception {
+        BeerDTO beerDTO = BeerDTOBuilder.builder().build().toBeerDTO();
+
+        Mockito.when(beerService.listAll(0L, 1)).thenReturn(Collections.singletonList(beerDTO));
+
+        mockMvc.perform(get(BEER_API_URL_PATH)
+                .param("limit", "1")
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].name", is(beerDTO.getName())))
+                .andExpect(header().string("Link", containsString("after=" + beerDTO.getId())));
+    }
+
+    @Test
+    void whenGETListReturnsAPartialPageThenNoNextPageLinkIsReturned() throws Exception {
+        BeerDTO beerDTO = BeerDTOBuilder.builder().build().toBeerDTO();
+
+        Mockito.when(beerService.listAll(beerDTO.getId(), 10)).thenReturn(Collections.singletonList(beerDTO));
+
+        mockMvc.perform(get(BEER_API_URL_PATH)
+                .param("after", beerDTO.getId().toString())
+                .param("limit", "10")
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("Link"));
+    }
+
+    //Com filtro a listagem vai para a busca, e o Link da próxima página mantém só os critérios do filtro
+    @Test
+    void whenGETListIsCalledWithFiltersThenFilteredBeersAreReturned() throws Exception {
+        BeerDTO beerDTO = BeerDTOBuilder.builder().build().toBeerDTO();
+        BeerFilterDTO filter = BeerFilterDTO.builder()
+                .type(BeerType.LAGER)
+                .belowPercentOfMax(20)
+                .build();
+
+        Mockito.when(beerService.search(filter, 0L, 1)).thenReturn(Collections.singletonList(beerDTO));
+
+        mockMvc.perform(get(BEER_API_URL_PATH)
+                .param("type", "LAGER")
+                .param("belowPercentOfMax", "20")
+                .param("limit", "1")
+                .param("utm_source", "newsletter")
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].name", is(beerDTO.getName())))
+                .andExpect(header().string("Link", containsString("type=LAGER")))
+                .andExpect(header().string("Link", containsString("belowPercentOfMax=20")))
+                .andExpect(header().string("Link", not(containsString("utm_source"))));
+    }
+
+    @Test
+    void whenGETListIsCalledWithTheCurrentCatalogETagThenNotModifiedStatusIsReturned() throws Exception {
+        Mockito.when(beerService.catalogVersion()).thenReturn("k2x-7");
+
+        mockMvc.perform(get(BEER_API_URL_PATH)
+                .header(HttpHeaders.IF_NONE_MATCH, "\"k2x-7\""))
+                .andExpect(status().isNotModified());
+        Mockito.verify(beerService, Mockito.never()).listAll(any(), Mockito.anyInt());
+    }
+
+    @Test
+    void whenGETListIsCalledWithAnInvalidFilterThenBadRequestStatusIsReturned() throws Exception {
+        mockMvc.perform(get(BEER_API_URL_PATH)
+                .param("belowPercentOfMax", "150")
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+    }
+
+    //O stream fica aberto: basta conferir que a assinatura começa do Last-Event-ID enviado pelo EventSource
+    @Test
+    void whenGETEventsIsCalledWithLastEventIdThenTheSubscriptionResumesFromIt() throws Exception {
+        Mockito.when(beerEventSubscriptions.subscribe("kz1-42")).thenReturn(new SseEmitter());
+
+        mockMvc.perform(get(BEER_API_URL_PATH)
+                .accept(MediaType.TEXT_EVENT_STREAM)
+                .header(BeerController.LAST_EVENT_ID_HEADER, "kz1-42"))
+                .andExpect(status().isOk())
+                .andExpect(request().asyncStarted());
+
+        Mockito.verify(beerEventSubscriptions).subscribe("kz1-42");
+    }
+
+    @Test
+    void whenGETHistoryIsCalledThenBucketsOfTheRangeAreReturned() throws Exception {
+        Instant from = Instant.parse("2026-01-01T10:00:00Z");
+        Instant to = Instant.parse("2026-01-01T12:00:00Z");
+        StockHistoryDTO history = StockHistoryDTO.builder()
+                .beerId(VALID_BEER_ID)
+                .resolution(HistoryResolution.HOUR)
+                .openingQuantity(8)
+                .points(List.of(StockHistoryPointDTO.builder().open(10).min(4).max(12).close(9).samples(5).build()))
+                .build();
+
+        Mockito.when(beerService.history(VALID_BEER_ID, from, to, HistoryResolution.HOUR)).thenReturn(history);
+
+        mockMvc.perform(get(BEER_API_URL_PATH + "/" + VALID_BEER_ID + "/history")
+                .param("from", from.toString())
+                .param("to", to.toString())
+                .param("resolution", "HOUR"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.resolution", is("HOUR")))
+                .andExpect(jsonPath("$.openingQuantity", is(8)))
+                .andExpect(jsonPath("$.points[0].min", is(4)))
+                .andExpect(jsonPath("$.points[0].close", is(9)));
+    }
+
+    @Test
+    void whenGETHistoryIsCalledWithAnEmptyRangeThenBadRequestStatusIsReturned() throws Exception {
+        Instant from = Instant.parse("2026-01-01T12:00:00Z");
+
+        Mockito.when(beerService.history(VALID_BEER_ID, from, from, null))
+                .thenThrow(new InvalidHistoryRangeException(from, from));
+
+        mockMvc.perform(get(BEER_API_URL_PATH + "/" + VALID_BEER_ID + "/history")
+                .param("from", from.toString())
+                .param("to", from.toString()))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error", is("InvalidHistoryRange")));
+    }
+
+    @Test
+    void whenGETAcceptsNdjsonThenBeersAreWrittenAsNdjson() throws Exception {
+        BeerDTO beerDTO = BeerDTOBuilder.builder().build().toBeerDTO();
+
+        Mockito.doAnswer(invocation -> {
+            Consumer<BeerDTO> consumer = invocation.getArgument(0);
+            consumer.accept(beerDTO);
+            consumer.accept(beerDTO);
+            return null;
+        }).when(beerService).streamAll(any());
+
+        mockMvc.perform(get(BEER_API_URL_PATH).accept(BeerController.NDJSON_MEDIA_TYPE))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(BeerController.NDJSON_MEDIA_TYPE))
+                .andExpect(content().string(asJsonString(beerDTO) + "\n" + asJsonString(beerDTO) + "\n"));
+    }
+
     @Test
     void whenDELETEIsCalledWithAValidIdThenNoContentStatusIsReturned() throws Exception {
         //given
@@ -198,6 +608,85 @@ public class BeerControllerTest {
     }
 
 
+    @Test
+    void whenPATCHIsCalledToIncrementWithIfMatchThenTheVersionIsChecked() throws Exception {
+        QuantityDTO quantityDTO = QuantityDTO.builder().quantity(10).build();
+        BeerDTO beerDTO = BeerDTOBuilder.builder().quantity(20).version(3L).build().toBeerDTO();
+
+        Mockito.when(beerService.increment(VALID_BEER_ID, quantityDTO.getQuantity(), 2L)).thenReturn(beerDTO);
+
+        mockMvc.perform(patch(BEER_API_URL_PATH + "/" + VALID_BEER_ID + BEER_API_SUBPATH_INCREMENT_URL)
+                .header(HttpHeaders.IF_MATCH, "\"1-2\"")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(asJsonString(quantityDTO)))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"1-3\""))
+                .andExpect(jsonPath("$.quantity", is(20)));
+    }
+
+    //If-Match confere a versão gravada, qualquer que seja o formato em que a cerveja foi lida
+    @Test
+    void whenPATCHIsCalledWithTheCborETagInIfMatchThenTheVersionIsChecked() throws Exception {
+        QuantityDTO quantityDTO = QuantityDTO.builder().quantity(10).build();
+        BeerDTO beerDTO = BeerDTOBuilder.builder().quantity(20).version(3L).build().toBeerDTO();
+
+        Mockito.when(beerService.increment(VALID_BEER_ID, quantityDTO.getQuantity(), 2L)).thenReturn(beerDTO);
+
+        mockMvc.perform(patch(BEER_API_URL_PATH + "/" + VALID_BEER_ID + BEER_API_SUBPATH_INCREMENT_URL)
+                .header(HttpHeaders.IF_MATCH, "\"1-2-cbor\"")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(asJsonString(quantityDTO)))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"1-3\""));
+    }
+
+    //Tag de outra cerveja nunca confere
+    @Test
+    void whenDELETEIsCalledWithAnIfMatchOfAnotherBeerThenPreconditionFailedStatusIsReturned() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders
+                .delete(BEER_API_URL_PATH + "/" + VALID_BEER_ID)
+                .header(HttpHeaders.IF_MATCH, "\"2-0\""))
+                .andExpect(status().isPreconditionFailed());
+        Mockito.verifyNoInteractions(beerService);
+    }
+
+    @Test
+    void whenPATCHStockIsCalledThenPerLineResultsAreReturned() throws Exception {
+        StockAdjustmentDTO adjustment = StockAdjustmentDTO.builder().id(VALID_BEER_ID).delta(10).build();
+        StockAdjustmentRequestDTO request = StockAdjustmentRequestDTO.builder()
+                .mode(StockAdjustmentMode.BEST_EFFORT)
+                .adjustments(Collections.singletonList(adjustment))
+                .build();
+        StockAdjustmentResultDTO result = StockAdjustmentResultDTO.builder()
+                .id(VALID_BEER_ID)
+                .delta(10)
+                .status(StockAdjustmentStatus.APPLIED)
+                .quantity(20)
+                .build();
+
+        Mockito.when(beerBulkService.adjustStock(request.getAdjustments(), StockAdjustmentMode.BEST_EFFORT))
+                .thenReturn(Collections.singletonList(result));
+
+        mockMvc.perform(patch(BEER_API_URL_PATH + "/stock")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(asJsonString(request)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].status", is(StockAdjustmentStatus.APPLIED.toString())))
+                .andExpect(jsonPath("$[0].quantity", is(20)));
+    }
+
+    @Test
+    void whenPATCHStockIsCalledWithoutAdjustmentsThenBadRequestStatusIsReturned() throws Exception {
+        StockAdjustmentRequestDTO request = StockAdjustmentRequestDTO.builder()
+                .adjustments(Collections.emptyList())
+                .build();
+
+        mockMvc.perform(patch(BEER_API_URL_PATH + "/stock")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(asJsonString(request)))
+                .andExpect(status().isBadRequest());
+    }
+
     @Test
     void whenPATCHIsCalledToIncrementGreaterThanMaxThenBadRequestStatusIsReturned() throws Exception {
         QuantityDTO quantityDTO = QuantityDTO.builder()
@@ -231,66 +720,65 @@ public class BeerControllerTest {
                 .andExpect(status().isNotFound());
 
     }
-//
-//    @Test
-//    void whenPATCHIsCalledWithInvalidBeerIdToIncrementThenNotFoundStatusIsReturned() throws Exception {
-//        QuantityDTO quantityDTO = QuantityDTO.builder()
-//                .quantity(30)
-//                .build();
-//
-//        when(beerService.increment(INVALID_BEER_ID, quantityDTO.getQuantity())).thenThrow(BeerNotFoundException.class);
-//        mockMvc.perform(patch(BEER_API_URL_PATH + "/" + INVALID_BEER_ID + BEER_API_SUBPATH_INCREMENT_URL)
-//                .contentType(MediaType.APPLICATION_JSON)
-//                .content(asJsonString(quantityDTO)))
-//                .andExpect(status().isNotFound());
-//    }
-//
-//    @Test
-//    void whenPATCHIsCalledToDecrementDiscountThenOKstatusIsReturned() throws Exception {
-//        QuantityDTO quantityDTO = QuantityDTO.builder()
-//                .quantity(5)
-//                .build();
-//
-//        BeerDTO beerDTO = BeerDTOBuilder.builder().build().toBeerDTO();
-//        beerDTO.setQuantity(beerDTO.getQuantity() + quantityDTO.getQuantity());
-//
-//        when(beerService.decrement(VALID_BEER_ID, quantityDTO.getQuantity())).thenReturn(beerDTO);
-//
-//        mockMvc.perform(patch(BEER_API_URL_PATH + "/" + VALID_BEER_ID + BEER_API_SUBPATH_DECREMENT_URL)
-//                .contentType(MediaType.APPLICATION_JSON)
-//                .content(asJsonString(quantityDTO))).andExpect(status().isOk())
-//                .andExpect(jsonPath("$.name", is(beerDTO.getName())))
-//                .andExpect(jsonPath("$.brand", is(beerDTO.getBrand())))
-//                .andExpect(jsonPath("$.type", is(beerDTO.getType().toString())))
-//                .andExpect(jsonPath("$.quantity", is(beerDTO.getQuantity())));
-//    }
-//
-//    @Test
-//    void whenPATCHIsCalledToDEcrementLowerThanZeroThenBadRequestStatusIsReturned() throws Exception {
-//        QuantityDTO quantityDTO = QuantityDTO.builder()
-//                .quantity(60)
-//                .build();
-//
-//        BeerDTO beerDTO = BeerDTOBuilder.builder().build().toBeerDTO();
-//        beerDTO.setQuantity(beerDTO.getQuantity() + quantityDTO.getQuantity());
-//
-//        when(beerService.decrement(VALID_BEER_ID, quantityDTO.getQuantity())).thenThrow(BeerStockExceededException.class);
-//
-//        mockMvc.perform(patch(BEER_API_URL_PATH + "/" + VALID_BEER_ID + BEER_API_SUBPATH_DECREMENT_URL)
-//                .contentType(MediaType.APPLICATION_JSON)
-//                .content(asJsonString(quantityDTO))).andExpect(status().isBadRequest());
-//    }
-//
-//    @Test
-//    void whenPATCHIsCalledWithInvalidBeerIdToDecrementThenNotFoundStatusIsReturned() throws Exception {
-//        QuantityDTO quantityDTO = QuantityDTO.builder()
-//                .quantity(5)
-//                .build();
-//
-//        when(beerService.decrement(INVALID_BEER_ID, quantityDTO.getQuantity())).thenThrow(BeerNotFoundException.class);
-//        mockMvc.perform(patch(BEER_API_URL_PATH + "/" + INVALID_BEER_ID + BEER_API_SUBPATH_DECREMENT_URL)
-//                .contentType(MediaType.APPLICATION_JSON)
-//                .content(asJsonString(quantityDTO)))
-//                .andExpect(status().isNotFound());
-//    }
+    @Test
+    void whenPATCHIsCalledWithInvalidBeerIdToIncrementThenNotFoundStatusIsReturned() throws Exception {
+        QuantityDTO quantityDTO = QuantityDTO.builder()
+                .quantity(30)
+                .build();
+
+        Mockito.when(beerService.increment(INVALID_BEER_ID, quantityDTO.getQuantity())).thenThrow(BeerNotFoundException.class);
+        mockMvc.perform(patch(BEER_API_URL_PATH + "/" + INVALID_BEER_ID + BEER_API_SUBPATH_INCREMENT_URL)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(asJsonString(quantityDTO)))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void whenPATCHIsCalledToDecrementDiscountThenOKstatusIsReturned() throws Exception {
+        QuantityDTO quantityDTO = QuantityDTO.builder()
+                .quantity(5)
+                .build();
+
+        BeerDTO beerDTO = BeerDTOBuilder.builder().build().toBeerDTO();
+        beerDTO.setQuantity(beerDTO.getQuantity() + quantityDTO.getQuantity());
+
+        Mockito.when(beerService.decrement(VALID_BEER_ID, quantityDTO.getQuantity())).thenReturn(beerDTO);
+
+        mockMvc.perform(patch(BEER_API_URL_PATH + "/" + VALID_BEER_ID + BEER_API_SUBPATH_DECREMENT_URL)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(asJsonString(quantityDTO))).andExpect(status().isOk())
+                .andExpect(jsonPath("$.name", is(beerDTO.getName())))
+                .andExpect(jsonPath("$.brand", is(beerDTO.getBrand())))
+                .andExpect(jsonPath("$.type", is(beerDTO.getType().toString())))
+                .andExpect(jsonPath("$.quantity", is(beerDTO.getQuantity())));
+    }
+
+    @Test
+    void whenPATCHIsCalledToDEcrementLowerThanZeroThenBadRequestStatusIsReturned() throws Exception {
+        QuantityDTO quantityDTO = QuantityDTO.builder()
+                .quantity(60)
+                .build();
+
+        BeerDTO beerDTO = BeerDTOBuilder.builder().build().toBeerDTO();
+        beerDTO.setQuantity(beerDTO.getQuantity() + quantityDTO.getQuantity());
+
+        Mockito.when(beerService.decrement(VALID_BEER_ID, quantityDTO.getQuantity())).thenThrow(BeerStockExceededException.class);
+
+        mockMvc.perform(patch(BEER_API_URL_PATH + "/" + VALID_BEER_ID + BEER_API_SUBPATH_DECREMENT_URL)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(asJsonString(quantityDTO))).andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void whenPATCHIsCalledWithInvalidBeerIdToDecrementThenNotFoundStatusIsReturned() throws Exception {
+        QuantityDTO quantityDTO = QuantityDTO.builder()
+                .quantity(5)
+                .build();
+
+        Mockito.when(beerService.decrement(INVALID_BEER_ID, quantityDTO.getQuantity())).thenThrow(BeerNotFoundException.class);
+        mockMvc.perform(patch(BEER_API_URL_PATH + "/" + INVALID_BEER_ID + BEER_API_SUBPATH_DECREMENT_URL)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(asJsonString(quantityDTO)))
+                .andExpect(status().isNotFound());
+    }
 }
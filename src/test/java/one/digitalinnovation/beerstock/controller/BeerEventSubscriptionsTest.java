@@ -0,0 +1,99 @@
+package one.digitalinnovation.beerstock.controller;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import one.digitalinnovation.beerstock.config.EventStreamProperties;
+import one.digitalinnovation.beerstock.service.BeerEvents;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.hasSize;
+
+class BeerEventSubscriptionsTest {
+
+    private EventStreamProperties properties;
+    private BeerEvents beerEvents;
+    private SimpleMeterRegistry meterRegistry;
+
+    //Envios entregues ao executor mas nunca executados: simulam um cliente que parou de ler
+    private final List<Runnable> stuckSends = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        properties = new EventStreamProperties();
+        properties.setSubscriberQueueSize(2);
+        properties.setSendTimeout(Duration.ofMillis(1));
+        beerEvents = new BeerEvents(properties);
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @Test
+    void whenASubscriberFallsBehindItsQueueThenItIsEvictedWithoutBlockingTheDispatcher() {
+        BeerEventSubscriptions subscriptions = subscriptions(stuckSends::add);
+        subscriptions.subscribe(null);
+
+        beerEvents.stockChanged(1L, 10);
+        beerEvents.stockChanged(2L, 20);
+        beerEvents.stockChanged(3L, 30);
+        subscriptions.dispatch();
+
+        assertThat(subscribers(), equalTo(0.0));
+        assertThat(evicted("overflow"), equalTo(1.0));
+        assertThat(stuckSends, hasSize(0));
+    }
+
+    @Test
+    void whenASendStaysPendingPastTheTimeoutThenTheSubscriberIsEvicted() throws InterruptedException {
+        BeerEventSubscriptions subscriptions = subscriptions(stuckSends::add);
+        subscriptions.subscribe(null);
+
+        beerEvents.stockChanged(1L, 10);
+        subscriptions.dispatch();
+        assertThat(stuckSends, hasSize(1));
+
+        Thread.sleep(20);
+        subscriptions.dispatch();
+
+        assertThat(subscribers(), equalTo(0.0));
+        assertThat(evicted("timeout"), equalTo(1.0));
+    }
+
+    //O dispatcher só enfileira; o envio roda no executor e libera o assinante para a próxima rodada
+    @Test
+    void whenSendsCompleteThenTheSubscriberIsKept() throws InterruptedException {
+        List<Runnable> executed = new ArrayList<>();
+        BeerEventSubscriptions subscriptions = subscriptions(task -> {
+            executed.add(task);
+            task.run();
+        });
+        subscriptions.subscribe(null);
+
+        beerEvents.stockChanged(1L, 10);
+        subscriptions.dispatch();
+        Thread.sleep(20);
+        beerEvents.stockChanged(1L, 11);
+        subscriptions.dispatch();
+
+        assertThat(executed, hasSize(2));
+        assertThat(subscribers(), equalTo(1.0));
+        assertThat(evicted("timeout") + evicted("overflow"), equalTo(0.0));
+    }
+
+    private BeerEventSubscriptions subscriptions(Executor senders) {
+        return new BeerEventSubscriptions(beerEvents, properties, meterRegistry, senders);
+    }
+
+    private double subscribers() {
+        return meterRegistry.get("beerstock.events.subscribers").gauge().value();
+    }
+
+    private double evicted(String reason) {
+        return meterRegistry.counter("beerstock.events.evicted", "reason", reason).count();
+    }
+}
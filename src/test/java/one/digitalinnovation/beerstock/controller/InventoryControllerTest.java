@@ -0,0 +1,63 @@
+package one.digitalinnovation.beerstock.controller;
+
+import one.digitalinnovation.beerstock.dto.InventoryStatsDTO;
+import one.digitalinnovation.beerstock.enums.BeerType;
+import one.digitalinnovation.beerstock.service.BeerService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.util.Map;
+
+import static org.hamcrest.core.Is.is;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@ExtendWith(MockitoExtension.class)
+class InventoryControllerTest {
+
+    private static final String INVENTORY_API_URL_PATH = "/api/v1/inventory";
+
+    private MockMvc mockMvc;
+
+    @Mock
+    private BeerService beerService;
+
+    @InjectMocks
+    private InventoryController inventoryController;
+
+    @BeforeEach
+    void setUp() {
+        mockMvc = MockMvcBuilders.standaloneSetup(inventoryController)
+                .setControllerAdvice(new DomainExceptionHandler())
+                .build();
+    }
+
+    @Test
+    void whenGETStatsIsCalledThenAggregatesAreReturned() throws Exception {
+        InventoryStatsDTO stats = InventoryStatsDTO.builder()
+                .totalUnits(30L)
+                .unitsByType(Map.of(BeerType.LAGER, 30L))
+                .unitsByBrand(Map.of("Ambev", 30L))
+                .beersAtCapacity(1L)
+                .build();
+
+        Mockito.when(beerService.stats()).thenReturn(stats);
+
+        mockMvc.perform(get(INVENTORY_API_URL_PATH + "/stats")
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalUnits", is(30)))
+                .andExpect(jsonPath("$.unitsByType.LAGER", is(30)))
+                .andExpect(jsonPath("$.unitsByBrand.Ambev", is(30)))
+                .andExpect(jsonPath("$.beersAtCapacity", is(1)));
+    }
+}
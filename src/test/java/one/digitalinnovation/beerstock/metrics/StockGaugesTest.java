@@ -0,0 +1,35 @@
+package one.digitalinnovation.beerstock.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import one.digitalinnovation.beerstock.config.MetricsProperties;
+import one.digitalinnovation.beerstock.service.InventoryStats;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class StockGaugesTest {
+
+    @Mock
+    private InventoryStats inventoryStats;
+
+    @Test
+    void whenGaugesAreReadThenTheInMemoryTotalsAreReported() {
+        MeterRegistry meterRegistry = new SimpleMeterRegistry();
+        MetricsProperties properties = new MetricsProperties();
+
+        when(inventoryStats.totalUnits()).thenReturn(120L);
+        when(inventoryStats.beersNearMax()).thenReturn(3L);
+
+        new StockGauges(inventoryStats, properties, meterRegistry);
+
+        assertThat(meterRegistry.get(StockGauges.UNITS_METRIC).gauge().value(), equalTo(120.0));
+        assertThat(meterRegistry.get(StockGauges.NEAR_MAX_METRIC).gauge().value(), equalTo(3.0));
+    }
+}
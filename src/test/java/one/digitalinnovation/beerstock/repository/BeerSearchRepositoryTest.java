@@ -0,0 +1,119 @@
+package one.digitalinnovation.beerstock.repository;
+
+import one.digitalinnovation.beerstock.dto.BeerFilterDTO;
+import one.digitalinnovation.beerstock.entity.Beer;
+import one.digitalinnovation.beerstock.enums.BeerType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+
+//Critérios da Specification e busca por nome normalizado contra o H2 real
+@DataJpaTest
+class BeerSearchRepositoryTest {
+
+    @Autowired
+    private BeerRepository beerRepository;
+
+    @BeforeEach
+    void setUp() {
+        beerRepository.save(newBeer("Brahma", "Ambev", BeerType.LAGER, 100, 10));
+        beerRepository.save(newBeer("Brahma Duplo Malte", "Ambev", BeerType.LAGER, 100, 80));
+        beerRepository.save(newBeer("Colorado Indica", "Colorado", BeerType.IPA, 50, 5));
+        beerRepository.save(newBeer("Skol", "Ambev", BeerType.LAGER, 200, 150));
+        beerRepository.save(newBeer("100%_Malte", "Ambev", BeerType.LAGER, 100, 100));
+    }
+
+    @Test
+    void whenFilteringByBrandAndTypeThenOnlyMatchingBeersAreReturned() {
+        BeerFilterDTO filter = BeerFilterDTO.builder().brand("Ambev").type(BeerType.LAGER).build();
+
+        assertThat(searchNames(filter, 0L, 10), contains("Brahma", "Brahma Duplo Malte", "Skol", "100%_Malte"));
+    }
+
+    @Test
+    void whenFilteringByNamePrefixThenLikeWildcardsAreTreatedAsText() {
+        assertThat(searchNames(BeerFilterDTO.builder().namePrefix("Brahma").build(), 0L, 10),
+                contains("Brahma", "Brahma Duplo Malte"));
+        assertThat(searchNames(BeerFilterDTO.builder().namePrefix("100%_").build(), 0L, 10),
+                contains("100%_Malte"));
+    }
+
+    //O prefixo segue a normalização do nome: caixa, acentos e espaços repetidos não importam, o espaço final sim
+    @Test
+    void whenFilteringByNamePrefixThenTheNormalizedNameIsMatched() {
+        assertThat(searchNames(BeerFilterDTO.builder().namePrefix("  bRÁHMA   duplo").build(), 0L, 10),
+                contains("Brahma Duplo Malte"));
+        assertThat(searchNames(BeerFilterDTO.builder().namePrefix("brahma ").build(), 0L, 10),
+                contains("Brahma Duplo Malte"));
+        assertThat(searchNames(BeerFilterDTO.builder().namePrefix("100%\\").build(), 0L, 10), empty());
+    }
+
+    //Abaixo de 20% do max: 10/100 e 5/50 entram, 80/100 e 150/200 não
+    @Test
+    void whenFilteringBelowPercentOfMaxThenLowStockBeersAreReturned() {
+        BeerFilterDTO filter = BeerFilterDTO.builder().belowPercentOfMax(20).build();
+
+        assertThat(searchNames(filter, 0L, 10), contains("Brahma", "Colorado Indica"));
+    }
+
+    //Com ratio 0.9 só 100/100 entra; com 0.75 entram também 80/100 e 150/200
+    @Test
+    void whenCountingNearMaxThenTheRatioIsComparedAsADecimal() {
+        assertThat(beerRepository.countNearMax(0.9), equalTo(1L));
+        assertThat(beerRepository.countNearMax(0.75), equalTo(3L));
+    }
+
+    //Devolução de reserva também não passa do max
+    @Test
+    void whenRestoringPastMaxThenTheRowIsNotUpdated() {
+        Long id = beerRepository.findByName("Skol").orElseThrow().getId();
+
+        assertThat(beerRepository.restoreQuantity(id, 60), equalTo(0));
+        assertThat(beerRepository.restoreQuantity(id, 50), equalTo(1));
+        assertThat(beerRepository.findQuantityById(id), equalTo(Optional.of(200)));
+    }
+
+    @Test
+    void whenSearchingAfterACursorThenTheNextPageIsReturned() {
+        BeerFilterDTO filter = BeerFilterDTO.builder().brand("Ambev").build();
+        List<Beer> firstPage = beerRepository.search(filter, 0L, 2);
+
+        Long cursor = firstPage.get(firstPage.size() - 1).getId();
+
+        assertThat(searchNames(filter, cursor, 2), contains("Skol", "100%_Malte"));
+    }
+
+    //Espaços, caixa e acentos não diferenciam nomes
+    @Test
+    void whenFindingByNameThenLookupUsesTheNormalizedName() {
+        Optional<Beer> foundBeer = beerRepository.findByName("  BRAHMA   duplo Málte ");
+
+        assertThat(foundBeer.map(Beer::getName), equalTo(Optional.of("Brahma Duplo Malte")));
+    }
+
+    private List<String> searchNames(BeerFilterDTO filter, Long after, int limit) {
+        return beerRepository.search(filter, after, limit).stream()
+                .map(Beer::getName)
+                .collect(Collectors.toList());
+    }
+
+    private Beer newBeer(String name, String brand, BeerType type, int max, int quantity) {
+        Beer beer = new Beer();
+        beer.setName(name);
+        beer.setBrand(brand);
+        beer.setType(type);
+        beer.setMax(max);
+        beer.setQuantity(quantity);
+        return beer;
+    }
+}
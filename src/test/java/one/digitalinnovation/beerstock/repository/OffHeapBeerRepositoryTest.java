@@ -0,0 +1,280 @@
+package one.digitalinnovation.beerstock.repository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import one.digitalinnovation.beerstock.builder.BeerDTOBuilder;
+import one.digitalinnovation.beerstock.config.CoalescingProperties;
+import one.digitalinnovation.beerstock.config.JournalProperties;
+import one.digitalinnovation.beerstock.config.OutboxProperties;
+import one.digitalinnovation.beerstock.config.StockWriteProperties;
+import one.digitalinnovation.beerstock.dto.BeerDTO;
+import one.digitalinnovation.beerstock.dto.BeerFilterDTO;
+import one.digitalinnovation.beerstock.dto.StockAdjustmentDTO;
+import one.digitalinnovation.beerstock.entity.Beer;
+import one.digitalinnovation.beerstock.enums.BeerType;
+import one.digitalinnovation.beerstock.exception.BeerAlreadyRegisteredException;
+import one.digitalinnovation.beerstock.exception.BeerStockExceededException;
+import one.digitalinnovation.beerstock.exception.BeerVersionMismatchException;
+import one.digitalinnovation.beerstock.service.BeerMutationListener;
+import one.digitalinnovation.beerstock.service.BeerOutbox;
+import one.digitalinnovation.beerstock.service.BeerNameCache;
+import one.digitalinnovation.beerstock.service.BeerNameFilter;
+import one.digitalinnovation.beerstock.service.BeerService;
+import one.digitalinnovation.beerstock.service.CatalogVersion;
+import one.digitalinnovation.beerstock.service.InventoryStats;
+import one.digitalinnovation.beerstock.service.RequestCoalescer;
+import one.digitalinnovation.beerstock.service.StockDeltaBuffer;
+import one.digitalinnovation.beerstock.service.StockHistory;
+import one.digitalinnovation.beerstock.service.StockRetryPolicy;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.not;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.when;
+
+//Mesmo contrato do BeerRepository em JPA, verificado direto no store e através do BeerService
+@ExtendWith(MockitoExtension.class)
+class OffHeapBeerRepositoryTest {
+
+    @Spy
+    private BeerRepository beerRepository = new OffHeapBeerRepository(new JournalProperties());
+
+    @Mock
+    private StockDeltaBuffer stockDeltaBuffer;
+
+    @Mock
+    private EntityManager entityManager;
+
+    @Mock
+    private BeerNameCache beerNameCache;
+
+    @Mock
+    private BeerNameFilter beerNameFilter;
+
+    @Mock
+    private InventoryStats inventoryStats;
+
+    @Mock
+    private StockHistory stockHistory;
+
+    @Mock
+    private BeerMutationListener beerMutationListener;
+
+    @Spy
+    private CatalogVersion catalogVersion = new CatalogVersion();
+
+    @Spy
+    private StockRetryPolicy stockRetryPolicy = new StockRetryPolicy(new StockWriteProperties(), new SimpleMeterRegistry());
+
+    @Spy
+    private RequestCoalescer requestCoalescer = new RequestCoalescer(new CoalescingProperties(), new SimpleMeterRegistry());
+
+    //Outbox desligado: as mutações rodam direto no repositório, como antes
+    @Spy
+    private BeerOutbox beerOutbox = new BeerOutbox(new OutboxProperties(), null, null);
+
+    @InjectMocks
+    private BeerService beerService;
+
+    @AfterEach
+    void clearTransaction() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        TransactionSynchronizationManager.setActualTransactionActive(false);
+    }
+
+    @Test
+    void whenBeerIsSavedThenItIsFoundByNormalizedNameAndId() {
+        Beer savedBeer = beerRepository.save(newBeer("Brahma Duplo Málte", "Ambev", BeerType.LAGER, 100, 10));
+
+        assertThat(beerRepository.findByName("  BRAHMA   duplo Malte ").map(Beer::getId), equalTo(Optional.of(savedBeer.getId())));
+        assertThat(beerRepository.findById(savedBeer.getId()).map(Beer::getName), equalTo(Optional.of("Brahma Duplo Málte")));
+        assertThat(beerRepository.findVersionByName("brahma duplo malte").map(version -> version.getVersion()), equalTo(Optional.of(0L)));
+        assertThat(beerRepository.count(), equalTo(1L));
+    }
+
+    @Test
+    void whenNormalizedNameIsAlreadyRegisteredThenSaveFailsLikeTheUniqueConstraint() {
+        beerRepository.save(newBeer("Brahma", "Ambev", BeerType.LAGER, 100, 10));
+
+        assertThrows(DataIntegrityViolationException.class,
+                () -> beerRepository.save(newBeer(" brahma ", "Ambev", BeerType.LAGER, 100, 10)));
+        assertThat(beerRepository.count(), equalTo(1L));
+    }
+
+    @Test
+    void whenQuantityChangesThenMaxAndVersionAreCheckedAtomically() {
+        Long id = beerRepository.save(newBeer("Brahma", "Ambev", BeerType.LAGER, 50, 10)).getId();
+
+        assertThat(beerRepository.incrementQuantity(id, 40), equalTo(1));
+        assertThat(beerRepository.incrementQuantity(id, 1), equalTo(0));
+        assertThat(beerRepository.decrementQuantityIfVersion(id, 5, 0L), equalTo(0));
+        assertThat(beerRepository.decrementQuantityIfVersion(id, 5, 1L), equalTo(1));
+        assertThat(beerRepository.decrementQuantity(id, 46), equalTo(0));
+        assertThat(beerRepository.restoreQuantity(id, 10), equalTo(0));
+        assertThat(beerRepository.restoreQuantity(id, 5), equalTo(1));
+
+        Beer beer = beerRepository.findById(id).orElseThrow();
+        assertThat(beer.getQuantity(), equalTo(50));
+        assertThat(beer.getVersion(), equalTo(3L));
+    }
+
+    @Test
+    void whenAdjustmentsAreAppliedThenEachOneIsCheckedAgainstZeroAndMax() {
+        Long id = beerRepository.save(newBeer("Brahma", "Ambev", BeerType.LAGER, 50, 10)).getId();
+
+        int[] updatedRows = beerRepository.adjustQuantities(List.of(
+                new StockAdjustmentDTO(id, -11), new StockAdjustmentDTO(id, 40), new StockAdjustmentDTO(id, 1), new StockAdjustmentDTO(99L, 1)));
+
+        assertThat(IntStream.of(updatedRows).boxed().collect(Collectors.toList()), contains(0, 1, 0, 0));
+        assertThat(beerRepository.findQuantityById(id), equalTo(Optional.of(50)));
+    }
+
+    @Test
+    void whenConcurrentIncrementsRunThenNoUpdateIsLost() throws Exception {
+        Long id = beerRepository.save(newBeer("Brahma", "Ambev", BeerType.LAGER, 1_000_000, 0)).getId();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> tasks = IntStream.range(0, 8)
+                    .mapToObj(task -> executor.submit(() -> IntStream.range(0, 10_000).forEach(i -> beerRepository.incrementQuantity(id, 1))))
+                    .collect(Collectors.toList());
+            for (Future<?> task : tasks) {
+                task.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        Beer beer = beerRepository.findById(id).orElseThrow();
+        assertThat(beer.getQuantity(), equalTo(80_000));
+        assertThat(beer.getVersion(), equalTo(80_000L));
+    }
+
+    @Test
+    void whenBeerIsDeletedThenItsNameCanBeRegisteredAgain() {
+        Long id = beerRepository.save(newBeer("Brahma", "Ambev", BeerType.LAGER, 50, 10)).getId();
+
+        assertThat(beerRepository.deleteByIdIfVersion(id, 1L), equalTo(0));
+        beerRepository.deleteById(id);
+
+        assertThrows(EmptyResultDataAccessException.class, () -> beerRepository.deleteById(id));
+        assertThat(beerRepository.findByName("Brahma"), equalTo(Optional.empty()));
+        assertThat(beerRepository.save(newBeer("Brahma", "Ambev", BeerType.LAGER, 50, 10)).getId(), equalTo(id + 1));
+    }
+
+    //Mesmos cenários do BeerSearchRepositoryTest, sem a Criteria API
+    @Test
+    void whenSearchingThenFiltersAndCursorMatchTheJpaStore() {
+        beerRepository.save(newBeer("Brahma", "Ambev", BeerType.LAGER, 100, 10));
+        beerRepository.save(newBeer("Brahma Duplo Malte", "Ambev", BeerType.LAGER, 100, 80));
+        beerRepository.save(newBeer("Colorado Indica", "Colorado", BeerType.IPA, 50, 5));
+        beerRepository.save(newBeer("Skol", "Ambev", BeerType.LAGER, 200, 150));
+        beerRepository.save(newBeer("100%_Malte", "Ambev", BeerType.LAGER, 100, 100));
+
+        assertThat(searchNames(BeerFilterDTO.builder().brand("Ambev").type(BeerType.LAGER).build(), 0L, 10),
+                contains("Brahma", "Brahma Duplo Malte", "Skol", "100%_Malte"));
+        assertThat(searchNames(BeerFilterDTO.builder().namePrefix("100%_").build(), 0L, 10), contains("100%_Malte"));
+        assertThat(searchNames(BeerFilterDTO.builder().namePrefix("  bRÁHMA   duplo").build(), 0L, 10), contains("Brahma Duplo Malte"));
+        assertThat(searchNames(BeerFilterDTO.builder().belowPercentOfMax(20).build(), 0L, 10), contains("Brahma", "Colorado Indica"));
+        assertThat(searchNames(BeerFilterDTO.builder().brand("Ambev").build(), 2L, 2), contains("Skol", "100%_Malte"));
+        assertThat(beerRepository.findByIdGreaterThanOrderByIdAsc(3L, PageRequest.of(0, 10)).stream()
+                .map(Beer::getName).collect(Collectors.toList()), contains("Skol", "100%_Malte"));
+        assertThat(beerRepository.sumQuantities(), equalTo(345L));
+        assertThat(beerRepository.countAtCapacity(), equalTo(1L));
+    }
+
+    @Test
+    void whenTransactionRollsBackThenStockChangesAreCompensated() {
+        Long keptId = beerRepository.save(newBeer("Brahma", "Ambev", BeerType.LAGER, 50, 10)).getId();
+        TransactionSynchronizationManager.initSynchronization();
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+
+        beerRepository.decrementQuantity(keptId, 4);
+        beerRepository.save(newBeer("Skol", "Ambev", BeerType.LAGER, 50, 10));
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        synchronizations.forEach(synchronization -> synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+
+        assertThat(beerRepository.findQuantityById(keptId), equalTo(Optional.of(10)));
+        assertThat(beerRepository.findByName("Skol"), equalTo(Optional.empty()));
+    }
+
+    @Test
+    void whenBeerServiceCreatesADuplicateThenBeerAlreadyRegisteredIsThrown() throws Exception {
+        //O filtro de nomes indica um possível repetido: a consulta prévia é que precisa barrar o segundo create
+        when(beerNameFilter.mightBeRegistered(anyString())).thenReturn(true);
+        beerService.createBeer(BeerDTOBuilder.builder().build().toBeerDTO());
+
+        assertThrows(BeerAlreadyRegisteredException.class,
+                () -> beerService.createBeer(BeerDTOBuilder.builder().name(" BRAHMA ").build().toBeerDTO()));
+        assertThat(beerService.listAll(0L, 10).stream().map(BeerDTO::getName).collect(Collectors.toList()), containsInAnyOrder("Brahma"));
+    }
+
+    //Um id no corpo do POST é ignorado: a cerveja nova não substitui a que já usa esse id
+    @Test
+    void whenBeerServiceCreatesABeerWithAnExistingIdThenANewBeerIsStored() throws Exception {
+        BeerDTO brahma = beerService.createBeer(BeerDTOBuilder.builder().id(null).build().toBeerDTO());
+
+        BeerDTO skol = beerService.createBeer(BeerDTOBuilder.builder().id(brahma.getId()).name("Skol").build().toBeerDTO());
+
+        assertThat(skol.getId(), not(equalTo(brahma.getId())));
+        assertThat(beerService.listAll(0L, 10).stream().map(BeerDTO::getName).collect(Collectors.toList()),
+                containsInAnyOrder("Brahma", "Skol"));
+    }
+
+    @Test
+    void whenBeerServiceUpdatesStockThenLimitsAndVersionsAreEnforced() throws Exception {
+        BeerDTO createdBeerDTO = beerService.createBeer(BeerDTOBuilder.builder().max(50).quantity(10).build().toBeerDTO());
+        Long id = createdBeerDTO.getId();
+
+        BeerDTO incrementedBeerDTO = beerService.increment(id, 30);
+
+        assertThat(incrementedBeerDTO.getQuantity(), equalTo(40));
+        assertThat(incrementedBeerDTO.getVersion(), equalTo(1L));
+        assertThrows(BeerStockExceededException.class, () -> beerService.increment(id, 11));
+        assertThrows(BeerVersionMismatchException.class, () -> beerService.decrement(id, 5, 0L));
+        assertThat(beerService.decrement(id, 40, 1L).getQuantity(), equalTo(0));
+        assertThrows(BeerStockExceededException.class, () -> beerService.decrement(id, 1));
+    }
+
+    private List<String> searchNames(BeerFilterDTO filter, Long after, int limit) {
+        return beerRepository.search(filter, after, limit).stream()
+                .map(Beer::getName)
+                .collect(Collectors.toList());
+    }
+
+    private Beer newBeer(String name, String brand, BeerType type, int max, int quantity) {
+        Beer beer = new Beer();
+        beer.setName(name);
+        beer.setBrand(brand);
+        beer.setType(type);
+        beer.setMax(max);
+        beer.setQuantity(quantity);
+        return beer;
+    }
+}
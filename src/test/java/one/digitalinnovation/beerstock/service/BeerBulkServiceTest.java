@@ -0,0 +1,190 @@
+package one.digitalinnovation.beerstock.service;
+
+import one.digitalinnovation.beerstock.builder.BeerDTOBuilder;
+import one.digitalinnovation.beerstock.config.BulkProperties;
+import one.digitalinnovation.beerstock.dto.BeerDTO;
+import one.digitalinnovation.beerstock.dto.BulkCreateResultDTO;
+import one.digitalinnovation.beerstock.dto.StockAdjustmentDTO;
+import one.digitalinnovation.beerstock.dto.StockAdjustmentResultDTO;
+import one.digitalinnovation.beerstock.entity.Beer;
+import one.digitalinnovation.beerstock.enums.BulkCreateStatus;
+import one.digitalinnovation.beerstock.enums.StockAdjustmentMode;
+import one.digitalinnovation.beerstock.enums.StockAdjustmentStatus;
+import one.digitalinnovation.beerstock.mapper.BeerMapper;
+import one.digitalinnovation.beerstock.repository.BeerRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import javax.validation.Validation;
+import javax.validation.Validator;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.hasSize;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyIterable;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class BeerBulkServiceTest {
+
+    @Mock
+    private BeerRepository beerRepository;
+
+    @Mock
+    private StockDeltaBuffer stockDeltaBuffer;
+
+    @Mock
+    private BeerOutbox beerOutbox;
+
+    @Mock
+    private BeerMutationListener beerMutationListener;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private final Validator validator = Validation.buildDefaultValidatorFactory().getValidator();
+
+    private final BeerMapper beerMapper = BeerMapper.INSTANCE;
+
+    private BeerBulkService beerBulkService;
+
+    @BeforeEach
+    void setUp() {
+        BulkProperties properties = new BulkProperties();
+        properties.setChunkSize(2);
+        beerBulkService = new BeerBulkService(beerRepository, stockDeltaBuffer, beerOutbox, beerMutationListener, validator,
+                transactionManager, properties);
+    }
+
+    //Duplicado no banco, duplicado na própria requisição e inválido não derrubam o lote
+    @Test
+    void whenBulkHasDuplicatedAndInvalidBeersThenOnlyNewBeersAreCreated() {
+        BeerDTO registeredBeer = BeerDTOBuilder.builder().name("Brahma").build().toBeerDTO();
+        BeerDTO newBeer = BeerDTOBuilder.builder().name("Skol").build().toBeerDTO();
+        BeerDTO repeatedNewBeer = BeerDTOBuilder.builder().name("Skol").build().toBeerDTO();
+        BeerDTO invalidBeer = BeerDTOBuilder.builder().name("Bohemia").brand(null).build().toBeerDTO();
+
+        when(beerRepository.findNormalizedNamesIn(anyCollection())).thenReturn(Set.of("brahma"), Set.of("skol"));
+        when(beerRepository.saveAll(anyIterable())).thenAnswer(invocation -> withIds(invocation.getArgument(0)));
+
+        List<BulkCreateResultDTO> results = beerBulkService.createBeers(
+                List.of(registeredBeer, newBeer, repeatedNewBeer, invalidBeer).iterator());
+
+        assertThat(results, hasSize(4));
+        assertThat(statuses(results), contains(BulkCreateStatus.ALREADY_REGISTERED, BulkCreateStatus.CREATED,
+                BulkCreateStatus.ALREADY_REGISTERED, BulkCreateStatus.INVALID));
+        assertThat(results.get(1).getId(), equalTo(100L));
+        //Uma consulta de nomes por chunk, não por cerveja
+        verify(beerRepository, times(2)).findNormalizedNamesIn(anyCollection());
+        //Um aviso por chunk com cervejas criadas, para o journal gravar o chunk com um único append
+        verify(beerMutationListener, times(1)).created(anyList());
+    }
+
+    //Nome registrado por outra requisição entre a consulta e o insert
+    @Test
+    void whenBatchInsertViolatesUniqueNameThenItemsAreRetriedOneByOne() {
+        BeerDTO racedBeer = BeerDTOBuilder.builder().name("Brahma").build().toBeerDTO();
+        BeerDTO newBeer = BeerDTOBuilder.builder().name("Skol").build().toBeerDTO();
+
+        when(beerRepository.findNormalizedNamesIn(anyCollection())).thenReturn(Set.of());
+        when(beerRepository.saveAll(anyIterable())).thenThrow(DataIntegrityViolationException.class);
+        when(beerRepository.save(any(Beer.class))).thenAnswer(invocation -> {
+            Beer beer = invocation.getArgument(0);
+            if (beer.getName().equals("Brahma")) {
+                throw new DataIntegrityViolationException("unique name");
+            }
+            beer.setId(100L);
+            return beer;
+        });
+
+        List<BulkCreateResultDTO> results = beerBulkService.createBeers(List.of(racedBeer, newBeer).iterator());
+
+        assertThat(statuses(results), contains(BulkCreateStatus.ALREADY_REGISTERED, BulkCreateStatus.CREATED));
+    }
+
+    //Linhas aplicadas em ordem de id; falhas reaproveitam as mensagens de BeerNotFound e BeerStockExceeded
+    @Test
+    void whenBestEffortAdjustmentHasRejectedLinesThenAppliedLinesAreKept() {
+        Beer beer = beerMapper.toModel(BeerDTOBuilder.builder().id(1L).quantity(15).build().toBeerDTO());
+        List<StockAdjustmentDTO> adjustments = List.of(
+                new StockAdjustmentDTO(3L, 5),
+                new StockAdjustmentDTO(2L, 100),
+                new StockAdjustmentDTO(1L, 5));
+
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        when(beerRepository.adjustQuantities(anyList())).thenReturn(new int[]{1, 0, 0});
+        when(beerRepository.findAllById(Set.of(1L))).thenReturn(List.of(beer));
+        when(beerRepository.findIdsIn(Set.of(2L, 3L))).thenReturn(Set.of(2L));
+
+        List<StockAdjustmentResultDTO> results = beerBulkService.adjustStock(adjustments, StockAdjustmentMode.BEST_EFFORT);
+
+        assertThat(adjustmentStatuses(results), contains(StockAdjustmentStatus.APPLIED,
+                StockAdjustmentStatus.STOCK_EXCEEDED, StockAdjustmentStatus.NOT_FOUND));
+        assertThat(results.get(0).getQuantity(), equalTo(15));
+        verify(beerRepository).adjustQuantities(List.of(adjustments.get(2), adjustments.get(1), adjustments.get(0)));
+        verify(beerMutationListener).stockChanged(List.of(beerMapper.toDTO(beer)), Map.of(1L, 5));
+    }
+
+    @Test
+    void whenAllOrNothingAdjustmentHasARejectedLineThenTheBatchIsRolledBack() {
+        Beer beer = beerMapper.toModel(BeerDTOBuilder.builder().id(1L).build().toBeerDTO());
+        List<StockAdjustmentDTO> adjustments = List.of(
+                new StockAdjustmentDTO(1L, 5),
+                new StockAdjustmentDTO(2L, 5));
+        SimpleTransactionStatus transactionStatus = new SimpleTransactionStatus();
+
+        when(transactionManager.getTransaction(any())).thenReturn(transactionStatus);
+        when(beerRepository.adjustQuantities(anyList())).thenReturn(new int[]{1, 0});
+        when(beerRepository.findAllById(Set.of(1L))).thenReturn(List.of(beer));
+        when(beerRepository.findIdsIn(Set.of(2L))).thenReturn(Set.of());
+
+        List<StockAdjustmentResultDTO> results = beerBulkService.adjustStock(adjustments, StockAdjustmentMode.ALL_OR_NOTHING);
+
+        assertThat(adjustmentStatuses(results), contains(StockAdjustmentStatus.ROLLED_BACK, StockAdjustmentStatus.NOT_FOUND));
+        assertTrue(transactionStatus.isRollbackOnly());
+        verify(stockDeltaBuffer, never()).applied(anyLong(), anyInt());
+        verify(beerMutationListener).stockChanged(List.of(), Map.of());
+    }
+
+    private List<StockAdjustmentStatus> adjustmentStatuses(List<StockAdjustmentResultDTO> results) {
+        List<StockAdjustmentStatus> statuses = new ArrayList<>();
+        results.forEach(result -> statuses.add(result.getStatus()));
+        return statuses;
+    }
+
+    private List<Beer> withIds(Iterable<Beer> beers) {
+        List<Beer> savedBeers = new ArrayList<>();
+        long id = 100L;
+        for (Beer beer : beers) {
+            beer.setId(id++);
+            savedBeers.add(beer);
+        }
+        return savedBeers;
+    }
+
+    private List<BulkCreateStatus> statuses(List<BulkCreateResultDTO> results) {
+        List<BulkCreateStatus> statuses = new ArrayList<>();
+        results.forEach(result -> statuses.add(result.getStatus()));
+        return statuses;
+    }
+}
@@ -0,0 +1,115 @@
+package one.digitalinnovation.beerstock.service;
+
+import one.digitalinnovation.beerstock.builder.BeerDTOBuilder;
+import one.digitalinnovation.beerstock.config.EventStreamProperties;
+import one.digitalinnovation.beerstock.dto.BeerDTO;
+import one.digitalinnovation.beerstock.enums.BeerEventType;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.OptionalLong;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+
+class BeerEventsTest {
+
+    private static final int BUFFER_SIZE = 8;
+
+    private final BeerEvents beerEvents = new BeerEvents(properties());
+
+    @Test
+    void whenEventsArePublishedThenTheyAreReadInOrderFromTheCursor() {
+        long cursor = beerEvents.head();
+        BeerDTO beerDTO = BeerDTOBuilder.builder().build().toBeerDTO();
+        BeerDTO otherBeerDTO = BeerDTOBuilder.builder().id(2L).build().toBeerDTO();
+
+        beerEvents.created(beerDTO);
+        beerEvents.created(otherBeerDTO);
+        BeerEvents.Batch batch = beerEvents.poll(cursor, 100);
+
+        assertThat(types(batch), contains(BeerEventType.CREATED, BeerEventType.CREATED));
+        assertThat(beerIds(batch), contains(beerDTO.getId(), otherBeerDTO.getId()));
+        assertThat(batch.getNextCursor(), equalTo(beerEvents.head()));
+        assertThat(beerEvents.poll(batch.getNextCursor(), 100).getEvents(), empty());
+    }
+
+    //Só o último estado de cada cerveja é entregue, na ordem em que ocorreu
+    @Test
+    void whenABeerChangesManyTimesInABatchThenOnlyItsLatestEventIsKept() {
+        long cursor = beerEvents.head();
+        beerEvents.stockChanged(1L, 10);
+        beerEvents.stockChanged(2L, 5);
+        beerEvents.stockChanged(1L, 20);
+
+        BeerEvents.Batch batch = beerEvents.poll(cursor, 100);
+
+        assertThat(beerIds(batch), contains(2L, 1L));
+        assertThat(batch.getEvents().get(1).getEvent().getQuantity(), equalTo(20));
+        assertThat(batch.getCoalesced(), equalTo(1));
+    }
+
+    //O descarte não é estado: agrupar com o evento seguinte esconderia do cliente o que ele precisa desfazer
+    @Test
+    void whenStockIsDroppedThenItsEventIsNotCoalesced() {
+        long cursor = beerEvents.head();
+        beerEvents.stockDropped(1L, 5);
+        beerEvents.stockChanged(1L, 20);
+
+        BeerEvents.Batch batch = beerEvents.poll(cursor, 100);
+
+        assertThat(types(batch), contains(BeerEventType.STOCK_DROPPED, BeerEventType.STOCK_CHANGED));
+        assertThat(batch.getEvents().get(0).getEvent().getDelta(), equalTo(5));
+        assertThat(batch.getCoalesced(), equalTo(0));
+    }
+
+    @Test
+    void whenTheSubscriberFallsAFullLapBehindThenItIsReset() {
+        long cursor = beerEvents.head();
+        for (int i = 0; i <= BUFFER_SIZE; i++) {
+            beerEvents.stockChanged((long) i, i);
+        }
+
+        BeerEvents.Batch batch = beerEvents.poll(cursor, 100);
+
+        assertThat(batch.isReset(), equalTo(true));
+        assertThat(batch.getNextCursor(), equalTo(beerEvents.head()));
+    }
+
+    @Test
+    void whenResumingFromALastEventIdThenTheCursorStartsAfterIt() {
+        long cursor = beerEvents.head();
+        beerEvents.stockChanged(1L, 10);
+        beerEvents.stockChanged(2L, 20);
+
+        OptionalLong resumeCursor = beerEvents.resumeCursor(beerEvents.eventId(cursor));
+
+        assertThat(resumeCursor, equalTo(OptionalLong.of(cursor + 1)));
+        assertThat(beerIds(beerEvents.poll(resumeCursor.getAsLong(), 100)), contains(2L));
+    }
+
+    //Id de antes de um restart ou ainda não publicado não é confiável para retomar
+    @Test
+    void whenLastEventIdIsUnknownThenThereIsNoResumeCursor() {
+        assertThat(beerEvents.resumeCursor("0-1"), equalTo(OptionalLong.empty()));
+        assertThat(beerEvents.resumeCursor("garbage"), equalTo(OptionalLong.empty()));
+        assertThat(beerEvents.resumeCursor(beerEvents.eventId(beerEvents.head() + 5)), equalTo(OptionalLong.empty()));
+    }
+
+    private static EventStreamProperties properties() {
+        EventStreamProperties properties = new EventStreamProperties();
+        properties.setBufferSize(BUFFER_SIZE);
+        return properties;
+    }
+
+    private static List<BeerEventType> types(BeerEvents.Batch batch) {
+        return batch.getEvents().stream().map(entry -> entry.getEvent().getType()).collect(Collectors.toList());
+    }
+
+    private static List<Long> beerIds(BeerEvents.Batch batch) {
+        return batch.getEvents().stream().map(entry -> entry.getEvent().getBeerId()).collect(Collectors.toList());
+    }
+}
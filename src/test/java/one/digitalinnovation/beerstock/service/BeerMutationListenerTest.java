@@ -0,0 +1,194 @@
+package one.digitalinnovation.beerstock.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import one.digitalinnovation.beerstock.builder.BeerDTOBuilder;
+import one.digitalinnovation.beerstock.config.AlertProperties;
+import one.digitalinnovation.beerstock.config.StockHistoryProperties;
+import one.digitalinnovation.beerstock.dto.BeerDTO;
+import one.digitalinnovation.beerstock.dto.StockAlertDTO;
+import one.digitalinnovation.beerstock.dto.StockHistoryPointDTO;
+import one.digitalinnovation.beerstock.enums.AlertCondition;
+import one.digitalinnovation.beerstock.enums.AlertState;
+import one.digitalinnovation.beerstock.enums.HistoryResolution;
+import one.digitalinnovation.beerstock.exception.InvalidHistoryRangeException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.not;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+@ExtendWith(MockitoExtension.class)
+class BeerMutationListenerTest {
+
+    private static final Instant NOW = Instant.parse("2026-01-01T10:00:00Z");
+
+    private static final Clock CLOCK = Clock.fixed(NOW, ZoneOffset.UTC);
+
+    @Mock
+    private BeerNameCache beerNameCache;
+
+    @Mock
+    private BeerNameFilter beerNameFilter;
+
+    @Mock
+    private InventoryStats inventoryStats;
+
+    @Mock
+    private BeerJournal beerJournal;
+
+    @Mock
+    private BeerEvents beerEvents;
+
+    @Mock
+    private StockHistory stockHistory;
+
+    @Mock
+    private StockAlerts stockAlerts;
+
+    private CatalogVersion catalogVersion;
+
+    private BeerMutationListener beerMutationListener;
+
+    @BeforeEach
+    void setUp() {
+        catalogVersion = new CatalogVersion();
+        beerMutationListener = new BeerMutationListener(beerNameCache, beerNameFilter, inventoryStats, catalogVersion,
+                beerJournal, beerEvents, stockHistory, stockAlerts);
+    }
+
+    @Test
+    void whenStockChangesThenEveryDerivedViewReceivesTheStoredBeer() {
+        BeerDTO beerDTO = BeerDTOBuilder.builder().quantity(15).version(4L).build().toBeerDTO();
+        String catalogVersionBefore = catalogVersion.current();
+
+        beerMutationListener.stockChanged(beerDTO, -5);
+
+        verify(beerNameCache).invalidate(beerDTO.getName());
+        verify(inventoryStats).stockChanged(beerDTO.getType(), beerDTO.getBrand(), 15, -5, beerDTO.getMax());
+        verify(beerJournal).stockChanged(List.of(beerDTO));
+        verify(beerEvents).stockChanged(beerDTO);
+        verify(stockHistory).record(beerDTO.getId(), 15);
+        verify(stockAlerts).evaluate(beerDTO);
+        assertThat(catalogVersion.current(), not(equalTo(catalogVersionBefore)));
+    }
+
+    //Lote: um único append no journal, mas cada cerveja chega aos totais, eventos, histórico e alertas
+    @Test
+    void whenABatchIsCreatedThenTheJournalIsAppendedOnce() {
+        BeerDTO brahma = BeerDTOBuilder.builder().id(1L).name("Brahma").build().toBeerDTO();
+        BeerDTO skol = BeerDTOBuilder.builder().id(2L).name("Skol").build().toBeerDTO();
+
+        beerMutationListener.created(List.of(brahma, skol));
+
+        verify(beerJournal, times(1)).created(List.of(brahma, skol));
+        verify(beerNameFilter).registered("Brahma");
+        verify(beerNameFilter).registered("Skol");
+        verify(stockAlerts).evaluate(brahma);
+        verify(stockAlerts).evaluate(skol);
+    }
+
+    @Test
+    void whenNothingChangedThenNoDerivedViewIsTouched() {
+        String catalogVersionBefore = catalogVersion.current();
+
+        beerMutationListener.stockChanged(List.of(), Map.of());
+
+        verify(beerJournal, never()).stockChanged(anyList());
+        verifyNoInteractions(inventoryStats, beerEvents, stockHistory, stockAlerts);
+        assertThat(catalogVersion.current(), equalTo(catalogVersionBefore));
+    }
+
+    //Nada foi gravado: só o evento para o cliente desfazer a quantidade projetada, sem mexer nas visões derivadas
+    @Test
+    void whenPendingDeltasAreDroppedThenTheDroppedSumIsPublished() {
+        String catalogVersionBefore = catalogVersion.current();
+
+        beerMutationListener.stockDropped(1L, List.of(15, -3));
+
+        verify(beerEvents).stockDropped(1L, 12);
+        verifyNoInteractions(beerJournal, inventoryStats, stockHistory, stockAlerts);
+        assertThat(catalogVersion.current(), equalTo(catalogVersionBefore));
+    }
+
+    @Test
+    void whenABeerIsDeletedThenItsNameAndDerivedStateAreDropped() {
+        BeerDTO beerDTO = BeerDTOBuilder.builder().build().toBeerDTO();
+
+        beerMutationListener.deleted(beerDTO);
+
+        verify(beerNameFilter).removed(beerDTO.getName());
+        verify(inventoryStats).deleted(beerDTO.getType(), beerDTO.getBrand(), beerDTO.getQuantity(), beerDTO.getMax());
+        verify(beerJournal).deleted(beerDTO);
+        verify(stockHistory).deleted(beerDTO.getId());
+        verify(stockAlerts).deleted(beerDTO.getId());
+    }
+
+    //Reserva e devolução chegam pelo stockChanged de uma cerveja: histórico e alertas reais veem a quantidade gravada
+    @Test
+    void whenAReservationIsHeldAndReleasedThenHistoryAndAlertsFollowTheStoredQuantity() throws InvalidHistoryRangeException {
+        StockHistory history = new StockHistory(new StockHistoryProperties(), CLOCK);
+        List<StockAlertDTO> notified = new ArrayList<>();
+        BeerMutationListener listener = listener(history, lowStockAlerts(notified));
+
+        listener.stockChanged(BeerDTOBuilder.builder().quantity(3).version(1L).build().toBeerDTO(), -7);
+        listener.stockChanged(BeerDTOBuilder.builder().quantity(10).version(2L).build().toBeerDTO(), 7);
+
+        StockHistoryPointDTO point = history.query(1L, NOW, NOW.plusSeconds(60), HistoryResolution.MINUTE).getPoints().get(0);
+        assertThat(point.getMin(), equalTo(3));
+        assertThat(point.getClose(), equalTo(10));
+        assertThat(states(notified), contains(AlertState.RAISED, AlertState.CLEARED));
+    }
+
+    //O flush do write-behind avisa o lote de uma vez; cada cerveja chega ao histórico e aos alertas
+    @Test
+    void whenAWriteBehindFlushIsNotifiedThenEveryFlushedBeerReachesHistoryAndAlerts() throws InvalidHistoryRangeException {
+        StockHistory history = new StockHistory(new StockHistoryProperties(), CLOCK);
+        List<StockAlertDTO> notified = new ArrayList<>();
+        BeerMutationListener listener = listener(history, lowStockAlerts(notified));
+        BeerDTO brahma = BeerDTOBuilder.builder().id(1L).name("Brahma").quantity(2).version(3L).build().toBeerDTO();
+        BeerDTO skol = BeerDTOBuilder.builder().id(2L).name("Skol").quantity(40).version(3L).build().toBeerDTO();
+
+        listener.stockChanged(List.of(brahma, skol), Map.of(1L, -8, 2L, 12));
+
+        assertThat(history.query(1L, NOW, NOW.plusSeconds(60), HistoryResolution.MINUTE).getPoints().get(0).getClose(), equalTo(2));
+        assertThat(history.query(2L, NOW, NOW.plusSeconds(60), HistoryResolution.MINUTE).getPoints().get(0).getClose(), equalTo(40));
+        assertThat(notified.stream().map(StockAlertDTO::getBeerId).collect(Collectors.toList()), contains(1L));
+    }
+
+    private BeerMutationListener listener(StockHistory history, StockAlerts alerts) {
+        return new BeerMutationListener(beerNameCache, beerNameFilter, inventoryStats, catalogVersion,
+                beerJournal, beerEvents, history, alerts);
+    }
+
+    private StockAlerts lowStockAlerts(List<StockAlertDTO> notified) {
+        AlertProperties.Rule rule = new AlertProperties.Rule();
+        rule.setName("low-stock");
+        rule.setCondition(AlertCondition.BELOW);
+        rule.setThreshold(0.1);
+        AlertProperties properties = new AlertProperties();
+        properties.getRules().add(rule);
+        return new StockAlerts(properties, notified::add, new SimpleMeterRegistry(), Runnable::run, CLOCK);
+    }
+
+    private List<AlertState> states(List<StockAlertDTO> notified) {
+        return notified.stream().map(StockAlertDTO::getState).collect(Collectors.toList());
+    }
+}
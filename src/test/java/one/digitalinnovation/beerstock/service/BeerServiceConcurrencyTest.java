@@ -0,0 +1,115 @@
+package one.digitalinnovation.beerstock.service;
+
+import one.digitalinnovation.beerstock.entity.Beer;
+import one.digitalinnovation.beerstock.enums.BeerType;
+import one.digitalinnovation.beerstock.exception.BeerStockExceededException;
+import one.digitalinnovation.beerstock.repository.BeerRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.instanceOf;
+
+//Usa o H2 real: com mocks não é possível provar que o update condicional não perde incrementos
+@SpringBootTest
+class BeerServiceConcurrencyTest {
+
+    private static final int CONCURRENT_CALLERS = 64;
+    private static final int INCREMENTS_PER_CALLER = 5;
+
+    @Autowired
+    private BeerService beerService;
+
+    @Autowired
+    private BeerRepository beerRepository;
+
+    @AfterEach
+    void tearDown() {
+        beerRepository.deleteAll();
+    }
+
+    @Test
+    void whenManyCallersIncrementConcurrentlyThenNoIncrementIsLost() throws Exception {
+        Beer beer = beerRepository.save(newBeer("Concurrent Lager", CONCURRENT_CALLERS * INCREMENTS_PER_CALLER));
+
+        List<Future<Void>> results = runConcurrently(() -> {
+            for (int i = 0; i < INCREMENTS_PER_CALLER; i++) {
+                beerService.increment(beer.getId(), 1);
+            }
+            return null;
+        });
+
+        for (Future<Void> result : results) {
+            result.get();
+        }
+        int storedQuantity = beerRepository.findById(beer.getId()).orElseThrow().getQuantity();
+        assertThat(storedQuantity, equalTo(CONCURRENT_CALLERS * INCREMENTS_PER_CALLER));
+    }
+
+    //Quantidade máxima menor que o número de chamadas: exatamente 'max' incrementos devem passar
+    @Test
+    void whenConcurrentIncrementsExceedMaxThenOnlyIncrementsUpToMaxAreApplied() throws Exception {
+        int max = CONCURRENT_CALLERS - 14;
+        Beer beer = beerRepository.save(newBeer("Concurrent Stout", max));
+
+        List<Future<Void>> results = runConcurrently(() -> {
+            beerService.increment(beer.getId(), 1);
+            return null;
+        });
+
+        int exceeded = 0;
+        for (Future<Void> result : results) {
+            try {
+                result.get();
+            } catch (ExecutionException e) {
+                assertThat(e.getCause(), instanceOf(BeerStockExceededException.class));
+                exceeded++;
+            }
+        }
+        int storedQuantity = beerRepository.findById(beer.getId()).orElseThrow().getQuantity();
+        assertThat(storedQuantity, equalTo(max));
+        assertThat(exceeded, equalTo(CONCURRENT_CALLERS - max));
+    }
+
+    private List<Future<Void>> runConcurrently(Callable<Void> task) throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(CONCURRENT_CALLERS);
+        CountDownLatch startGate = new CountDownLatch(1);
+        List<Future<Void>> results = new ArrayList<>();
+        try {
+            for (int i = 0; i < CONCURRENT_CALLERS; i++) {
+                results.add(executor.submit(() -> {
+                    startGate.await();
+                    return task.call();
+                }));
+            }
+            startGate.countDown();
+        } finally {
+            executor.shutdown();
+        }
+        executor.awaitTermination(1, TimeUnit.MINUTES);
+        return results;
+    }
+
+    private Beer newBeer(String name, int max) {
+        Beer beer = new Beer();
+        beer.setName(name);
+        beer.setBrand("Ambev");
+        beer.setMax(max);
+        beer.setQuantity(0);
+        beer.setType(BeerType.LAGER);
+        return beer;
+    }
+}
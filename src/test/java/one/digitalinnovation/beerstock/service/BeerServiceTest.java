@@ -1,12 +1,18 @@
 package one.digitalinnovation.beerstock.service;
 
 import com.sun.source.tree.ModuleTree;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import one.digitalinnovation.beerstock.builder.BeerDTOBuilder;
+import one.digitalinnovation.beerstock.config.CoalescingProperties;
+import one.digitalinnovation.beerstock.config.OutboxProperties;
+import one.digitalinnovation.beerstock.config.StockWriteProperties;
 import one.digitalinnovation.beerstock.dto.BeerDTO;
+import one.digitalinnovation.beerstock.dto.BeerFilterDTO;
 import one.digitalinnovation.beerstock.entity.Beer;
 import one.digitalinnovation.beerstock.exception.BeerAlreadyRegisteredException;
 import one.digitalinnovation.beerstock.exception.BeerNotFoundException;
 import one.digitalinnovation.beerstock.exception.BeerStockExceededException;
+import one.digitalinnovation.beerstock.exception.BeerVersionMismatchException;
 import one.digitalinnovation.beerstock.mapper.BeerMapper;
 import one.digitalinnovation.beerstock.repository.BeerRepository;
 import org.hamcrest.MatcherAssert;
@@ -14,15 +20,23 @@ import org.hamcrest.Matchers;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
 
+import javax.persistence.EntityManager;
 import javax.swing.text.html.Option;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 import static org.hamcrest.MatcherAssert.*;
 import static org.hamcrest.MatcherAssert.assertThat;
@@ -45,6 +59,40 @@ public class BeerServiceTest {
     @Mock
     private BeerRepository beerRepository;
 
+    @Mock
+    private StockDeltaBuffer stockDeltaBuffer;
+
+    @Mock
+    private EntityManager entityManager;
+
+    @Mock
+    private BeerNameCache beerNameCache;
+
+    @Mock
+    private BeerNameFilter beerNameFilter;
+
+    @Mock
+    private InventoryStats inventoryStats;
+
+    @Mock
+    private StockHistory stockHistory;
+
+    @Mock
+    private BeerMutationListener beerMutationListener;
+
+    @Spy
+    private CatalogVersion catalogVersion = new CatalogVersion();
+
+    @Spy
+    private StockRetryPolicy stockRetryPolicy = new StockRetryPolicy(new StockWriteProperties(), new SimpleMeterRegistry());
+
+    @Spy
+    private RequestCoalescer requestCoalescer = new RequestCoalescer(new CoalescingProperties(), new SimpleMeterRegistry());
+
+    //Outbox desligado: as mutações rodam direto no repositório, como antes
+    @Spy
+    private BeerOutbox beerOutbox = new BeerOutbox(new OutboxProperties(), null, null);
+
     private BeerMapper beerMapper = BeerMapper.INSTANCE;
 
     @InjectMocks
@@ -60,8 +108,9 @@ public class BeerServiceTest {
         //O 'when' determina qual método que esperamos ser chamado no futuro e com quais atributos
         //O 'thenReturn' diz qual será o valor retornado quando 'when' for chamado
         //Configura o que deve ser feito quando parâmetros do 'when' acontecer
+        Mockito.when(beerNameFilter.mightBeRegistered(expectedSavedBeer.getName())).thenReturn(true);
         Mockito.when(beerRepository.findByName(expectedSavedBeer.getName())).thenReturn(Optional.empty());
-        Mockito.when(beerRepository.save(expectedSavedBeer)).thenReturn(expectedSavedBeer);
+        Mockito.when(beerRepository.save(withoutId(beerDTO))).thenReturn(expectedSavedBeer);
 
         //then
         BeerDTO createdBeerDTO = beerService.createBeer(beerDTO);
@@ -85,6 +134,7 @@ public class BeerServiceTest {
         Beer beer = beerMapper.toModel(beerDTO);
 
         //when -> Configura para que, quando pesquisar por nome, retorne cerveja já existente
+        Mockito.when(beerNameFilter.mightBeRegistered(beer.getName())).thenReturn(true);
         Mockito.when(beerRepository.findByName(beer.getName())).thenReturn(Optional.of(beer));
 
         //then
@@ -93,6 +143,50 @@ public class BeerServiceTest {
 
     }
 
+    //Nome que o filtro não conhece vai direto para o insert, sem consulta prévia
+    @Test
+    void whenBeerNameIsNotInTheFilterThenItIsCreatedWithoutPreQuery() throws BeerAlreadyRegisteredException {
+        BeerDTO beerDTO = BeerDTOBuilder.builder().build().toBeerDTO();
+        Beer expectedSavedBeer = beerMapper.toModel(beerDTO);
+
+        when(beerNameFilter.mightBeRegistered(beerDTO.getName())).thenReturn(false);
+        when(beerRepository.save(withoutId(beerDTO))).thenReturn(expectedSavedBeer);
+
+        beerService.createBeer(beerDTO);
+
+        verify(beerRepository, never()).findByName(anyString());
+        verify(beerMutationListener).created(beerDTO);
+    }
+
+    //Outro create registrou o mesmo nome entre o filtro e o insert: a violação da unique vira BeerAlreadyRegistered
+    @Test
+    void whenUniqueConstraintIsViolatedThenAnExceptionShouldBeThrown() {
+        BeerDTO beerDTO = BeerDTOBuilder.builder().build().toBeerDTO();
+        Beer beer = beerMapper.toModel(beerDTO);
+
+        when(beerNameFilter.mightBeRegistered(beerDTO.getName())).thenReturn(false);
+        when(beerRepository.save(withoutId(beerDTO))).thenThrow(new DataIntegrityViolationException("unique name"));
+        when(beerRepository.findByName(beerDTO.getName())).thenReturn(Optional.of(beer));
+
+        assertThrows(BeerAlreadyRegisteredException.class, () -> beerService.createBeer(beerDTO));
+        verify(beerMutationListener, never()).created(Mockito.any(BeerDTO.class));
+    }
+
+    //Um id vindo do cliente não pode chegar ao save, senão o merge sobrescreveria a cerveja com esse id
+    @Test
+    void whenBeerIsCreatedWithAnIdThenTheIdIsIgnored() throws BeerAlreadyRegisteredException {
+        BeerDTO beerDTO = BeerDTOBuilder.builder().id(7L).build().toBeerDTO();
+        Beer savedBeer = beerMapper.toModel(beerDTO);
+        savedBeer.setId(42L);
+
+        when(beerNameFilter.mightBeRegistered(beerDTO.getName())).thenReturn(false);
+        when(beerRepository.save(withoutId(beerDTO))).thenReturn(savedBeer);
+
+        BeerDTO createdBeerDTO = beerService.createBeer(beerDTO);
+
+        assertThat(createdBeerDTO.getId(), is(equalTo(42L)));
+    }
+
     //Valida retorno de cerveja ao pesquisar por nome
     @Test
     void whenValidBeerNameIsGivenThenReturnABeer() throws BeerNotFoundException {
@@ -109,6 +203,35 @@ public class BeerServiceTest {
 
     }
 
+    //Com o cache preenchido a consulta não vai ao banco
+    @Test
+    void whenCachedBeerNameIsGivenThenReturnTheCachedBeer() throws BeerNotFoundException {
+        BeerDTO expectedBeerDTO = BeerDTOBuilder.builder().build().toBeerDTO();
+
+        when(beerNameCache.get(expectedBeerDTO.getName())).thenReturn(Optional.of(expectedBeerDTO));
+
+        BeerDTO returnedBeer = beerService.findByName(expectedBeerDTO.getName());
+
+        assertEquals(expectedBeerDTO, returnedBeer);
+        verify(beerRepository, never()).findByName(anyString());
+    }
+
+    //Modo estrito: campos estáticos do cache, quantidade sempre do banco
+    @Test
+    void whenStrictQuantityIsEnabledThenQuantityComesFromTheStore() throws BeerNotFoundException {
+        BeerDTO cachedBeerDTO = BeerDTOBuilder.builder().build().toBeerDTO();
+        int storedQuantity = cachedBeerDTO.getQuantity() + 5;
+
+        when(beerNameCache.get(cachedBeerDTO.getName())).thenReturn(Optional.of(cachedBeerDTO));
+        when(beerNameCache.isStrictQuantity()).thenReturn(true);
+        when(beerRepository.findQuantityById(cachedBeerDTO.getId())).thenReturn(Optional.of(storedQuantity));
+
+        BeerDTO returnedBeer = beerService.findByName(cachedBeerDTO.getName());
+
+        assertThat(returnedBeer.getQuantity(), is(equalTo(storedQuantity)));
+        assertThat(returnedBeer.getBrand(), is(equalTo(cachedBeerDTO.getBrand())));
+    }
+
     //Teste para validar se a exceção BeerNotFound é mostrada quando o nome de uma
     //cerveja não está cadastrado
     @Test
@@ -130,10 +253,11 @@ public class BeerServiceTest {
         Beer beer = beerMapper.toModel(beerDTO);
 
         //when
-        when(beerRepository.findAll()).thenReturn(Collections.singletonList(beer));
+        when(beerRepository.findByIdGreaterThanOrderByIdAsc(0L, PageRequest.of(0, 100)))
+                .thenReturn(Collections.singletonList(beer));
 
         //then
-        List<BeerDTO> foundBeers = beerService.listAll();
+        List<BeerDTO> foundBeers = beerService.listAll(0L, 100);
 
         assertTrue(foundBeers.size() > 0);
         assertThat(foundBeers, is(not(empty())));
@@ -144,15 +268,44 @@ public class BeerServiceTest {
     @Test
     void whenListBeerIsCalledThenReturnEmptyListOfBeers() {
         //when
-        when(beerRepository.findAll()).thenReturn(Collections.emptyList());
+        when(beerRepository.findByIdGreaterThanOrderByIdAsc(0L, PageRequest.of(0, 100)))
+                .thenReturn(Collections.emptyList());
 
         //then
-        List<BeerDTO> foundBeers = beerService.listAll();
+        List<BeerDTO> foundBeers = beerService.listAll(0L, 100);
 
         assertThat(foundBeers, is(empty()));
         assertTrue(foundBeers.size() == 0);
     }
 
+    //Cada cerveja é entregue ao consumer e desanexada do contexto de persistência
+    @Test
+    void whenSearchIsCalledThenReturnFilteredBeers() {
+        BeerDTO expectedFoundBeerDTO = BeerDTOBuilder.builder().build().toBeerDTO();
+        Beer expectedFoundBeer = beerMapper.toModel(expectedFoundBeerDTO);
+        BeerFilterDTO filter = BeerFilterDTO.builder().brand(expectedFoundBeerDTO.getBrand()).build();
+
+        when(beerRepository.search(any(), eq(0L), eq(100))).thenReturn(Collections.singletonList(expectedFoundBeer));
+
+        List<BeerDTO> foundBeerDTOs = beerService.search(filter, 0L, 100);
+
+        assertThat(foundBeerDTOs, contains(expectedFoundBeerDTO));
+    }
+
+    @Test
+    void whenStreamIsCalledThenEachBeerIsMappedAndDetached() {
+        BeerDTO beerDTO = BeerDTOBuilder.builder().build().toBeerDTO();
+        Beer beer = beerMapper.toModel(beerDTO);
+
+        when(beerRepository.streamAllOrderedById()).thenReturn(Stream.of(beer));
+
+        List<BeerDTO> streamedBeers = new ArrayList<>();
+        beerService.streamAll(streamedBeers::add);
+
+        assertThat(streamedBeers, contains(beerDTO));
+        verify(entityManager, times(1)).detach(beer);
+    }
+
 
     @Test
     void whenExclusionIsCalledWithAValidIdThenABeerShouldBeDeleted() throws BeerNotFoundException {
@@ -170,6 +323,7 @@ public class BeerServiceTest {
         //Verifica se deletou a cerveja com a passagem no método findById e deleteById
         verify(beerRepository, times(1)).findById(beer.getId());
         verify(beerRepository, times(1)).deleteById(beer.getId());
+        verify(beerMutationListener, times(1)).deleted(beerDTO);
 
     }
 
@@ -191,13 +345,13 @@ public class BeerServiceTest {
         BeerDTO expectedBeerDTO = BeerDTOBuilder.builder().build().toBeerDTO();
         Beer expectedBeer = beerMapper.toModel(expectedBeerDTO);
 
-        //when
-        when(beerRepository.findById(expectedBeerDTO.getId())).thenReturn(Optional.of(expectedBeer));
-        when(beerRepository.save(expectedBeer)).thenReturn(expectedBeer);
-
-
         int quantityToIncrement = 10;
         int expectedQuantityAfterIncrement = expectedBeerDTO.getQuantity() + quantityToIncrement;
+        expectedBeer.setQuantity(expectedQuantityAfterIncrement);
+
+        //when -> o update condicional altera uma linha e a releitura traz o estoque já incrementado
+        when(beerRepository.incrementQuantity(expectedBeerDTO.getId(), quantityToIncrement)).thenReturn(1);
+        when(beerRepository.findById(expectedBeerDTO.getId())).thenReturn(Optional.of(expectedBeer));
 
         //then
         BeerDTO incrementedBeerDTO = beerService.increment(expectedBeerDTO.getId(), quantityToIncrement);
@@ -207,16 +361,54 @@ public class BeerServiceTest {
     }
 
     //Quantidade existente + quantidade para adicionar <= Quantidade Máxima
+    //O listener recebe a quantidade relida do banco, não a calculada a partir do pedido
+    @Test
+    void whenIncrementIsCalledThenTheMutationListenerIsNotified() throws BeerNotFoundException, BeerStockExceededException {
+        BeerDTO expectedBeerDTO = BeerDTOBuilder.builder().build().toBeerDTO();
+        Beer expectedBeer = beerMapper.toModel(expectedBeerDTO);
+        int quantityToIncrement = 10;
+        expectedBeer.setQuantity(expectedBeerDTO.getQuantity() + quantityToIncrement);
+
+        when(beerRepository.incrementQuantity(expectedBeerDTO.getId(), quantityToIncrement)).thenReturn(1);
+        when(beerRepository.findById(expectedBeerDTO.getId())).thenReturn(Optional.of(expectedBeer));
+
+        BeerDTO incrementedBeerDTO = beerService.increment(expectedBeerDTO.getId(), quantityToIncrement);
+
+        verify(beerMutationListener).stockChanged(incrementedBeerDTO, quantityToIncrement);
+    }
+
+    //O listener recebe a versão gravada pelo update, que o replay do journal usa para descartar registros fora de ordem
+    @Test
+    void whenIncrementIsCalledThenTheStoredVersionIsPassedToTheListener() throws BeerNotFoundException, BeerStockExceededException {
+        BeerDTO expectedBeerDTO = BeerDTOBuilder.builder().build().toBeerDTO();
+        Beer expectedBeer = beerMapper.toModel(expectedBeerDTO);
+        int quantityToIncrement = 10;
+        expectedBeer.setQuantity(expectedBeerDTO.getQuantity() + quantityToIncrement);
+        expectedBeer.setVersion(4L);
+
+        when(beerRepository.incrementQuantity(expectedBeerDTO.getId(), quantityToIncrement)).thenReturn(1);
+        when(beerRepository.findById(expectedBeerDTO.getId())).thenReturn(Optional.of(expectedBeer));
+
+        beerService.increment(expectedBeerDTO.getId(), quantityToIncrement);
+
+        ArgumentCaptor<BeerDTO> changedBeer = ArgumentCaptor.forClass(BeerDTO.class);
+        verify(beerMutationListener).stockChanged(changedBeer.capture(), eq(quantityToIncrement));
+        assertThat(changedBeer.getValue().getQuantity(), is(equalTo(expectedBeer.getQuantity())));
+        assertThat(changedBeer.getValue().getVersion(), is(equalTo(4L)));
+    }
+
     @Test
     void whenIncrementIsGreaterThanMaxThenThrowException() {
         BeerDTO beerDTO = BeerDTOBuilder.builder().build().toBeerDTO();
         Beer beer = beerMapper.toModel(beerDTO);
 
-        //when -> verifyIfExists() em BeerService
+        int quantityToIncrement = 80;
+
+        //when -> nenhuma linha alterada, mas a cerveja existe: capacidade excedida
+        when(beerRepository.incrementQuantity(beer.getId(), quantityToIncrement)).thenReturn(0);
         when(beerRepository.findById(beer.getId())).thenReturn(Optional.of(beer));
 
         //then
-        int quantityToIncrement = 80;
         assertThrows(BeerStockExceededException.class, () -> beerService.increment(beerDTO.getId(),
                 quantityToIncrement));
 
@@ -228,66 +420,169 @@ public class BeerServiceTest {
         BeerDTO beerDTO = BeerDTOBuilder.builder().build().toBeerDTO();
         Beer beer = beerMapper.toModel(beerDTO);
 
+        int quantityToIncrement = 45;
+
         //when
+        when(beerRepository.incrementQuantity(beer.getId(), quantityToIncrement)).thenReturn(0);
         when(beerRepository.findById(beer.getId())).thenReturn(Optional.of(beer));
 
-        int quantityToIncrement = 45;
-
         assertThrows(BeerStockExceededException.class,
                 () -> beerService.increment(beer.getId(), quantityToIncrement));
 
     }
 
+    //Em modo write-behind o incremento vai para o buffer e não toca o repositório
+    @Test
+    void whenWriteBehindIsEnabledThenIncrementIsBufferedInsteadOfUpdated() throws BeerNotFoundException, BeerStockExceededException {
+        BeerDTO expectedBeerDTO = BeerDTOBuilder.builder().build().toBeerDTO();
+        int quantityToIncrement = 10;
+
+        when(stockDeltaBuffer.isEnabled()).thenReturn(true);
+        when(stockDeltaBuffer.accept(expectedBeerDTO.getId(), quantityToIncrement)).thenReturn(expectedBeerDTO);
+
+        BeerDTO incrementedBeerDTO = beerService.increment(expectedBeerDTO.getId(), quantityToIncrement);
+
+        assertThat(incrementedBeerDTO, is(equalTo(expectedBeerDTO)));
+        verify(beerRepository, never()).incrementQuantity(anyLong(), anyInt());
+        //O listener só é avisado pelo flush, quando o delta chega ao banco
+        verify(beerMutationListener, never()).stockChanged(Mockito.any(BeerDTO.class), anyInt());
+    }
+
+    //Nenhuma linha alterada e a cerveja não existe: deve retornar BeerNotFound e não capacidade excedida
+    //If-Match com versão antiga: o update condicional não altera a linha e a versão atual é diferente da esperada
+    @Test
+    void whenIncrementIsCalledWithAStaleVersionThenAnExceptionShouldBeThrown() {
+        BeerDTO beerDTO = BeerDTOBuilder.builder().build().toBeerDTO();
+        Beer beer = beerMapper.toModel(beerDTO);
+        beer.setVersion(3L);
+
+        when(beerRepository.incrementQuantityIfVersion(beerDTO.getId(), 5, 2L)).thenReturn(0);
+        when(beerRepository.findById(beerDTO.getId())).thenReturn(Optional.of(beer));
+
+        assertThrows(BeerVersionMismatchException.class, () -> beerService.increment(beerDTO.getId(), 5, 2L));
+        verify(beerMutationListener, never()).stockChanged(Mockito.any(BeerDTO.class), anyInt());
+    }
+
+    @Test
+    void whenIncrementIsCalledWithTheCurrentVersionThenStockIsUpdatedAndTheListenerNotified()
+            throws BeerNotFoundException, BeerStockExceededException, BeerVersionMismatchException {
+        BeerDTO beerDTO = BeerDTOBuilder.builder().build().toBeerDTO();
+        Beer incrementedBeer = beerMapper.toModel(beerDTO);
+        incrementedBeer.setQuantity(beerDTO.getQuantity() + 5);
+        incrementedBeer.setVersion(1L);
+
+        when(beerRepository.incrementQuantityIfVersion(beerDTO.getId(), 5, 0L)).thenReturn(1);
+        when(beerRepository.findById(beerDTO.getId())).thenReturn(Optional.of(incrementedBeer));
+
+        BeerDTO incrementedBeerDTO = beerService.increment(beerDTO.getId(), 5, 0L);
+
+        assertThat(incrementedBeerDTO.getVersion(), equalTo(1L));
+        verify(beerMutationListener).stockChanged(incrementedBeerDTO, 5);
+        verify(stockDeltaBuffer).applied(beerDTO.getId(), 5);
+    }
+
+    @Test
+    void whenExclusionIsCalledWithAStaleVersionThenTheBeerIsKept() {
+        BeerDTO beerDTO = BeerDTOBuilder.builder().build().toBeerDTO();
+        Beer beer = beerMapper.toModel(beerDTO);
+
+        when(beerRepository.findById(beer.getId())).thenReturn(Optional.of(beer));
+        when(beerRepository.deleteByIdIfVersion(beer.getId(), 7L)).thenReturn(0);
+
+        assertThrows(BeerVersionMismatchException.class, () -> beerService.deleteById(beer.getId(), 7L));
+        verify(beerMutationListener, never()).deleted(any());
+    }
+
+    @Test
+    void whenIncrementIsCalledWithInvalidIdThenThrowException() {
+        int quantityToIncrement = 10;
+
+        when(beerRepository.incrementQuantity(INVALID_BEER_ID, quantityToIncrement)).thenReturn(0);
+        when(beerRepository.findById(INVALID_BEER_ID)).thenReturn(Optional.empty());
+
+        assertThrows(BeerNotFoundException.class, () -> beerService.increment(INVALID_BEER_ID, quantityToIncrement));
+    }
+
+
+    @Test
+    void whenDecrementIsCalledThenDecrementBeerStock() throws BeerNotFoundException, BeerStockExceededException {
+        BeerDTO expectedBeerDTO = BeerDTOBuilder.builder().build().toBeerDTO();
+        Beer expectedBeer = beerMapper.toModel(expectedBeerDTO);
+
+        int quantityToDecrement = 5;
+        int expectedQuantityAfterDecrement = expectedBeerDTO.getQuantity() - quantityToDecrement;
+        expectedBeer.setQuantity(expectedQuantityAfterDecrement);
+
+        when(beerRepository.decrementQuantity(expectedBeerDTO.getId(), quantityToDecrement)).thenReturn(1);
+        when(beerRepository.findById(expectedBeerDTO.getId())).thenReturn(Optional.of(expectedBeer));
+
+        BeerDTO incrementedBeerDTO = beerService.decrement(expectedBeerDTO.getId(), quantityToDecrement);
+
+        assertThat(expectedQuantityAfterDecrement, equalTo(incrementedBeerDTO.getQuantity()));
+        assertThat(expectedQuantityAfterDecrement, greaterThan(0));
+    }
+
+    @Test
+    void whenDecrementIsCalledToEmptyStockThenEmptyBeerStock() throws BeerNotFoundException, BeerStockExceededException {
+        BeerDTO expectedBeerDTO = BeerDTOBuilder.builder().build().toBeerDTO();
+        Beer expectedBeer = beerMapper.toModel(expectedBeerDTO);
+
+        int quantityToDecrement = 10;
+        int expectedQuantityAfterDecrement = expectedBeerDTO.getQuantity() - quantityToDecrement;
+        expectedBeer.setQuantity(expectedQuantityAfterDecrement);
+
+        when(beerRepository.decrementQuantity(expectedBeerDTO.getId(), quantityToDecrement)).thenReturn(1);
+        when(beerRepository.findById(expectedBeerDTO.getId())).thenReturn(Optional.of(expectedBeer));
+
+        BeerDTO incrementedBeerDTO = beerService.decrement(expectedBeerDTO.getId(), quantityToDecrement);
+
+        assertThat(expectedQuantityAfterDecrement, equalTo(0));
+        assertThat(expectedQuantityAfterDecrement, equalTo(incrementedBeerDTO.getQuantity()));
+    }
+
+    //O update condicional não altera nenhuma linha quando o estoque ficaria negativo
+    @Test
+    void whenDecrementIsLowerThanZeroThenThrowException() {
+        BeerDTO expectedBeerDTO = BeerDTOBuilder.builder().build().toBeerDTO();
+        Beer expectedBeer = beerMapper.toModel(expectedBeerDTO);
+
+        int quantityToDecrement = 80;
+        when(beerRepository.decrementQuantity(expectedBeerDTO.getId(), quantityToDecrement)).thenReturn(0);
+        when(beerRepository.findById(expectedBeerDTO.getId())).thenReturn(Optional.of(expectedBeer));
+
+        assertThrows(BeerStockExceededException.class, () -> beerService.decrement(expectedBeerDTO.getId(), quantityToDecrement));
+    }
+
+    @Test
+    void whenDecrementIsCalledWithInvalidIdThenThrowException() {
+        int quantityToDecrement = 10;
+
+        when(beerRepository.decrementQuantity(INVALID_BEER_ID, quantityToDecrement)).thenReturn(0);
+        when(beerRepository.findById(INVALID_BEER_ID)).thenReturn(Optional.empty());
+
+        assertThrows(BeerNotFoundException.class, () -> beerService.decrement(INVALID_BEER_ID, quantityToDecrement));
+    }
 
-//    @Test
-//    void whenDecrementIsCalledThenDecrementBeerStock() throws BeerNotFoundException, BeerStockExceededException {
-//        BeerDTO expectedBeerDTO = BeerDTOBuilder.builder().build().toBeerDTO();
-//        Beer expectedBeer = beerMapper.toModel(expectedBeerDTO);
-//
-//        when(beerRepository.findById(expectedBeerDTO.getId())).thenReturn(Optional.of(expectedBeer));
-//        when(beerRepository.save(expectedBeer)).thenReturn(expectedBeer);
-//
-//        int quantityToDecrement = 5;
-//        int expectedQuantityAfterDecrement = expectedBeerDTO.getQuantity() - quantityToDecrement;
-//        BeerDTO incrementedBeerDTO = beerService.decrement(expectedBeerDTO.getId(), quantityToDecrement);
-//
-//        assertThat(expectedQuantityAfterDecrement, equalTo(incrementedBeerDTO.getQuantity()));
-//        assertThat(expectedQuantityAfterDecrement, greaterThan(0));
-//    }
-//
-//    @Test
-//    void whenDecrementIsCalledToEmptyStockThenEmptyBeerStock() throws BeerNotFoundException, BeerStockExceededException {
-//        BeerDTO expectedBeerDTO = BeerDTOBuilder.builder().build().toBeerDTO();
-//        Beer expectedBeer = beerMapper.toModel(expectedBeerDTO);
-//
-//        when(beerRepository.findById(expectedBeerDTO.getId())).thenReturn(Optional.of(expectedBeer));
-//        when(beerRepository.save(expectedBeer)).thenReturn(expectedBeer);
-//
-//        int quantityToDecrement = 10;
-//        int expectedQuantityAfterDecrement = expectedBeerDTO.getQuantity() - quantityToDecrement;
-//        BeerDTO incrementedBeerDTO = beerService.decrement(expectedBeerDTO.getId(), quantityToDecrement);
-//
-//        assertThat(expectedQuantityAfterDecrement, equalTo(0));
-//        assertThat(expectedQuantityAfterDecrement, equalTo(incrementedBeerDTO.getQuantity()));
-//    }
-//
-//    @Test
-//    void whenDecrementIsLowerThanZeroThenThrowException() {
-//        BeerDTO expectedBeerDTO = BeerDTOBuilder.builder().build().toBeerDTO();
-//        Beer expectedBeer = beerMapper.toModel(expectedBeerDTO);
-//
-//        when(beerRepository.findById(expectedBeerDTO.getId())).thenReturn(Optional.of(expectedBeer));
-//
-//        int quantityToDecrement = 80;
-//        assertThrows(BeerStockExceededException.class, () -> beerService.decrement(expectedBeerDTO.getId(), quantityToDecrement));
-//    }
-//
-//    @Test
-//    void whenDecrementIsCalledWithInvalidIdThenThrowException() {
-//        int quantityToDecrement = 10;
-//
-//        when(beerRepository.findById(INVALID_BEER_ID)).thenReturn(Optional.empty());
-//
-//        assertThrows(BeerNotFoundException.class, () -> beerService.decrement(INVALID_BEER_ID, quantityToDecrement));
-//    }
+    //Falha transitória de lock é repetida pela política de retry antes de desistir
+    @Test
+    void whenDecrementHitsALockFailureThenItIsRetried() throws BeerNotFoundException, BeerStockExceededException {
+        BeerDTO expectedBeerDTO = BeerDTOBuilder.builder().build().toBeerDTO();
+        Beer expectedBeer = beerMapper.toModel(expectedBeerDTO);
+        int quantityToDecrement = 5;
+
+        when(beerRepository.decrementQuantity(expectedBeerDTO.getId(), quantityToDecrement))
+                .thenThrow(new CannotAcquireLockException("lock timeout"))
+                .thenReturn(1);
+        when(beerRepository.findById(expectedBeerDTO.getId())).thenReturn(Optional.of(expectedBeer));
+
+        beerService.decrement(expectedBeerDTO.getId(), quantityToDecrement);
+
+        verify(beerRepository, times(2)).decrementQuantity(expectedBeerDTO.getId(), quantityToDecrement);
+    }
+
+    private Beer withoutId(BeerDTO beerDTO) {
+        Beer beer = beerMapper.toModel(beerDTO);
+        beer.setId(null);
+        return beer;
+    }
 }
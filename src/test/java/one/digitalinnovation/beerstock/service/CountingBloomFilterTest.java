@@ -0,0 +1,56 @@
+package one.digitalinnovation.beerstock.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.lessThan;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CountingBloomFilterTest {
+
+    private static final int NAMES = 10_000;
+
+    @Test
+    void whenNamesAreAddedThenTheyAreAlwaysFound() {
+        CountingBloomFilter filter = new CountingBloomFilter(NAMES, 0.01);
+        for (int i = 0; i < NAMES; i++) {
+            filter.add("Beer " + i);
+        }
+
+        for (int i = 0; i < NAMES; i++) {
+            assertTrue(filter.mightContain("Beer " + i));
+        }
+        assertThat(filter.entries(), equalTo((long) NAMES));
+    }
+
+    //Taxa medida deve ficar perto da configurada; margem folgada para não depender do hash
+    @Test
+    void whenFilterIsFullThenFalsePositiveRateStaysNearTheConfiguredOne() {
+        CountingBloomFilter filter = new CountingBloomFilter(NAMES, 0.01);
+        for (int i = 0; i < NAMES; i++) {
+            filter.add("Beer " + i);
+        }
+
+        int falsePositives = 0;
+        for (int i = 0; i < NAMES; i++) {
+            if (filter.mightContain("Unknown " + i)) {
+                falsePositives++;
+            }
+        }
+        assertThat((double) falsePositives / NAMES, lessThan(0.03));
+    }
+
+    @Test
+    void whenNameIsRemovedThenItIsNoLongerFound() {
+        CountingBloomFilter filter = new CountingBloomFilter(NAMES, 0.01);
+        filter.add("Brahma");
+        filter.add("Skol");
+
+        filter.remove("Brahma");
+
+        assertFalse(filter.mightContain("Brahma"));
+        assertTrue(filter.mightContain("Skol"));
+    }
+}
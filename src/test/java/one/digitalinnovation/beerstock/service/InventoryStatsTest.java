@@ -0,0 +1,128 @@
+package one.digitalinnovation.beerstock.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import one.digitalinnovation.beerstock.config.MetricsProperties;
+import one.digitalinnovation.beerstock.dto.InventoryStatsDTO;
+import one.digitalinnovation.beerstock.enums.BeerType;
+import one.digitalinnovation.beerstock.repository.BeerRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class InventoryStatsTest {
+
+    private static final Instant NOW = Instant.parse("2026-01-01T10:00:00Z");
+
+    @Mock
+    private BeerRepository beerRepository;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private InventoryStats inventoryStats;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        inventoryStats = new InventoryStats(beerRepository, meterRegistry, new MetricsProperties(), Clock.fixed(NOW, ZoneOffset.UTC));
+    }
+
+    @Test
+    void whenBeersAreCreatedAndDeletedThenTotalsFollow() {
+        inventoryStats.created(BeerType.LAGER, "Ambev", 10, 50);
+        inventoryStats.created(BeerType.IPA, "Colorado", 20, 20);
+        inventoryStats.deleted(BeerType.LAGER, "Ambev", 10, 50);
+
+        InventoryStatsDTO stats = inventoryStats.snapshot();
+
+        assertThat(stats.getTotalUnits(), equalTo(20L));
+        assertThat(stats.getUnitsByType().get(BeerType.IPA), equalTo(20L));
+        assertThat(stats.getUnitsByType().get(BeerType.LAGER), equalTo(0L));
+        assertThat(stats.getUnitsByBrand().get("Colorado"), equalTo(20L));
+        assertThat(stats.getBeersAtCapacity(), equalTo(1L));
+    }
+
+    //Só a passagem pelo max altera a contagem de cervejas cheias
+    @Test
+    void whenStockCrossesMaxThenBeersAtCapacityIsUpdated() {
+        inventoryStats.created(BeerType.LAGER, "Ambev", 40, 50);
+
+        inventoryStats.stockChanged(BeerType.LAGER, "Ambev", 50, 10, 50);
+        assertThat(inventoryStats.snapshot().getBeersAtCapacity(), equalTo(1L));
+
+        inventoryStats.stockChanged(BeerType.LAGER, "Ambev", 45, -5, 50);
+        assertThat(inventoryStats.snapshot().getBeersAtCapacity(), equalTo(0L));
+        assertThat(inventoryStats.snapshot().getTotalUnits(), equalTo(45L));
+    }
+
+    //Perto do max com o ratio padrão de 0.9: 45 de 50 entra, 44 não
+    @Test
+    void whenStockCrossesTheNearMaxRatioThenBeersNearMaxIsUpdated() {
+        inventoryStats.created(BeerType.LAGER, "Ambev", 40, 50);
+        assertThat(inventoryStats.beersNearMax(), equalTo(0L));
+
+        inventoryStats.stockChanged(BeerType.LAGER, "Ambev", 45, 5, 50);
+        assertThat(inventoryStats.beersNearMax(), equalTo(1L));
+
+        inventoryStats.stockChanged(BeerType.LAGER, "Ambev", 44, -1, 50);
+        assertThat(inventoryStats.beersNearMax(), equalTo(0L));
+        assertThat(inventoryStats.totalUnits(), equalTo(44L));
+
+        inventoryStats.created(BeerType.IPA, "Colorado", 20, 20);
+        inventoryStats.deleted(BeerType.IPA, "Colorado", 20, 20);
+        assertThat(inventoryStats.beersNearMax(), equalTo(0L));
+    }
+
+    //Escritas que não passaram pelos agregados (feitas fora da aplicação) são corrigidas pelo banco
+    @Test
+    void whenReconcilingThenTotalsAreReplacedByTheDatabaseAggregates() {
+        inventoryStats.created(BeerType.LAGER, "Ambev", 40, 50);
+
+        when(beerRepository.sumQuantitiesByType()).thenReturn(List.<Object[]>of(new Object[]{BeerType.LAGER, 35L}));
+        when(beerRepository.sumQuantitiesByBrand()).thenReturn(List.<Object[]>of(new Object[]{"Ambev", 35L}));
+        when(beerRepository.countAtCapacity()).thenReturn(0L);
+        when(beerRepository.countNearMax(0.9)).thenReturn(0L);
+
+        inventoryStats.reconcile();
+
+        InventoryStatsDTO stats = inventoryStats.snapshot();
+        assertThat(stats.getTotalUnits(), equalTo(35L));
+        assertThat(stats.getUnitsByBrand(), equalTo(Map.of("Ambev", 35L)));
+        assertThat(stats.getReconciledAt(), equalTo(NOW));
+        assertThat(meterRegistry.counter("beerstock.stats.reconciliations", "result", "drift").count(), equalTo(1.0));
+    }
+
+    //Um delta aplicado enquanto o GROUP BY roda não está no resultado do banco e é reaplicado antes da troca
+    @Test
+    void whenStockChangesDuringTheReconciliationThenTheDeltaIsNotLost() {
+        inventoryStats.created(BeerType.LAGER, "Ambev", 40, 50);
+
+        when(beerRepository.sumQuantitiesByType()).thenReturn(List.<Object[]>of(new Object[]{BeerType.LAGER, 40L}));
+        when(beerRepository.sumQuantitiesByBrand()).thenAnswer(invocation -> {
+            inventoryStats.stockChanged(BeerType.LAGER, "Ambev", 50, 10, 50);
+            return List.<Object[]>of(new Object[]{"Ambev", 40L});
+        });
+        when(beerRepository.countAtCapacity()).thenReturn(0L);
+
+        inventoryStats.reconcile();
+
+        InventoryStatsDTO stats = inventoryStats.snapshot();
+        assertThat(stats.getTotalUnits(), equalTo(50L));
+        assertThat(stats.getUnitsByType().get(BeerType.LAGER), equalTo(50L));
+        assertThat(stats.getUnitsByBrand(), equalTo(Map.of("Ambev", 50L)));
+        assertThat(stats.getBeersAtCapacity(), equalTo(1L));
+        assertThat(meterRegistry.counter("beerstock.stats.reconciliations", "result", "consistent").count(), equalTo(1.0));
+    }
+}
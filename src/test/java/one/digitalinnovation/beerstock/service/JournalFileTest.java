@@ -0,0 +1,194 @@
+package one.digitalinnovation.beerstock.service;
+
+import one.digitalinnovation.beerstock.enums.BeerType;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.OptionalLong;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.lessThan;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class JournalFileTest {
+
+    private static final int SEGMENT_SIZE = 256 * 1024;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void whenJournalIsReopenedThenRecordsAreReplayedInOrder() throws IOException {
+        try (JournalFile journalFile = JournalFile.open(directory, SEGMENT_SIZE, 1L, record -> { })) {
+            journalFile.append(JournalRecord.created(1L, 0L, "Brahma", "Ambev", 50, 10, BeerType.LAGER));
+            journalFile.append(JournalRecord.stockChanged(1L, 1L, 20));
+            journalFile.append(JournalRecord.deleted(1L, 1L));
+        }
+
+        List<JournalRecord> replayed = new ArrayList<>();
+        try (JournalFile journalFile = JournalFile.open(directory, SEGMENT_SIZE, 1L, replayed::add)) {
+            assertThat(journalFile.nextSequence(), equalTo(4L));
+        }
+
+        assertThat(replayed.stream().map(JournalRecord::getType).collect(Collectors.toList()),
+                contains(JournalRecord.Type.CREATED, JournalRecord.Type.STOCK_CHANGED, JournalRecord.Type.DELETED));
+        assertThat(replayed.get(0).getName(), equalTo("Brahma"));
+        assertThat(replayed.get(0).getBeerType(), equalTo(BeerType.LAGER));
+        assertThat(replayed.get(1).getQuantity(), equalTo(20));
+    }
+
+    //Reserva e devolução gravam quantidade e versão como qualquer alteração de estoque; fora de ordem, vale a versão maior
+    @Test
+    void whenReservationChangesAreReplayedThenTheStockOfTheLatestVersionIsRestored() throws IOException {
+        try (JournalFile journalFile = JournalFile.open(directory, SEGMENT_SIZE, 1L, record -> { })) {
+            journalFile.append(JournalRecord.created(1L, 0L, "Brahma", "Ambev", 50, 20, BeerType.LAGER));
+            journalFile.append(JournalRecord.stockChanged(1L, 2L, 20));
+            journalFile.append(JournalRecord.stockChanged(1L, 1L, 15));
+        }
+
+        JournalState state = new JournalState();
+        try (JournalFile journalFile = JournalFile.open(directory, SEGMENT_SIZE, 1L, state::apply)) {
+            assertThat(journalFile.nextSequence(), equalTo(4L));
+        }
+
+        assertThat(state.beers().iterator().next().getQuantity(), equalTo(20));
+        assertThat(state.beers().iterator().next().getVersion(), equalTo(2L));
+    }
+
+    //Uma queda no meio da escrita deixa um registro com CRC inválido no fim do último segmento
+    @Test
+    void whenTheLastRecordIsTornThenItIsDiscardedAndOverwritten() throws IOException {
+        try (JournalFile journalFile = JournalFile.open(directory, SEGMENT_SIZE, 1L, record -> { })) {
+            journalFile.append(JournalRecord.stockChanged(1L, 1L, 10));
+            journalFile.append(JournalRecord.stockChanged(1L, 2L, 20));
+        }
+        Path segment = segments().get(0);
+        try (RandomAccessFile file = new RandomAccessFile(segment.toFile(), "rw")) {
+            //Corrompe o último byte do payload do segundo registro
+            int recordSize = (int) (firstFreeOffset(segment) / 2);
+            file.seek(recordSize * 2L - 1);
+            file.write(0x7f);
+        }
+
+        List<JournalRecord> replayed = new ArrayList<>();
+        try (JournalFile journalFile = JournalFile.open(directory, SEGMENT_SIZE, 1L, replayed::add)) {
+            assertThat(journalFile.nextSequence(), equalTo(2L));
+            journalFile.append(JournalRecord.stockChanged(1L, 3L, 30));
+        }
+        replayed.clear();
+        try (JournalFile journalFile = JournalFile.open(directory, SEGMENT_SIZE, 1L, replayed::add)) {
+            assertThat(journalFile.nextSequence(), equalTo(3L));
+        }
+
+        assertThat(replayed.stream().map(JournalRecord::getQuantity).collect(Collectors.toList()), contains(10, 30));
+    }
+
+    @Test
+    void whenSegmentIsFullThenJournalRollsAndSnapshotAllowsDeletingOldSegments() throws IOException {
+        int records = 20_000;
+        try (JournalFile journalFile = JournalFile.open(directory, SEGMENT_SIZE, 1L, record -> { })) {
+            for (int i = 1; i <= records; i++) {
+                journalFile.append(JournalRecord.stockChanged(1L, i, i % 100));
+            }
+            assertThat(segments().size(), greaterThan(1));
+
+            journalFile.deleteSegmentsBefore(records - 10L);
+            assertThat(segments(), hasSize(1));
+        }
+
+        List<JournalRecord> replayed = new ArrayList<>();
+        try (JournalFile journalFile = JournalFile.open(directory, SEGMENT_SIZE, records - 10L, replayed::add)) {
+            assertThat(journalFile.nextSequence(), equalTo(records + 1L));
+        }
+        assertThat(replayed, hasSize(11));
+        assertThat(replayed.get(0).getVersion(), equalTo(records - 10L));
+    }
+
+    @Test
+    void whenSegmentInTheMiddleIsCorruptedThenOpenFails() throws IOException {
+        try (JournalFile journalFile = JournalFile.open(directory, SEGMENT_SIZE, 1L, record -> { })) {
+            for (int i = 1; i <= 20_000; i++) {
+                journalFile.append(JournalRecord.stockChanged(1L, i, 1));
+            }
+        }
+        try (RandomAccessFile file = new RandomAccessFile(segments().get(0).toFile(), "rw")) {
+            file.seek(20);
+            file.write(0x7f);
+        }
+
+        assertThrows(IllegalStateException.class, () -> JournalFile.open(directory, SEGMENT_SIZE, 1L, record -> { }));
+    }
+
+    //Snapshot mais cauda: o create repetido na cauda e o update atrasado perdem para o estado de versão maior
+    @Test
+    void whenSnapshotIsReadThenTheTailIsAppliedByVersion() throws IOException {
+        try (JournalSnapshot.Writer snapshotWriter = JournalSnapshot.Writer.create(directory, 3L)) {
+            snapshotWriter.write(JournalRecord.created(1L, 2L, "Brahma", "Ambev", 50, 12, BeerType.LAGER));
+            snapshotWriter.write(JournalRecord.created(2L, 0L, "Colorado", "Ambev", 50, 5, BeerType.IPA));
+            snapshotWriter.commit();
+        }
+        try (JournalFile journalFile = JournalFile.open(directory, SEGMENT_SIZE, 1L, record -> { })) {
+            journalFile.append(JournalRecord.created(1L, 0L, "Brahma", "Ambev", 50, 10, BeerType.LAGER));
+            journalFile.append(JournalRecord.stockChanged(1L, 2L, 12));
+            journalFile.append(JournalRecord.created(1L, 0L, "Brahma", "Ambev", 50, 10, BeerType.LAGER));
+            journalFile.append(JournalRecord.stockChanged(1L, 1L, 11));
+            journalFile.append(JournalRecord.stockChanged(2L, 1L, 6));
+            journalFile.append(JournalRecord.deleted(3L, 0L));
+        }
+
+        JournalState state = new JournalState();
+        OptionalLong fromSequence = JournalSnapshot.read(directory, state::apply);
+        try (JournalFile journalFile = JournalFile.open(directory, SEGMENT_SIZE, fromSequence.getAsLong(), state::apply)) {
+            assertThat(journalFile.nextSequence(), equalTo(7L));
+        }
+
+        assertThat(state.size(), equalTo(2));
+        assertThat(quantityOf(state, 1L), equalTo(12));
+        assertThat(quantityOf(state, 2L), equalTo(6));
+        assertThat(state.highestId(), equalTo(3L));
+    }
+
+    private int quantityOf(JournalState state, long beerId) {
+        return state.beers().stream()
+                .filter(beer -> beer.getBeerId() == beerId)
+                .findFirst()
+                .orElseThrow()
+                .getQuantity();
+    }
+
+    //Registros de mesmo tipo têm o mesmo tamanho, e o primeiro tamanho zero marca o fim do segmento
+    private long firstFreeOffset(Path segment) throws IOException {
+        byte[] bytes = Files.readAllBytes(segment);
+        int offset = 0;
+        while (offset + 4 <= bytes.length) {
+            int length = ((bytes[offset] & 0xff) << 24) | ((bytes[offset + 1] & 0xff) << 16)
+                    | ((bytes[offset + 2] & 0xff) << 8) | (bytes[offset + 3] & 0xff);
+            if (length == 0) {
+                break;
+            }
+            offset += 8 + length;
+        }
+        assertThat(offset, lessThan(bytes.length));
+        return offset;
+    }
+
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.getFileName().toString().endsWith(".log"))
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package one.digitalinnovation.beerstock.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import one.digitalinnovation.beerstock.config.OutboxProperties;
+import one.digitalinnovation.beerstock.dto.OutboxEventDTO;
+import one.digitalinnovation.beerstock.entity.OutboxEvent;
+import one.digitalinnovation.beerstock.enums.BeerEventType;
+import one.digitalinnovation.beerstock.repository.OutboxEventRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.startsWith;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class OutboxRelayTest {
+
+    private static final int BATCH_SIZE = 2;
+    private static final int PARTITIONS = 2;
+    private static final Instant NOW = Instant.parse("2026-01-01T10:00:00Z");
+
+    @Mock
+    private OutboxEventRepository outboxEventRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @TempDir
+    Path directory;
+
+    private final List<List<Long>> publishedBatches = new ArrayList<>();
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private OutboxProperties properties;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        properties = new OutboxProperties();
+        properties.setBatchSize(BATCH_SIZE);
+        properties.setPartitions(PARTITIONS);
+    }
+
+    @Test
+    void whenPartitionHasPendingEventsThenBatchesAreDeliveredInOrderAndDeletedAfterConfirmation() {
+        OutboxRelay outboxRelay = relay(events -> publishedBatches.add(ids(events)));
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        when(outboxEventRepository.findPartition(PARTITIONS, 1, PageRequest.of(0, BATCH_SIZE)))
+                .thenReturn(List.of(event(1L, 3L, 5), event(2L, 3L, 4)))
+                .thenReturn(List.of(event(3L, 5L, 1)));
+
+        int relayed = outboxRelay.drain(1);
+
+        assertThat(relayed, equalTo(3));
+        assertThat(publishedBatches, contains(List.of(1L, 2L), List.of(3L)));
+        InOrder deletions = inOrder(outboxEventRepository);
+        deletions.verify(outboxEventRepository).deleteByIdIn(List.of(1L, 2L));
+        deletions.verify(outboxEventRepository).deleteByIdIn(List.of(3L));
+        assertThat(meterRegistry.counter("beerstock.outbox.relayed").count(), equalTo(3.0));
+        assertThat(meterRegistry.get("beerstock.outbox.lag").timer().count(), equalTo(3L));
+        assertThat(meterRegistry.get("beerstock.outbox.oldest.pending.age").gauge().value(), equalTo(0.0));
+    }
+
+    @Test
+    void whenSinkFailsThenEventsStayInTheOutboxForTheNextPoll() {
+        OutboxRelay outboxRelay = relay(events -> {
+            throw new IOException("sink unavailable");
+        });
+        when(outboxEventRepository.findPartition(PARTITIONS, 0, PageRequest.of(0, BATCH_SIZE)))
+                .thenReturn(List.of(event(7L, 2L, 10)));
+
+        int relayed = outboxRelay.drain(0);
+
+        assertThat(relayed, equalTo(0));
+        verify(outboxEventRepository, never()).deleteByIdIn(anyCollection());
+        assertThat(meterRegistry.counter("beerstock.outbox.failures").count(), equalTo(1.0));
+        assertThat(meterRegistry.get("beerstock.outbox.oldest.pending.age").gauge().value(), equalTo(10.0));
+    }
+
+    @Test
+    void whenFileSinkPublishesThenEachEventIsAppendedAsAJsonLine() throws IOException {
+        Path file = directory.resolve("outbox").resolve("stock-events.jsonl");
+        ObjectMapper objectMapper = new ObjectMapper()
+                .registerModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        FileOutboxSink fileOutboxSink = new FileOutboxSink(file, objectMapper);
+
+        fileOutboxSink.publish(List.of(dto(1L), dto(2L)));
+        fileOutboxSink.publish(List.of(dto(3L)));
+
+        List<String> lines = Files.readAllLines(file);
+        assertThat(lines, hasSize(3));
+        assertThat(lines.get(2), startsWith("{\"id\":3,\"type\":\"STOCK_CHANGED\""));
+        assertThat(objectMapper.readValue(lines.get(0), OutboxEventDTO.class), equalTo(dto(1L)));
+    }
+
+    private OutboxRelay relay(OutboxSink outboxSink) {
+        return new OutboxRelay(properties, outboxEventRepository, outboxSink, transactionManager, meterRegistry,
+                Clock.fixed(NOW, ZoneOffset.UTC));
+    }
+
+    private OutboxEvent event(long id, long beerId, long secondsAgo) {
+        return OutboxEvent.builder()
+                .id(id)
+                .type(BeerEventType.STOCK_CHANGED)
+                .beerId(beerId)
+                .quantity(10)
+                .delta(1)
+                .version(id)
+                .occurredAt(NOW.minusSeconds(secondsAgo))
+                .build();
+    }
+
+    private OutboxEventDTO dto(long id) {
+        return OutboxEventDTO.builder()
+                .id(id)
+                .type(BeerEventType.STOCK_CHANGED)
+                .beerId(1L)
+                .quantity(10)
+                .delta(-2)
+                .version(id)
+                .occurredAt(NOW)
+                .build();
+    }
+
+    private List<Long> ids(List<OutboxEventDTO> events) {
+        return events.stream().map(OutboxEventDTO::getId).collect(Collectors.toList());
+    }
+}
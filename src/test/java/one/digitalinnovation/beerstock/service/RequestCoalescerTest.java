@@ -0,0 +1,114 @@
+package one.digitalinnovation.beerstock.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import one.digitalinnovation.beerstock.config.CoalescingProperties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+class RequestCoalescerTest {
+
+    private static final String FLIGHT = "findByName";
+    private static final String KEY = "Brahma";
+    private static final int FOLLOWERS = 16;
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final CoalescingProperties properties = new CoalescingProperties();
+    private final AtomicInteger loads = new AtomicInteger();
+    private final CountDownLatch leaderStarted = new CountDownLatch(1);
+    private final CountDownLatch releaseLeader = new CountDownLatch(1);
+
+    private ExecutorService executor;
+
+    @BeforeEach
+    void setUp() {
+        executor = Executors.newCachedThreadPool();
+    }
+
+    @AfterEach
+    void tearDown() {
+        releaseLeader.countDown();
+        executor.shutdownNow();
+    }
+
+    @Test
+    void whenIdenticalLookupsAreConcurrentThenTheyShareOneLoad() throws Exception {
+        properties.setTimeout(Duration.ofSeconds(5));
+        RequestCoalescer requestCoalescer = new RequestCoalescer(properties, meterRegistry);
+
+        Future<String> leader = executor.submit(() -> requestCoalescer.execute(FLIGHT, KEY, blockingLoader()));
+        leaderStarted.await(5, TimeUnit.SECONDS);
+        List<Future<String>> followers = new ArrayList<>();
+        for (int i = 0; i < FOLLOWERS; i++) {
+            followers.add(executor.submit(() -> requestCoalescer.execute(FLIGHT, KEY, blockingLoader())));
+        }
+        //Dá tempo para todos entrarem na fila da consulta em andamento
+        Thread.sleep(200);
+        releaseLeader.countDown();
+
+        assertThat(leader.get(5, TimeUnit.SECONDS), equalTo("result-1"));
+        for (Future<String> follower : followers) {
+            assertThat(follower.get(5, TimeUnit.SECONDS), equalTo("result-1"));
+        }
+        assertThat(loads.get(), equalTo(1));
+        assertThat(meterRegistry.counter("beerstock.coalescing", "flight", FLIGHT, "outcome", "joined").count(),
+                equalTo((double) FOLLOWERS));
+    }
+
+    //Fila cheia: quem chega consulta por conta própria sem esperar
+    @Test
+    void whenWaiterQueueIsFullThenTheCallerLoadsOnItsOwn() throws Exception {
+        properties.setMaxWaiters(0);
+        RequestCoalescer requestCoalescer = new RequestCoalescer(properties, meterRegistry);
+
+        executor.submit(() -> requestCoalescer.execute(FLIGHT, KEY, blockingLoader()));
+        leaderStarted.await(5, TimeUnit.SECONDS);
+
+        String result = requestCoalescer.execute(FLIGHT, KEY, () -> "result-" + loads.incrementAndGet());
+
+        assertThat(result, equalTo("result-2"));
+    }
+
+    @Test
+    void whenInFlightLoadIsSlowerThanTimeoutThenTheCallerFallsBackToItsOwnLoad() throws Exception {
+        properties.setTimeout(Duration.ofMillis(10));
+        RequestCoalescer requestCoalescer = new RequestCoalescer(properties, meterRegistry);
+
+        executor.submit(() -> requestCoalescer.execute(FLIGHT, KEY, blockingLoader()));
+        leaderStarted.await(5, TimeUnit.SECONDS);
+
+        String result = requestCoalescer.execute(FLIGHT, KEY, () -> "result-" + loads.incrementAndGet());
+
+        assertThat(result, equalTo("result-2"));
+        assertThat(meterRegistry.counter("beerstock.coalescing", "flight", FLIGHT, "outcome", "timeout").count(),
+                equalTo(1.0));
+    }
+
+    private Supplier<String> blockingLoader() {
+        return () -> {
+            int load = loads.incrementAndGet();
+            leaderStarted.countDown();
+            try {
+                releaseLeader.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return "result-" + load;
+        };
+    }
+}
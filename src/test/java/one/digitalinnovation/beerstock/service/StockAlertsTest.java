@@ -0,0 +1,140 @@
+package one.digitalinnovation.beerstock.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import one.digitalinnovation.beerstock.config.AlertProperties;
+import one.digitalinnovation.beerstock.dto.BeerDTO;
+import one.digitalinnovation.beerstock.dto.StockAlertDTO;
+import one.digitalinnovation.beerstock.enums.AlertCondition;
+import one.digitalinnovation.beerstock.enums.AlertState;
+import one.digitalinnovation.beerstock.enums.BeerType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class StockAlertsTest {
+
+    private static final Instant NOW = Instant.parse("2026-01-01T10:00:00Z");
+
+    private final List<StockAlertDTO> notified = new ArrayList<>();
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private AlertProperties properties;
+
+    private long version;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        properties = new AlertProperties();
+    }
+
+    @Test
+    void whenQuantityOscillatesAroundTheThresholdThenHysteresisKeepsTheAlertFromFlapping() {
+        properties.getRules().add(rule("low-stock", AlertCondition.BELOW, 0.1));
+        StockAlerts stockAlerts = stockAlerts(Runnable::run);
+
+        List.of(20, 9, 12, 8, 14, 15, 9).forEach(quantity -> stockAlerts.evaluate(beer(1L, BeerType.LAGER, quantity)));
+
+        assertThat(states(), contains(AlertState.RAISED, AlertState.CLEARED, AlertState.RAISED));
+        assertThat(notified.get(1).getQuantity(), equalTo(15));
+        assertThat(notified.get(0).getOccurredAt(), equalTo(NOW));
+        assertThat(meterRegistry.counter("beerstock.alerts", "rule", "low-stock", "state", "RAISED").count(), equalTo(2.0));
+    }
+
+    @Test
+    void whenRulesTargetATypeOrABeerThenOnlyMatchingBeersAreEvaluated() {
+        AlertProperties.Rule lagerAtCapacity = rule("lager-at-capacity", AlertCondition.AT_OR_ABOVE, 1.0);
+        lagerAtCapacity.setType(BeerType.LAGER);
+        AlertProperties.Rule beerLowStock = rule("beer-2-low-stock", AlertCondition.BELOW, 0.5);
+        beerLowStock.setBeerId(2L);
+        properties.getRules().addAll(List.of(lagerAtCapacity, beerLowStock));
+        StockAlerts stockAlerts = stockAlerts(Runnable::run);
+
+        stockAlerts.evaluate(beer(1L, BeerType.IPA, 100));
+        stockAlerts.evaluate(beer(3L, BeerType.IPA, 10));
+        stockAlerts.evaluate(beer(1L, BeerType.LAGER, 100));
+        stockAlerts.evaluate(beer(2L, BeerType.IPA, 10));
+
+        assertThat(notified.stream().map(StockAlertDTO::getRule).collect(Collectors.toList()),
+                contains("lager-at-capacity", "beer-2-low-stock"));
+    }
+
+    @Test
+    void whenAnOlderVersionArrivesAfterANewerOneThenItIsIgnored() {
+        properties.getRules().add(rule("low-stock", AlertCondition.BELOW, 0.1));
+        StockAlerts stockAlerts = stockAlerts(Runnable::run);
+
+        BeerDTO older = beer(1L, BeerType.LAGER, 50);
+        stockAlerts.evaluate(beer(1L, BeerType.LAGER, 5));
+        stockAlerts.evaluate(older);
+
+        assertThat(states(), contains(AlertState.RAISED));
+    }
+
+    @Test
+    void whenTheNotifierQueueIsFullThenAlertsAreDroppedAndCounted() {
+        properties.getRules().add(rule("low-stock", AlertCondition.BELOW, 0.1));
+        StockAlerts stockAlerts = stockAlerts(command -> {
+            throw new RejectedExecutionException("queue full");
+        });
+
+        stockAlerts.evaluate(beer(1L, BeerType.LAGER, 5));
+
+        assertThat(notified, empty());
+        assertThat(meterRegistry.counter("beerstock.alerts.dropped").count(), equalTo(1.0));
+    }
+
+    @Test
+    void whenARuleTargetsBothABeerAndATypeThenStartupFails() {
+        AlertProperties.Rule rule = rule("ambiguous", AlertCondition.BELOW, 0.1);
+        rule.setBeerId(1L);
+        rule.setType(BeerType.LAGER);
+        properties.getRules().add(rule);
+
+        assertThrows(IllegalStateException.class, () -> stockAlerts(Runnable::run));
+    }
+
+    private StockAlerts stockAlerts(Executor dispatcher) {
+        return new StockAlerts(properties, notified::add, meterRegistry, dispatcher, Clock.fixed(NOW, ZoneOffset.UTC));
+    }
+
+    private AlertProperties.Rule rule(String name, AlertCondition condition, double threshold) {
+        AlertProperties.Rule rule = new AlertProperties.Rule();
+        rule.setName(name);
+        rule.setCondition(condition);
+        rule.setThreshold(threshold);
+        return rule;
+    }
+
+    //Cada cerveja montada aqui é uma mutação nova, com versão maior que a anterior
+    private BeerDTO beer(Long id, BeerType type, int quantity) {
+        return BeerDTO.builder()
+                .id(id)
+                .name("Beer " + id)
+                .brand("Ambev")
+                .type(type)
+                .max(100)
+                .quantity(quantity)
+                .version(version++)
+                .build();
+    }
+
+    private List<AlertState> states() {
+        return notified.stream().map(StockAlertDTO::getState).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,206 @@
+package one.digitalinnovation.beerstock.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import one.digitalinnovation.beerstock.builder.BeerDTOBuilder;
+import one.digitalinnovation.beerstock.config.StockWriteProperties;
+import one.digitalinnovation.beerstock.dto.BeerDTO;
+import one.digitalinnovation.beerstock.entity.Beer;
+import one.digitalinnovation.beerstock.enums.BeerType;
+import one.digitalinnovation.beerstock.enums.StockWriteMode;
+import one.digitalinnovation.beerstock.exception.BeerNotFoundException;
+import one.digitalinnovation.beerstock.exception.BeerStockExceededException;
+import one.digitalinnovation.beerstock.mapper.BeerMapper;
+import one.digitalinnovation.beerstock.repository.BeerRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class StockDeltaBufferTest {
+
+    private static final long INVALID_BEER_ID = 2L;
+
+    @Mock
+    private BeerRepository beerRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private BeerOutbox beerOutbox;
+
+    @Mock
+    private BeerMutationListener beerMutationListener;
+
+    private final BeerMapper beerMapper = BeerMapper.INSTANCE;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private StockDeltaBuffer stockDeltaBuffer;
+
+    @BeforeEach
+    void setUp() {
+        StockWriteProperties properties = new StockWriteProperties();
+        properties.setWriteMode(StockWriteMode.WRITE_BEHIND);
+        //Limite alto: nos testes o flush é sempre disparado manualmente
+        properties.setFlushThreshold(Integer.MAX_VALUE);
+        stockDeltaBuffer = new StockDeltaBuffer(beerRepository, transactionManager, properties, beerOutbox, beerMutationListener,
+                meterRegistry);
+    }
+
+    @Test
+    void whenDeltasAreAcceptedThenTheyAreMergedIntoASingleUpdateOnFlush() throws BeerNotFoundException, BeerStockExceededException {
+        BeerDTO beerDTO = BeerDTOBuilder.builder().build().toBeerDTO();
+        Beer beer = beerMapper.toModel(beerDTO);
+
+        when(beerRepository.findById(beer.getId())).thenReturn(Optional.of(beer));
+        when(beerRepository.incrementQuantity(beer.getId(), 12)).thenReturn(1);
+
+        stockDeltaBuffer.accept(beer.getId(), 5);
+        BeerDTO bufferedBeerDTO = stockDeltaBuffer.accept(beer.getId(), 7);
+
+        assertThat(bufferedBeerDTO.getQuantity(), equalTo(beerDTO.getQuantity() + 12));
+        verify(beerRepository, never()).incrementQuantity(anyLong(), anyInt());
+
+        stockDeltaBuffer.flush();
+        stockDeltaBuffer.flush();
+
+        //Segundo flush não tem nada pendente
+        verify(beerRepository, times(1)).incrementQuantity(beer.getId(), 12);
+        verify(beerOutbox, times(1)).stockChanged(beer, 12);
+        //O listener recebe o estado relido do banco depois do flush, com o delta somado
+        verify(beerMutationListener, times(1)).stockChanged(List.of(beerMapper.toDTO(beer)), Map.of(beer.getId(), 12));
+    }
+
+    //A soma foi recusada porque outro escritor encheu o estoque: cada delta é regravado e fica o que ainda cabe,
+    //inclusive o aceito enquanto o flush estava no banco
+    @Test
+    void whenTheMergedDeltaIsRejectedThenPendingDeltasAreReappliedOneByOne() throws BeerNotFoundException, BeerStockExceededException {
+        BeerDTO beerDTO = BeerDTOBuilder.builder().build().toBeerDTO();
+        Beer beer = beerMapper.toModel(beerDTO);
+
+        when(beerRepository.findById(beer.getId())).thenReturn(Optional.of(beer));
+        when(beerRepository.incrementQuantity(beer.getId(), 35)).thenAnswer(invocation -> {
+            stockDeltaBuffer.accept(beer.getId(), 3);
+            return 0;
+        });
+        when(beerRepository.incrementQuantity(beer.getId(), 20)).thenReturn(1);
+        when(beerRepository.incrementQuantity(beer.getId(), 15)).thenReturn(0);
+
+        stockDeltaBuffer.accept(beer.getId(), 20);
+        stockDeltaBuffer.accept(beer.getId(), 15);
+        stockDeltaBuffer.flush();
+
+        verify(beerOutbox, times(1)).stockChanged(beer, 20);
+        verify(beerMutationListener, times(1)).stockChanged(List.of(beerMapper.toDTO(beer)), Map.of(beer.getId(), 20));
+
+        when(beerRepository.incrementQuantity(beer.getId(), 3)).thenReturn(1);
+        stockDeltaBuffer.flush();
+
+        verify(beerRepository, times(1)).incrementQuantity(beer.getId(), 3);
+        verify(beerOutbox, times(1)).stockChanged(beer, 3);
+        //O 15 aceito não coube: fica contado e é repassado ao listener para o cliente reconciliar
+        verify(beerMutationListener, times(1)).stockDropped(beer.getId(), List.of(15));
+        assertThat(dropped("rejected"), equalTo(1.0));
+    }
+
+    @Test
+    void whenTheBeerWasRemovedFromTheStoreThenItsPendingDeltasAreDropped() throws BeerNotFoundException, BeerStockExceededException {
+        BeerDTO beerDTO = BeerDTOBuilder.builder().build().toBeerDTO();
+        Beer beer = beerMapper.toModel(beerDTO);
+
+        when(beerRepository.findById(beer.getId())).thenReturn(Optional.of(beer), Optional.empty());
+        when(beerRepository.incrementQuantity(beer.getId(), 5)).thenReturn(0);
+
+        stockDeltaBuffer.accept(beer.getId(), 5);
+        stockDeltaBuffer.flush();
+        stockDeltaBuffer.flush();
+
+        verify(beerRepository, times(1)).incrementQuantity(beer.getId(), 5);
+        verify(beerOutbox, never()).stockChanged(any(), anyInt());
+        verify(beerMutationListener, times(1)).stockChanged(List.of(), Map.of());
+        verify(beerMutationListener, times(1)).stockDropped(beer.getId(), List.of(5));
+        assertThat(dropped("removed"), equalTo(1.0));
+    }
+
+    //Saldo negativo passa pelo decremento, que recusa deixar a quantidade gravada abaixo de zero
+    @Test
+    void whenTheMergedDeltaIsNegativeThenItIsWrittenAsADecrement() throws BeerNotFoundException, BeerStockExceededException {
+        BeerDTO beerDTO = BeerDTOBuilder.builder().build().toBeerDTO();
+        Beer beer = beerMapper.toModel(beerDTO);
+
+        when(beerRepository.findById(beer.getId())).thenReturn(Optional.of(beer));
+        when(beerRepository.decrementQuantity(beer.getId(), 6)).thenReturn(1);
+
+        stockDeltaBuffer.accept(beer.getId(), 2);
+        stockDeltaBuffer.accept(beer.getId(), -8);
+        stockDeltaBuffer.flush();
+
+        verify(beerRepository, never()).incrementQuantity(anyLong(), anyInt());
+        verify(beerOutbox, times(1)).stockChanged(beer, -6);
+    }
+
+    //Depois do flush o accept devolve a versão relida do banco, não a da primeira leitura
+    @Test
+    void whenDeltasAreFlushedThenTheSnapshotVersionIsRefreshedFromTheStore() throws BeerNotFoundException, BeerStockExceededException {
+        //O mapper ignora a versão, controlada pelo banco: as entidades são montadas direto
+        Beer beer = beer(10, 3L);
+        Beer storedBeer = beer(15, 4L);
+
+        when(beerRepository.findById(beer.getId())).thenReturn(Optional.of(beer), Optional.of(storedBeer));
+        when(beerRepository.incrementQuantity(beer.getId(), 5)).thenReturn(1);
+
+        stockDeltaBuffer.accept(beer.getId(), 5);
+        stockDeltaBuffer.flush();
+        BeerDTO bufferedBeerDTO = stockDeltaBuffer.accept(beer.getId(), 1);
+
+        assertThat(bufferedBeerDTO.getVersion(), equalTo(4L));
+        assertThat(bufferedBeerDTO.getQuantity(), equalTo(16));
+    }
+
+    //Quantidade reservada conta os deltas ainda não gravados
+    @Test
+    void whenPendingDeltasExceedMaxThenAnExceptionShouldBeThrown() throws BeerNotFoundException, BeerStockExceededException {
+        BeerDTO beerDTO = BeerDTOBuilder.builder().build().toBeerDTO();
+        Beer beer = beerMapper.toModel(beerDTO);
+
+        when(beerRepository.findById(beer.getId())).thenReturn(Optional.of(beer));
+
+        stockDeltaBuffer.accept(beer.getId(), 30);
+
+        assertThrows(BeerStockExceededException.class, () -> stockDeltaBuffer.accept(beer.getId(), 20));
+    }
+
+    @Test
+    void whenDeltaIsAcceptedWithAnInvalidIdThenAnExceptionShouldBeThrown() {
+        when(beerRepository.findById(INVALID_BEER_ID)).thenReturn(Optional.empty());
+
+        assertThrows(BeerNotFoundException.class, () -> stockDeltaBuffer.accept(INVALID_BEER_ID, 10));
+    }
+
+    private Beer beer(int quantity, long version) {
+        return new Beer(1L, "Brahma", null, "Ambev", 50, quantity, BeerType.LAGER, version);
+    }
+
+    private double dropped(String reason) {
+        return meterRegistry.counter("beerstock.stock.write-behind.dropped", "reason", reason).count();
+    }
+}
@@ -0,0 +1,147 @@
+package one.digitalinnovation.beerstock.service;
+
+import one.digitalinnovation.beerstock.config.StockHistoryProperties;
+import one.digitalinnovation.beerstock.dto.StockHistoryDTO;
+import one.digitalinnovation.beerstock.dto.StockHistoryPointDTO;
+import one.digitalinnovation.beerstock.enums.HistoryResolution;
+import one.digitalinnovation.beerstock.exception.InvalidHistoryRangeException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.lenient;
+
+@ExtendWith(MockitoExtension.class)
+class StockHistoryTest {
+
+    private static final long BEER_ID = 1L;
+    private static final Instant START = Instant.parse("2026-01-01T10:00:00Z");
+
+    @Mock
+    private Clock clock;
+
+    private Instant now = START;
+
+    private StockHistory stockHistory;
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(clock.millis()).thenAnswer(invocation -> now.toEpochMilli());
+        lenient().when(clock.instant()).thenAnswer(invocation -> now);
+        stockHistory = new StockHistory(new StockHistoryProperties(), clock);
+    }
+
+    @Test
+    void whenSamplesFallInTheSameBucketThenTheyAreRolledUpPerResolution() throws InvalidHistoryRangeException {
+        recordAt("10:00:05", 10);
+        recordAt("10:00:30", 4);
+        recordAt("10:00:50", 7);
+        recordAt("10:01:10", 12);
+        recordAt("10:03:00", 9);
+
+        StockHistoryDTO minutes = stockHistory.query(BEER_ID, START, at("10:05:00"), HistoryResolution.MINUTE);
+        StockHistoryDTO hours = stockHistory.query(BEER_ID, START, at("10:05:00"), HistoryResolution.HOUR);
+
+        assertThat(starts(minutes), contains(START, at("10:01:00"), at("10:03:00")));
+        assertPoint(minutes.getPoints().get(0), 10, 4, 10, 7, 3);
+        assertPoint(minutes.getPoints().get(1), 12, 12, 12, 12, 1);
+        assertThat(hours.getPoints(), hasSize(1));
+        assertPoint(hours.getPoints().get(0), 10, 4, 12, 9, 5);
+    }
+
+    @Test
+    void whenRangeStartsAfterSealedBucketsThenOnlyTheRangeIsReturnedWithTheQuantityBeforeIt() throws InvalidHistoryRangeException {
+        int buckets = StockHistory.BUCKETS_PER_CHUNK * 3;
+        for (int minute = 0; minute < buckets; minute++) {
+            now = START.plus(Duration.ofMinutes(minute));
+            stockHistory.record(BEER_ID, quantityAt(minute));
+        }
+
+        Instant from = START.plus(Duration.ofMinutes(200));
+        StockHistoryDTO history = stockHistory.query(BEER_ID, from, from.plus(Duration.ofMinutes(10)), HistoryResolution.MINUTE);
+
+        assertThat(history.getOpeningQuantity(), equalTo(quantityAt(199)));
+        assertThat(history.getPoints(), hasSize(10));
+        for (int i = 0; i < 10; i++) {
+            StockHistoryPointDTO point = history.getPoints().get(i);
+            assertThat(point.getStart(), equalTo(from.plus(Duration.ofMinutes(i))));
+            assertPoint(point, quantityAt(200 + i), quantityAt(200 + i), quantityAt(200 + i), quantityAt(200 + i), 1);
+        }
+    }
+
+    @Test
+    void whenRangeSpansTooManyBucketsThenItIsRejectedOrACoarserResolutionIsChosen() throws InvalidHistoryRangeException {
+        recordAt("10:00:00", 10);
+        Instant to = START.plus(Duration.ofDays(10));
+
+        assertThrows(InvalidHistoryRangeException.class, () -> stockHistory.query(BEER_ID, START, to, HistoryResolution.MINUTE));
+        assertThrows(InvalidHistoryRangeException.class, () -> stockHistory.query(BEER_ID, to, START, null));
+        StockHistoryDTO history = stockHistory.query(BEER_ID, START, to, null);
+
+        assertThat(history.getResolution(), equalTo(HistoryResolution.HOUR));
+        assertThat(history.getPoints(), hasSize(1));
+    }
+
+    @Test
+    void whenBucketsLeaveTheirRetentionThenCompactionDropsThem() throws InvalidHistoryRangeException {
+        for (int minute = 0; minute < StockHistory.BUCKETS_PER_CHUNK * 2; minute++) {
+            now = START.plus(Duration.ofMinutes(minute));
+            stockHistory.record(BEER_ID, quantityAt(minute));
+        }
+        Instant to = START.plus(Duration.ofDays(1));
+
+        now = START.plus(Duration.ofDays(3));
+        stockHistory.compact();
+
+        assertThat(stockHistory.query(BEER_ID, START, to, HistoryResolution.MINUTE).getPoints(), empty());
+        assertThat(stockHistory.query(BEER_ID, START, to, HistoryResolution.HOUR).getPoints(), hasSize(5));
+
+        now = START.plus(Duration.ofDays(6 * 365));
+        stockHistory.compact();
+
+        StockHistoryDTO history = stockHistory.query(BEER_ID, START, to, HistoryResolution.DAY);
+        assertThat(history.getPoints(), empty());
+        assertThat(history.getOpeningQuantity(), nullValue());
+    }
+
+    private void recordAt(String time, int quantity) {
+        now = at(time);
+        stockHistory.record(BEER_ID, quantity);
+    }
+
+    private Instant at(String time) {
+        return Instant.parse("2026-01-01T" + time + "Z");
+    }
+
+    //Sobe e desce para exercitar deltas negativos
+    private int quantityAt(int minute) {
+        return (minute * 37) % 500;
+    }
+
+    private List<Instant> starts(StockHistoryDTO history) {
+        return history.getPoints().stream().map(StockHistoryPointDTO::getStart).collect(Collectors.toList());
+    }
+
+    private void assertPoint(StockHistoryPointDTO point, int open, int min, int max, int close, int samples) {
+        assertThat(point.getOpen(), equalTo(open));
+        assertThat(point.getMin(), equalTo(min));
+        assertThat(point.getMax(), equalTo(max));
+        assertThat(point.getClose(), equalTo(close));
+        assertThat(point.getSamples(), equalTo(samples));
+    }
+}
@@ -0,0 +1,236 @@
+package one.digitalinnovation.beerstock.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import one.digitalinnovation.beerstock.builder.BeerDTOBuilder;
+import one.digitalinnovation.beerstock.config.ReservationProperties;
+import one.digitalinnovation.beerstock.config.StockWriteProperties;
+import one.digitalinnovation.beerstock.dto.BeerDTO;
+import one.digitalinnovation.beerstock.dto.ReservationDTO;
+import one.digitalinnovation.beerstock.entity.Beer;
+import one.digitalinnovation.beerstock.entity.StockReservation;
+import one.digitalinnovation.beerstock.enums.ReservationStatus;
+import one.digitalinnovation.beerstock.exception.BeerNotFoundException;
+import one.digitalinnovation.beerstock.exception.BeerStockExceededException;
+import one.digitalinnovation.beerstock.exception.ReservationNotFoundException;
+import one.digitalinnovation.beerstock.exception.ReservationNotHeldException;
+import one.digitalinnovation.beerstock.mapper.BeerMapper;
+import one.digitalinnovation.beerstock.repository.BeerRepository;
+import one.digitalinnovation.beerstock.repository.StockReservationRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Optional;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class StockReservationServiceTest {
+
+    private static final long BEER_ID = 1L;
+    private static final long RESERVATION_ID = 10L;
+    private static final Instant NOW = Instant.parse("2026-01-01T10:00:00Z");
+
+    @Mock
+    private StockReservationRepository reservationRepository;
+
+    @Mock
+    private BeerRepository beerRepository;
+
+    @Mock
+    private StockDeltaBuffer stockDeltaBuffer;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private BeerOutbox beerOutbox;
+
+    @Mock
+    private BeerMutationListener beerMutationListener;
+
+    private final BeerMapper beerMapper = BeerMapper.INSTANCE;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private StockReservationService stockReservationService;
+
+    @BeforeEach
+    void setUp() {
+        ReservationProperties properties = new ReservationProperties();
+        properties.setTtl(Duration.ofMinutes(15));
+        StockRetryPolicy stockRetryPolicy = new StockRetryPolicy(new StockWriteProperties(), new SimpleMeterRegistry());
+        stockReservationService = new StockReservationService(reservationRepository, beerRepository, stockDeltaBuffer,
+                stockRetryPolicy, transactionManager, properties, beerOutbox, beerMutationListener, meterRegistry,
+                Clock.fixed(NOW, ZoneOffset.UTC));
+    }
+
+    //A cerveja relida na transação leva a quantidade e a versão gravadas ao outbox e ao listener
+    @Test
+    void whenStockIsAvailableThenReservationIsHeld() throws BeerNotFoundException, BeerStockExceededException {
+        Beer reservedBeer = beer(15, 3L);
+
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        when(beerRepository.decrementQuantity(BEER_ID, 5)).thenReturn(1);
+        when(beerRepository.findById(BEER_ID)).thenReturn(Optional.of(reservedBeer));
+        when(reservationRepository.save(any(StockReservation.class))).thenAnswer(invocation -> {
+            StockReservation reservation = invocation.getArgument(0);
+            reservation.setId(RESERVATION_ID);
+            return reservation;
+        });
+
+        ReservationDTO reservationDTO = stockReservationService.reserve(BEER_ID, 5);
+
+        assertThat(reservationDTO.getStatus(), equalTo(ReservationStatus.HELD));
+        assertThat(reservationDTO.getExpiresAt(), equalTo(NOW.plus(Duration.ofMinutes(15))));
+        verify(stockDeltaBuffer).applied(BEER_ID, -5);
+        verify(beerOutbox).stockChanged(reservedBeer, -5);
+        verify(beerMutationListener).stockChanged(beerMapper.toDTO(reservedBeer), -5);
+    }
+
+    //Com write-behind os deltas pendentes são gravados antes, para que o decremento veja o estoque projetado
+    @Test
+    void whenWriteBehindIsEnabledThenPendingDeltasAreFlushedBeforeReserving() {
+        when(stockDeltaBuffer.isEnabled()).thenReturn(true);
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        when(beerRepository.decrementQuantity(BEER_ID, 50)).thenReturn(0);
+        when(beerRepository.existsById(BEER_ID)).thenReturn(true);
+
+        assertThrows(BeerStockExceededException.class, () -> stockReservationService.reserve(BEER_ID, 50));
+
+        InOrder inOrder = inOrder(stockDeltaBuffer, beerRepository);
+        inOrder.verify(stockDeltaBuffer).flush();
+        inOrder.verify(beerRepository).decrementQuantity(BEER_ID, 50);
+    }
+
+    //Estoque insuficiente: o update condicional não altera a linha e nenhuma reserva é gravada
+    @Test
+    void whenStockIsNotEnoughThenAnExceptionShouldBeThrown() {
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        when(beerRepository.decrementQuantity(BEER_ID, 50)).thenReturn(0);
+        when(beerRepository.existsById(BEER_ID)).thenReturn(true);
+
+        assertThrows(BeerStockExceededException.class, () -> stockReservationService.reserve(BEER_ID, 50));
+        verify(reservationRepository, never()).save(any());
+        verify(beerMutationListener, never()).stockChanged(any(BeerDTO.class), anyInt());
+    }
+
+    //Commit perdeu a corrida para a expiração
+    @Test
+    void whenCommittingAReservationThatIsNoLongerHeldThenAnExceptionShouldBeThrown() {
+        StockReservation reservation = reservation(ReservationStatus.EXPIRED, NOW.minusSeconds(1));
+
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        when(reservationRepository.commitHeld(RESERVATION_ID, NOW)).thenReturn(0);
+        when(reservationRepository.findById(RESERVATION_ID)).thenReturn(Optional.of(reservation));
+
+        assertThrows(ReservationNotHeldException.class, () -> stockReservationService.commit(RESERVATION_ID));
+    }
+
+    @Test
+    void whenReleasingAHeldReservationThenUnitsAreReturnedToStock() throws ReservationNotFoundException, ReservationNotHeldException {
+        StockReservation reservation = reservation(ReservationStatus.HELD, NOW.plusSeconds(60));
+        Beer restoredBeer = beer(20, 4L);
+
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        when(reservationRepository.findById(RESERVATION_ID)).thenReturn(Optional.of(reservation));
+        when(reservationRepository.releaseHeld(RESERVATION_ID)).thenReturn(1);
+        when(beerRepository.restoreQuantity(BEER_ID, reservation.getQuantity())).thenReturn(1);
+        when(beerRepository.findById(BEER_ID)).thenReturn(Optional.of(restoredBeer));
+
+        ReservationDTO reservationDTO = stockReservationService.release(RESERVATION_ID);
+
+        assertThat(reservationDTO.getStatus(), equalTo(ReservationStatus.RELEASED));
+        verify(stockDeltaBuffer).applied(BEER_ID, reservation.getQuantity());
+        verify(beerMutationListener).stockChanged(beerMapper.toDTO(restoredBeer), reservation.getQuantity());
+    }
+
+    //Outro escritor encheu o estoque com a reserva aberta: volta só o que cabe no max e o resto fica contado
+    @Test
+    void whenReleasedUnitsDoNotFitUnderMaxThenOnlyTheRoomLeftIsRestored() throws ReservationNotFoundException, ReservationNotHeldException {
+        StockReservation reservation = reservation(ReservationStatus.HELD, NOW.plusSeconds(60));
+        Beer nearMaxBeer = beer(48, 4L);
+        Beer restoredBeer = beer(50, 5L);
+
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        when(reservationRepository.findById(RESERVATION_ID)).thenReturn(Optional.of(reservation));
+        when(reservationRepository.releaseHeld(RESERVATION_ID)).thenReturn(1);
+        when(beerRepository.restoreQuantity(BEER_ID, reservation.getQuantity())).thenReturn(0);
+        when(beerRepository.findById(BEER_ID)).thenReturn(Optional.of(nearMaxBeer), Optional.of(restoredBeer));
+        when(beerRepository.restoreQuantity(BEER_ID, 2)).thenReturn(1);
+
+        stockReservationService.release(RESERVATION_ID);
+
+        verify(stockDeltaBuffer).applied(BEER_ID, 2);
+        verify(beerOutbox).stockChanged(restoredBeer, 2);
+        verify(beerMutationListener).stockChanged(beerMapper.toDTO(restoredBeer), 2);
+        assertThat(meterRegistry.get("beerstock.reservation.restore.excess").counter().count(), equalTo(3.0));
+    }
+
+    @Test
+    void whenAnOverdueReservationIsExpiredThenUnitsAreReturnedAndTheListenerNotified() {
+        StockReservation overdueReservation = reservation(ReservationStatus.HELD, NOW.minusSeconds(1));
+        Beer restoredBeer = beer(20, 4L);
+
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        when(reservationRepository.findByStatusAndExpiresAtBefore(any(), any(), any())).thenReturn(List.of(overdueReservation));
+        when(reservationRepository.expireHeld(RESERVATION_ID, NOW)).thenReturn(1);
+        when(beerRepository.restoreQuantity(BEER_ID, overdueReservation.getQuantity())).thenReturn(1);
+        when(beerRepository.findById(BEER_ID)).thenReturn(Optional.of(restoredBeer));
+
+        stockReservationService.expireOverdueReservations();
+
+        verify(beerOutbox).stockChanged(restoredBeer, overdueReservation.getQuantity());
+        verify(beerMutationListener).stockChanged(beerMapper.toDTO(restoredBeer), overdueReservation.getQuantity());
+    }
+
+    //Reserva vencida que já foi confirmada por outra requisição não devolve estoque
+    @Test
+    void whenSweepingOverdueReservationsThenOnlyReservationsStillHeldAreRestored() {
+        StockReservation overdueReservation = reservation(ReservationStatus.HELD, NOW.minusSeconds(1));
+
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        when(reservationRepository.findByStatusAndExpiresAtBefore(any(), any(), any())).thenReturn(List.of(overdueReservation));
+        when(reservationRepository.expireHeld(RESERVATION_ID, NOW)).thenReturn(0);
+
+        stockReservationService.expireOverdueReservations();
+
+        verify(beerRepository, never()).restoreQuantity(anyLong(), anyInt());
+        verify(beerMutationListener, never()).stockChanged(any(BeerDTO.class), anyInt());
+    }
+
+    private Beer beer(int quantity, long version) {
+        Beer beer = beerMapper.toModel(BeerDTOBuilder.builder().id(BEER_ID).quantity(quantity).build().toBeerDTO());
+        beer.setVersion(version);
+        return beer;
+    }
+
+    private StockReservation reservation(ReservationStatus status, Instant expiresAt) {
+        return StockReservation.builder()
+                .id(RESERVATION_ID)
+                .beerId(BEER_ID)
+                .quantity(5)
+                .status(status)
+                .expiresAt(expiresAt)
+                .build();
+    }
+}
@@ -0,0 +1,94 @@
+package one.digitalinnovation.beerstock.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import one.digitalinnovation.beerstock.config.ExecutionProperties;
+import one.digitalinnovation.beerstock.enums.ExecutionMode;
+import one.digitalinnovation.beerstock.exception.BeerNotFoundException;
+import one.digitalinnovation.beerstock.exception.StoreSaturatedException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.startsWith;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class StoreExecutorTest {
+
+    private final ExecutionProperties properties = new ExecutionProperties();
+    private final CountDownLatch releaseStore = new CountDownLatch(1);
+
+    private StoreExecutor storeExecutor;
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        releaseStore.countDown();
+        if (storeExecutor != null) {
+            storeExecutor.shutdown();
+        }
+    }
+
+    @Test
+    void whenModeIsBlockingThenTheStoreCallRunsOnTheRequestThread() throws Exception {
+        storeExecutor = new StoreExecutor(properties, new SimpleMeterRegistry());
+
+        CompletableFuture<String> result = storeExecutor.submit(() -> Thread.currentThread().getName());
+
+        assertThat(result.isDone(), equalTo(true));
+        assertThat(result.get(), equalTo(Thread.currentThread().getName()));
+    }
+
+    @Test
+    void whenModeIsAsyncThenTheStoreCallRunsOnTheStorePool() throws Exception {
+        properties.setMode(ExecutionMode.ASYNC);
+        storeExecutor = new StoreExecutor(properties, new SimpleMeterRegistry());
+
+        CompletableFuture<String> result = storeExecutor.submit(() -> Thread.currentThread().getName());
+
+        assertThat(result.get(5, TimeUnit.SECONDS), startsWith("beer-store-"));
+    }
+
+    //Pool e fila ocupados: a requisição seguinte falha na hora em vez de esperar
+    @Test
+    void whenStorePoolAndQueueAreFullThenTheCallFailsAsSaturated() throws Exception {
+        properties.setMode(ExecutionMode.ASYNC);
+        properties.setStorePoolSize(1);
+        properties.setStoreQueueCapacity(1);
+        storeExecutor = new StoreExecutor(properties, new SimpleMeterRegistry());
+        CountDownLatch storeBusy = new CountDownLatch(1);
+
+        storeExecutor.submit(() -> {
+            storeBusy.countDown();
+            return releaseStore.await(5, TimeUnit.SECONDS);
+        });
+        storeBusy.await(5, TimeUnit.SECONDS);
+        CompletableFuture<Boolean> queued = storeExecutor.submit(() -> true);
+        CompletableFuture<Boolean> rejected = storeExecutor.submit(() -> true);
+
+        ExecutionException exception = assertThrows(ExecutionException.class, rejected::get);
+        assertThat(exception.getCause(), instanceOf(StoreSaturatedException.class));
+        releaseStore.countDown();
+        assertThat(queued.get(5, TimeUnit.SECONDS), equalTo(true));
+    }
+
+    //A exceção de domínio chega intacta ao Spring MVC, que a resolve pelo DomainExceptionHandler
+    @Test
+    void whenTheStoreCallFailsThenTheFutureFailsWithTheSameException() {
+        properties.setMode(ExecutionMode.ASYNC);
+        storeExecutor = new StoreExecutor(properties, new SimpleMeterRegistry());
+        BeerNotFoundException notFound = new BeerNotFoundException(1L);
+
+        CompletableFuture<Object> result = storeExecutor.submit(() -> {
+            throw notFound;
+        });
+
+        ExecutionException exception = assertThrows(ExecutionException.class, () -> result.get(5, TimeUnit.SECONDS));
+        assertThat(exception.getCause(), equalTo(notFound));
+    }
+}